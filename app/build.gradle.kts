@@ -29,6 +29,18 @@ android {
         sourceCompatibility = JavaVersion.VERSION_1_8
         targetCompatibility = JavaVersion.VERSION_1_8
     }
+    testOptions {
+        unitTests {
+            // android.util.Log and friends return defaults in plain JVM tests
+            isReturnDefaultValues = true
+            // Robolectric tests inflate the app's layouts and themes
+            isIncludeAndroidResources = true
+            // Timed benchmarks only run with -Pbenchmarks; their correctness checks always run
+            all {
+                it.systemProperty("benchmarks", project.hasProperty("benchmarks").toString())
+            }
+        }
+    }
 }
 
 dependencies {
@@ -39,6 +51,8 @@ dependencies {
     implementation("com.google.android.gms:play-services-maps:18.2.0")
     implementation("com.github.PhilJay:MPAndroidChart:v3.1.0")
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.test.core)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
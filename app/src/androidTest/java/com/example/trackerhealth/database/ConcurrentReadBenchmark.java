@@ -0,0 +1,195 @@
+package com.example.trackerhealth.database;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.trackerhealth.dao.PhysicalActivityDAO;
+import com.example.trackerhealth.dao.UserDAO;
+import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Mide en el dispositivo la latencia de lectura del historial mientras otro hilo inserta
+ * y actualiza actividades sin parar, y comprueba que con WAL una transacción de escritura
+ * abierta no bloquea a los lectores. Usa la base de datos de la aplicación con un usuario
+ * propio que se borra al terminar (las actividades se borran en cascada).
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConcurrentReadBenchmark {
+
+    private static final String TAG = "ConcurrentReadBenchmark";
+    private static final int SEED_ACTIVITIES = 2000;
+    private static final int READS = 300;
+    private static final int PAGE_SIZE = 50;
+
+    private UserDAO userDAO;
+    private PhysicalActivityDAO activityDAO;
+    private long userId;
+    private ExecutorService writer;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        userDAO = new UserDAO(context);
+        activityDAO = new PhysicalActivityDAO(context);
+        userId = userDAO.insertUser(new User("Benchmark", "benchmark-" + System.nanoTime() + "@example.com", "x"));
+        assertTrue(userId > 0);
+
+        List<PhysicalActivity> activities = new ArrayList<>(SEED_ACTIVITIES);
+        for (int i = 0; i < SEED_ACTIVITIES; i++) {
+            activities.add(activity(i));
+        }
+        activityDAO.insertActivities(activities);
+        writer = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        writer.shutdownNow();
+        userDAO.deleteUser(userId);
+    }
+
+    @Test
+    public void connectionsAreConfigured() {
+        SQLiteDatabase db = DatabaseHelper.getInstance(
+                InstrumentationRegistry.getInstrumentation().getTargetContext()).getWritableDatabase();
+
+        assertTrue(db.isWriteAheadLoggingEnabled());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // NORMAL = 1; la consulta puede ir a cualquier conexión del pool
+            assertEquals(1, DatabaseUtils.longForQuery(db, "PRAGMA synchronous", null));
+        }
+    }
+
+    @Test
+    public void openWriteTransactionDoesNotBlockReaders() throws Exception {
+        SQLiteDatabase db = DatabaseHelper.getInstance(
+                InstrumentationRegistry.getInstrumentation().getTargetContext()).getWritableDatabase();
+        CountDownLatch inTransaction = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> transaction = writer.submit(() -> {
+            db.beginTransaction();
+            try {
+                db.execSQL("UPDATE " + DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES
+                        + " SET " + DatabaseHelper.KEY_ACTIVITY_CALORIES + " = -1 WHERE "
+                        + DatabaseHelper.KEY_ACTIVITY_USER_ID_FK + " = " + userId);
+                inTransaction.countDown();
+                release.await();
+            } finally {
+                // Sin setTransactionSuccessful: se revierte
+                db.endTransaction();
+            }
+            return null;
+        });
+
+        try {
+            assertTrue(inTransaction.await(5, TimeUnit.SECONDS));
+            long start = SystemClock.elapsedRealtime();
+            List<PhysicalActivity> page = activityDAO.getRecentActivities(userId, PAGE_SIZE);
+            long elapsed = SystemClock.elapsedRealtime() - start;
+
+            Log.i(TAG, "Lectura con una transacción de escritura abierta: " + elapsed + " ms");
+            assertEquals(PAGE_SIZE, page.size());
+            // El lector ve la última versión confirmada, no la escritura en curso
+            for (PhysicalActivity activity : page) {
+                assertTrue(activity.getCaloriesBurned() >= 0);
+            }
+            assertTrue("Read took " + elapsed + " ms", elapsed < 1000);
+        } finally {
+            release.countDown();
+            transaction.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void readLatencyUnderConcurrentWrites() throws Exception {
+        long[] idle = measureReads();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger writes = new AtomicInteger();
+        Future<?> writeLoop = writer.submit(() -> {
+            int i = SEED_ACTIVITIES;
+            while (running.get()) {
+                PhysicalActivity activity = activity(i++);
+                long id = activityDAO.insertActivity(activity);
+                activity.setId(id);
+                activity.setCaloriesBurned(activity.getCaloriesBurned() + 1);
+                activityDAO.updateActivity(activity);
+                writes.addAndGet(2);
+            }
+        });
+
+        long[] loaded;
+        try {
+            loaded = measureReads();
+        } finally {
+            running.set(false);
+            writeLoop.get(10, TimeUnit.SECONDS);
+        }
+
+        String report = String.format(Locale.US,
+                "Lecturas de %d actividades, en ms (p50 / p95 / max): sin escrituras %s, con %d escrituras %s",
+                PAGE_SIZE, summary(idle), writes.get(), summary(loaded));
+        Log.i(TAG, report);
+        System.out.println(report);
+        assertTrue(writes.get() > 0);
+    }
+
+    /**
+     * Lee READS veces la primera página del historial
+     * @return Latencia de cada lectura en microsegundos, ordenadas
+     */
+    private long[] measureReads() {
+        long[] latencies = new long[READS];
+        for (int i = 0; i < READS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            List<PhysicalActivity> page = activityDAO.getRecentActivities(userId, PAGE_SIZE);
+            latencies[i] = (SystemClock.elapsedRealtimeNanos() - start) / 1000;
+            assertEquals(PAGE_SIZE, page.size());
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static String summary(long[] sortedMicros) {
+        return String.format(Locale.US, "%.2f / %.2f / %.2f",
+                sortedMicros[sortedMicros.length / 2] / 1000.0,
+                sortedMicros[sortedMicros.length * 95 / 100] / 1000.0,
+                sortedMicros[sortedMicros.length - 1] / 1000.0);
+    }
+
+    private PhysicalActivity activity(int index) {
+        PhysicalActivity activity = new PhysicalActivity(userId, "Running", 30, 300 + index % 100, 5.0, null);
+        activity.setDate(String.format(Locale.US, "2024-%02d-%02d 07:%02d:00",
+                index % 12 + 1, index % 28 + 1, index % 60));
+        return activity;
+    }
+}
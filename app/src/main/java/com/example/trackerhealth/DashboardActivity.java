@@ -17,14 +17,17 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackerhealth.adapters.ActivityAdapter;
 import com.example.trackerhealth.adapters.MealAdapter;
-import com.example.trackerhealth.dao.MealDAO;
-import com.example.trackerhealth.dao.PhysicalActivityDAO;
 import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.adapters.PagingScrollListener;
 import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.model.ReportTotals;
+import com.example.trackerhealth.repository.DataCallback;
+import com.example.trackerhealth.repository.HealthRepository;
+import com.example.trackerhealth.repository.KeysetPager;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -49,13 +52,12 @@ public class DashboardActivity extends AppCompatActivity implements BottomNaviga
     private ActivityAdapter activityAdapter;
     private MealAdapter mealAdapter;
     
-    // Listas de datos
-    private List<PhysicalActivity> activityList;
-    private List<Meal> mealList;
+    // Repositorio de datos (consultas en segundo plano)
+    private HealthRepository repository;
     
-    // DAOs
-    private PhysicalActivityDAO activityDAO;
-    private MealDAO mealDAO;
+    // Historial de comidas paginado por (fecha, id)
+    private KeysetPager<Meal> mealPager;
+    private static final int MEAL_PAGE_SIZE = 20;
     
     // Constantes para SharedPreferences
     private static final String PREF_NAME = "TrackerHealthPrefs";
@@ -75,13 +77,9 @@ public class DashboardActivity extends AppCompatActivity implements BottomNaviga
         // Inicializar vistas
         initializeViews();
         
-        // Inicializar DAO
-        activityDAO = new PhysicalActivityDAO(this);
-        mealDAO = new MealDAO(this);
-        
-        // Inicializar listas
-        activityList = new ArrayList<>();
-        mealList = new ArrayList<>();
+        // Inicializar repositorio
+        repository = HealthRepository.getInstance(this);
+        mealPager = repository.mealHistoryPager(currentUserId, MEAL_PAGE_SIZE);
         
         // Configurar RecyclerViews
         setupRecyclerViews();
@@ -116,18 +114,41 @@ public class DashboardActivity extends AppCompatActivity implements BottomNaviga
     private void setupRecyclerViews() {
         // Configurar RecyclerView de actividades
         activitiesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        activityAdapter = new ActivityAdapter(this, new ActivityAdapter.OnActivityActionListener() {
+            @Override
+            public void onActivityClick(PhysicalActivity activity) {
+                openActivityEditor(activity);
+            }
+
+            @Override
+            public void onEditActivity(PhysicalActivity activity) {
+                openActivityEditor(activity);
+            }
+
+            @Override
+            public void onDeleteActivity(PhysicalActivity activity) {
+                repository.deleteActivity(activity.getId(), deleted -> {
+                    if (deleted) {
+                        loadRecentActivities();
+                        updateDailySummary();
+                    }
+                });
+            }
+        });
+        activitiesRecyclerView.setAdapter(activityAdapter);
         
         // Configurar RecyclerView de comidas
         LinearLayoutManager mealsLayoutManager = new LinearLayoutManager(this);
         mealsLayoutManager.setOrientation(LinearLayoutManager.VERTICAL);
         mealsRecyclerView.setLayoutManager(mealsLayoutManager);
-        mealAdapter = new MealAdapter(this, mealList, meal -> {
+        mealAdapter = new MealAdapter(this, meal -> {
             // Launch EditMealActivity when a meal is clicked
             Intent intent = new Intent(DashboardActivity.this, EditMealActivity.class);
             intent.putExtra("meal_id", meal.getId());
             startActivityForResult(intent, REQUEST_EDIT_MEAL);
         });
         mealsRecyclerView.setAdapter(mealAdapter);
+        mealsRecyclerView.addOnScrollListener(new PagingScrollListener(mealsLayoutManager, this::loadMoreMeals));
         
         // Agregar decoración para separar items
         int spacing = getResources().getDimensionPixelSize(R.dimen.item_spacing);
@@ -140,6 +161,12 @@ public class DashboardActivity extends AppCompatActivity implements BottomNaviga
         });
     }
 
+    private void openActivityEditor(PhysicalActivity activity) {
+        Intent intent = new Intent(this, EditPhysicalActivityActivity.class);
+        intent.putExtra("activity_id", activity.getId());
+        startActivity(intent);
+    }
+
     private void setupWelcomeMessage() {
         SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
         String userName = prefs.getString(KEY_USER_NAME, "");
@@ -175,89 +202,112 @@ public class DashboardActivity extends AppCompatActivity implements BottomNaviga
         }
     }
     
+    /**
+     * Vuelve a cargar el historial de comidas desde la primera página
+     */
     private void loadAllMeals() {
-        try {
-            // Limpiar lista anterior
-            mealList.clear();
-            
-            // Obtener todas las comidas del usuario
-            List<Meal> meals = mealDAO.getAllMealsByUser(currentUserId);
-            
-            if (meals.isEmpty()) {
-                // Solo crear datos de ejemplo si no hay comidas
-                createSampleMeals();
-            } else {
-                mealList.addAll(meals);
+        mealPager.reset();
+        mealPager.loadNextPage(new DataCallback<List<Meal>>() {
+            @Override
+            public void onResult(List<Meal> meals) {
+                if (meals.isEmpty()) {
+                    // Solo crear datos de ejemplo si no hay comidas
+                    createSampleMeals();
+                } else {
+                    showMeals(meals);
+                }
             }
-            
-            // Actualizar UI
-            if (mealList.isEmpty()) {
+
+            @Override
+            public void onError(Exception e) {
+                Log.e("DashboardActivity", "Error al cargar comidas: " + e.getMessage(), e);
+                noMealsText.setText(R.string.error_loading_meals);
                 noMealsText.setVisibility(View.VISIBLE);
                 mealsRecyclerView.setVisibility(View.GONE);
-            } else {
-                noMealsText.setVisibility(View.GONE);
-                mealsRecyclerView.setVisibility(View.VISIBLE);
-                mealAdapter.notifyDataSetChanged();
             }
-        } catch (Exception e) {
-            Log.e("DashboardActivity", "Error al cargar comidas: " + e.getMessage(), e);
-            noMealsText.setText(R.string.error_loading_meals);
+        });
+    }
+    
+    /**
+     * Carga la siguiente página del historial al acercarse al final de la lista
+     */
+    private void loadMoreMeals() {
+        mealPager.loadNextPage(new DataCallback<List<Meal>>() {
+            @Override
+            public void onResult(List<Meal> meals) {
+                mealAdapter.appendMeals(meals);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e("DashboardActivity", "Error al cargar más comidas: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    private void showMeals(List<Meal> meals) {
+        // El adaptador calcula las diferencias en segundo plano
+        mealAdapter.submitList(meals);
+        
+        // Actualizar UI
+        if (meals.isEmpty()) {
             noMealsText.setVisibility(View.VISIBLE);
             mealsRecyclerView.setVisibility(View.GONE);
+        } else {
+            noMealsText.setVisibility(View.GONE);
+            mealsRecyclerView.setVisibility(View.VISIBLE);
         }
     }
     
     private void loadRecentActivities() {
-        try {
-            // Limpiar lista anterior
-            activityList.clear();
-            
-            // Obtener actividades del usuario actual
-            List<PhysicalActivity> recentActivities = activityDAO.getRecentActivities(currentUserId, 5);
-            
-            if (recentActivities.isEmpty()) {
+        repository.getRecentActivities(currentUserId, 5, new DataCallback<List<PhysicalActivity>>() {
+            @Override
+            public void onResult(List<PhysicalActivity> recentActivities) {
+                activityAdapter.submitList(recentActivities);
+                
+                if (recentActivities.isEmpty()) {
+                    noActivitiesText.setVisibility(View.VISIBLE);
+                    activitiesRecyclerView.setVisibility(View.GONE);
+                } else {
+                    noActivitiesText.setVisibility(View.GONE);
+                    activitiesRecyclerView.setVisibility(View.VISIBLE);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e("DashboardActivity", "Error al cargar actividades: " + e.getMessage(), e);
+                noActivitiesText.setText("Error al cargar actividades");
                 noActivitiesText.setVisibility(View.VISIBLE);
                 activitiesRecyclerView.setVisibility(View.GONE);
-            } else {
-                activityList.addAll(recentActivities);
-                noActivitiesText.setVisibility(View.GONE);
-                activitiesRecyclerView.setVisibility(View.VISIBLE);
-                activityAdapter.notifyDataSetChanged();
             }
-        } catch (Exception e) {
-            Log.e("DashboardActivity", "Error al cargar actividades: " + e.getMessage(), e);
-            noActivitiesText.setText("Error al cargar actividades");
-            noActivitiesText.setVisibility(View.VISIBLE);
-            activitiesRecyclerView.setVisibility(View.GONE);
-        }
+        });
     }
     
     private void updateDailySummary() {
-        try {
-            // Sumar calorías consumidas en comidas
-            int totalCalories = 0;
-            for (Meal meal : mealList) {
-                totalCalories += meal.getCalories();
+        // Calcular pasos (simulados para la demo)
+        int steps = 6532; // Valor de ejemplo
+        
+        stepsValue.setText(String.valueOf(steps));
+        
+        // Calorías consumidas y ejercicios de hoy, agregados en SQLite (la lista de
+        // comidas solo tiene las páginas ya cargadas)
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+        repository.getPeriodTotals(currentUserId, today, today, new DataCallback<ReportTotals>() {
+            @Override
+            public void onResult(ReportTotals totals) {
+                caloriesValue.setText(String.valueOf(totals.getTotalCaloriesConsumed()));
+                exercisesValue.setText(String.valueOf(totals.getActivityCount()));
             }
-            
-            // Calcular pasos (simulados para la demo)
-            int steps = 6532; // Valor de ejemplo
-            
-            // Calcular número de ejercicios realizados hoy
-            int exercisesCount = activityDAO.getActivitiesByDate(currentUserId, 
-                    new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date())).size();
-            
-            // Actualizar UI
-            stepsValue.setText(String.valueOf(steps));
-            caloriesValue.setText(String.valueOf(totalCalories));
-            exercisesValue.setText(String.valueOf(exercisesCount));
-        } catch (Exception e) {
-            Log.e("DashboardActivity", "Error al actualizar resumen diario: " + e.getMessage(), e);
-            // En caso de error, mostrar valores predeterminados
-            stepsValue.setText("0");
-            caloriesValue.setText("0");
-            exercisesValue.setText("0");
-        }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e("DashboardActivity", "Error al actualizar resumen diario: " + e.getMessage(), e);
+                // En caso de error, mostrar valores predeterminados
+                caloriesValue.setText("0");
+                exercisesValue.setText("0");
+            }
+        });
     }
     
     /**
@@ -312,9 +362,8 @@ public class DashboardActivity extends AppCompatActivity implements BottomNaviga
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
         if (requestCode == REQUEST_EDIT_MEAL && resultCode == RESULT_OK) {
-            // Reload meals list after editing
+            // Reload meals list and daily summary after editing
             loadAllMeals();
-            // Update daily summary since meal data might have changed
             updateDailySummary();
         }
     }
@@ -384,37 +433,11 @@ public class DashboardActivity extends AppCompatActivity implements BottomNaviga
             dinner.setTime("19:30");
             dinner.setNotes("Con vegetales asados");
             
-            // Guardar en la base de datos y añadir a la lista
-            long breakfastId = mealDAO.addMeal(breakfast);
-            long snack1Id = mealDAO.addMeal(snack1);
-            long lunchId = mealDAO.addMeal(lunch);
-            long snack2Id = mealDAO.addMeal(snack2);
-            long dinnerId = mealDAO.addMeal(dinner);
-            
-            if (breakfastId > 0) {
-                breakfast.setId(breakfastId);
-                mealList.add(breakfast);
-            }
-            
-            if (snack1Id > 0) {
-                snack1.setId(snack1Id);
-                mealList.add(snack1);
-            }
-            
-            if (lunchId > 0) {
-                lunch.setId(lunchId);
-                mealList.add(lunch);
-            }
-            
-            if (snack2Id > 0) {
-                snack2.setId(snack2Id);
-                mealList.add(snack2);
-            }
-            
-            if (dinnerId > 0) {
-                dinner.setId(dinnerId);
-                mealList.add(dinner);
-            }
+            // Guardar en la base de datos y mostrar las que se insertaron
+            repository.insertMeals(Arrays.asList(breakfast, snack1, lunch, snack2, dinner), meals -> {
+                showMeals(meals);
+                updateDailySummary();
+            });
         } catch (Exception e) {
             Log.e("DashboardActivity", "Error al crear comidas de ejemplo: " + e.getMessage(), e);
         }
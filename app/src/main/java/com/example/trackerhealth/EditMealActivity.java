@@ -2,7 +2,6 @@ package com.example.trackerhealth;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
@@ -19,11 +18,12 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.example.trackerhealth.dao.MealDAO;
+import com.example.trackerhealth.image.ImageLoader;
+import com.example.trackerhealth.image.PhotoStore;
 import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.repository.DataCallback;
+import com.example.trackerhealth.repository.HealthRepository;
 
-import java.io.File;
-import java.io.IOException;
 
 public class EditMealActivity extends AppCompatActivity {
 
@@ -39,10 +39,11 @@ public class EditMealActivity extends AppCompatActivity {
     private Button saveMealButton;
     private Button deleteMealButton;
 
-    private MealDAO mealDao;
+    private HealthRepository repository;
     private Meal currentMeal;
     private String currentPhotoPath;
     private Uri photoUri;
+    private boolean ingestingPhoto;
 
     private static final int REQUEST_IMAGE_CAPTURE = 1;
     private static final int REQUEST_PICK_IMAGE = 2;
@@ -61,8 +62,8 @@ public class EditMealActivity extends AppCompatActivity {
         // Initialize views
         initializeViews();
 
-        // Initialize DAO
-        mealDao = new MealDAO(this);
+        // Initialize repository
+        repository = HealthRepository.getInstance(this);
 
         // Get meal ID from intent
         long mealId = getIntent().getLongExtra("meal_id", -1);
@@ -73,21 +74,23 @@ public class EditMealActivity extends AppCompatActivity {
         }
 
         // Load meal data
-        currentMeal = mealDao.getMealById(mealId);
-        if (currentMeal == null) {
-            Toast.makeText(this, "Error: Meal not found", Toast.LENGTH_SHORT).show();
-            finish();
-            return;
-        }
+        repository.getMealById(mealId, meal -> {
+            if (meal == null) {
+                Toast.makeText(this, "Error: Meal not found", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            currentMeal = meal;
 
-        // Setup meal type spinner
-        setupMealTypeSpinner();
+            // Setup meal type spinner
+            setupMealTypeSpinner();
 
-        // Load meal data into views
-        loadMealData();
+            // Load meal data into views
+            loadMealData();
 
-        // Setup button listeners
-        setupButtonListeners();
+            // Setup button listeners
+            setupButtonListeners();
+        });
     }
 
     private void initializeViews() {
@@ -127,25 +130,9 @@ public class EditMealActivity extends AppCompatActivity {
         fatsInput.setText(String.valueOf(currentMeal.getFats()));
         notesInput.setText(currentMeal.getNotes());
 
-        // Load photo if exists
-        String photoPath = currentMeal.getPhotoPath();
-        if (photoPath != null && !photoPath.isEmpty()) {
-            try {
-                if (photoPath.startsWith("content:")) {
-                    Uri photoUri = Uri.parse(photoPath);
-                    Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), photoUri);
-                    foodPhotoPreview.setImageBitmap(bitmap);
-                } else {
-                    File imgFile = new File(photoPath);
-                    if (imgFile.exists()) {
-                        Bitmap bitmap = BitmapFactory.decodeFile(imgFile.getAbsolutePath());
-                        foodPhotoPreview.setImageBitmap(bitmap);
-                    }
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
+        // Load photo if exists, downsampled to the preview size
+        ImageLoader.getInstance(this).load(currentMeal.getPhotoPath(), foodPhotoPreview,
+                android.R.drawable.ic_menu_gallery);
     }
 
     private void setupButtonListeners() {
@@ -185,6 +172,11 @@ public class EditMealActivity extends AppCompatActivity {
     }
 
     private void saveMealChanges() {
+        if (ingestingPhoto) {
+            Toast.makeText(this, "Processing photo, please try again in a moment", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
         // Update meal object with new values
         currentMeal.setName(foodNameInput.getText().toString().trim());
         currentMeal.setMealType(mealTypeSpinner.getSelectedItem().toString());
@@ -209,14 +201,15 @@ public class EditMealActivity extends AppCompatActivity {
         }
 
         // Save to database
-        int result = mealDao.update(currentMeal);
-        if (result > 0) {
-            Toast.makeText(this, "Meal updated successfully", Toast.LENGTH_SHORT).show();
-            setResult(RESULT_OK);
-            finish();
-        } else {
-            Toast.makeText(this, "Error updating meal", Toast.LENGTH_SHORT).show();
-        }
+        repository.updateMeal(currentMeal, result -> {
+            if (result > 0) {
+                Toast.makeText(this, "Meal updated successfully", Toast.LENGTH_SHORT).show();
+                setResult(RESULT_OK);
+                finish();
+            } else {
+                Toast.makeText(this, "Error updating meal", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void showDeleteConfirmationDialog() {
@@ -229,14 +222,15 @@ public class EditMealActivity extends AppCompatActivity {
     }
 
     private void deleteMeal() {
-        int result = mealDao.delete(currentMeal.getId());
-        if (result > 0) {
-            Toast.makeText(this, "Meal deleted successfully", Toast.LENGTH_SHORT).show();
-            setResult(RESULT_OK);
-            finish();
-        } else {
-            Toast.makeText(this, "Error deleting meal", Toast.LENGTH_SHORT).show();
-        }
+        repository.deleteMeal(currentMeal.getId(), result -> {
+            if (result > 0) {
+                Toast.makeText(this, "Meal deleted successfully", Toast.LENGTH_SHORT).show();
+                setResult(RESULT_OK);
+                finish();
+            } else {
+                Toast.makeText(this, "Error deleting meal", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @Override
@@ -252,13 +246,9 @@ public class EditMealActivity extends AppCompatActivity {
                     // TODO: Save bitmap to file and update photoUri/currentPhotoPath
                 }
             } else if (requestCode == REQUEST_PICK_IMAGE) {
-                photoUri = data.getData();
-                try {
-                    Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), photoUri);
-                    foodPhotoPreview.setImageBitmap(bitmap);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Toast.makeText(this, "Error loading image", Toast.LENGTH_SHORT).show();
+                Uri pickedUri = data.getData();
+                if (pickedUri != null) {
+                    storePhoto(pickedUri.toString());
                 }
             }
         }
@@ -272,4 +262,28 @@ public class EditMealActivity extends AppCompatActivity {
         }
         return super.onOptionsItemSelected(item);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Stores a reduced copy of the picked photo, so the meal keeps it even if the
+     * gallery permission is gone, and previews the stored file
+     */
+    private void storePhoto(String source) {
+        ingestingPhoto = true;
+        PhotoStore.getInstance(this).putAsync(source, new DataCallback<String>() {
+            @Override
+            public void onResult(String path) {
+                ingestingPhoto = false;
+                photoUri = null;
+                currentPhotoPath = path;
+                ImageLoader.getInstance(EditMealActivity.this).load(path, foodPhotoPreview,
+                        android.R.drawable.ic_menu_gallery);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                ingestingPhoto = false;
+                Toast.makeText(EditMealActivity.this, "Error loading image", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+}
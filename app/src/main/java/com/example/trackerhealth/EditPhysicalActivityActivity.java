@@ -19,10 +19,12 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.example.trackerhealth.dao.PhysicalActivityDAO;
+import com.example.trackerhealth.image.ImageLoader;
+import com.example.trackerhealth.image.PhotoStore;
 import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.repository.DataCallback;
+import com.example.trackerhealth.repository.HealthRepository;
 
-import java.io.IOException;
 
 public class EditPhysicalActivityActivity extends AppCompatActivity {
 
@@ -34,9 +36,10 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
     private Button saveChangesButton;
     private Button deleteActivityButton;
 
-    private PhysicalActivityDAO activityDAO;
+    private HealthRepository repository;
     private PhysicalActivity currentActivity;
-    private Uri photoUri;
+    private String photoPath;
+    private boolean ingestingPhoto;
 
     private static final int REQUEST_IMAGE_CAPTURE = 1;
     private static final int REQUEST_PICK_IMAGE = 2;
@@ -46,8 +49,8 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_edit_physical_activity);
 
-        // Initialize DAO
-        activityDAO = new PhysicalActivityDAO(this);
+        // Initialize repository
+        repository = HealthRepository.getInstance(this);
 
         // Initialize views
         initializeViews();
@@ -60,12 +63,9 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
             return;
         }
 
-        // Load activity data
+        // Load activity data (listeners are set up once it is loaded)
         loadActivityData(activityId);
 
-        // Setup listeners
-        setupListeners();
-
         // Enable back button in action bar
         if (getSupportActionBar() != null) {
             getSupportActionBar().setDisplayHomeAsUpEnabled(true);
@@ -90,13 +90,21 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
     }
 
     private void loadActivityData(long activityId) {
-        currentActivity = activityDAO.getActivityById(activityId);
-        if (currentActivity == null) {
-            Toast.makeText(this, "Error: Activity not found", Toast.LENGTH_SHORT).show();
-            finish();
-            return;
-        }
+        repository.getActivityById(activityId, activity -> {
+            if (activity == null) {
+                Toast.makeText(this, "Error: Activity not found", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
+            currentActivity = activity;
+            showActivityData();
 
+            // Setup listeners
+            setupListeners();
+        });
+    }
+
+    private void showActivityData() {
         // Set activity type
         int position = getActivityTypePosition(currentActivity.getActivityType());
         activityTypeSpinner.setSelection(position);
@@ -110,13 +118,10 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
         // Load photo if exists
         String photoPath = currentActivity.getPhotoPath();
         if (photoPath != null && !photoPath.isEmpty()) {
-            try {
-                photoUri = Uri.parse(photoPath);
-                Bitmap bitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), photoUri);
-                activityPhotoPreview.setImageBitmap(bitmap);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            this.photoPath = photoPath;
+            // Downsampled to the preview size off the main thread
+            ImageLoader.getInstance(this).load(photoPath, activityPhotoPreview,
+                    android.R.drawable.ic_menu_camera);
         }
     }
 
@@ -149,6 +154,10 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
     }
 
     private void saveChanges() {
+        if (ingestingPhoto) {
+            Toast.makeText(this, "Processing photo, please try again in a moment", Toast.LENGTH_SHORT).show();
+            return;
+        }
         if (!validateInputs()) {
             return;
         }
@@ -161,18 +170,20 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
             currentActivity.setDistance(Double.parseDouble(distanceEditText.getText().toString()));
         }
 
-        if (photoUri != null) {
-            currentActivity.setPhotoPath(photoUri.toString());
+        if (photoPath != null) {
+            currentActivity.setPhotoPath(photoPath);
         }
 
         // Save to database
-        if (activityDAO.updateActivity(currentActivity)) {
-            Toast.makeText(this, "Activity updated successfully", Toast.LENGTH_SHORT).show();
-            setResult(RESULT_OK);
-            finish();
-        } else {
-            Toast.makeText(this, "Error updating activity", Toast.LENGTH_SHORT).show();
-        }
+        repository.updateActivity(currentActivity, updated -> {
+            if (updated) {
+                Toast.makeText(this, "Activity updated successfully", Toast.LENGTH_SHORT).show();
+                setResult(RESULT_OK);
+                finish();
+            } else {
+                Toast.makeText(this, "Error updating activity", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private boolean validateInputs() {
@@ -188,13 +199,15 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
                 .setTitle("Delete Activity")
                 .setMessage("Are you sure you want to delete this activity?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    if (activityDAO.deleteActivity(currentActivity.getId())) {
-                        Toast.makeText(this, "Activity deleted", Toast.LENGTH_SHORT).show();
-                        setResult(RESULT_OK);
-                        finish();
-                    } else {
-                        Toast.makeText(this, "Error deleting activity", Toast.LENGTH_SHORT).show();
-                    }
+                    repository.deleteActivity(currentActivity.getId(), deleted -> {
+                        if (deleted) {
+                            Toast.makeText(this, "Activity deleted", Toast.LENGTH_SHORT).show();
+                            setResult(RESULT_OK);
+                            finish();
+                        } else {
+                            Toast.makeText(this, "Error deleting activity", Toast.LENGTH_SHORT).show();
+                        }
+                    });
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
@@ -223,13 +236,9 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
                     // TODO: Implement proper image saving
                 }
             } else if (requestCode == REQUEST_PICK_IMAGE && data != null) {
-                photoUri = data.getData();
-                try {
-                    Bitmap bitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), photoUri);
-                    activityPhotoPreview.setImageBitmap(bitmap);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Toast.makeText(this, "Error loading image", Toast.LENGTH_SHORT).show();
+                Uri pickedUri = data.getData();
+                if (pickedUri != null) {
+                    storePhoto(pickedUri.toString());
                 }
             }
         }
@@ -243,4 +252,27 @@ public class EditPhysicalActivityActivity extends AppCompatActivity {
         }
         return super.onOptionsItemSelected(item);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Stores a reduced copy of the picked photo, so the activity keeps it even if the
+     * gallery permission is gone, and previews the stored file
+     */
+    private void storePhoto(String source) {
+        ingestingPhoto = true;
+        PhotoStore.getInstance(this).putAsync(source, new DataCallback<String>() {
+            @Override
+            public void onResult(String path) {
+                ingestingPhoto = false;
+                photoPath = path;
+                ImageLoader.getInstance(EditPhysicalActivityActivity.this).load(path, activityPhotoPreview,
+                        android.R.drawable.ic_menu_camera);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                ingestingPhoto = false;
+                Toast.makeText(EditPhysicalActivityActivity.this, "Error loading image", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+}
@@ -3,21 +3,17 @@ package com.example.trackerhealth;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Environment;
 import android.provider.MediaStore;
-import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -29,12 +25,12 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -42,9 +38,14 @@ import java.util.Date;
 import java.util.Locale;
 import java.util.List;
 
-import com.example.trackerhealth.dao.MealDAO;
+import com.example.trackerhealth.adapters.MealAdapter;
 import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.image.ImageLoader;
+import com.example.trackerhealth.image.PhotoStore;
 import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.repository.AppExecutors;
+import com.example.trackerhealth.repository.DataCallback;
+import com.example.trackerhealth.repository.HealthRepository;
 
 public class FoodTrackerActivity extends AppCompatActivity implements BottomNavigationView.OnNavigationItemSelectedListener {
 
@@ -55,6 +56,8 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
     private ImageView foodPhotoPreview;
     private EditText foodNameInput;
     private EditText caloriesInput;
+    private RecyclerView mealsRecyclerView;
+    private MealAdapter mealAdapter;
     
     // Constantes para permisos y códigos de solicitud
     private static final int REQUEST_IMAGE_CAPTURE = 1;
@@ -66,8 +69,11 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
     // Variables para manejo de imágenes
     private String currentPhotoPath;
     private Uri photoUri;
+    // Foto que se está reduciendo en segundo plano; cambia al descartarla o elegir otra
+    private int photoGeneration;
+    private boolean ingestingPhoto;
 
-    private MealDAO mealDao;
+    private HealthRepository repository;
     private long currentUserId; // You'll need to get this from your login/session management
 
     @Override
@@ -75,8 +81,8 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_food_tracker);
 
-        // Initialize DAO
-        mealDao = new MealDAO(this);
+        // Initialize repository
+        repository = HealthRepository.getInstance(this);
         
         // Get current user ID (implement this based on your authentication system)
         currentUserId = getCurrentUserId();
@@ -89,6 +95,7 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
         foodPhotoPreview = findViewById(R.id.food_photo_preview);
         foodNameInput = findViewById(R.id.food_name_input);
         caloriesInput = findViewById(R.id.calories_input);
+        mealsRecyclerView = findViewById(R.id.meals_recycler_view);
 
         // Configurar bottom navigation
         bottomNavigationView.setOnNavigationItemSelectedListener(this);
@@ -99,6 +106,15 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
         ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, mealTypes);
         mealTypeSpinner.setAdapter(adapter);
 
+        // Configurar lista de comidas del día
+        mealsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        mealAdapter = new MealAdapter(this, meal -> {
+            Intent intent = new Intent(FoodTrackerActivity.this, EditMealActivity.class);
+            intent.putExtra("meal_id", meal.getId());
+            startActivityForResult(intent, REQUEST_EDIT_MEAL);
+        });
+        mealsRecyclerView.setAdapter(mealAdapter);
+
         // Configurar botón de foto
         takePhotoButton.setOnClickListener(v -> {
             showImageSourceDialog();
@@ -197,9 +213,12 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
      * Resetea la vista previa de la imagen y las variables asociadas
      */
     private void resetPhotoPreview() {
+        ImageLoader.getInstance(this).cancel(foodPhotoPreview);
         foodPhotoPreview.setImageResource(android.R.drawable.ic_menu_camera);
         photoUri = null;
         currentPhotoPath = null;
+        photoGeneration++;
+        ingestingPhoto = false;
     }
     
     @Override
@@ -208,43 +227,25 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
         
         if (resultCode == RESULT_OK) {
             if (requestCode == REQUEST_IMAGE_CAPTURE) {
-                // La foto se ha guardado en photoUri, mostrar vista previa
-                try {
-                    Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), photoUri);
-                    foodPhotoPreview.setImageBitmap(bitmap);
-                    
-                    // Optimizar la imagen capturada
-                    String optimizedPath = optimizeAndSaveImage(photoUri);
-                    if (optimizedPath != null) {
-                        // Actualizar ruta para usar la versión optimizada
-                        currentPhotoPath = optimizedPath;
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Toast.makeText(this, "Error al cargar la imagen", Toast.LENGTH_SHORT).show();
+                // La cámara guardó la foto original en currentPhotoPath; se reduce y se borra
+                if (currentPhotoPath != null) {
+                    File cameraFile = new File(currentPhotoPath);
+                    ingestPhoto(cameraFile.getAbsolutePath(), cameraFile);
                 }
             } else if (requestCode == REQUEST_PICK_IMAGE && data != null) {
-                // Imagen seleccionada de la galería
-                photoUri = data.getData();
-                try {
-                    Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), photoUri);
-                    foodPhotoPreview.setImageBitmap(bitmap);
-                    
-                    // Optimizar la imagen de la galería
-                    String optimizedPath = optimizeAndSaveImage(photoUri);
-                    if (optimizedPath != null) {
-                        // Usar ruta optimizada en lugar de URI
-                        currentPhotoPath = optimizedPath;
-                        photoUri = null;
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Toast.makeText(this, "Error al cargar la imagen", Toast.LENGTH_SHORT).show();
+                // Imagen seleccionada de la galería: se guarda una copia reducida
+                Uri pickedUri = data.getData();
+                if (pickedUri != null) {
+                    ingestPhoto(pickedUri.toString(), null);
                 }
             } else if (requestCode == REQUEST_EDIT_MEAL && resultCode == RESULT_OK) {
                 // Reload meals list after edit
                 loadSavedMeals();
             }
+        } else if (requestCode == REQUEST_IMAGE_CAPTURE && currentPhotoPath != null) {
+            // Captura cancelada: el archivo reservado para la cámara está vacío
+            deleteInBackground(new File(currentPhotoPath));
+            resetPhotoPreview();
         }
     }
     
@@ -346,81 +347,25 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
      * Carga y muestra las comidas guardadas
      */
     private void loadSavedMeals() {
-        LinearLayout mealsContainer = findViewById(R.id.meals_container);
-        TextView noMealsText = findViewById(R.id.no_meals_text);
-        
-        if (mealsContainer == null) return;
-        mealsContainer.removeAllViews();
-
         // Get today's date in the format stored in the database
         SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
         String today = dateFormat.format(new Date());
 
         // Get meals for today from the database
-        List<Meal> todayMeals = mealDao.getMealsForDate(currentUserId, today);
-
-        if (todayMeals.isEmpty()) {
-            if (noMealsText != null) {
-                noMealsText.setVisibility(View.VISIBLE);
-            }
-            return;
-        }
+        repository.getMealsForDate(currentUserId, today, this::showSavedMeals);
+    }
 
+    /**
+     * Muestra las comidas del día en la lista
+     */
+    private void showSavedMeals(List<Meal> todayMeals) {
+        TextView noMealsText = findViewById(R.id.no_meals_text);
+        
+        // El adaptador calcula las diferencias en segundo plano
+        mealAdapter.submitList(todayMeals);
+        
         if (noMealsText != null) {
-            noMealsText.setVisibility(View.GONE);
-        }
-
-        // Display meals
-        for (Meal meal : todayMeals) {
-            View mealItemView = LayoutInflater.from(this).inflate(R.layout.item_meal, null);
-            
-            TextView mealNameText = mealItemView.findViewById(R.id.tv_meal_name);
-            TextView mealTypeText = mealItemView.findViewById(R.id.tv_meal_type);
-            TextView caloriesText = mealItemView.findViewById(R.id.tv_calories);
-            ImageView mealPhotoView = mealItemView.findViewById(R.id.iv_meal_icon);
-            
-            if (mealNameText != null) mealNameText.setText(meal.getName());
-            if (mealTypeText != null) mealTypeText.setText(meal.getMealType());
-            if (caloriesText != null) {
-                int calories = meal.getCalories();
-                if (calories > 0) {
-                    caloriesText.setText(calories + " cal");
-                } else {
-                    caloriesText.setText("--");
-                }
-            }
-            
-            // Load photo if exists
-            String photoPath = meal.getPhotoPath();
-            if (mealPhotoView != null && photoPath != null && !photoPath.isEmpty()) {
-                try {
-                    if (photoPath.startsWith("content:")) {
-                        Uri photoUri = Uri.parse(photoPath);
-                        Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), photoUri);
-                        mealPhotoView.setImageBitmap(bitmap);
-                    } else {
-                        File imgFile = new File(photoPath);
-                        if (imgFile.exists()) {
-                            Bitmap bitmap = BitmapFactory.decodeFile(imgFile.getAbsolutePath());
-                            mealPhotoView.setImageBitmap(bitmap);
-                        }
-                    }
-                    mealPhotoView.setVisibility(View.VISIBLE);
-                } catch (Exception e) {
-                    mealPhotoView.setVisibility(View.GONE);
-                }
-            } else if (mealPhotoView != null) {
-                mealPhotoView.setVisibility(View.GONE);
-            }
-            
-            // Add click listener to edit meal
-            mealItemView.setOnClickListener(v -> {
-                Intent intent = new Intent(FoodTrackerActivity.this, EditMealActivity.class);
-                intent.putExtra("meal_id", meal.getId());
-                startActivityForResult(intent, REQUEST_EDIT_MEAL);
-            });
-            
-            mealsContainer.addView(mealItemView);
+            noMealsText.setVisibility(todayMeals.isEmpty() ? View.VISIBLE : View.GONE);
         }
     }
 
@@ -428,6 +373,11 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
      * Guarda los datos de la comida
      */
     private void saveMealData() {
+        if (ingestingPhoto) {
+            Toast.makeText(this, "Procesando la foto, inténtalo de nuevo en un momento", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        
         String foodName = foodNameInput.getText().toString().trim();
         String caloriesStr = caloriesInput.getText().toString().trim();
         String mealType = mealTypeSpinner.getSelectedItem().toString();
@@ -462,19 +412,19 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
         }
 
         // Save to database
-        long mealId = mealDao.insert(meal);
-        
-        if (mealId != -1) {
-            Toast.makeText(this, "Comida guardada correctamente", Toast.LENGTH_SHORT).show();
-            // Clear form
-            foodNameInput.setText("");
-            caloriesInput.setText("");
-            resetPhotoPreview();
-            // Reload meals list
-            loadSavedMeals();
-        } else {
-            Toast.makeText(this, "Error al guardar la comida", Toast.LENGTH_SHORT).show();
-        }
+        repository.insertMeal(meal, mealId -> {
+            if (mealId != -1) {
+                Toast.makeText(this, "Comida guardada correctamente", Toast.LENGTH_SHORT).show();
+                // Clear form
+                foodNameInput.setText("");
+                caloriesInput.setText("");
+                resetPhotoPreview();
+                // Reload meals list
+                loadSavedMeals();
+            } else {
+                Toast.makeText(this, "Error al guardar la comida", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     // Helper method to get current user ID (implement based on your authentication system)
@@ -484,78 +434,46 @@ public class FoodTrackerActivity extends AppCompatActivity implements BottomNavi
     }
 
     /**
-     * Optimiza y guarda una imagen, devolviendo la ruta del archivo optimizado
+     * Guarda la foto reducida en el almacén de fotos en segundo plano. La vista previa
+     * se carga desde el archivo ya guardado.
+     *
+     * @param source Foto original (URI o ruta de archivo)
+     * @param cameraFile Archivo original de la cámara, que se borra al terminar, o null
      */
-    private String optimizeAndSaveImage(Uri imageUri) {
-        try {
-            // Cargar la imagen original
-            Bitmap originalBitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), imageUri);
-            
-            // Optimizar la imagen
-            Bitmap optimizedBitmap = compressBitmap(originalBitmap, 80);
-            
-            // Crear un archivo para guardar la imagen optimizada
-            String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-            String imageFileName = "FOOD_OPT_" + timeStamp + ".jpg";
-            File storageDir = getExternalFilesDir(Environment.DIRECTORY_PICTURES);
-            File imageFile = new File(storageDir, imageFileName);
-            
-            // Guardar la imagen optimizada
-            FileOutputStream fos = new FileOutputStream(imageFile);
-            optimizedBitmap.compress(Bitmap.CompressFormat.JPEG, 90, fos);
-            fos.close();
-            
-            // Liberar memoria
-            if (originalBitmap != optimizedBitmap) {
-                originalBitmap.recycle();
+    private void ingestPhoto(String source, @Nullable File cameraFile) {
+        resetPhotoPreview();
+        int generation = photoGeneration;
+        ingestingPhoto = true;
+
+        PhotoStore.getInstance(this).putAsync(source, new DataCallback<String>() {
+            @Override
+            public void onResult(String path) {
+                deleteInBackground(cameraFile);
+                if (generation != photoGeneration) {
+                    // La foto se descartó mientras se procesaba; el barrido la recogerá
+                    // si nadie más la usa
+                    return;
+                }
+                ingestingPhoto = false;
+                currentPhotoPath = path;
+                ImageLoader.getInstance(FoodTrackerActivity.this).load(path, foodPhotoPreview,
+                        android.R.drawable.ic_menu_camera);
             }
-            optimizedBitmap.recycle();
-            
-            return imageFile.getAbsolutePath();
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
+
+            @Override
+            public void onError(Exception e) {
+                deleteInBackground(cameraFile);
+                if (generation == photoGeneration) {
+                    ingestingPhoto = false;
+                    Toast.makeText(FoodTrackerActivity.this, "Error al cargar la imagen", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
     }
-    
-    /**
-     * Comprime un bitmap para reducir su tamaño
-     */
-    private Bitmap compressBitmap(Bitmap original, int quality) {
-        if (original == null) return null;
-        
-        int maxSize = 1024; // tamaño máximo (ancho o alto)
-        int width = original.getWidth();
-        int height = original.getHeight();
-        
-        // Si la imagen ya es pequeña, devolver el original
-        if (width <= maxSize && height <= maxSize) {
-            return original;
-        }
-        
-        float scale;
-        if (width > height) {
-            scale = (float) maxSize / width;
-        } else {
-            scale = (float) maxSize / height;
-        }
-        
-        int newWidth = Math.round(width * scale);
-        int newHeight = Math.round(height * scale);
-        
-        // Redimensionar bitmap
-        Bitmap resized = Bitmap.createScaledBitmap(original, newWidth, newHeight, true);
-        
-        // Comprimir a JPEG
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        resized.compress(Bitmap.CompressFormat.JPEG, quality, baos);
-        
-        // Convertir de nuevo a bitmap (solo si es necesario reducir más)
-        if (baos.size() > 500 * 1024) { // Si es mayor a 500KB
-            byte[] bytes = baos.toByteArray();
-            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+
+    private static void deleteInBackground(@Nullable File file) {
+        if (file != null) {
+            AppExecutors.getInstance().diskIO().execute(file::delete);
         }
-        
-        return resized;
     }
-}
\ No newline at end of file
+}
@@ -13,8 +13,8 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.example.trackerhealth.dao.UserDAO;
 import com.example.trackerhealth.model.User;
+import com.example.trackerhealth.repository.HealthRepository;
 
 public class LoginActivity extends AppCompatActivity {
 
@@ -22,7 +22,7 @@ public class LoginActivity extends AppCompatActivity {
     private EditText passwordInput;
     private Button loginButton;
     private TextView registerLink;
-    private UserDAO userDAO;
+    private HealthRepository repository;
     
     // Constantes para SharedPreferences
     private static final String PREF_NAME = "TrackerHealthPrefs";
@@ -36,8 +36,8 @@ public class LoginActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
 
-        // Inicializar la base de datos
-        userDAO = new UserDAO(this);
+        // Inicializar el repositorio
+        repository = HealthRepository.getInstance(this);
         
         // Crear usuario de prueba si es la primera vez
         ensureTestUserExists();
@@ -49,10 +49,7 @@ public class LoginActivity extends AppCompatActivity {
         registerLink = findViewById(R.id.register_link);
         
         // Verificar si el usuario ya está logueado
-        if (isUserLoggedIn()) {
-            navigateToDashboard();
-            return;
-        }
+        checkExistingSession();
 
         // Configurar el botón de login
         loginButton.setOnClickListener(new View.OnClickListener() {
@@ -75,49 +72,51 @@ public class LoginActivity extends AppCompatActivity {
                         Toast.LENGTH_LONG).show();
                 
                 // También podemos crear el usuario si no existe
-                User existingUser = userDAO.getUserByEmail("test@example.com");
-                if (existingUser == null) {
-                    createTestUser();
-                }
+                repository.getUserByEmail("test@example.com", existingUser -> {
+                    if (existingUser == null) {
+                        createTestUser();
+                    }
+                });
             }
         });
     }
     
     /**
-     * Verifica si hay un usuario ya logueado
+     * Verifica si hay un usuario ya logueado y, si es así, navega al dashboard
      */
-    private boolean isUserLoggedIn() {
+    private void checkExistingSession() {
         SharedPreferences prefs = getSharedPreferences(PREF_NAME, MODE_PRIVATE);
         boolean isLoggedIn = prefs.getBoolean(KEY_IS_LOGGED_IN, false);
         
-        if (isLoggedIn) {
-            // Verificamos también que exista un ID de usuario
-            long userId = prefs.getLong(KEY_USER_ID, -1);
-            String userEmail = prefs.getString(KEY_USER_EMAIL, "");
-            
-            // Si no hay ID o email, consideramos que no hay sesión
-            if (userId == -1 || userEmail.isEmpty()) {
-                // Limpiar preferencias corruptas
-                SharedPreferences.Editor editor = prefs.edit();
-                editor.clear();
-                editor.apply();
-                return false;
-            }
-            
-            // Verificar que el usuario existe en la BD
-            User user = userDAO.getUserById(userId);
+        if (!isLoggedIn) {
+            return;
+        }
+        
+        // Verificamos también que exista un ID de usuario
+        long userId = prefs.getLong(KEY_USER_ID, -1);
+        String userEmail = prefs.getString(KEY_USER_EMAIL, "");
+        
+        // Si no hay ID o email, consideramos que no hay sesión
+        if (userId == -1 || userEmail.isEmpty()) {
+            // Limpiar preferencias corruptas
+            SharedPreferences.Editor editor = prefs.edit();
+            editor.clear();
+            editor.apply();
+            return;
+        }
+        
+        // Verificar que el usuario existe en la BD
+        repository.getUserById(userId, user -> {
             if (user == null) {
                 // El usuario fue eliminado de la BD, limpiar preferencias
                 SharedPreferences.Editor editor = prefs.edit();
                 editor.clear();
                 editor.apply();
-                return false;
+                return;
             }
             
-            return true;
-        }
-        
-        return false;
+            navigateToDashboard();
+        });
     }
     
     /**
@@ -183,26 +182,27 @@ public class LoginActivity extends AppCompatActivity {
             focusView.requestFocus();
         } else {
             // Verificar si el usuario existe primero
-            User user = userDAO.getUserByEmail(email);
-            if (user == null) {
-                Toast.makeText(this, "No existe usuario con ese email", Toast.LENGTH_SHORT).show();
-                return;
-            }
-            
-            // Intentar autenticar con la base de datos
-            User authenticatedUser = userDAO.authenticateUser(email, password);
-            
-            if (authenticatedUser != null) {
-                // Login exitoso
-                Toast.makeText(this, "Login exitoso, bienvenido " + authenticatedUser.getName(), Toast.LENGTH_SHORT).show();
-                saveUserSession(authenticatedUser);
-                navigateToDashboard();
-            } else {
-                // Login fallido
-                Toast.makeText(this, "Contraseña incorrecta", Toast.LENGTH_SHORT).show();
-                passwordInput.setError("Contraseña incorrecta");
-                passwordInput.requestFocus();
-            }
+            repository.getUserByEmail(email, user -> {
+                if (user == null) {
+                    Toast.makeText(this, "No existe usuario con ese email", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                
+                // Intentar autenticar con la base de datos
+                repository.authenticateUser(email, password, authenticatedUser -> {
+                    if (authenticatedUser != null) {
+                        // Login exitoso
+                        Toast.makeText(this, "Login exitoso, bienvenido " + authenticatedUser.getName(), Toast.LENGTH_SHORT).show();
+                        saveUserSession(authenticatedUser);
+                        navigateToDashboard();
+                    } else {
+                        // Login fallido
+                        Toast.makeText(this, "Contraseña incorrecta", Toast.LENGTH_SHORT).show();
+                        passwordInput.setError("Contraseña incorrecta");
+                        passwordInput.requestFocus();
+                    }
+                });
+            });
         }
     }
     
@@ -218,28 +218,28 @@ public class LoginActivity extends AppCompatActivity {
      */
     private void createTestUser() {
         // Primero verificar si el usuario ya existe
-        User existingUser = userDAO.getUserByEmail("test@example.com");
-        
-        if (existingUser != null) {
-            // Si ya existe, mostrar mensaje y prellenar las credenciales
-            Toast.makeText(this, "Usuario de prueba ya existe. Usa: test@example.com / password", Toast.LENGTH_LONG).show();
-            emailInput.setText("test@example.com");
-            passwordInput.setText("password");
-            return;
-        }
-        
-        // Si no existe, crearlo
-        User testUser = new User("Usuario Prueba", "test@example.com", "password");
-        long userId = userDAO.insertUser(testUser);
-        
-        if (userId > 0) {
-            Toast.makeText(this, "Usuario de prueba creado con éxito. Email: test@example.com, Password: password", Toast.LENGTH_LONG).show();
-            // Prellenar los campos de login
-            emailInput.setText("test@example.com");
-            passwordInput.setText("password");
-        } else {
-            Toast.makeText(this, "No se pudo crear el usuario de prueba. Intenta nuevamente.", Toast.LENGTH_SHORT).show();
-        }
+        repository.getUserByEmail("test@example.com", existingUser -> {
+            if (existingUser != null) {
+                // Si ya existe, mostrar mensaje y prellenar las credenciales
+                Toast.makeText(this, "Usuario de prueba ya existe. Usa: test@example.com / password", Toast.LENGTH_LONG).show();
+                emailInput.setText("test@example.com");
+                passwordInput.setText("password");
+                return;
+            }
+            
+            // Si no existe, crearlo
+            User testUser = new User("Usuario Prueba", "test@example.com", "password");
+            repository.insertUser(testUser, userId -> {
+                if (userId > 0) {
+                    Toast.makeText(this, "Usuario de prueba creado con éxito. Email: test@example.com, Password: password", Toast.LENGTH_LONG).show();
+                    // Prellenar los campos de login
+                    emailInput.setText("test@example.com");
+                    passwordInput.setText("password");
+                } else {
+                    Toast.makeText(this, "No se pudo crear el usuario de prueba. Intenta nuevamente.", Toast.LENGTH_SHORT).show();
+                }
+            });
+        });
     }
     
     /**
@@ -255,21 +255,21 @@ public class LoginActivity extends AppCompatActivity {
         }
         
         // Verificar si el usuario de prueba ya existe
-        User testUser = userDAO.getUserByEmail("test@example.com");
-        
-        if (testUser == null) {
-            // No existe, crearlo silenciosamente
-            User newTestUser = new User("Usuario Prueba", "test@example.com", "password");
-            long userId = userDAO.insertUser(newTestUser);
-            
-            if (userId > 0) {
-                Log.d("LoginActivity", "Usuario de prueba creado automáticamente");
+        repository.getUserByEmail("test@example.com", testUser -> {
+            if (testUser == null) {
+                // No existe, crearlo silenciosamente
+                User newTestUser = new User("Usuario Prueba", "test@example.com", "password");
+                repository.insertUser(newTestUser, userId -> {
+                    if (userId > 0) {
+                        Log.d("LoginActivity", "Usuario de prueba creado automáticamente");
+                    } else {
+                        Log.e("LoginActivity", "No se pudo crear el usuario de prueba automáticamente");
+                    }
+                });
             } else {
-                Log.e("LoginActivity", "No se pudo crear el usuario de prueba automáticamente");
+                Log.d("LoginActivity", "Usuario de prueba ya existe en la BD");
             }
-        } else {
-            Log.d("LoginActivity", "Usuario de prueba ya existe en la BD");
-        }
+        });
         
         // Marcar que ya se verificó
         SharedPreferences.Editor editor = prefs.edit();
@@ -1,11 +1,15 @@
 package com.example.trackerhealth;
 
 import android.Manifest;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.ServiceConnection;
 import android.content.pm.PackageManager;
 import android.graphics.Color;
 import android.location.Location;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.IBinder;
 import android.os.Looper;
 import android.os.SystemClock;
 import android.util.Log;
@@ -20,15 +24,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
-import com.example.trackerhealth.dao.PhysicalActivityDAO;
+import com.example.trackerhealth.location.TrackingService;
 import com.example.trackerhealth.model.PhysicalActivity;
-import com.example.trackerhealth.util.LocationUtils;
+import com.example.trackerhealth.repository.DataCallback;
+import com.example.trackerhealth.repository.HealthRepository;
+import com.example.trackerhealth.route.RouteJournal;
+import com.example.trackerhealth.route.RoutePointBuffer;
+import com.example.trackerhealth.route.RouteSimplifier;
 import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
-import com.google.android.gms.location.Priority;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
@@ -37,21 +41,31 @@ import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.JointType;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.Polyline;
 import com.google.android.gms.maps.model.PolylineOptions;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
 public class MapTrackingActivity extends AppCompatActivity implements OnMapReadyCallback {
 
     private static final int REQUEST_LOCATION_PERMISSION = 1001;
-    private static final int UPDATE_INTERVAL = 5000; // 5 seconds
-    private static final int FASTEST_INTERVAL = 3000; // 3 seconds
     
-    private static final float MIN_ACCURACY_THRESHOLD = 20.0f; // metros
-    private static final int LOCATION_BUFFER_SIZE = 100; // Máximo número de ubicaciones a mantener
+    private static final int LOCATION_BUFFER_SIZE = 2; // Los dos últimos puntos, para el rumbo del marcador
+    
+    // Map rendering
+    private static final int ROUTE_COLOR = Color.rgb(66, 133, 244); // Azul Google
+    private static final int SEGMENT_MAX_POINTS = 200; // Puntos por polyline antes de congelarla
+    private static final long CAMERA_UPDATE_INTERVAL_MS = 2000; // Mínimo entre animaciones de cámara
+    private static final String PREF_NAME = "TrackerHealthPrefs";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String ACTIVITY_TYPE = "Running"; // Sessions started from the running dashboard
     
     // UI components
     private TextView tvDistance;
@@ -60,13 +74,14 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
     private ImageButton btnBack;
     private ImageView userAvatar;
     
-    // Location tracking
+    // Location tracking (the session itself is recorded by TrackingService)
     private FusedLocationProviderClient fusedLocationClient;
-    private LocationRequest locationRequest;
-    private LocationCallback locationCallback;
+    private TrackingService trackingService;
+    private boolean trackingServiceBound = false;
+    private DataCallback<RouteJournal> pendingStopCallback; // Stop requested before the service was bound
     private GoogleMap mMap;
     private Location currentLocation;
-    private List<LatLng> routePoints;
+    private final RoutePointBuffer recentPoints = new RoutePointBuffer(LOCATION_BUFFER_SIZE);
     
     // Activity tracking
     private boolean isTracking = false;
@@ -75,10 +90,19 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
     private Handler timerHandler = new Handler(Looper.getMainLooper());
     private Runnable timerRunnable;
     
-    // Variables adicionales para mejorar el tracking
-    private List<LatLng> filteredRoutePoints = new ArrayList<>();
-    private boolean hasGpsFix = false;
-    private long lastLocationUpdateTime = 0;
+    // Ruta simplificada en varios niveles de detalle, de la sesión del servicio; se dibuja
+    // el nivel que corresponde al zoom
+    private RouteSimplifier routeSimplifier;
+    private int drawnLevel = 0;
+    private int drawnCount = 0; // Puntos del nivel dibujados, el último es provisional
+    
+    // La ruta se dibuja en tramos: los completos no se vuelven a tocar y solo el tramo
+    // activo se actualiza con setPoints, así que cada actualización cuesta O(SEGMENT_MAX_POINTS)
+    private final List<Polyline> completedSegments = new ArrayList<>();
+    private final List<LatLng> activeSegmentPoints = new ArrayList<>();
+    private Polyline activeSegment;
+    private Marker positionMarker;
+    private long lastCameraUpdateTime = 0;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -92,13 +116,8 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
         btnBack = findViewById(R.id.btn_back);
         userAvatar = findViewById(R.id.user_avatar);
         
-        // Initialize route points list
-        routePoints = new ArrayList<>();
-        
         // Initialize location services
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
-        createLocationRequest();
-        createLocationCallback();
         
         // Initialize map fragment
         SupportMapFragment mapFragment = (SupportMapFragment) getSupportFragmentManager()
@@ -169,14 +188,15 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
             
             // Clear previous route if any
             if (mMap != null) {
-                mMap.clear();
-                routePoints.clear();
-                distanceTraveled = 0;
-                updateDistanceText();
+                clearRoute();
             }
+            recentPoints.clear();
+            distanceTraveled = 0;
+            updateDistanceText();
             
-            // Start location updates
-            startLocationUpdates();
+            // Start recording in the service, which keeps running in the background
+            TrackingService.start(this, MapTrackingActivity.class);
+            bindTrackingService();
             
         } else {
             requestLocationPermission();
@@ -192,17 +212,27 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
         // Change button icon to play
         btnStartPause.setImageResource(android.R.drawable.ic_media_play);
         
-        // Save the activity
-        saveActivity();
-        
-        // Stop location updates
-        stopLocationUpdates();
+        // Stop recording and save the activity with its route. The duration is taken now,
+        // the service may take a moment to hand over the journal
+        int durationMinutes = (int) ((SystemClock.elapsedRealtime() - startTimeMillis) / 60000);
+        DataCallback<RouteJournal> handOff = journal -> saveActivity(journal, durationMinutes);
+        if (trackingService != null) {
+            trackingService.stopTracking(handOff);
+        } else {
+            // Not bound yet: stop as soon as the connection is up
+            pendingStopCallback = handOff;
+            bindTrackingService();
+        }
     }
     
-    private void saveActivity() {
+    private void saveActivity(RouteJournal journal, int durationMinutes) {
         if (distanceTraveled > 0) {
             // Create a new physical activity
             PhysicalActivity activity = new PhysicalActivity();
+            activity.setUserId(getSharedPreferences(PREF_NAME, MODE_PRIVATE).getLong(KEY_USER_ID, 1));
+            activity.setActivityType(ACTIVITY_TYPE);
+            activity.setDuration(durationMinutes);
+            activity.setDate(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date()));
             activity.setDistance(distanceTraveled / 1000); // Convert to kilometers
             
             // Calculate calories burned (simple estimate based on distance)
@@ -214,14 +244,20 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
             activity.setNotes(notes);
             
             // Save to database
-            PhysicalActivityDAO dao = new PhysicalActivityDAO(this);
-            long activityId = dao.addActivity(activity);
-            
-            if (activityId > 0) {
-                Toast.makeText(this, "Activity saved successfully", Toast.LENGTH_SHORT).show();
-            } else {
-                Toast.makeText(this, "Failed to save activity", Toast.LENGTH_SHORT).show();
-            }
+            Context appContext = getApplicationContext();
+            HealthRepository.getInstance(this).insertActivity(activity, activityId -> {
+                if (activityId > 0) {
+                    // Keep the full-resolution route of the session with the activity
+                    journal.finish(activityId, path ->
+                            Log.d("MapTracking", "Route saved to: " + path));
+                    Toast.makeText(appContext, "Activity saved successfully", Toast.LENGTH_SHORT).show();
+                } else {
+                    journal.discard();
+                    Toast.makeText(appContext, "Failed to save activity", Toast.LENGTH_SHORT).show();
+                }
+            });
+        } else {
+            journal.discard();
         }
     }
     
@@ -232,203 +268,233 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
     }
     
     /**
-     * Setup location request parameters
+     * Receives the live stats of the session recorded by TrackingService
      */
-    private void createLocationRequest() {
-        locationRequest = new LocationRequest.Builder(UPDATE_INTERVAL)
-                .setPriority(Priority.PRIORITY_HIGH_ACCURACY)
-                .setMinUpdateIntervalMillis(FASTEST_INTERVAL)
-                .build();
-    }
+    private final TrackingService.Listener trackingListener = new TrackingService.Listener() {
+        @Override
+        public void onTrackingUpdate(TrackingService.Stats stats) {
+            distanceTraveled = (float) stats.getDistanceMeters();
+            updateDistanceText();
+            
+            // Update map with the smoothed position
+            updateMapWithLocation(stats);
+        }
+
+        @Override
+        public void onSignalChanged(boolean hasSignal) {
+            if (hasSignal) {
+                Toast.makeText(MapTrackingActivity.this, "GPS signal acquired", Toast.LENGTH_SHORT).show();
+            } else {
+                Log.d("MapTracking", "GPS signal lost");
+            }
+        }
+    };
     
-    /**
-     * Setup location callback
-     */
-    private void createLocationCallback() {
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(@NonNull LocationResult locationResult) {
-                for (Location location : locationResult.getLocations()) {
-                    // Only process location updates if tracking is active
-                    if (isTracking) {
-                        lastLocationUpdateTime = System.currentTimeMillis();
-                        
-                        // Verificar si la ubicación tiene buena precisión
-                        if (isValidLocation(location)) {
-                            // Si es la primera ubicación buena, indicar que tenemos GPS fix
-                            if (!hasGpsFix) {
-                                hasGpsFix = true;
-                                Toast.makeText(MapTrackingActivity.this, "GPS signal acquired", Toast.LENGTH_SHORT).show();
-                            }
-                            
-                            // Calculate distance
-                            if (currentLocation != null) {
-                                // Usar el método Haversine para mayor precisión en largas distancias
-                                float distance = LocationUtils.calculateDistance(
-                                        currentLocation.getLatitude(), currentLocation.getLongitude(),
-                                        location.getLatitude(), location.getLongitude());
-                                
-                                // Verificar que la distancia sea razonable
-                                if (distance > 0 && distance < 100) { // Ignorar saltos mayores a 100m
-                                    distanceTraveled += distance;
-                                    updateDistanceText();
-                                }
-                            }
-                            
-                            // Update current location
-                            currentLocation = location;
-                            
-                            // Update map
-                            updateMapWithLocation(location);
-                        } else {
-                            // Location is not valid enough
-                            Log.d("MapTracking", "Ignoring low quality location");
-                        }
-                    }
+    private final ServiceConnection trackingConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            trackingService = ((TrackingService.LocalBinder) binder).getService();
+            trackingService.addListener(trackingListener);
+            routeSimplifier = trackingService.getRoute();
+            
+            // Stop was requested before the connection was up
+            if (pendingStopCallback != null) {
+                DataCallback<RouteJournal> callback = pendingStopCallback;
+                pendingStopCallback = null;
+                trackingService.stopTracking(callback);
+                return;
+            }
+            
+            if (trackingService.isTracking()) {
+                // Pick up the session where it is, including points recorded in the background
+                if (!isTracking) {
+                    isTracking = true;
+                    btnStartPause.setImageResource(android.R.drawable.ic_media_pause);
+                    userAvatar.setVisibility(View.VISIBLE);
+                }
+                startTimeMillis = SystemClock.elapsedRealtime()
+                        - (System.currentTimeMillis() - trackingService.getStartTime());
+                timerHandler.removeCallbacks(timerRunnable);
+                timerHandler.postDelayed(timerRunnable, 0);
+                
+                if (mMap != null) {
+                    removeRoutePolylines();
+                    syncRoute();
+                }
+                TrackingService.Stats stats = trackingService.getLatestStats();
+                if (stats != null) {
+                    trackingListener.onTrackingUpdate(stats);
                 }
             }
-        };
-    }
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            trackingService = null;
+        }
+    };
     
-    /**
-     * Verifica si una ubicación es válida y precisa
-     */
-    private boolean isValidLocation(Location location) {
-        // Verificar si la ubicación tiene buena precisión
-        if (location.hasAccuracy() && location.getAccuracy() > MIN_ACCURACY_THRESHOLD) {
-            return false;
+    private void bindTrackingService() {
+        if (!trackingServiceBound) {
+            trackingServiceBound = TrackingService.bind(this, trackingConnection);
         }
-        
-        // Verificar velocidad de movimiento (si la ubicación tiene velocidad)
-        if (location.hasSpeed() && location.getSpeed() > 30) { // Más de 30 m/s (108 km/h)
-            return false;
+    }
+    
+    private void unbindTrackingService() {
+        if (trackingServiceBound) {
+            if (trackingService != null) {
+                trackingService.removeListener(trackingListener);
+                trackingService = null;
+            }
+            unbindService(trackingConnection);
+            trackingServiceBound = false;
         }
-        
-        return true;
     }
     
     /**
      * Update map with the new location and draw route
      */
-    private void updateMapWithLocation(Location location) {
+    private void updateMapWithLocation(TrackingService.Stats stats) {
         if (mMap != null) {
-            LatLng latLng = new LatLng(location.getLatitude(), location.getLongitude());
-            
-            // Add point to route
-            routePoints.add(latLng);
+            double latitude = stats.getLatitude();
+            double longitude = stats.getLongitude();
+            LatLng latLng = new LatLng(latitude, longitude);
             
-            // Limit memory usage by keeping only a certain number of points
-            if (routePoints.size() > LOCATION_BUFFER_SIZE) {
-                // Keep only the newest points
-                routePoints = new ArrayList<>(routePoints.subList(
-                        routePoints.size() - LOCATION_BUFFER_SIZE, 
-                        routePoints.size()));
+            // El servicio solo añade puntos a la ruta en movimiento; el búfer hace lo mismo
+            // para que el rumbo del marcador se mantenga mientras se está parado
+            if (stats.isMoving() || recentPoints.size() == 0) {
+                // Add point to the recent points buffer (the oldest one is overwritten when full)
+                recentPoints.add(latitude, longitude, stats.getTime());
             }
+            syncRoute();
             
-            // Agregar punto al trazado filtrado solo si estamos en movimiento
-            if (location.hasSpeed() && location.getSpeed() > 0.5 || // Si hay velocidad reportada > 0.5 m/s
-                    (filteredRoutePoints.isEmpty() || // O si es el primer punto
-                    !filteredRoutePoints.isEmpty() && 
-                        distanceBetweenPoints(filteredRoutePoints.get(filteredRoutePoints.size() - 1), latLng) > 5)) { // O si nos movimos más de 5m
-                
-                filteredRoutePoints.add(latLng);
-            }
-            
-            // Draw route - solo usamos los puntos filtrados para dibujar
-            if (filteredRoutePoints.size() > 1) {
-                // Draw the filtered route
-                mMap.clear();
-                
-                // Usar un color vibrante para la ruta
-                int routeColor = Color.rgb(66, 133, 244); // Azul Google
-                
-                mMap.addPolyline(new PolylineOptions()
-                        .addAll(filteredRoutePoints)
-                        .width(12) // Línea un poco más gruesa
-                        .color(routeColor)
-                        .jointType(JointType.ROUND) // Juntas redondeadas
-                        .geodesic(true)); // Seguir curvatura de la Tierra
-            }
+            // Si hay más de un punto, orientar el marcador en la dirección del movimiento
+            float bearing = recentPoints.getLatestBearing();
             
-            // Add marker at current location - usar un icono personalizado o de menor tamaño
-            MarkerOptions markerOptions = new MarkerOptions()
-                    .position(latLng)
-                    .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_BLUE));
-            
-            if (routePoints.size() > 1) {
-                // Si hay más de un punto, orientar el marcador en la dirección del movimiento
-                LatLng prevPoint = routePoints.get(routePoints.size() - 2);
-                float bearing = bearingBetweenPoints(prevPoint, latLng);
-                markerOptions.rotation(bearing);
-                
-                // Actualizar la cámara para seguir la dirección del movimiento
-                mMap.animateCamera(CameraUpdateFactory.newCameraPosition(
-                        new CameraPosition.Builder()
-                                .target(latLng)
-                                .zoom(17f)
-                                .bearing(bearing)
-                                .tilt(45) // Ángulo de inclinación para mejor visualización
-                                .build()
-                ));
+            // Reuse a single marker instead of adding a new one per fix
+            if (positionMarker == null) {
+                positionMarker = mMap.addMarker(new MarkerOptions()
+                        .position(latLng)
+                        .rotation(bearing)
+                        .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_BLUE)));
             } else {
-                // Move camera to follow user - vista simple
-                mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(latLng, 17f));
+                positionMarker.setPosition(latLng);
+                positionMarker.setRotation(bearing);
             }
             
-            mMap.addMarker(markerOptions);
+            updateCamera(latLng, bearing, recentPoints.size() > 1);
         }
     }
     
     /**
-     * Calcula la distancia entre dos puntos LatLng
+     * Bring the drawn polylines up to date with the current level of the simplified route.
+     * The last drawn point is provisional, so it is replaced along with any new points.
      */
-    private float distanceBetweenPoints(LatLng point1, LatLng point2) {
-        return LocationUtils.calculateDistance(
-                point1.latitude, point1.longitude,
-                point2.latitude, point2.longitude);
+    private void syncRoute() {
+        if (mMap == null || routeSimplifier == null) {
+            return;
+        }
+        int size = routeSimplifier.size(drawnLevel);
+        if (drawnCount > 0) {
+            activeSegmentPoints.remove(activeSegmentPoints.size() - 1);
+            drawnCount--;
+        }
+        
+        for (int i = drawnCount; i < size; i++) {
+            if (activeSegmentPoints.size() >= SEGMENT_MAX_POINTS) {
+                // Congelar el tramo actual y empezar otro desde su último punto, que ya es fijo
+                completedSegments.add(activeSegment);
+                LatLng joint = activeSegmentPoints.get(activeSegmentPoints.size() - 1);
+                activeSegmentPoints.clear();
+                activeSegmentPoints.add(joint);
+                activeSegment = null;
+            }
+            activeSegmentPoints.add(new LatLng(
+                    routeSimplifier.getLatitude(drawnLevel, i),
+                    routeSimplifier.getLongitude(drawnLevel, i)));
+        }
+        drawnCount = size;
+        
+        if (activeSegmentPoints.size() < 2) {
+            return;
+        }
+        
+        if (activeSegment == null) {
+            activeSegment = mMap.addPolyline(new PolylineOptions()
+                    .addAll(activeSegmentPoints)
+                    .width(12) // Línea un poco más gruesa
+                    .color(ROUTE_COLOR)
+                    .jointType(JointType.ROUND) // Juntas redondeadas
+                    .geodesic(true)); // Seguir curvatura de la Tierra
+        } else {
+            activeSegment.setPoints(activeSegmentPoints);
+        }
     }
     
     /**
-     * Calcula el rumbo (bearing) entre dos puntos para orientación del marcador
+     * Redraw the route with the level of detail that matches the current zoom
      */
-    private float bearingBetweenPoints(LatLng start, LatLng end) {
-        double startLat = Math.toRadians(start.latitude);
-        double startLng = Math.toRadians(start.longitude);
-        double endLat = Math.toRadians(end.latitude);
-        double endLng = Math.toRadians(end.longitude);
-        
-        double dLng = endLng - startLng;
-        
-        double y = Math.sin(dLng) * Math.cos(endLat);
-        double x = Math.cos(startLat) * Math.sin(endLat) -
-                   Math.sin(startLat) * Math.cos(endLat) * Math.cos(dLng);
-        
-        double bearing = Math.toDegrees(Math.atan2(y, x));
-        return (float) ((bearing + 360) % 360);
+    private void onCameraIdle() {
+        CameraPosition position = mMap.getCameraPosition();
+        int level = RouteSimplifier.levelForZoom(position.zoom, position.target.latitude);
+        if (level != drawnLevel) {
+            drawnLevel = level;
+            removeRoutePolylines();
+            syncRoute();
+        }
     }
     
     /**
-     * Start location updates
+     * Follow the user with the camera. Animations are throttled to one every
+     * CAMERA_UPDATE_INTERVAL_MS unless the user is about to leave the visible area.
      */
-    private void startLocationUpdates() {
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
-                == PackageManager.PERMISSION_GRANTED) {
-            
-            fusedLocationClient.requestLocationUpdates(
-                    locationRequest,
-                    locationCallback,
-                    Looper.getMainLooper()
-            );
+    private void updateCamera(LatLng latLng, float bearing, boolean followBearing) {
+        long now = SystemClock.elapsedRealtime();
+        LatLngBounds visibleBounds = mMap.getProjection().getVisibleRegion().latLngBounds;
+        if (now - lastCameraUpdateTime < CAMERA_UPDATE_INTERVAL_MS && visibleBounds.contains(latLng)) {
+            return;
+        }
+        lastCameraUpdateTime = now;
+        
+        if (followBearing) {
+            // Actualizar la cámara para seguir la dirección del movimiento
+            mMap.animateCamera(CameraUpdateFactory.newCameraPosition(
+                    new CameraPosition.Builder()
+                            .target(latLng)
+                            .zoom(17f)
+                            .bearing(bearing)
+                            .tilt(45) // Ángulo de inclinación para mejor visualización
+                            .build()
+            ));
         } else {
-            requestLocationPermission();
+            // Move camera to follow user - vista simple
+            mMap.animateCamera(CameraUpdateFactory.newLatLngZoom(latLng, 17f));
         }
     }
     
     /**
-     * Stop location updates
+     * Remove the drawn route and marker from the map
      */
-    private void stopLocationUpdates() {
-        fusedLocationClient.removeLocationUpdates(locationCallback);
+    private void clearRoute() {
+        removeRoutePolylines();
+        if (positionMarker != null) {
+            positionMarker.remove();
+            positionMarker = null;
+        }
+        lastCameraUpdateTime = 0;
+    }
+    
+    private void removeRoutePolylines() {
+        for (Polyline segment : completedSegments) {
+            segment.remove();
+        }
+        completedSegments.clear();
+        if (activeSegment != null) {
+            activeSegment.remove();
+            activeSegment = null;
+        }
+        activeSegmentPoints.clear();
+        drawnCount = 0;
     }
     
     /**
@@ -445,6 +511,7 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
         mMap = googleMap;
+        mMap.setOnCameraIdleListener(this::onCameraIdle);
         
         // Enable my location layer if permission is granted
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
@@ -465,6 +532,9 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
         } else {
             requestLocationPermission();
         }
+        
+        // Draw a session that was already being recorded when the map became ready
+        syncRoute();
     }
     
     @Override
@@ -484,7 +554,7 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
                 }
                 
                 if (isTracking) {
-                    startLocationUpdates();
+                    startTracking();
                 }
             } else {
                 // Permission denied
@@ -494,12 +564,32 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
         }
     }
     
+    @Override
+    protected void onStart() {
+        super.onStart();
+        
+        // Reconnect to a session that kept recording while the screen was hidden
+        if (isTracking || TrackingService.isRunning()) {
+            bindTrackingService();
+        }
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        
+        // Recording continues in the service; only stop receiving live stats. A pending
+        // stop keeps the connection so the session is still saved
+        if (pendingStopCallback == null) {
+            unbindTrackingService();
+        }
+    }
+    
     @Override
     protected void onResume() {
         super.onResume();
         
         if (isTracking) {
-            startLocationUpdates();
             timerHandler.postDelayed(timerRunnable, 0);
         }
     }
@@ -509,8 +599,7 @@ public class MapTrackingActivity extends AppCompatActivity implements OnMapReady
         super.onPause();
         
         if (isTracking) {
-            // Just stop location updates and timer, but keep tracking state
-            stopLocationUpdates();
+            // Just stop the timer, the service keeps recording
             timerHandler.removeCallbacks(timerRunnable);
         }
     }
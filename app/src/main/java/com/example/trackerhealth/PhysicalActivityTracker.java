@@ -1,19 +1,19 @@
 package com.example.trackerhealth;
 
+import android.content.ComponentName;
 import android.content.Intent;
+import android.content.ServiceConnection;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.graphics.Bitmap;
-import android.location.Location;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.IBinder;
 import android.os.Environment;
 import android.os.Handler;
 import android.os.Looper;
-import android.os.SystemClock;
 import android.provider.MediaStore;
 import android.text.TextUtils;
 import android.util.Log;
@@ -41,22 +41,25 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackerhealth.adapters.ActivityAdapter;
+import com.example.trackerhealth.adapters.PagingScrollListener;
 import com.example.trackerhealth.dao.PhysicalActivityDAO;
 import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.image.ImageLoader;
+import com.example.trackerhealth.image.PhotoStore;
+import com.example.trackerhealth.location.LocationPipeline;
+import com.example.trackerhealth.location.TrackingService;
+import com.example.trackerhealth.repository.AppExecutors;
+import com.example.trackerhealth.repository.DataCallback;
+import com.example.trackerhealth.repository.HealthRepository;
+import com.example.trackerhealth.repository.KeysetPager;
 import com.example.trackerhealth.model.PhysicalActivity;
-import com.example.trackerhealth.util.LocationUtils;
-import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationResult;
-import com.google.android.gms.location.LocationServices;
-import com.google.android.gms.location.Priority;
+import com.example.trackerhealth.route.RouteJournal;
+import com.example.trackerhealth.route.RouteStore;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -81,7 +84,12 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
     private TextView noRecentActivitiesText;
     private RecyclerView recentActivitiesRecyclerView;
     
-    private PhysicalActivityDAO activityDAO;
+    private HealthRepository repository;
+    private boolean databaseReady = false;
+    
+    // Historial de actividades paginado por (fecha, id)
+    private KeysetPager<PhysicalActivity> activityPager;
+    private static final int ACTIVITY_PAGE_SIZE = 10;
     
     // Constantes para SharedPreferences
     private static final String PREF_NAME = "TrackerHealthPrefs";
@@ -97,36 +105,30 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
     // Variables para manejo de imágenes
     private String currentPhotoPath;
     private Uri photoUri;
+    // Foto que se está reduciendo en segundo plano; cambia al descartarla o elegir otra
+    private int photoGeneration;
+    private boolean ingestingPhoto;
     
-    // Variables para ubicación
-    private FusedLocationProviderClient fusedLocationClient;
-    private LocationRequest locationRequest;
-    private LocationCallback locationCallback;
+    // Variables para ubicación. La grabación la hace TrackingService; la pantalla se
+    // enlaza a él para mostrar las estadísticas
+    private TrackingService trackingService;
+    private boolean trackingServiceBound = false;
+    private DataCallback<RouteJournal> pendingStopCallback;
     private boolean isTrackingLocation = false;
-    private Location lastLocation;
     private float totalDistance = 0;
     private double currentLatitude;
     private double currentLongitude;
     private long startTimeMillis;
-    private List<Location> locationHistory = new ArrayList<>(); // Lista para almacenar el historial de ubicaciones
+    private RouteJournal routeJournal; // Puntos de la sesión, escritos al disco por lotes
 
-    // Constantes para la precisión del GPS
-    private static final float MIN_ACCURACY_THRESHOLD = 20.0f; // metros
-    private static final float MIN_DISTANCE_BETWEEN_UPDATES = 5.0f; // metros
-    private static final long GPS_TIMEOUT = 30000; // 30 segundos para timeout del GPS
-    
     // Variables adicionales para GPS
     private Handler gpsTimeoutHandler = new Handler(Looper.getMainLooper());
     private boolean hasGpsFix = false;
-    private long lastGpsUpdateTime = 0;
-    private int consecutiveInvalidLocations = 0;
-    private final int MAX_INVALID_LOCATIONS = 3;
 
     // ID de usuario actual (en un app real se tomaría del login)
     private long currentUserId = 1;
 
     private ActivityAdapter activityAdapter;
-    private List<PhysicalActivity> activityList;
 
     private PhysicalActivity currentEditingActivity = null;
     private boolean isEditing = false;
@@ -136,21 +138,54 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_physical_tracker);
         
-        // Verificar y recrear la tabla de actividades físicas si es necesario
-        DatabaseHelper.getInstance(this).verifyPhysicalActivitiesTable();
-        
-        // Verificar que existe un usuario por defecto
-        checkAndCreateDefaultUser();
-        
         try {
             // Inicializar BottomNavigationView primero
             bottomNavigationView = findViewById(R.id.bottom_navigation);
             bottomNavigationView.setOnNavigationItemSelectedListener(this);
             bottomNavigationView.setSelectedItemId(R.id.navigation_activity);
 
-            // Inicializar lista de actividades (antes de usarla)
-            activityList = new ArrayList<>();
+            // Inicializar repositorio y componentes regulares
+            repository = HealthRepository.getInstance(this);
+            activityPager = repository.activityHistoryPager(currentUserId, ACTIVITY_PAGE_SIZE);
+            
+            // Verificar y reparar la base de datos en segundo plano
+            prepareDatabase();
+            
+            // Inicializar componentes UI
+            initializeViews();
 
+            // Configurar listeners y recyclerView
+            setupListeners();
+            setupRecyclerView();
+            
+            Log.d("PhysicalActivityTracker", "Initializing successful");
+        } catch (Exception e) {
+            Log.e("PhysicalActivityTracker", "Error in onCreate: " + e.getMessage(), e);
+            Toast.makeText(this, "Error initializing activity: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            
+            // Manejar la excepción según corresponda
+            if (e instanceof Resources.NotFoundException) {
+                // Error de recursos
+                Toast.makeText(this, "Resource not found", Toast.LENGTH_SHORT).show();
+            } else if (e instanceof NullPointerException) {
+                // Referencia nula
+                Toast.makeText(this, "Null reference error", Toast.LENGTH_SHORT).show();
+            }
+        }
+    }
+
+    /**
+     * Verifica y repara las tablas en el hilo de base de datos. Las actividades
+     * recientes se cargan cuando termina, para no consultar una tabla a medio reparar.
+     */
+    private void prepareDatabase() {
+        repository.execute(() -> {
+            // Verificar y recrear la tabla de actividades físicas si es necesario
+            DatabaseHelper.getInstance(this).verifyPhysicalActivitiesTable();
+            
+            // Verificar que existe un usuario por defecto
+            checkAndCreateDefaultUser();
+            
             // Verificar y reparar base de datos
             if (!com.example.trackerhealth.util.DatabaseUtils.verifyAllTables(this)) {
                 Log.w("PhysicalActivityTracker", "Database verification failed, attempting repair");
@@ -163,12 +198,6 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
                 }
             }
             
-            // Asegurar que existe el usuario
-            if (!com.example.trackerhealth.util.DatabaseUtils.ensureUserExists(this, 1)) {
-                Log.e("PhysicalActivityTracker", "Failed to ensure user exists");
-                Toast.makeText(this, "Error: Could not create default user", Toast.LENGTH_LONG).show();
-            }
-            
             // Intentar crear una actividad de prueba para verificar si funciona
             long testActivityId = com.example.trackerhealth.util.DatabaseUtils.createTestActivity(this);
             if (testActivityId > 0) {
@@ -177,38 +206,21 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
                 Log.e("PhysicalActivityTracker", "Failed to create test activity");
             }
             
-            // Inicializar DAO y componentes regulares
-            activityDAO = new PhysicalActivityDAO(this);
-            
-            // Inicializar componentes UI
-            initializeViews();
-
-            // Inicializar el cliente de ubicación fusionada
-            fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
-            createLocationRequest();
-            createLocationCallback();
+            // Convertir rutas antiguas y sincronizar el índice de rutas con los archivos
+            RouteStore.rebuildIndex(this);
             
-            // Configurar listeners y recyclerView
-            setupListeners();
-            setupRecyclerView();
+            // Asegurar que existe el usuario
+            return com.example.trackerhealth.util.DatabaseUtils.ensureUserExists(this, 1);
+        }, userExists -> {
+            if (!userExists) {
+                Log.e("PhysicalActivityTracker", "Failed to ensure user exists");
+                Toast.makeText(this, "Error: Could not create default user", Toast.LENGTH_LONG).show();
+            }
             
-            // Cargar actividades recientes
+            databaseReady = true;
             loadRecentActivities();
-            
-            Log.d("PhysicalActivityTracker", "Initializing successful");
-        } catch (Exception e) {
-            Log.e("PhysicalActivityTracker", "Error in onCreate: " + e.getMessage(), e);
-            Toast.makeText(this, "Error initializing activity: " + e.getMessage(), Toast.LENGTH_LONG).show();
-            
-            // Manejar la excepción según corresponda
-            if (e instanceof Resources.NotFoundException) {
-                // Error de recursos
-                Toast.makeText(this, "Resource not found", Toast.LENGTH_SHORT).show();
-            } else if (e instanceof NullPointerException) {
-                // Referencia nula
-                Toast.makeText(this, "Null reference error", Toast.LENGTH_SHORT).show();
-            }
-        }
+            recoverRouteSession();
+        });
     }
 
     /**
@@ -273,30 +285,6 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
             recentActivitiesRecyclerView = findViewById(R.id.recent_activities_recycler_view);
             noRecentActivitiesText = findViewById(R.id.no_recent_activities_text);
             
-            // Configurar RecyclerView
-            activityList = new ArrayList<>();
-            activityAdapter = new ActivityAdapter(this, activityList, new ActivityAdapter.OnActivityActionListener() {
-                @Override
-                public void onActivityClick(PhysicalActivity activity) {
-                    // Implementar acción al hacer clic
-                }
-
-                @Override
-                public void onEditActivity(PhysicalActivity activity) {
-                    startEditingActivity(activity);
-                }
-
-                @Override
-                public void onDeleteActivity(PhysicalActivity activity) {
-                    showDeleteConfirmationDialog(activity);
-                }
-            });
-            recentActivitiesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-            recentActivitiesRecyclerView.setAdapter(activityAdapter);
-            
-            // Cargar actividades recientes
-            loadRecentActivities();
-            
             // Configurar Spinner de tipos de actividad
             ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(this,
                     R.array.activity_types, android.R.layout.simple_spinner_item);
@@ -369,144 +357,99 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
     }
     
     /**
-     * Configura los parámetros de solicitud de ubicación
+     * Recibe las estadísticas de la sesión que graba TrackingService
      */
-    private void createLocationRequest() {
-        // Ajustar la frecuencia de actualización según el tipo de actividad
-        int updateInterval = useGpsCheckbox.isChecked() ? 3000 : 10000; // 3 segundos o 10 segundos
-        
-        locationRequest = new LocationRequest.Builder(updateInterval)
-            .setPriority(Priority.PRIORITY_HIGH_ACCURACY)
-            .setMinUpdateIntervalMillis(1000) // Mínimo 1 segundo entre actualizaciones
-            .setMaxUpdateDelayMillis(updateInterval * 2) // Máximo retraso
-            .setMinUpdateDistanceMeters(MIN_DISTANCE_BETWEEN_UPDATES) // Solo actualizar si nos movemos al menos 5 metros
-            .build();
-    }
+    private final TrackingService.Listener trackingListener = new TrackingService.Listener() {
+        @Override
+        public void onTrackingUpdate(TrackingService.Stats stats) {
+            // Latitud y longitud actuales (suavizadas)
+            currentLatitude = stats.getLatitude();
+            currentLongitude = stats.getLongitude();
+            totalDistance = (float) (stats.getDistanceMeters() / 1000); // Convertir a kilómetros
+            
+            // Actualizar interfaz de usuario con datos de ubicación
+            updateLocationUI(stats.getSpeed());
+        }
+
+        @Override
+        public void onSignalChanged(boolean hasSignal) {
+            hasGpsFix = hasSignal;
+            if (hasSignal) {
+                Toast.makeText(PhysicalActivityTracker.this, "GPS signal acquired", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(PhysicalActivityTracker.this, 
+                        "GPS signal lost. Moving to more open area may help", 
+                        Toast.LENGTH_SHORT).show();
+            }
+        }
+    };
     
-    /**
-     * Configura el callback para recibir actualizaciones de ubicación
-     */
-    private void createLocationCallback() {
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(@NonNull LocationResult locationResult) {
-                super.onLocationResult(locationResult);
+    private final ServiceConnection trackingConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            trackingService = ((TrackingService.LocalBinder) binder).getService();
+            trackingService.addListener(trackingListener);
+            
+            // Se pidió detener la grabación antes de terminar de enlazar
+            if (pendingStopCallback != null) {
+                DataCallback<RouteJournal> callback = pendingStopCallback;
+                pendingStopCallback = null;
+                trackingService.stopTracking(callback);
+                return;
+            }
+            
+            // Volver a mostrar una sesión que siguió grabando en segundo plano
+            if (trackingService.isTracking()) {
+                isTrackingLocation = true;
+                startTimeMillis = trackingService.getStartTime();
+                useGpsCheckbox.setChecked(true);
+                startTrackingButton.setText(R.string.stop_tracking);
                 
-                if (locationResult.getLastLocation() != null) {
-                    Location currentLocation = locationResult.getLastLocation();
-                    
-                    // Resetear el timeout del GPS ya que recibimos una ubicación
-                    gpsTimeoutHandler.removeCallbacksAndMessages(null);
-                    lastGpsUpdateTime = SystemClock.elapsedRealtime();
-                    
-                    // Verificar si la ubicación es válida
-                    if (isValidLocation(currentLocation)) {
-                        // Restablecer contador de ubicaciones inválidas
-                        consecutiveInvalidLocations = 0;
-                        
-                        // Si aún no teníamos señal GPS, notificar que ahora la tenemos
-                        if (!hasGpsFix) {
-                            hasGpsFix = true;
-                            Toast.makeText(PhysicalActivityTracker.this, "GPS signal acquired", Toast.LENGTH_SHORT).show();
-                        }
-                        
-                        // Actualizar latitud y longitud actuales
-                        currentLatitude = currentLocation.getLatitude();
-                        currentLongitude = currentLocation.getLongitude();
-                        
-                        // Guardar ubicación en el historial
-                        locationHistory.add(currentLocation);
-                        
-                        // Actualizar interfaz de usuario con datos de ubicación
-                        updateLocationUI(currentLocation);
-                        
-                        // Calcular distancia si hay una ubicación anterior
-                        if (lastLocation != null) {
-                            // Usar el método Haversine para mayor precisión en largas distancias
-                            float distance = LocationUtils.calculateDistance(
-                                    lastLocation.getLatitude(), lastLocation.getLongitude(),
-                                    currentLocation.getLatitude(), currentLocation.getLongitude());
-                            
-                            // Solo añadir la distancia si es razonable (evitar saltos del GPS)
-                            if (distance > 0 && distance < 100) { // Ignorar saltos mayores a 100m
-                                totalDistance += distance / 1000; // Convertir a kilómetros
-                            }
-                        }
-                        
-                        // Guardar ubicación actual como última ubicación
-                        lastLocation = currentLocation;
-                    } else {
-                        // Incrementar contador de ubicaciones inválidas
-                        consecutiveInvalidLocations++;
-                        
-                        // Si tenemos demasiadas ubicaciones inválidas seguidas, notificar al usuario
-                        if (consecutiveInvalidLocations >= MAX_INVALID_LOCATIONS) {
-                            hasGpsFix = false;
-                            Toast.makeText(PhysicalActivityTracker.this, 
-                                    "GPS signal lost. Moving to more open area may help", 
-                                    Toast.LENGTH_SHORT).show();
-                            consecutiveInvalidLocations = 0; // Resetear contador para no spammear
-                        }
-                    }
-                    
-                    // Configurar un timeout para detectar pérdida prolongada de señal GPS
-                    gpsTimeoutHandler.postDelayed(() -> {
-                        // Si pasó el tiempo de timeout sin actualizaciones válidas
-                        if (SystemClock.elapsedRealtime() - lastGpsUpdateTime > GPS_TIMEOUT) {
-                            hasGpsFix = false;
-                            Toast.makeText(PhysicalActivityTracker.this, 
-                                    "GPS signal lost for too long. Check device settings.", 
-                                    Toast.LENGTH_LONG).show();
-                        }
-                    }, GPS_TIMEOUT);
+                TrackingService.Stats stats = trackingService.getLatestStats();
+                if (stats != null) {
+                    trackingListener.onTrackingUpdate(stats);
                 }
             }
-        };
-    }
-    
-    /**
-     * Verifica si una ubicación es válida y precisa
-     */
-    private boolean isValidLocation(Location location) {
-        // Verificar si la ubicación tiene buena precisión
-        if (location.hasAccuracy() && location.getAccuracy() > MIN_ACCURACY_THRESHOLD) {
-            Log.d("GPS", "Location discarded due to poor accuracy: " + location.getAccuracy() + "m");
-            return false;
         }
-        
-        // Verificar velocidad de movimiento (si la ubicación tiene velocidad)
-        if (location.hasSpeed() && location.getSpeed() > 30) { // Más de 30 m/s (108 km/h)
-            Log.d("GPS", "Location discarded due to unrealistic speed: " + location.getSpeed() + "m/s");
-            return false;
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            trackingService = null;
         }
-        
-        // Verificar que la ubicación no sea muy antigua
-        long locationTime = location.getTime();
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - locationTime > 60000) { // Más de 1 minuto de antigüedad
-            Log.d("GPS", "Location discarded due to age: " + (currentTime - locationTime) + "ms old");
-            return false;
+    };
+    
+    private void bindTrackingService() {
+        if (!trackingServiceBound) {
+            trackingServiceBound = TrackingService.bind(this, trackingConnection);
+        }
+    }
+    
+    private void unbindTrackingService() {
+        if (trackingServiceBound) {
+            if (trackingService != null) {
+                trackingService.removeListener(trackingListener);
+                trackingService = null;
+            }
+            unbindService(trackingConnection);
+            trackingServiceBound = false;
         }
-        
-        return true;
     }
     
     /**
      * Actualiza la UI con la información de ubicación
      */
-    private void updateLocationUI(Location location) {
-        if (location != null && locationStatusTextView != null) {
+    private void updateLocationUI(float speed) {
+        if (locationStatusTextView != null) {
             // Mostrar coordenadas
             String locationText = String.format(Locale.getDefault(), 
                     "Lat: %.6f, Lng: %.6f", 
-                    location.getLatitude(), 
-                    location.getLongitude());
+                    currentLatitude, 
+                    currentLongitude);
             locationStatusTextView.setText(locationText);
             
             // Mostrar velocidad actual
             if (currentSpeedTextView != null) {
-                float speedKmh = location.hasSpeed() ? 
-                        location.getSpeed() * 3.6f : 0; // m/s a km/h
+                float speedKmh = speed * 3.6f; // m/s a km/h
                 String speedText = String.format(Locale.getDefault(), 
                         "%.1f km/h", speedKmh);
                 currentSpeedTextView.setText(speedText);
@@ -538,26 +481,21 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
      */
     private void startLocationTracking() {
         if (checkLocationPermission()) {
-            // Redefinir los parámetros de ubicación según el estado actual
-            createLocationRequest();
+            // Descartar una sesión restaurada que no se llegó a guardar
+            if (routeJournal != null) {
+                routeJournal.discard();
+                routeJournal = null;
+            }
             
-            // Iniciar actualizaciones de ubicación
-            fusedLocationClient.requestLocationUpdates(
-                    locationRequest,
-                    locationCallback,
-                    Looper.getMainLooper()
-            );
+            // La grabación sigue aunque la pantalla pase a segundo plano
+            TrackingService.start(this, PhysicalActivityTracker.class);
+            bindTrackingService();
             
             // Actualizar estado y UI
             isTrackingLocation = true;
             startTimeMillis = System.currentTimeMillis();
             totalDistance = 0;
-            lastLocation = null;
             hasGpsFix = false;
-            consecutiveInvalidLocations = 0;
-            
-            // Limpiar historial de ubicaciones anterior
-            locationHistory.clear();
             
             // Cambiar texto del botón
             startTrackingButton.setText(R.string.stop_tracking);
@@ -580,7 +518,28 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
      * Detiene el seguimiento de ubicación
      */
     private void stopLocationTracking() {
-        fusedLocationClient.removeLocationUpdates(locationCallback);
+        stopLocationTracking(null);
+    }
+    
+    /**
+     * Detiene el seguimiento de ubicación. El servicio entrega el diario de la sesión,
+     * que queda pendiente hasta guardar la actividad.
+     *
+     * @param onStopped Recibe el diario cuando el servicio termina de escribirlo, o null
+     */
+    private void stopLocationTracking(@Nullable DataCallback<RouteJournal> onStopped) {
+        DataCallback<RouteJournal> handOff = journal -> {
+            routeJournal = journal;
+            if (onStopped != null) {
+                onStopped.onResult(journal);
+            }
+        };
+        if (trackingService != null) {
+            trackingService.stopTracking(handOff);
+        } else {
+            pendingStopCallback = handOff;
+            bindTrackingService();
+        }
         
         // Actualizar estado y UI
         isTrackingLocation = false;
@@ -690,11 +649,14 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
      */
     private void resetPhotoPreview() {
         if (activityPhotoPreview != null) {
+            ImageLoader.getInstance(this).cancel(activityPhotoPreview);
             activityPhotoPreview.setImageResource(android.R.drawable.ic_menu_camera);
             activityPhotoPreview.setScaleType(ImageView.ScaleType.CENTER);
         }
         photoUri = null;
         currentPhotoPath = null;
+        photoGeneration++;
+        ingestingPhoto = false;
     }
     
     @Override
@@ -703,27 +665,22 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
         
         if (resultCode == RESULT_OK) {
             if (requestCode == REQUEST_IMAGE_CAPTURE) {
-                // La foto se ha guardado en photoUri, mostrar vista previa
-                try {
-                    Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), photoUri);
-                    activityPhotoPreview.setImageBitmap(bitmap);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Toast.makeText(this, "Error al cargar la imagen", Toast.LENGTH_SHORT).show();
+                // La cámara guardó la foto original en currentPhotoPath; se reduce y se borra
+                if (currentPhotoPath != null) {
+                    File cameraFile = new File(currentPhotoPath);
+                    ingestPhoto(cameraFile.getAbsolutePath(), cameraFile);
                 }
             } else if (requestCode == REQUEST_PICK_IMAGE && data != null) {
-                // Imagen seleccionada de la galería
-                photoUri = data.getData();
-                try {
-                    Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), photoUri);
-                    activityPhotoPreview.setImageBitmap(bitmap);
-                    // La imagen de la galería no tiene currentPhotoPath, solo photoUri
-                    currentPhotoPath = null;
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    Toast.makeText(this, "Error al cargar la imagen", Toast.LENGTH_SHORT).show();
+                // Imagen seleccionada de la galería: se guarda una copia reducida
+                Uri pickedUri = data.getData();
+                if (pickedUri != null) {
+                    ingestPhoto(pickedUri.toString(), null);
                 }
             }
+        } else if (requestCode == REQUEST_IMAGE_CAPTURE && currentPhotoPath != null) {
+            // Captura cancelada: el archivo reservado para la cámara está vacío
+            deleteInBackground(new File(currentPhotoPath));
+            resetPhotoPreview();
         }
     }
     
@@ -784,6 +741,11 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
      * Guarda una nueva actividad física en la base de datos con fallback
      */
     private void saveActivityToDatabase() {
+        if (ingestingPhoto) {
+            Toast.makeText(this, "Processing photo, please try again in a moment", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        
         try {
             // 1. Validar campos obligatorios
             if (TextUtils.isEmpty(durationEditText.getText())) {
@@ -826,12 +788,12 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
             }
 
             // Añadir información de foto si existe
-            if (photoUri != null) {
+            if (currentPhotoPath != null) {
                 if (notesBuilder.length() > 0) {
                     notesBuilder.append(",");
                 }
-                notesBuilder.append("photoPath:").append(photoUri.toString());
-                Log.d("PhysicalActivityTracker", "Photo info added to notes: " + photoUri);
+                notesBuilder.append("photoPath:").append(currentPhotoPath);
+                Log.d("PhysicalActivityTracker", "Photo info added to notes: " + currentPhotoPath);
             }
 
             String notes = notesBuilder.toString();
@@ -851,6 +813,7 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
             String currentDate = sdf.format(new Date());
             activity.setDate(currentDate);
+            activity.setPhotoPath(currentPhotoPath);
             Log.d("PhysicalActivityTracker", "Activity date set: " + currentDate);
 
             // 8. Establecer coordenadas GPS si están disponibles
@@ -860,88 +823,9 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
                 Log.d("PhysicalActivityTracker", "GPS coordinates set: " + currentLatitude + "," + currentLongitude);
             }
             
-            // 9. Guardar en la base de datos
-            Log.d("PhysicalActivityTracker", "About to insert activity into database using DAO");
-            long activityId = activityDAO.insertActivity(activity);
-            Log.d("PhysicalActivityTracker", "DAO insert result: " + activityId);
-
-            // 10. Si falla, intentar guardar directamente con SQLite
-            if (activityId <= 0) {
-                Log.w("PhysicalActivityTracker", "DAO insert failed, trying direct SQLite insert");
-                
-                // Crear ContentValues
-                ContentValues values = new ContentValues();
-                values.put(DatabaseHelper.KEY_ACTIVITY_USER_ID_FK, activity.getUserId());
-                values.put(DatabaseHelper.KEY_ACTIVITY_TYPE, activity.getActivityType());
-                values.put(DatabaseHelper.KEY_ACTIVITY_DURATION, activity.getDuration());
-                values.put(DatabaseHelper.KEY_ACTIVITY_CALORIES, activity.getCaloriesBurned());
-                values.put(DatabaseHelper.KEY_ACTIVITY_DISTANCE, activity.getDistance());
-                values.put(DatabaseHelper.KEY_ACTIVITY_DATE, activity.getDate());
-                values.put(DatabaseHelper.KEY_ACTIVITY_NOTES, activity.getNotes());
-                values.put(DatabaseHelper.KEY_ACTIVITY_LATITUDE, activity.getLatitude());
-                values.put(DatabaseHelper.KEY_ACTIVITY_LONGITUDE, activity.getLongitude());
-                
-                // Intentar insertar directamente
-                SQLiteDatabase db = DatabaseHelper.getInstance(this).getWritableDatabase();
-                db.beginTransaction();
-                try {
-                    activityId = db.insert(DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES, null, values);
-            if (activityId > 0) {
-                        db.setTransactionSuccessful();
-                        Log.d("PhysicalActivityTracker", "Direct SQLite insert succeeded with ID: " + activityId);
-                    } else {
-                        Log.e("PhysicalActivityTracker", "Direct SQLite insert also failed");
-                    }
-                } catch (Exception e) {
-                    Log.e("PhysicalActivityTracker", "Error in direct SQLite insert: " + e.getMessage(), e);
-                } finally {
-                    db.endTransaction();
-                }
-            }
-
-            if (activityId > 0) {
-                // 11. Procesar datos adicionales
-                String successMessage = "Activity saved successfully (ID: " + activityId + ")";
-
-                // Guardar ruta GPS si está disponible
-                if (useGpsCheckbox.isChecked() && !locationHistory.isEmpty()) {
-                    Log.d("PhysicalActivityTracker", "Saving route data with " + locationHistory.size() + " points");
-                    String routeFilePath = LocationUtils.saveRouteData(this, activityId, locationHistory);
-                    if (routeFilePath != null) {
-                        successMessage += " with GPS route";
-                        Log.d("PhysicalActivityTracker", "Route saved to: " + routeFilePath);
-                    }
-                }
-                
-                // Confirmar si se guardó con foto
-                if (photoUri != null) {
-                    successMessage += " with photo";
-                }
-                
-                // 12. Mostrar mensaje de éxito
-                Toast.makeText(this, successMessage, Toast.LENGTH_SHORT).show();
-                Log.i("PhysicalActivityTracker", successMessage);
-                
-                // 13. Limpiar y resetear
-                if (isTrackingLocation) {
-                    stopLocationTracking();
-                }
-                clearInputFields();
-                resetPhotoPreview();
-                
-                // 14. Recargar lista de actividades
-                loadRecentActivities();
-            } else {
-                String errorMsg = "Failed to save activity after multiple attempts";
-                Log.e("PhysicalActivityTracker", errorMsg);
-                
-                // Mensaje más descriptivo para el usuario
-                new AlertDialog.Builder(this)
-                    .setTitle("Database Error")
-                    .setMessage("Failed to save activity. Please check database permissions and storage space.")
-                    .setPositiveButton("OK", null)
-                    .show();
-            }
+            // 9. Guardar en la base de datos en segundo plano
+            repository.execute(() -> insertActivityWithFallback(activity),
+                    activityId -> onActivitySaved(activityId));
             
         } catch (NumberFormatException e) {
             String errorMsg = "Please enter valid numbers";
@@ -954,6 +838,199 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
         }
     }
     
+    /**
+     * Inserta la actividad con el DAO y, si falla, directamente con SQLite.
+     * Se ejecuta en el hilo de base de datos.
+     */
+    private long insertActivityWithFallback(PhysicalActivity activity) {
+        Log.d("PhysicalActivityTracker", "About to insert activity into database using DAO");
+        long activityId = new PhysicalActivityDAO(this).insertActivity(activity);
+        Log.d("PhysicalActivityTracker", "DAO insert result: " + activityId);
+
+        // 10. Si falla, intentar guardar directamente con SQLite
+        if (activityId <= 0) {
+            Log.w("PhysicalActivityTracker", "DAO insert failed, trying direct SQLite insert");
+            
+            // Crear ContentValues
+            ContentValues values = new ContentValues();
+            values.put(DatabaseHelper.KEY_ACTIVITY_USER_ID_FK, activity.getUserId());
+            values.put(DatabaseHelper.KEY_ACTIVITY_TYPE, activity.getActivityType());
+            values.put(DatabaseHelper.KEY_ACTIVITY_DURATION, activity.getDuration());
+            values.put(DatabaseHelper.KEY_ACTIVITY_CALORIES, activity.getCaloriesBurned());
+            values.put(DatabaseHelper.KEY_ACTIVITY_DISTANCE, activity.getDistance());
+            values.put(DatabaseHelper.KEY_ACTIVITY_DATE, activity.getDate());
+            values.put(DatabaseHelper.KEY_ACTIVITY_NOTES, activity.getNotes());
+            values.put(DatabaseHelper.KEY_ACTIVITY_LATITUDE, activity.getLatitude());
+            values.put(DatabaseHelper.KEY_ACTIVITY_LONGITUDE, activity.getLongitude());
+            
+            // Intentar insertar directamente
+            SQLiteDatabase db = DatabaseHelper.getInstance(this).getWritableDatabase();
+            db.beginTransaction();
+            try {
+                activityId = db.insert(DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES, null, values);
+                if (activityId > 0) {
+                    db.setTransactionSuccessful();
+                    Log.d("PhysicalActivityTracker", "Direct SQLite insert succeeded with ID: " + activityId);
+                } else {
+                    Log.e("PhysicalActivityTracker", "Direct SQLite insert also failed");
+                }
+            } catch (Exception e) {
+                Log.e("PhysicalActivityTracker", "Error in direct SQLite insert: " + e.getMessage(), e);
+            } finally {
+                db.endTransaction();
+            }
+        }
+        
+        return activityId;
+    }
+    
+    /**
+     * Procesa el resultado del guardado en el hilo principal
+     */
+    private void onActivitySaved(long activityId) {
+        if (activityId > 0) {
+            // 11. Procesar datos adicionales
+            String successMessage = "Activity saved successfully (ID: " + activityId + ")";
+
+            // Convertir el diario de la sesión en la ruta GPS de la actividad; si aún se
+            // está grabando, primero se detiene el servicio para recibir el diario completo
+            boolean keepRoute = useGpsCheckbox.isChecked();
+            if (keepRoute && (isTrackingLocation
+                    || routeJournal != null && routeJournal.getPointCount() > 0)) {
+                successMessage += " with GPS route";
+            }
+            if (isTrackingLocation) {
+                stopLocationTracking(journal -> handleSessionRoute(journal, activityId, keepRoute));
+            } else {
+                handleSessionRoute(routeJournal, activityId, keepRoute);
+            }
+            
+            // Confirmar si se guardó con foto
+            if (currentPhotoPath != null) {
+                successMessage += " with photo";
+            }
+            
+            // 12. Mostrar mensaje de éxito
+            Toast.makeText(this, successMessage, Toast.LENGTH_SHORT).show();
+            Log.i("PhysicalActivityTracker", successMessage);
+            
+            // 13. Limpiar y resetear
+            clearInputFields();
+            resetPhotoPreview();
+            
+            // 14. Recargar lista de actividades
+            loadRecentActivities();
+        } else {
+            String errorMsg = "Failed to save activity after multiple attempts";
+            Log.e("PhysicalActivityTracker", errorMsg);
+            
+            // Mensaje más descriptivo para el usuario
+            new AlertDialog.Builder(this)
+                .setTitle("Database Error")
+                .setMessage("Failed to save activity. Please check database permissions and storage space.")
+                .setPositiveButton("OK", null)
+                .show();
+        }
+    }
+    
+    /**
+     * Guarda o descarta el diario de la sesión según la opción de GPS del formulario
+     */
+    private void handleSessionRoute(@Nullable RouteJournal journal, long activityId, boolean keepRoute) {
+        if (journal == null) {
+            return;
+        }
+        if (keepRoute && journal.getPointCount() > 0) {
+            Log.d("PhysicalActivityTracker", "Saving route data with " + journal.getPointCount() + " points");
+            saveRoute(journal, activityId);
+        } else {
+            journal.discard();
+        }
+        routeJournal = null;
+    }
+    
+    /**
+     * Guarda la ruta de la sesión como ruta definitiva de la actividad
+     */
+    private void saveRoute(RouteJournal journal, long activityId) {
+        journal.finish(activityId, new DataCallback<String>() {
+            @Override
+            public void onResult(String routeFilePath) {
+                if (routeFilePath != null) {
+                    Log.d("PhysicalActivityTracker", "Route saved to: " + routeFilePath);
+                } else {
+                    Toast.makeText(PhysicalActivityTracker.this, "Could not save GPS route", Toast.LENGTH_SHORT).show();
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e("PhysicalActivityTracker", "Error saving route: " + e.getMessage(), e);
+                Toast.makeText(PhysicalActivityTracker.this, "Could not save GPS route", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+    
+    /**
+     * Busca una sesión GPS que quedó sin guardar (por ejemplo, si el proceso murió)
+     * y ofrece restaurarla
+     */
+    private void recoverRouteSession() {
+        RouteJournal.recover(this, journal -> {
+            // No reemplazar una sesión que ya se haya empezado mientras tanto; si el servicio
+            // está grabando, el diario es el de su sesión en curso
+            if (journal == null || isFinishing() || routeJournal != null
+                    || TrackingService.isRunning()) {
+                return;
+            }
+            
+            new AlertDialog.Builder(this)
+                .setTitle("Unsaved GPS session")
+                .setMessage("Found a GPS session with " + journal.getPointCount() +
+                        " points that was not saved. Restore it so you can save the activity?")
+                .setPositiveButton("Restore", (dialog, which) -> restoreRouteSession(journal))
+                .setNegativeButton("Discard", (dialog, which) -> journal.discard())
+                .setCancelable(false)
+                .show();
+        });
+    }
+    
+    /**
+     * Restaura una sesión recuperada: distancia, duración y última posición
+     */
+    private void restoreRouteSession(RouteJournal journal) {
+        routeJournal = journal;
+        startTimeMillis = journal.getStartTime();
+        useGpsCheckbox.setChecked(true);
+        
+        journal.loadTrack(track -> {
+            if (track.size() == 0) {
+                return;
+            }
+            
+            // Reproducir la sesión por el mismo procesamiento que durante el tracking
+            LocationPipeline locationPipeline = new LocationPipeline();
+            for (int i = 0; i < track.size(); i++) {
+                locationPipeline.process(track.getLatitude(i), track.getLongitude(i),
+                        track.getAccuracy(i), track.getSpeed(i), track.getTime(i), track.getTime(i));
+            }
+            totalDistance = (float) (locationPipeline.getDistanceMeters() / 1000);
+            
+            int last = track.size() - 1;
+            if (locationPipeline.hasFix()) {
+                currentLatitude = locationPipeline.getLatitude();
+                currentLongitude = locationPipeline.getLongitude();
+            }
+            
+            int minutes = (int) ((track.getTime(last) - startTimeMillis) / 60000);
+            durationEditText.setText(String.valueOf(minutes));
+            distanceEditText.setText(String.format(Locale.getDefault(), "%.2f", totalDistance));
+            if (totalDistanceTextView != null) {
+                totalDistanceTextView.setText(String.format(Locale.getDefault(), "%.2f km", totalDistance));
+            }
+        });
+    }
+    
     /**
      * Estima las calorías quemadas basado en el tipo de actividad, duración y distancia
      */
@@ -995,13 +1072,33 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
         useGpsCheckbox.setChecked(false);
     }
     
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Volver a enlazar con una sesión que sigue grabando
+        if (isTrackingLocation || TrackingService.isRunning()) {
+            bindTrackingService();
+        }
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // La grabación sigue en el servicio; solo se deja de recibir estadísticas
+        if (pendingStopCallback == null) {
+            unbindTrackingService();
+        }
+    }
+    
+    @Override
+    protected void onDestroy() {
+        unbindTrackingService();
+        super.onDestroy();
+    }
+    
     @Override
     protected void onPause() {
         super.onPause();
-        // Detener actualizaciones de ubicación si la actividad está en pausa
-        if (isTrackingLocation) {
-            stopLocationTracking();
-        }
         // Limpiar recursos
         if (gpsTimeoutHandler != null) {
             gpsTimeoutHandler.removeCallbacksAndMessages(null);
@@ -1011,24 +1108,13 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
     @Override
     protected void onResume() {
         super.onResume();
-        // Reanudar actualizaciones de ubicación si el seguimiento estaba activo
-        if (isTrackingLocation && checkLocationPermission()) {
-            fusedLocationClient.requestLocationUpdates(
-                    locationRequest,
-                    locationCallback,
-                    Looper.getMainLooper()
-            );
-        }
         // Recargar actividades cuando se vuelve a la actividad
         loadRecentActivities();
     }
 
     @Override
     public boolean onNavigationItemSelected(@NonNull MenuItem item) {
-        // Detener el tracking de GPS si está activo
-        if (isTrackingLocation) {
-            stopLocationTracking();
-        }
+        // El tracking de GPS sigue en el servicio al cambiar de pantalla
         
         // Limpiar recursos del GPS
         if (gpsTimeoutHandler != null) {
@@ -1059,77 +1145,93 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
 
     
     /**
-     * Carga las actividades recientes del usuario
+     * Carga la primera página del historial de actividades del usuario
      */
     private void loadRecentActivities() {
-        try {
-            Log.d("PhysicalActivityTracker", "Loading recent activities for user: " + currentUserId);
-            
-        // Limpiar lista anterior
-        activityList.clear();
+        // Esperar a que termine la verificación de la base de datos
+        if (!databaseReady) {
+            return;
+        }
         
-            // Verificar que el RecyclerView y el adapter estén inicializados
-            if (recentActivitiesRecyclerView == null || activityAdapter == null) {
-                Log.e("PhysicalActivityTracker", "RecyclerView or adapter is null");
-                return;
+        // Verificar que el RecyclerView y el adapter estén inicializados
+        if (recentActivitiesRecyclerView == null || activityAdapter == null) {
+            Log.e("PhysicalActivityTracker", "RecyclerView or adapter is null");
+            return;
+        }
+        
+        Log.d("PhysicalActivityTracker", "Loading recent activities for user: " + currentUserId);
+        
+        activityPager.reset();
+        activityPager.loadNextPage(new DataCallback<List<PhysicalActivity>>() {
+            @Override
+            public void onResult(List<PhysicalActivity> recentActivities) {
+                showRecentActivities(recentActivities);
             }
-            
-            // Obtener actividades del usuario actual
-            List<PhysicalActivity> recentActivities = activityDAO.getRecentActivities(currentUserId, 10);
-            
-            Log.d("PhysicalActivityTracker", "Found " + recentActivities.size() + " recent activities");
-            
-            if (recentActivities.isEmpty()) {
+
+            @Override
+            public void onError(Exception e) {
+                Log.e("PhysicalActivityTracker", "Error loading activities: " + e.getMessage(), e);
+                
                 if (noRecentActivitiesText != null) {
+                    noRecentActivitiesText.setText("Error: " + e.getMessage());
                     noRecentActivitiesText.setVisibility(View.VISIBLE);
-                    Log.d("PhysicalActivityTracker", "No activities found, showing empty message");
                 }
-                if (recentActivitiesRecyclerView != null) {
-                    recentActivitiesRecyclerView.setVisibility(View.GONE);
-                }
-            } else {
-                // Registrar detalles de las actividades
-                for (PhysicalActivity activity : recentActivities) {
-                    Log.d("PhysicalActivityTracker", "Activity: ID=" + activity.getId() + 
-                            ", Type=" + activity.getActivityType() + 
-                            ", Date=" + activity.getDate());
-                }
-                
-                activityList.addAll(recentActivities);
+                recentActivitiesRecyclerView.setVisibility(View.GONE);
                 
-                if (noRecentActivitiesText != null) {
-                    noRecentActivitiesText.setVisibility(View.GONE);
-                }
-                if (recentActivitiesRecyclerView != null) {
-                    recentActivitiesRecyclerView.setVisibility(View.VISIBLE);
-                    
-                    // Notificar cambios en el adaptador
-                    if (activityAdapter != null) {
-                        activityAdapter.notifyDataSetChanged();
-                        Log.d("PhysicalActivityTracker", "Adapter notified of data changes");
-                    } else {
-                        Log.e("PhysicalActivityTracker", "Activity adapter is null");
-                    }
+                // Mostrar diálogo con detalles del error
+                if (!isFinishing()) {
+                    new AlertDialog.Builder(PhysicalActivityTracker.this)
+                        .setTitle("Database Error")
+                        .setMessage("Error loading activities: " + e.getMessage() + 
+                                "\n\nPlease check the logs for details")
+                        .setPositiveButton("OK", null)
+                        .show();
                 }
             }
-        } catch (Exception e) {
-            Log.e("PhysicalActivityTracker", "Error loading activities: " + e.getMessage(), e);
-            
+        });
+    }
+    
+    /**
+     * Carga la siguiente página del historial al acercarse al final de la lista
+     */
+    private void loadMoreActivities() {
+        if (!databaseReady) {
+            return;
+        }
+        
+        activityPager.loadNextPage(new DataCallback<List<PhysicalActivity>>() {
+            @Override
+            public void onResult(List<PhysicalActivity> activities) {
+                activityAdapter.appendActivities(activities);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e("PhysicalActivityTracker", "Error loading more activities: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Muestra en la lista las actividades cargadas
+     */
+    private void showRecentActivities(List<PhysicalActivity> recentActivities) {
+        Log.d("PhysicalActivityTracker", "Found " + recentActivities.size() + " recent activities");
+        
+        // El adaptador calcula las diferencias en segundo plano
+        activityAdapter.submitList(recentActivities);
+        
+        if (recentActivities.isEmpty()) {
             if (noRecentActivitiesText != null) {
-                noRecentActivitiesText.setText("Error: " + e.getMessage());
                 noRecentActivitiesText.setVisibility(View.VISIBLE);
+                Log.d("PhysicalActivityTracker", "No activities found, showing empty message");
             }
-            if (recentActivitiesRecyclerView != null) {
-                recentActivitiesRecyclerView.setVisibility(View.GONE);
+            recentActivitiesRecyclerView.setVisibility(View.GONE);
+        } else {
+            if (noRecentActivitiesText != null) {
+                noRecentActivitiesText.setVisibility(View.GONE);
             }
-            
-            // Mostrar diálogo con detalles del error
-            new AlertDialog.Builder(this)
-                .setTitle("Database Error")
-                .setMessage("Error loading activities: " + e.getMessage() + 
-                        "\n\nPlease check the logs for details")
-                .setPositiveButton("OK", null)
-                .show();
+            recentActivitiesRecyclerView.setVisibility(View.VISIBLE);
         }
     }
 
@@ -1143,16 +1245,19 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
                 return;
             }
             
-            recentActivitiesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+            LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+            recentActivitiesRecyclerView.setLayoutManager(layoutManager);
+            recentActivitiesRecyclerView.addOnScrollListener(
+                    new PagingScrollListener(layoutManager, this::loadMoreActivities));
             
-            activityAdapter = new ActivityAdapter(this, activityList, new ActivityAdapter.OnActivityActionListener() {
+            activityAdapter = new ActivityAdapter(this, new ActivityAdapter.OnActivityActionListener() {
                 @Override
                 public void onActivityClick(PhysicalActivity activity) {
-                    // Mostrar detalles si se desea
+                    // Mostrar los detalles y el análisis de la ruta
                     if (activity != null) {
-                        Toast.makeText(PhysicalActivityTracker.this, 
-                                "Activity: " + activity.getActivityType(), 
-                                Toast.LENGTH_SHORT).show();
+                        Intent intent = new Intent(PhysicalActivityTracker.this, WorkoutDetailActivity.class);
+                        intent.putExtra(WorkoutDetailActivity.EXTRA_ACTIVITY_ID, activity.getId());
+                        startActivity(intent);
                     }
                 }
     
@@ -1188,19 +1293,9 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
         durationEditText.setText(String.valueOf(activity.getDuration()));
         distanceEditText.setText(activity.getDistance() > 0 ? String.format(Locale.getDefault(), "%.2f", activity.getDistance()) : "");
         
-        // Si hay foto, mostrarla
-        if (activity.getPhotoPath() != null && !activity.getPhotoPath().isEmpty()) {
-            try {
-                Uri photoUri = Uri.parse(activity.getPhotoPath());
-                Bitmap bitmap = MediaStore.Images.Media.getBitmap(this.getContentResolver(), photoUri);
-                activityPhotoPreview.setImageBitmap(bitmap);
-            } catch (Exception e) {
-                Log.e("PhysicalActivityTracker", "Error loading activity photo: " + e.getMessage());
-                activityPhotoPreview.setImageResource(android.R.drawable.ic_menu_camera);
-            }
-        } else {
-            activityPhotoPreview.setImageResource(android.R.drawable.ic_menu_camera);
-        }
+        // Si hay foto, mostrarla reducida al tamaño de la vista previa
+        ImageLoader.getInstance(this).load(activity.getPhotoPath(), activityPhotoPreview,
+                android.R.drawable.ic_menu_camera);
         
         // Desactivar GPS tracking durante la edición
         useGpsCheckbox.setChecked(false);
@@ -1220,6 +1315,10 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
 
     private void updateActivity() {
         if (currentEditingActivity == null) return;
+        if (ingestingPhoto) {
+            Toast.makeText(this, "Processing photo, please try again in a moment", Toast.LENGTH_SHORT).show();
+            return;
+        }
         
         try {
             // Validar campos
@@ -1238,8 +1337,8 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
             }
             
             // Actualizar foto si se cambió
-            if (photoUri != null) {
-                currentEditingActivity.setPhotoPath(photoUri.toString());
+            if (currentPhotoPath != null) {
+                currentEditingActivity.setPhotoPath(currentPhotoPath);
             }
             
             // Recalcular calorías
@@ -1251,19 +1350,21 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
             currentEditingActivity.setCaloriesBurned(calories);
             
             // Actualizar en la base de datos
-            if (activityDAO.updateActivity(currentEditingActivity)) {
-                Toast.makeText(this, "Activity updated successfully", Toast.LENGTH_SHORT).show();
-                
-                // Recargar la lista
-                loadRecentActivities();
-                
-                // Limpiar el formulario y resetear el estado
-                clearInputFields();
-                resetEditingState();
-                resetPhotoPreview();
-            } else {
-                Toast.makeText(this, "Error updating activity", Toast.LENGTH_SHORT).show();
-            }
+            repository.updateActivity(currentEditingActivity, updated -> {
+                if (updated) {
+                    Toast.makeText(this, "Activity updated successfully", Toast.LENGTH_SHORT).show();
+                    
+                    // Recargar la lista
+                    loadRecentActivities();
+                    
+                    // Limpiar el formulario y resetear el estado
+                    clearInputFields();
+                    resetEditingState();
+                    resetPhotoPreview();
+                } else {
+                    Toast.makeText(this, "Error updating activity", Toast.LENGTH_SHORT).show();
+                }
+            });
             
         } catch (NumberFormatException e) {
             Toast.makeText(this, "Please enter valid numbers", Toast.LENGTH_SHORT).show();
@@ -1278,12 +1379,14 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
             .setTitle("Delete Activity")
             .setMessage("Are you sure you want to delete this activity?")
             .setPositiveButton("Delete", (dialog, which) -> {
-                if (activityDAO.deleteActivity(activity.getId())) {
-                    Toast.makeText(this, "Activity deleted", Toast.LENGTH_SHORT).show();
-                    loadRecentActivities();
-                } else {
-                    Toast.makeText(this, "Error deleting activity", Toast.LENGTH_SHORT).show();
-                }
+                repository.deleteActivity(activity.getId(), deleted -> {
+                    if (deleted) {
+                        Toast.makeText(this, "Activity deleted", Toast.LENGTH_SHORT).show();
+                        loadRecentActivities();
+                    } else {
+                        Toast.makeText(this, "Error deleting activity", Toast.LENGTH_SHORT).show();
+                    }
+                });
             })
             .setNegativeButton("Cancel", null)
             .show();
@@ -1304,4 +1407,49 @@ public class PhysicalActivityTracker extends AppCompatActivity implements Bottom
         isEditing = false;
         saveActivityButton.setText(R.string.save_activity);
     }
-}
\ No newline at end of file
+
+    /**
+     * Guarda la foto reducida en el almacén de fotos en segundo plano. La vista previa
+     * se carga desde el archivo ya guardado.
+     *
+     * @param source Foto original (URI o ruta de archivo)
+     * @param cameraFile Archivo original de la cámara, que se borra al terminar, o null
+     */
+    private void ingestPhoto(String source, @Nullable File cameraFile) {
+        resetPhotoPreview();
+        int generation = photoGeneration;
+        ingestingPhoto = true;
+
+        PhotoStore.getInstance(this).putAsync(source, new DataCallback<String>() {
+            @Override
+            public void onResult(String path) {
+                deleteInBackground(cameraFile);
+                if (generation != photoGeneration) {
+                    // La foto se descartó mientras se procesaba; el barrido la recogerá
+                    // si nadie más la usa
+                    return;
+                }
+                ingestingPhoto = false;
+                currentPhotoPath = path;
+                activityPhotoPreview.setScaleType(ImageView.ScaleType.CENTER_CROP);
+                ImageLoader.getInstance(PhysicalActivityTracker.this).load(path, activityPhotoPreview,
+                        android.R.drawable.ic_menu_camera);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                deleteInBackground(cameraFile);
+                if (generation == photoGeneration) {
+                    ingestingPhoto = false;
+                    Toast.makeText(PhysicalActivityTracker.this, "Error al cargar la imagen", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    private static void deleteInBackground(@Nullable File file) {
+        if (file != null) {
+            AppExecutors.getInstance().diskIO().execute(file::delete);
+        }
+    }
+}
@@ -12,24 +12,23 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.example.trackerhealth.dao.MealDAO;
-import com.example.trackerhealth.dao.PhysicalActivityDAO;
-import com.example.trackerhealth.dao.UserDAO;
 import com.example.trackerhealth.helpers.ChartHelper;
-import com.example.trackerhealth.model.Meal;
-import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.helpers.ChartSeries;
+import com.example.trackerhealth.model.ReportTotals;
+import com.example.trackerhealth.model.RouteAnalytics;
 import com.example.trackerhealth.model.User;
+import com.example.trackerhealth.repository.HealthRepository;
 import com.github.mikephil.charting.charts.BarChart;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.charts.PieChart;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Future;
 
 public class ReportsActivity extends AppCompatActivity implements BottomNavigationView.OnNavigationItemSelectedListener {
 
@@ -40,43 +39,38 @@ public class ReportsActivity extends AppCompatActivity implements BottomNavigati
     private TextView totalDistanceValue;
     private TextView avgCaloriesValue;
     private TextView totalMealsValue;
+    private TextView best1kValue;
+    private TextView best5kValue;
+    private TextView best10kValue;
+    private TextView movingTimeValue;
+    private TextView paceZonesValue;
     private BarChart activityChart;
     private PieChart nutritionChart;
     private LineChart caloriesChart;
     
-    // DAOs
-    private UserDAO userDAO;
-    private MealDAO mealDAO;
-    private PhysicalActivityDAO activityDAO;
+    // Charts are updated in place from reusable series buffers
+    private ChartHelper chartHelper;
+    private final ChartSeries dailyMinutesSeries = new ChartSeries();
+    private final ChartSeries dailyCaloriesSeries = new ChartSeries();
+    
+    // Repository (queries run off the main thread)
+    private HealthRepository repository;
+    // Report being loaded; replaced and cancelled when another period is selected
+    private Future<?> pendingReport;
+    // Incremented on every request so results of superseded requests are ignored
+    private int reportRequest;
     
     // Current user
     private User currentUser;
     private long userId = 1; // Default, should be replaced with actual logged-in user ID
-    
-    // Data lists
-    private List<PhysicalActivity> activities;
-    private List<Meal> meals;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_reports);
 
-        // Initialize DAOs
-        userDAO = new UserDAO(this);
-        mealDAO = new MealDAO(this);
-        activityDAO = new PhysicalActivityDAO(this);
-        
-        // Get current user (for now using userId = 1, should be replaced with user session management)
-        currentUser = userDAO.getUserById(userId);
-        
-        // If no user found, create a test user
-        if (currentUser == null) {
-            // This is just for testing, in a real app you would redirect to login
-            User testUser = new User("Test User", "test@example.com", "password");
-            userId = userDAO.insertUser(testUser);
-            currentUser = userDAO.getUserById(userId);
-        }
+        // Initialize repository
+        repository = HealthRepository.getInstance(this);
 
         // Initialize components
         bottomNavigationView = findViewById(R.id.bottom_navigation);
@@ -86,9 +80,15 @@ public class ReportsActivity extends AppCompatActivity implements BottomNavigati
         totalDistanceValue = findViewById(R.id.total_distance_value);
         avgCaloriesValue = findViewById(R.id.avg_calories_value);
         totalMealsValue = findViewById(R.id.total_meals_value);
+        best1kValue = findViewById(R.id.best_1k_value);
+        best5kValue = findViewById(R.id.best_5k_value);
+        best10kValue = findViewById(R.id.best_10k_value);
+        movingTimeValue = findViewById(R.id.moving_time_value);
+        paceZonesValue = findViewById(R.id.pace_zones_value);
         activityChart = findViewById(R.id.activity_chart);
         nutritionChart = findViewById(R.id.nutrition_chart);
         caloriesChart = findViewById(R.id.calories_chart);
+        chartHelper = new ChartHelper(activityChart, nutritionChart, caloriesChart);
 
         // Configure bottom navigation
         bottomNavigationView.setOnNavigationItemSelectedListener(this);
@@ -117,8 +117,41 @@ public class ReportsActivity extends AppCompatActivity implements BottomNavigati
             exportData();
         });
         
-        // Load initial data (default to last 7 days)
-        updateReports(0);
+        // Get current user (for now using userId = 1, should be replaced with user session management)
+        // The spinner's initial selection loads the default period (last 7 days)
+        loadCurrentUser();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        reportRequest++;
+        if (pendingReport != null) {
+            pendingReport.cancel(false);
+        }
+    }
+    
+    /**
+     * Loads the current user, creating a test user if none exists
+     */
+    private void loadCurrentUser() {
+        repository.getUserById(userId, user -> {
+            if (user != null) {
+                currentUser = user;
+                return;
+            }
+            
+            // This is just for testing, in a real app you would redirect to login
+            User testUser = new User("Test User", "test@example.com", "password");
+            repository.insertUser(testUser, newUserId -> {
+                if (newUserId > 0) {
+                    userId = newUserId;
+                    testUser.setId(newUserId);
+                    currentUser = testUser;
+                    updateReports(timePeriodSpinner.getSelectedItemPosition());
+                }
+            });
+        });
     }
     
     /**
@@ -152,69 +185,107 @@ public class ReportsActivity extends AppCompatActivity implements BottomNavigati
         String startDateStr = dateFormat.format(startDate);
         String endDateStr = dateFormat.format(endDate);
         
-        // Get activities in date range
-        activities = activityDAO.getActivitiesByDateRange(userId, startDateStr, endDateStr);
-        
-        // Calculate total activities and distance
-        int totalActivities = activities.size();
-        double totalDistance = 0;
-        
-        for (PhysicalActivity activity : activities) {
-            totalDistance += activity.getDistance();
+        // A report still queued is not needed anymore. One already running can't be
+        // stopped, so its result is dropped when it arrives
+        if (pendingReport != null) {
+            pendingReport.cancel(false);
         }
+        int request = ++reportRequest;
         
-        // Update activity stats
-        totalActivitiesValue.setText(String.valueOf(totalActivities));
-        totalDistanceValue.setText(String.format(Locale.getDefault(), "%.1f", totalDistance));
-        
-        // Get meals in date range
-        meals = new ArrayList<>();
-        
-        // Calculate date range
-        Calendar currentDate = Calendar.getInstance();
-        currentDate.setTime(endDate);
-        
-        Calendar startCal = Calendar.getInstance();
-        startCal.setTime(startDate);
+        // Aggregate totals and per-day series in SQLite, off the main thread
+        pendingReport = repository.getReport(userId, startDateStr, endDateStr, report -> {
+            if (request != reportRequest) {
+                return;
+            }
+            ReportTotals totals = report.totals;
+            
+            // Update activity stats
+            totalActivitiesValue.setText(String.valueOf(totals.getActivityCount()));
+            totalDistanceValue.setText(String.format(Locale.getDefault(), "%.1f", totals.getTotalDistance()));
+            
+            // Update meal stats
+            totalMealsValue.setText(String.valueOf(totals.getMealCount()));
+            avgCaloriesValue.setText(String.valueOf(totals.getAverageMealCalories()));
+            
+            // Update route stats (analytics are cached per activity, routes are not reparsed)
+            updateRoutePerformance(report.routeAnalytics);
+            
+            // Update charts: activity bars per day, week or month depending on the
+            // period; calories stay per day and the chart downsamples long periods
+            dailyMinutesSeries.fill(report.dailyMinutes, startDateStr, endDateStr,
+                    ChartSeries.Granularity.forPeriod(startDateStr, endDateStr));
+            dailyCaloriesSeries.fill(report.dailyCalories, startDateStr, endDateStr);
+            updateCharts(totals);
+        });
+    }
+    
+    /**
+     * Shows the best efforts, moving time and pace zones of the routes in the period
+     */
+    private void updateRoutePerformance(List<RouteAnalytics> routeAnalytics) {
+        long[] bestEfforts = {-1, -1, -1};
+        long[] paceZones = new long[RouteAnalytics.PACE_ZONE_LIMITS.length + 1];
+        long movingTime = 0;
         
-        // For each day in range, get meals
-        while (!currentDate.before(startCal)) {
-            String currentDateStr = dateFormat.format(currentDate.getTime());
-            List<Meal> dailyMeals = mealDAO.getMealsForDate(userId, currentDateStr);
-            meals.addAll(dailyMeals);
-            currentDate.add(Calendar.DAY_OF_YEAR, -1);
+        for (RouteAnalytics analytics : routeAnalytics) {
+            movingTime += analytics.getMovingTimeMs();
+            for (int i = 0; i < bestEfforts.length; i++) {
+                long effort = analytics.getBestEffortTime(i);
+                if (effort > 0 && (bestEfforts[i] < 0 || effort < bestEfforts[i])) {
+                    bestEfforts[i] = effort;
+                }
+            }
+            for (int zone = 0; zone < Math.min(paceZones.length, analytics.getPaceZoneCount()); zone++) {
+                paceZones[zone] += analytics.getPaceZoneTime(zone);
+            }
         }
         
-        // Calculate total meals and average calories
-        int totalMeals = meals.size();
-        int totalCalories = 0;
+        best1kValue.setText(formatEffort(bestEfforts[RouteAnalytics.BEST_1K]));
+        best5kValue.setText(formatEffort(bestEfforts[RouteAnalytics.BEST_5K]));
+        best10kValue.setText(formatEffort(bestEfforts[RouteAnalytics.BEST_10K]));
+        movingTimeValue.setText(String.format(Locale.getDefault(), "Moving time: %s (%d routes)",
+                formatDuration(movingTime), routeAnalytics.size()));
         
-        for (Meal meal : meals) {
-            totalCalories += meal.getCalories();
+        StringBuilder zones = new StringBuilder("Pace zones:");
+        int[] limits = RouteAnalytics.PACE_ZONE_LIMITS;
+        for (int zone = 0; zone < paceZones.length; zone++) {
+            String label = zone < limits.length
+                    ? "< " + formatDuration(limits[zone] * 1000L)
+                    : "> " + formatDuration(limits[limits.length - 1] * 1000L);
+            zones.append('\n').append(label).append(" /km: ").append(formatDuration(paceZones[zone]));
         }
-        
-        int avgCalories = totalMeals > 0 ? totalCalories / totalMeals : 0;
-        
-        // Update meal stats
-        totalMealsValue.setText(String.valueOf(totalMeals));
-        avgCaloriesValue.setText(String.valueOf(avgCalories));
-        
-        // Update charts
-        updateCharts();
+        paceZonesValue.setText(zones);
+    }
+    
+    private String formatEffort(long effortMs) {
+        return effortMs > 0 ? formatDuration(effortMs) : getString(R.string.no_value);
+    }
+    
+    /**
+     * Formats a duration as h:mm:ss, or m:ss under an hour
+     */
+    private static String formatDuration(long durationMs) {
+        long totalSeconds = durationMs / 1000;
+        long hours = totalSeconds / 3600;
+        long minutes = (totalSeconds % 3600) / 60;
+        long seconds = totalSeconds % 60;
+        return hours > 0
+                ? String.format(Locale.getDefault(), "%d:%02d:%02d", hours, minutes, seconds)
+                : String.format(Locale.getDefault(), "%d:%02d", minutes, seconds);
     }
     
     /**
-     * Updates all charts with the current data
+     * Updates all charts with the aggregated data of the period
      */
-    private void updateCharts() {
+    private void updateCharts(ReportTotals totals) {
         // Activity chart
-        ChartHelper.setupActivityChart(activityChart, activities);
+        chartHelper.updateActivityChart(dailyMinutesSeries);
         
         // Nutrition chart
-        ChartHelper.setupNutritionChart(nutritionChart, meals);
+        chartHelper.updateNutritionChart(totals);
         
         // Calories chart
-        ChartHelper.setupCaloriesChart(caloriesChart, meals);
+        chartHelper.updateCaloriesChart(dailyCaloriesSeries);
     }
     
     /**
@@ -22,6 +22,7 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
 import com.example.trackerhealth.dao.PhysicalActivityDAO;
+import com.example.trackerhealth.location.LocationPipeline;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
 import com.google.android.gms.location.LocationRequest;
@@ -60,6 +61,7 @@ public class RunningDashboardActivity extends AppCompatActivity implements OnMap
     private LocationCallback locationCallback;
     private GoogleMap mMap;
     private Location currentLocation;
+    private final LocationPipeline locationPipeline = new LocationPipeline();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -157,6 +159,11 @@ public class RunningDashboardActivity extends AppCompatActivity implements OnMap
             @Override
             public void onLocationResult(@NonNull LocationResult locationResult) {
                 for (Location location : locationResult.getLocations()) {
+                    // Skip outliers; the marker follows the smoothed position
+                    if (!LocationPipeline.isAccepted(locationPipeline.process(location))) {
+                        continue;
+                    }
+                    
                     // Update current location
                     currentLocation = location;
                     
@@ -174,7 +181,10 @@ public class RunningDashboardActivity extends AppCompatActivity implements OnMap
      */
     private void updateMapLocation() {
         if (currentLocation != null && mMap != null) {
-            LatLng latLng = new LatLng(currentLocation.getLatitude(), currentLocation.getLongitude());
+            // The last known location at startup has not gone through the pipeline
+            LatLng latLng = locationPipeline.hasFix()
+                    ? new LatLng(locationPipeline.getLatitude(), locationPipeline.getLongitude())
+                    : new LatLng(currentLocation.getLatitude(), currentLocation.getLongitude());
             
             // Clear previous markers and add new one
             mMap.clear();
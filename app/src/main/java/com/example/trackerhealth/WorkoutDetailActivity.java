@@ -7,10 +7,19 @@ import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.trackerhealth.model.RouteAnalytics;
+import com.example.trackerhealth.repository.HealthRepository;
+
+import java.util.Locale;
+
 public class WorkoutDetailActivity extends AppCompatActivity {
 
+    // Extra with the ID of a recorded activity; when present its route analytics are shown
+    public static final String EXTRA_ACTIVITY_ID = "activity_id";
+
     private TextView tvWorkoutTitle;
     private TextView tvWorkoutDescription;
+    private TextView tvRouteAnalytics;
     private ImageButton btnBack;
 
     @Override
@@ -21,14 +30,20 @@ public class WorkoutDetailActivity extends AppCompatActivity {
         // Initialize views
         tvWorkoutTitle = findViewById(R.id.tv_workout_title);
         tvWorkoutDescription = findViewById(R.id.tv_workout_description);
+        tvRouteAnalytics = findViewById(R.id.tv_route_analytics);
         btnBack = findViewById(R.id.btn_back);
 
         // Get workout details from intent
+        long activityId = getIntent().getLongExtra(EXTRA_ACTIVITY_ID, -1);
         int workoutId = getIntent().getIntExtra("workout_id", -1);
         String workoutType = getIntent().getStringExtra("workout_type");
 
         // Set workout details
-        setupWorkoutDetails(workoutId, workoutType);
+        if (activityId > 0) {
+            loadRecordedActivity(activityId);
+        } else {
+            setupWorkoutDetails(workoutId, workoutType);
+        }
 
         // Setup click listeners
         setupClickListeners();
@@ -61,6 +76,80 @@ public class WorkoutDetailActivity extends AppCompatActivity {
         tvWorkoutDescription.setText(description);
     }
 
+    /**
+     * Loads a recorded activity and the analytics of its route, cached per activity
+     */
+    private void loadRecordedActivity(long activityId) {
+        HealthRepository repository = HealthRepository.getInstance(this);
+        repository.getActivityById(activityId, activity -> {
+            if (activity == null) {
+                finish();
+                return;
+            }
+            tvWorkoutTitle.setText(activity.getActivityType());
+            tvWorkoutDescription.setText(String.format(Locale.getDefault(),
+                    "%s\n%.2f km · %d min · %d kcal", activity.getDate(), activity.getDistance(),
+                    activity.getDuration(), activity.getCaloriesBurned()));
+        });
+        repository.getRouteAnalytics(activityId, this::showRouteAnalytics);
+    }
+
+    private void showRouteAnalytics(RouteAnalytics analytics) {
+        if (analytics == null) {
+            tvRouteAnalytics.setText("No GPS route recorded for this activity");
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.getDefault(), "Distance: %.2f km\n",
+                analytics.getDistanceMeters() / 1000));
+        text.append("Moving time: ").append(formatDuration(analytics.getMovingTimeMs()))
+                .append(" of ").append(formatDuration(analytics.getDurationMs())).append('\n');
+        text.append("Moving pace: ").append(formatDuration(Math.round(analytics.getMovingPace() * 1000)))
+                .append(" /km\n");
+
+        if (analytics.getSplitCount() > 0) {
+            text.append("\nSplits\n");
+            for (int i = 0; i < analytics.getSplitCount(); i++) {
+                text.append("km ").append(i + 1).append(": ")
+                        .append(formatDuration(analytics.getSplitTime(i))).append('\n');
+            }
+        }
+
+        text.append("\nBest efforts\n");
+        String[] effortNames = {"1 km", "5 km", "10 km"};
+        for (int i = 0; i < effortNames.length; i++) {
+            long effort = analytics.getBestEffortTime(i);
+            text.append(effortNames[i]).append(": ")
+                    .append(effort > 0 ? formatDuration(effort) : "--").append('\n');
+        }
+
+        text.append("\nPace zones\n");
+        int[] limits = RouteAnalytics.PACE_ZONE_LIMITS;
+        for (int zone = 0; zone < analytics.getPaceZoneCount(); zone++) {
+            String label = zone < limits.length
+                    ? "< " + formatDuration(limits[zone] * 1000L)
+                    : "> " + formatDuration(limits[limits.length - 1] * 1000L);
+            text.append(label).append(" /km: ")
+                    .append(formatDuration(analytics.getPaceZoneTime(zone))).append('\n');
+        }
+
+        tvRouteAnalytics.setText(text.toString().trim());
+    }
+
+    /**
+     * Formats a duration as h:mm:ss, or m:ss under an hour
+     */
+    private static String formatDuration(long durationMs) {
+        long totalSeconds = durationMs / 1000;
+        long hours = totalSeconds / 3600;
+        long minutes = (totalSeconds % 3600) / 60;
+        long seconds = totalSeconds % 60;
+        return hours > 0
+                ? String.format(Locale.getDefault(), "%d:%02d:%02d", hours, minutes, seconds)
+                : String.format(Locale.getDefault(), "%d:%02d", minutes, seconds);
+    }
+
     private void setupClickListeners() {
         btnBack.setOnClickListener(v -> finish());
     }
@@ -9,23 +9,65 @@ import android.widget.PopupMenu;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackerhealth.R;
 import com.example.trackerhealth.model.PhysicalActivity;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
 public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.ActivityViewHolder> {
     
-    private final List<PhysicalActivity> activityList;
+    // Rows are matched by activity ID; contents compare only what the row displays
+    private static final DiffUtil.ItemCallback<PhysicalActivity> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<PhysicalActivity>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull PhysicalActivity oldItem, @NonNull PhysicalActivity newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull PhysicalActivity oldItem, @NonNull PhysicalActivity newItem) {
+            return Objects.equals(oldItem.getActivityType(), newItem.getActivityType())
+                    && oldItem.getDistance() == newItem.getDistance()
+                    && oldItem.getDuration() == newItem.getDuration()
+                    && oldItem.getCaloriesBurned() == newItem.getCaloriesBurned()
+                    && Objects.equals(oldItem.getDate(), newItem.getDate());
+        }
+    };
+
+    private final AsyncListDiffer<PhysicalActivity> differ;
+    // Latest list submitted. The differ's current list lags behind it while a diff is
+    // running, so appends build on this one and the differ always gets a fresh copy.
+    private final List<PhysicalActivity> items = new ArrayList<>();
     private final Context context;
     private final OnActivityActionListener listener;
 
-    public ActivityAdapter(Context context, List<PhysicalActivity> activityList, OnActivityActionListener listener) {
+    public ActivityAdapter(Context context, OnActivityActionListener listener) {
+        this(context, listener, null);
+    }
+
+    /**
+     * @param diffExecutor Runs the list diffs, or null for the differ's shared background threads
+     */
+    @VisibleForTesting
+    ActivityAdapter(Context context, OnActivityActionListener listener, Executor diffExecutor) {
+        AsyncDifferConfig.Builder<PhysicalActivity> config = new AsyncDifferConfig.Builder<>(DIFF_CALLBACK);
+        if (diffExecutor != null) {
+            config.setBackgroundThreadExecutor(diffExecutor);
+        }
+        this.differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this), config.build());
         this.context = context;
-        this.activityList = activityList;
         this.listener = listener;
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -37,7 +79,7 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
 
     @Override
     public void onBindViewHolder(@NonNull ActivityViewHolder holder, int position) {
-        PhysicalActivity activity = activityList.get(position);
+        PhysicalActivity activity = differ.getCurrentList().get(position);
         
         // Set activity type
         holder.tvActivityType.setText(activity.getActivityType());
@@ -103,7 +145,38 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
 
     @Override
     public int getItemCount() {
-        return activityList.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
+    }
+
+    /**
+     * Replace the list. The diff runs on a background thread and only changed rows are rebound.
+     */
+    public void submitList(List<PhysicalActivity> activities) {
+        items.clear();
+        if (activities != null) {
+            items.addAll(activities);
+        }
+        differ.submitList(new ArrayList<>(items));
+    }
+
+    /**
+     * Append a page of activities to the end of the list
+     */
+    public void appendActivities(List<PhysicalActivity> activities) {
+        if (activities.isEmpty()) {
+            return;
+        }
+        items.addAll(activities);
+        differ.submitList(new ArrayList<>(items));
+    }
+
+    public List<PhysicalActivity> getCurrentList() {
+        return differ.getCurrentList();
     }
 
     public static class ActivityViewHolder extends RecyclerView.ViewHolder {
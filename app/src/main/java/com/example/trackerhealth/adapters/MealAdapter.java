@@ -8,23 +8,70 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackerhealth.R;
+import com.example.trackerhealth.image.ImageLoader;
 import com.example.trackerhealth.model.Meal;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
 public class MealAdapter extends RecyclerView.Adapter<MealAdapter.MealViewHolder> {
     
-    private final List<Meal> mealList;
+    // Rows are matched by meal ID; contents compare only what the row displays
+    private static final DiffUtil.ItemCallback<Meal> DIFF_CALLBACK = new DiffUtil.ItemCallback<Meal>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Meal oldItem, @NonNull Meal newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Meal oldItem, @NonNull Meal newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getMealType(), newItem.getMealType())
+                    && oldItem.getCalories() == newItem.getCalories()
+                    && Objects.equals(oldItem.getTime(), newItem.getTime())
+                    && oldItem.getProteins() == newItem.getProteins()
+                    && oldItem.getCarbs() == newItem.getCarbs()
+                    && oldItem.getFats() == newItem.getFats()
+                    && Objects.equals(oldItem.getPhotoPath(), newItem.getPhotoPath());
+        }
+    };
+
+    private final AsyncListDiffer<Meal> differ;
+    // Latest list submitted. The differ's current list lags behind it while a diff is
+    // running, so appends build on this one and the differ always gets a fresh copy.
+    private final List<Meal> items = new ArrayList<>();
     private final Context context;
     private final OnMealClickListener listener;
+    private final ImageLoader imageLoader;
+
+    public MealAdapter(Context context, OnMealClickListener listener) {
+        this(context, listener, null);
+    }
 
-    public MealAdapter(Context context, List<Meal> mealList, OnMealClickListener listener) {
+    /**
+     * @param diffExecutor Runs the list diffs, or null for the differ's shared background threads
+     */
+    @VisibleForTesting
+    MealAdapter(Context context, OnMealClickListener listener, Executor diffExecutor) {
+        AsyncDifferConfig.Builder<Meal> config = new AsyncDifferConfig.Builder<>(DIFF_CALLBACK);
+        if (diffExecutor != null) {
+            config.setBackgroundThreadExecutor(diffExecutor);
+        }
+        this.differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this), config.build());
         this.context = context;
-        this.mealList = mealList;
         this.listener = listener;
+        this.imageLoader = ImageLoader.getInstance(context);
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -36,7 +83,7 @@ public class MealAdapter extends RecyclerView.Adapter<MealAdapter.MealViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull MealViewHolder holder, int position) {
-        Meal meal = mealList.get(position);
+        Meal meal = differ.getCurrentList().get(position);
         
         // Set meal name
         holder.tvMealName.setText(meal.getName());
@@ -55,6 +102,9 @@ public class MealAdapter extends RecyclerView.Adapter<MealAdapter.MealViewHolder
         holder.tvCarbs.setText(String.format("%.1fg C", meal.getCarbs()));
         holder.tvFats.setText(String.format("%.1fg F", meal.getFats()));
         
+        // Set photo thumbnail (decoded off the main thread), falling back to the default icon
+        imageLoader.load(meal.getPhotoPath(), holder.ivMealIcon, android.R.drawable.ic_menu_gallery);
+        
         // Set click listener
         holder.itemView.setOnClickListener(v -> {
             if (listener != null) {
@@ -63,9 +113,47 @@ public class MealAdapter extends RecyclerView.Adapter<MealAdapter.MealViewHolder
         });
     }
 
+    @Override
+    public void onViewRecycled(@NonNull MealViewHolder holder) {
+        super.onViewRecycled(holder);
+        // Drop the pending thumbnail so it does not land on a reused row
+        imageLoader.cancel(holder.ivMealIcon);
+    }
+
     @Override
     public int getItemCount() {
-        return mealList.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
+    }
+
+    /**
+     * Replace the list. The diff runs on a background thread and only changed rows are rebound.
+     */
+    public void submitList(List<Meal> meals) {
+        items.clear();
+        if (meals != null) {
+            items.addAll(meals);
+        }
+        differ.submitList(new ArrayList<>(items));
+    }
+
+    /**
+     * Append a page of meals to the end of the list
+     */
+    public void appendMeals(List<Meal> meals) {
+        if (meals.isEmpty()) {
+            return;
+        }
+        items.addAll(meals);
+        differ.submitList(new ArrayList<>(items));
+    }
+
+    public List<Meal> getCurrentList() {
+        return differ.getCurrentList();
     }
 
     public static class MealViewHolder extends RecyclerView.ViewHolder {
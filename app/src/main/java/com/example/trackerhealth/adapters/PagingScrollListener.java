@@ -0,0 +1,38 @@
+package com.example.trackerhealth.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Scroll listener that asks for the next page when the user gets close to the end of the list
+ */
+public class PagingScrollListener extends RecyclerView.OnScrollListener {
+
+    // Start loading when this many items are left below the last visible one
+    private static final int PREFETCH_DISTANCE = 5;
+
+    private final LinearLayoutManager layoutManager;
+    private final OnLoadMoreListener listener;
+
+    public PagingScrollListener(LinearLayoutManager layoutManager, OnLoadMoreListener listener) {
+        this.layoutManager = layoutManager;
+        this.listener = listener;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0) {
+            return;
+        }
+
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (lastVisible >= layoutManager.getItemCount() - PREFETCH_DISTANCE) {
+            listener.onLoadMore();
+        }
+    }
+
+    public interface OnLoadMoreListener {
+        void onLoadMore();
+    }
+}
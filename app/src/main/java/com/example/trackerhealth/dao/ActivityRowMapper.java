@@ -0,0 +1,70 @@
+package com.example.trackerhealth.dao;
+
+import android.database.Cursor;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.PhysicalActivity;
+
+/**
+ * Convierte filas de physical_activities en objetos PhysicalActivity
+ */
+final class ActivityRowMapper implements RowMapper<PhysicalActivity> {
+
+    static final String[] PROJECTION = {
+        DatabaseHelper.KEY_ACTIVITY_ID,
+        DatabaseHelper.KEY_ACTIVITY_USER_ID_FK,
+        DatabaseHelper.KEY_ACTIVITY_TYPE,
+        DatabaseHelper.KEY_ACTIVITY_DURATION,
+        DatabaseHelper.KEY_ACTIVITY_CALORIES,
+        DatabaseHelper.KEY_ACTIVITY_DISTANCE,
+        DatabaseHelper.KEY_ACTIVITY_DATE,
+        DatabaseHelper.KEY_ACTIVITY_NOTES,
+        DatabaseHelper.KEY_ACTIVITY_PHOTO_PATH,
+        DatabaseHelper.KEY_ACTIVITY_LATITUDE,
+        DatabaseHelper.KEY_ACTIVITY_LONGITUDE
+    };
+
+    private final int idIndex;
+    private final int userIdIndex;
+    private final int typeIndex;
+    private final int durationIndex;
+    private final int caloriesIndex;
+    private final int distanceIndex;
+    private final int dateIndex;
+    private final int notesIndex;
+    private final int photoPathIndex;
+    private final int latitudeIndex;
+    private final int longitudeIndex;
+
+    ActivityRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_ID);
+        userIdIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_USER_ID_FK);
+        typeIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_TYPE);
+        durationIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_DURATION);
+        caloriesIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_CALORIES);
+        distanceIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_DISTANCE);
+        dateIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_DATE);
+        notesIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_NOTES);
+        photoPathIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_PHOTO_PATH);
+        latitudeIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_LATITUDE);
+        longitudeIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_LONGITUDE);
+    }
+
+    @Override
+    public PhysicalActivity map(Cursor cursor) {
+        PhysicalActivity activity = new PhysicalActivity();
+        activity.setId(cursor.getLong(idIndex));
+        activity.setUserId(cursor.getLong(userIdIndex));
+        activity.setActivityType(cursor.getString(typeIndex));
+        activity.setDuration(cursor.getInt(durationIndex));
+        activity.setCaloriesBurned(cursor.getInt(caloriesIndex));
+        // Los valores NULL se leen como 0 en las columnas numéricas
+        activity.setDistance(cursor.getDouble(distanceIndex));
+        activity.setDate(cursor.getString(dateIndex));
+        activity.setNotes(cursor.getString(notesIndex));
+        activity.setPhotoPath(cursor.getString(photoPathIndex));
+        activity.setLatitude(cursor.getDouble(latitudeIndex));
+        activity.setLongitude(cursor.getDouble(longitudeIndex));
+        return activity;
+    }
+}
@@ -4,18 +4,22 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
 
 import com.example.trackerhealth.database.DatabaseHelper;
 import com.example.trackerhealth.model.Meal;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
 public class MealDAO {
     
+    private static final String TAG = MealDAO.class.getSimpleName();
     private final DatabaseHelper dbHelper;
     private final SimpleDateFormat dateFormat;
     private final SimpleDateFormat timeFormat;
@@ -35,6 +39,36 @@ public class MealDAO {
     private static final String COLUMN_NOTES = "notes";
     private static final String COLUMN_PHOTO_PATH = "photo_path";
     
+    // Rows between transaction yields in bulk inserts
+    private static final int BULK_YIELD_INTERVAL = 500;
+    
+    // Read query clauses. QueryPlanTest explains these same strings against the real schema.
+    static final String SELECTION_USER = DatabaseHelper.KEY_MEAL_USER_ID_FK + " = ?";
+    static final String SELECTION_USER_DATE = SELECTION_USER + " AND " + DatabaseHelper.KEY_MEAL_DATE + " = ?";
+    static final String SELECTION_USER_DATE_RANGE = SELECTION_USER + " AND " +
+            DatabaseHelper.KEY_MEAL_DATE + " BETWEEN ? AND ?";
+    // date <= ? bounds the index range; the OR only filters the rows of the cursor's date.
+    // Row values ((date, id) < (?, ?)) need SQLite 3.15, newer than API 24 ships.
+    static final String SELECTION_PAGE_AFTER = SELECTION_USER + " AND " +
+            DatabaseHelper.KEY_MEAL_DATE + " <= ? AND (" +
+            DatabaseHelper.KEY_MEAL_DATE + " < ? OR " + DatabaseHelper.KEY_MEAL_ID + " < ?)";
+    // Rows without a date sort last in DESC order and are only followed by ID
+    static final String SELECTION_PAGE_UNDATED = SELECTION_USER + " AND " +
+            DatabaseHelper.KEY_MEAL_DATE + " IS NULL AND " + DatabaseHelper.KEY_MEAL_ID + " < ?";
+    static final String ORDER_BY_TIME = DatabaseHelper.KEY_MEAL_TIME + " DESC";
+    static final String ORDER_BY_DATE_TIME = DatabaseHelper.KEY_MEAL_DATE + " DESC, " +
+            DatabaseHelper.KEY_MEAL_TIME + " DESC";
+    static final String ORDER_BY_DATE_ID = DatabaseHelper.KEY_MEAL_DATE + " DESC, " +
+            DatabaseHelper.KEY_MEAL_ID + " DESC";
+    
+    private static final String BULK_INSERT_SQL = "INSERT INTO " + TABLE_MEALS + " (" +
+            DatabaseHelper.KEY_MEAL_USER_ID_FK + ", " + DatabaseHelper.KEY_MEAL_NAME + ", " +
+            DatabaseHelper.KEY_MEAL_TYPE + ", " + DatabaseHelper.KEY_MEAL_CALORIES + ", " +
+            DatabaseHelper.KEY_MEAL_PROTEINS + ", " + DatabaseHelper.KEY_MEAL_CARBS + ", " +
+            DatabaseHelper.KEY_MEAL_FATS + ", " + DatabaseHelper.KEY_MEAL_DATE + ", " +
+            DatabaseHelper.KEY_MEAL_TIME + ", " + DatabaseHelper.KEY_MEAL_NOTES + ", " +
+            DatabaseHelper.KEY_MEAL_PHOTO_PATH + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
     public MealDAO(Context context) {
         this.dbHelper = DatabaseHelper.getInstance(context);
         dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
@@ -65,6 +99,70 @@ public class MealDAO {
         return db.insert(DatabaseHelper.TABLE_MEALS, null, values);
     }
     
+    /**
+     * Inserts several meals reusing one compiled statement inside a single transaction.
+     * Every {@value #BULK_YIELD_INTERVAL} rows the transaction yields if another thread is
+     * waiting, so rows before a yield stay saved even if a later row fails.
+     * @param meals Meals to insert
+     * @return Generated IDs in the same order, -1 for rows that were not saved
+     */
+    public long[] insertMeals(List<Meal> meals) {
+        long[] ids = new long[meals.size()];
+        Arrays.fill(ids, -1);
+        if (meals.isEmpty()) {
+            return ids;
+        }
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(BULK_INSERT_SQL);
+        int committed = 0;
+        int index = 0;
+
+        db.beginTransaction();
+        try {
+            for (; index < ids.length; index++) {
+                Meal meal = meals.get(index);
+                statement.clearBindings();
+                statement.bindLong(1, meal.getUserId());
+                bindStringOrNull(statement, 2, meal.getName());
+                bindStringOrNull(statement, 3, meal.getMealType());
+                statement.bindLong(4, meal.getCalories());
+                statement.bindDouble(5, meal.getProteins());
+                statement.bindDouble(6, meal.getCarbs());
+                statement.bindDouble(7, meal.getFats());
+                bindStringOrNull(statement, 8, meal.getDate());
+                bindStringOrNull(statement, 9, meal.getTime());
+                bindStringOrNull(statement, 10, meal.getNotes());
+                bindStringOrNull(statement, 11, meal.getPhotoPath());
+                ids[index] = statement.executeInsert();
+
+                if ((index + 1) % BULK_YIELD_INTERVAL == 0 && db.yieldIfContendedSafely()) {
+                    // The previous transaction was committed when yielding
+                    committed = index + 1;
+                }
+            }
+            db.setTransactionSuccessful();
+            committed = ids.length;
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting meals in bulk at row " + index + ": " + e.getMessage());
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+
+        // Rows from the last transaction are rolled back on error
+        Arrays.fill(ids, committed, ids.length, -1);
+        return ids;
+    }
+
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+    
     /**
      * Adds a new meal to the database (alias for insert)
      * @param meal Meal to add
@@ -80,27 +178,7 @@ public class MealDAO {
      * @return List of meals
      */
     public List<Meal> getMealsByUserId(long userId) {
-        List<Meal> mealList = new ArrayList<>();
-        
-        String selectQuery = "SELECT * FROM " + TABLE_MEALS + 
-                             " WHERE " + COLUMN_USER_ID + " = ?" +
-                             " ORDER BY " + COLUMN_DATE + " DESC, " +
-                             COLUMN_TIME + " DESC";
-        
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, new String[] { String.valueOf(userId) });
-        
-        if (cursor.moveToFirst()) {
-            do {
-                Meal meal = cursorToMeal(cursor);
-                mealList.add(meal);
-            } while (cursor.moveToNext());
-        }
-        
-        cursor.close();
-        db.close();
-        
-        return mealList;
+        return getAllMealsByUser(userId);
     }
     
     /**
@@ -110,59 +188,54 @@ public class MealDAO {
      * @return List of meals
      */
     public List<Meal> getMealsForDate(long userId, String date) {
+        String[] selectionArgs = {String.valueOf(userId), date};
+        return queryMeals(SELECTION_USER_DATE, selectionArgs, ORDER_BY_TIME);
+    }
+    
+    /**
+     * Get all meals for a user between two dates (inclusive) with a single query
+     * @param userId ID of the user
+     * @param startDate Start date in format yyyy-MM-dd
+     * @param endDate End date in format yyyy-MM-dd
+     * @return List of meals, most recent first
+     */
+    public List<Meal> getMealsByDateRange(long userId, String startDate, String endDate) {
         List<Meal> meals = new ArrayList<>();
+        forEachMealInDateRange(userId, startDate, endDate, meals::add);
+        return meals;
+    }
+    
+    /**
+     * Stream the meals of a user between two dates (inclusive) to a callback,
+     * one row at a time, without building an intermediate list
+     * @param userId ID of the user
+     * @param startDate Start date in format yyyy-MM-dd
+     * @param endDate End date in format yyyy-MM-dd
+     * @param callback Receives each meal, most recent first
+     */
+    public void forEachMealInDateRange(long userId, String startDate, String endDate, MealRowCallback callback) {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
 
-        String[] projection = {
-            DatabaseHelper.KEY_MEAL_ID,
-            DatabaseHelper.KEY_MEAL_USER_ID_FK,
-            DatabaseHelper.KEY_MEAL_NAME,
-            DatabaseHelper.KEY_MEAL_TYPE,
-            DatabaseHelper.KEY_MEAL_CALORIES,
-            DatabaseHelper.KEY_MEAL_PROTEINS,
-            DatabaseHelper.KEY_MEAL_CARBS,
-            DatabaseHelper.KEY_MEAL_FATS,
-            DatabaseHelper.KEY_MEAL_DATE,
-            DatabaseHelper.KEY_MEAL_TIME,
-            DatabaseHelper.KEY_MEAL_NOTES,
-            DatabaseHelper.KEY_MEAL_PHOTO_PATH
-        };
-
-        String selection = DatabaseHelper.KEY_MEAL_USER_ID_FK + " = ? AND " + 
-                         DatabaseHelper.KEY_MEAL_DATE + " = ?";
-        String[] selectionArgs = {String.valueOf(userId), date};
-        String sortOrder = DatabaseHelper.KEY_MEAL_TIME + " DESC";
+        String[] selectionArgs = {String.valueOf(userId), startDate, endDate};
 
         Cursor cursor = db.query(
             DatabaseHelper.TABLE_MEALS,
-            projection,
-            selection,
+            MealRowMapper.PROJECTION,
+            SELECTION_USER_DATE_RANGE,
             selectionArgs,
             null,
             null,
-            sortOrder
+            ORDER_BY_DATE_TIME
         );
 
-        while (cursor.moveToNext()) {
-            Meal meal = new Meal();
-            meal.setId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_ID)));
-            meal.setUserId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_USER_ID_FK)));
-            meal.setName(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NAME)));
-            meal.setMealType(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TYPE)));
-            meal.setCalories(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CALORIES)));
-            meal.setProteins(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PROTEINS)));
-            meal.setCarbs(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CARBS)));
-            meal.setFats(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_FATS)));
-            meal.setDate(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_DATE)));
-            meal.setTime(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TIME)));
-            meal.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NOTES)));
-            meal.setPhotoPath(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PHOTO_PATH)));
-            
-            meals.add(meal);
+        try {
+            MealRowMapper mapper = new MealRowMapper(cursor);
+            while (cursor.moveToNext()) {
+                callback.onMeal(mapper.map(cursor));
+            }
+        } finally {
+            cursor.close();
         }
-
-        cursor.close();
-        return meals;
     }
     
     /**
@@ -182,28 +255,13 @@ public class MealDAO {
      */
     public Meal getMealById(long id) {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
-        
-        String[] projection = {
-            DatabaseHelper.KEY_MEAL_ID,
-            DatabaseHelper.KEY_MEAL_USER_ID_FK,
-            DatabaseHelper.KEY_MEAL_NAME,
-            DatabaseHelper.KEY_MEAL_TYPE,
-            DatabaseHelper.KEY_MEAL_CALORIES,
-            DatabaseHelper.KEY_MEAL_PROTEINS,
-            DatabaseHelper.KEY_MEAL_CARBS,
-            DatabaseHelper.KEY_MEAL_FATS,
-            DatabaseHelper.KEY_MEAL_DATE,
-            DatabaseHelper.KEY_MEAL_TIME,
-            DatabaseHelper.KEY_MEAL_NOTES,
-            DatabaseHelper.KEY_MEAL_PHOTO_PATH
-        };
 
         String selection = DatabaseHelper.KEY_MEAL_ID + " = ?";
         String[] selectionArgs = {String.valueOf(id)};
 
         Cursor cursor = db.query(
             DatabaseHelper.TABLE_MEALS,
-            projection,
+            MealRowMapper.PROJECTION,
             selection,
             selectionArgs,
             null,
@@ -212,24 +270,13 @@ public class MealDAO {
         );
 
         Meal meal = null;
-        if (cursor.moveToFirst()) {
-            meal = new Meal();
-            meal.setId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_ID)));
-            meal.setUserId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_USER_ID_FK)));
-            meal.setName(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NAME)));
-            meal.setMealType(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TYPE)));
-            meal.setCalories(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CALORIES)));
-            meal.setProteins(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PROTEINS)));
-            meal.setCarbs(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CARBS)));
-            meal.setFats(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_FATS)));
-            meal.setDate(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_DATE)));
-            meal.setTime(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TIME)));
-            meal.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NOTES)));
-            meal.setPhotoPath(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PHOTO_PATH)));
+        try {
+            if (cursor.moveToFirst()) {
+                meal = new MealRowMapper(cursor).map(cursor);
+            }
+        } finally {
+            cursor.close();
         }
-
-        cursor.close();
-        db.close();
         
         return meal;
     }
@@ -274,53 +321,96 @@ public class MealDAO {
     }
     
     /**
-     * Convert cursor to meal object
+     * Get all meals for a user, ordered by date and time
+     * @param userId ID of the user
+     * @return List of all meals
      */
-    private Meal cursorToMeal(Cursor cursor) {
-        Meal meal = new Meal();
-        
-        meal.setId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_ID)));
-        meal.setUserId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_USER_ID_FK)));
-        meal.setName(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NAME)));
-        meal.setMealType(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TYPE)));
-        meal.setCalories(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CALORIES)));
-        meal.setProteins(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PROTEINS)));
-        meal.setCarbs(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CARBS)));
-        meal.setFats(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_FATS)));
-        meal.setDate(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_DATE)));
-        meal.setTime(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TIME)));
-        meal.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NOTES)));
-        meal.setPhotoPath(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PHOTO_PATH)));
-        
-        return meal;
+    public List<Meal> getAllMealsByUser(long userId) {
+        String[] selectionArgs = {String.valueOf(userId)};
+        return queryMeals(SELECTION_USER, selectionArgs, ORDER_BY_DATE_TIME);
     }
 
     /**
-     * Get all meals for a user, ordered by date and time
+     * Get one page of a user's meal history using keyset pagination on (date, id).
+     * The query seeks the (user_id, date) index to the date of the last row of the previous
+     * page and only filters the rows sharing that date by ID, instead of skipping an OFFSET
+     * of rows that grows with every page loaded.
+     * Meals without a date sort after all the others. A dated page that comes back short is
+     * topped up with them, and once the last row has no date the next page only continues
+     * among the undated rows.
      * @param userId ID of the user
-     * @return List of all meals
+     * @param afterDate Date of the last meal of the previous page (null if it had none)
+     * @param afterId ID of the last meal of the previous page, or 0 for the first page
+     * @param pageSize Maximum number of meals to return
+     * @return Meals ordered by date and ID, most recent first
      */
-    public List<Meal> getAllMealsByUser(long userId) {
-        List<Meal> mealList = new ArrayList<>();
-        
-        String selectQuery = "SELECT * FROM " + TABLE_MEALS + 
-                           " WHERE " + COLUMN_USER_ID + " = ?" +
-                           " ORDER BY " + COLUMN_DATE + " DESC, " +
-                           COLUMN_TIME + " DESC";
-        
+    public List<Meal> getMealsPage(long userId, String afterDate, long afterId, int pageSize) {
+        if (afterId <= 0) {
+            return queryMealsPage(SELECTION_USER, new String[]{String.valueOf(userId)}, pageSize);
+        }
+        if (afterDate == null) {
+            return getUndatedMealsPage(userId, afterId, pageSize);
+        }
+
+        List<Meal> page = queryMealsPage(SELECTION_PAGE_AFTER,
+                new String[]{String.valueOf(userId), afterDate, afterDate, String.valueOf(afterId)}, pageSize);
+        if (page.size() < pageSize) {
+            page.addAll(getUndatedMealsPage(userId, Long.MAX_VALUE, pageSize - page.size()));
+        }
+        return page;
+    }
+
+    private List<Meal> getUndatedMealsPage(long userId, long afterId, int pageSize) {
+        return queryMealsPage(SELECTION_PAGE_UNDATED,
+                new String[]{String.valueOf(userId), String.valueOf(afterId)}, pageSize);
+    }
+
+    private List<Meal> queryMealsPage(String selection, String[] selectionArgs, int pageSize) {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, new String[] { String.valueOf(userId) });
-        
-        if (cursor.moveToFirst()) {
-            do {
-                Meal meal = cursorToMeal(cursor);
-                mealList.add(meal);
-            } while (cursor.moveToNext());
+        Cursor cursor = db.query(
+            DatabaseHelper.TABLE_MEALS,
+            MealRowMapper.PROJECTION,
+            selection,
+            selectionArgs,
+            null,
+            null,
+            ORDER_BY_DATE_ID,
+            String.valueOf(pageSize)
+        );
+
+        try {
+            return new MealRowMapper(cursor).mapAll(cursor);
+        } finally {
+            cursor.close();
         }
-        
-        cursor.close();
-        db.close();
-        
-        return mealList;
+    }
+
+    /**
+     * Run a query with the meal projection and map every row with a single MealRowMapper
+     */
+    private List<Meal> queryMeals(String selection, String[] selectionArgs, String sortOrder) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(
+            DatabaseHelper.TABLE_MEALS,
+            MealRowMapper.PROJECTION,
+            selection,
+            selectionArgs,
+            null,
+            null,
+            sortOrder
+        );
+
+        try {
+            return new MealRowMapper(cursor).mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Receives meals one at a time from the streaming queries
+     */
+    public interface MealRowCallback {
+        void onMeal(Meal meal);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.example.trackerhealth.dao;
+
+import android.database.Cursor;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.Meal;
+
+/**
+ * Maps rows of the meals table to Meal objects
+ */
+final class MealRowMapper implements RowMapper<Meal> {
+
+    static final String[] PROJECTION = {
+        DatabaseHelper.KEY_MEAL_ID,
+        DatabaseHelper.KEY_MEAL_USER_ID_FK,
+        DatabaseHelper.KEY_MEAL_NAME,
+        DatabaseHelper.KEY_MEAL_TYPE,
+        DatabaseHelper.KEY_MEAL_CALORIES,
+        DatabaseHelper.KEY_MEAL_PROTEINS,
+        DatabaseHelper.KEY_MEAL_CARBS,
+        DatabaseHelper.KEY_MEAL_FATS,
+        DatabaseHelper.KEY_MEAL_DATE,
+        DatabaseHelper.KEY_MEAL_TIME,
+        DatabaseHelper.KEY_MEAL_NOTES,
+        DatabaseHelper.KEY_MEAL_PHOTO_PATH
+    };
+
+    private final int idIndex;
+    private final int userIdIndex;
+    private final int nameIndex;
+    private final int typeIndex;
+    private final int caloriesIndex;
+    private final int proteinsIndex;
+    private final int carbsIndex;
+    private final int fatsIndex;
+    private final int dateIndex;
+    private final int timeIndex;
+    private final int notesIndex;
+    private final int photoPathIndex;
+
+    MealRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_ID);
+        userIdIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_USER_ID_FK);
+        nameIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NAME);
+        typeIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TYPE);
+        caloriesIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CALORIES);
+        proteinsIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PROTEINS);
+        carbsIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CARBS);
+        fatsIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_FATS);
+        dateIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_DATE);
+        timeIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TIME);
+        notesIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NOTES);
+        photoPathIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PHOTO_PATH);
+    }
+
+    @Override
+    public Meal map(Cursor cursor) {
+        Meal meal = new Meal();
+        meal.setId(cursor.getLong(idIndex));
+        meal.setUserId(cursor.getLong(userIdIndex));
+        meal.setName(cursor.getString(nameIndex));
+        meal.setMealType(cursor.getString(typeIndex));
+        meal.setCalories(cursor.getInt(caloriesIndex));
+        meal.setProteins(cursor.getDouble(proteinsIndex));
+        meal.setCarbs(cursor.getDouble(carbsIndex));
+        meal.setFats(cursor.getDouble(fatsIndex));
+        meal.setDate(cursor.getString(dateIndex));
+        meal.setTime(cursor.getString(timeIndex));
+        meal.setNotes(cursor.getString(notesIndex));
+        meal.setPhotoPath(cursor.getString(photoPathIndex));
+        return meal;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.trackerhealth.dao;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cuenta las referencias de las comidas y actividades a cada foto, para que el barrido
+ * del almacén de fotos sepa cuáles ya no se usan
+ */
+public class PhotoReferenceDAO {
+
+    private static final String TAG = PhotoReferenceDAO.class.getSimpleName();
+    private final DatabaseHelper dbHelper;
+
+    private static final String REFERENCES_QUERY =
+            "SELECT path, COUNT(*) FROM (" +
+            "SELECT " + DatabaseHelper.KEY_MEAL_PHOTO_PATH + " AS path" +
+            " FROM " + DatabaseHelper.TABLE_MEALS +
+            " UNION ALL " +
+            "SELECT " + DatabaseHelper.KEY_ACTIVITY_PHOTO_PATH + " AS path" +
+            " FROM " + DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES +
+            ") WHERE substr(path, 1, ?) = ? GROUP BY path";
+
+    public PhotoReferenceDAO(Context context) {
+        this.dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Obtiene cuántas filas usan cada foto de un directorio
+     *
+     * @param directoryPath Ruta absoluta del directorio de las fotos
+     * @return Número de referencias por photo_path; solo aparecen las fotos usadas
+     * @throws IllegalStateException Si no se pudieron leer, para no tomar todas las
+     *                               fotos por huérfanas
+     */
+    public Map<String, Integer> getReferenceCounts(String directoryPath) {
+        String prefix = directoryPath.endsWith("/") ? directoryPath : directoryPath + "/";
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Map<String, Integer> counts = new HashMap<>();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(REFERENCES_QUERY,
+                    new String[]{String.valueOf(prefix.length()), prefix});
+            while (cursor.moveToNext()) {
+                counts.put(cursor.getString(0), cursor.getInt(1));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error al contar referencias de fotos: " + e.getMessage());
+            throw new IllegalStateException(e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return counts;
+    }
+}
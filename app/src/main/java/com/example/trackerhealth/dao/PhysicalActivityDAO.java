@@ -4,12 +4,14 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import com.example.trackerhealth.database.DatabaseHelper;
 import com.example.trackerhealth.model.PhysicalActivity;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class PhysicalActivityDAO {
@@ -31,6 +33,34 @@ public class PhysicalActivityDAO {
     private static final String COLUMN_LATITUDE = DatabaseHelper.KEY_ACTIVITY_LATITUDE;
     private static final String COLUMN_LONGITUDE = DatabaseHelper.KEY_ACTIVITY_LONGITUDE;
 
+    // Filas entre cada cesión de la transacción a otros hilos en las inserciones masivas
+    private static final int BULK_YIELD_INTERVAL = 500;
+
+    // Cláusulas de las consultas de lectura. QueryPlanTest explica estas mismas cadenas
+    // sobre el esquema real.
+    static final String SELECTION_USER = COLUMN_USER_ID + " = ?";
+    static final String SELECTION_USER_DATE = SELECTION_USER + " AND " + COLUMN_DATE + " = ?";
+    static final String SELECTION_USER_DATE_RANGE = SELECTION_USER + " AND " + COLUMN_DATE + " BETWEEN ? AND ?";
+    static final String SELECTION_USER_WITH_LOCATION = SELECTION_USER +
+            " AND " + COLUMN_LATITUDE + " IS NOT NULL" +
+            " AND " + COLUMN_LONGITUDE + " IS NOT NULL";
+    // date <= ? acota el rango del índice; el OR solo filtra las filas de la fecha del cursor.
+    // Los row values ((date, id) < (?, ?)) requieren SQLite 3.15, posterior a API 24.
+    static final String SELECTION_PAGE_AFTER = SELECTION_USER + " AND " + COLUMN_DATE + " <= ? AND (" +
+            COLUMN_DATE + " < ? OR " + COLUMN_ID + " < ?)";
+    // Las filas sin fecha van al final en orden DESC y solo se siguen por ID
+    static final String SELECTION_PAGE_UNDATED = SELECTION_USER + " AND " + COLUMN_DATE + " IS NULL AND " +
+            COLUMN_ID + " < ?";
+    static final String ORDER_BY_DATE = COLUMN_DATE + " DESC";
+    static final String ORDER_BY_DATE_ID = COLUMN_DATE + " DESC, " + COLUMN_ID + " DESC";
+    static final String ORDER_BY_ID = COLUMN_ID + " DESC";
+
+    private static final String BULK_INSERT_SQL = "INSERT INTO " + TABLE_ACTIVITIES + " (" +
+            COLUMN_USER_ID + ", " + COLUMN_ACTIVITY_TYPE + ", " + COLUMN_DURATION + ", " +
+            COLUMN_CALORIES_BURNED + ", " + COLUMN_DISTANCE + ", " + COLUMN_DATE + ", " +
+            COLUMN_NOTES + ", " + COLUMN_PHOTO_PATH + ", " + COLUMN_LATITUDE + ", " +
+            COLUMN_LONGITUDE + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     public PhysicalActivityDAO(Context context) {
         this.dbHelper = DatabaseHelper.getInstance(context);
     }
@@ -78,6 +108,71 @@ public class PhysicalActivityDAO {
         return activityId;
     }
     
+    /**
+     * Inserta varias actividades reutilizando una única sentencia compilada dentro de
+     * una transacción. Cada {@value #BULK_YIELD_INTERVAL} filas la transacción se cede
+     * si otro hilo espera la base de datos, por lo que las filas ya cedidas quedan
+     * guardadas aunque una fila posterior falle.
+     *
+     * @param activities Las actividades a insertar
+     * @return Los IDs generados en el mismo orden, -1 para las filas que no se guardaron
+     */
+    public long[] insertActivities(List<PhysicalActivity> activities) {
+        long[] ids = new long[activities.size()];
+        Arrays.fill(ids, -1);
+        if (activities.isEmpty()) {
+            return ids;
+        }
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(BULK_INSERT_SQL);
+        int committed = 0;
+        int index = 0;
+
+        db.beginTransaction();
+        try {
+            for (; index < ids.length; index++) {
+                PhysicalActivity activity = activities.get(index);
+                statement.clearBindings();
+                statement.bindLong(1, activity.getUserId());
+                bindStringOrNull(statement, 2, activity.getActivityType());
+                statement.bindLong(3, activity.getDuration());
+                statement.bindLong(4, activity.getCaloriesBurned());
+                statement.bindDouble(5, activity.getDistance());
+                bindStringOrNull(statement, 6, activity.getDate());
+                bindStringOrNull(statement, 7, activity.getNotes());
+                bindStringOrNull(statement, 8, activity.getPhotoPath());
+                statement.bindDouble(9, activity.getLatitude());
+                statement.bindDouble(10, activity.getLongitude());
+                ids[index] = statement.executeInsert();
+
+                if ((index + 1) % BULK_YIELD_INTERVAL == 0 && db.yieldIfContendedSafely()) {
+                    // La transacción anterior se confirmó al ceder
+                    committed = index + 1;
+                }
+            }
+            db.setTransactionSuccessful();
+            committed = ids.length;
+        } catch (Exception e) {
+            Log.e(TAG, "Error al insertar actividades en bloque en la fila " + index + ": " + e.getMessage());
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+
+        // Las filas de la última transacción se revierten si hubo un error
+        Arrays.fill(ids, committed, ids.length, -1);
+        return ids;
+    }
+
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
     /**
      * Actualiza una actividad física existente en la base de datos
      *
@@ -154,51 +249,21 @@ public class PhysicalActivityDAO {
     public PhysicalActivity getActivityById(long id) {
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         PhysicalActivity activity = null;
+        Cursor cursor = null;
 
         try {
-            String[] projection = {
-                "id",
-                "user_id",
-                "activity_type",
-                "duration",
-                "calories_burned",
-                "distance",
-                "notes",
-                "date",
-                "latitude",
-                "longitude"
-            };
-
-            String selection = "id = ?";
-            String[] selectionArgs = { String.valueOf(id) };
-
-            Cursor cursor = db.query(
-                "physical_activities",
-                projection,
-                selection,
-                selectionArgs,
-                null,
-                null,
-                null
-            );
-
-            if (cursor != null && cursor.moveToFirst()) {
-                activity = new PhysicalActivity(
-                    cursor.getLong(cursor.getColumnIndexOrThrow("user_id")),
-                    cursor.getString(cursor.getColumnIndexOrThrow("activity_type")),
-                    cursor.getInt(cursor.getColumnIndexOrThrow("duration")),
-                    cursor.getInt(cursor.getColumnIndexOrThrow("calories_burned")),
-                    cursor.getDouble(cursor.getColumnIndexOrThrow("distance")),
-                    cursor.getString(cursor.getColumnIndexOrThrow("notes"))
-                );
-                activity.setId(cursor.getLong(cursor.getColumnIndexOrThrow("id")));
-                activity.setDate(cursor.getString(cursor.getColumnIndexOrThrow("date")));
-                activity.setLatitude(cursor.getDouble(cursor.getColumnIndexOrThrow("latitude")));
-                activity.setLongitude(cursor.getDouble(cursor.getColumnIndexOrThrow("longitude")));
-                cursor.close();
+            cursor = db.query(TABLE_ACTIVITIES, ActivityRowMapper.PROJECTION,
+                    COLUMN_ID + " = ?", new String[]{String.valueOf(id)},
+                    null, null, null);
+            if (cursor.moveToFirst()) {
+                activity = new ActivityRowMapper(cursor).map(cursor);
             }
         } catch (Exception e) {
-            Log.e("PhysicalActivityDAO", "Error getting activity by id: " + e.getMessage());
+            Log.e(TAG, "Error getting activity by id: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
         }
 
         return activity;
@@ -211,26 +276,10 @@ public class PhysicalActivityDAO {
      * @return Lista de actividades físicas del usuario
      */
     public List<PhysicalActivity> getActivitiesByUserId(long userId) {
-        List<PhysicalActivity> activityList = new ArrayList<>();
-        
-        String query = "SELECT * FROM " + TABLE_ACTIVITIES + 
-                      " WHERE " + COLUMN_USER_ID + " = ?" +
-                      " ORDER BY " + COLUMN_DATE + " DESC";
-                      
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(userId)});
-        
-        if (cursor.moveToFirst()) {
-            do {
-                PhysicalActivity activity = cursorToActivity(cursor);
-                activityList.add(activity);
-            } while (cursor.moveToNext());
-        }
-        
-        cursor.close();
-        db.close();
-        
-        return activityList;
+        return queryActivities(SELECTION_USER,
+                new String[]{String.valueOf(userId)},
+                ORDER_BY_DATE, null,
+                "Error al obtener actividades físicas del usuario");
     }
     
     /**
@@ -242,35 +291,10 @@ public class PhysicalActivityDAO {
      * @return Lista de actividades físicas en el rango de fechas
      */
     public List<PhysicalActivity> getActivitiesByDateRange(long userId, String startDate, String endDate) {
-        String SELECT_QUERY = "SELECT * FROM " + TABLE_ACTIVITIES +
-                " WHERE " + COLUMN_USER_ID + " = ?" +
-                " AND " + COLUMN_DATE + " BETWEEN ? AND ?" +
-                " ORDER BY " + COLUMN_DATE + " DESC";
-        
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        List<PhysicalActivity> activities = new ArrayList<>();
-        Cursor cursor = null;
-        
-        try {
-            cursor = db.rawQuery(SELECT_QUERY, new String[]{
-                    String.valueOf(userId), startDate, endDate
-            });
-            
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    PhysicalActivity activity = cursorToActivity(cursor);
-                    activities.add(activity);
-                } while (cursor.moveToNext());
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error al obtener actividades físicas por rango de fechas: " + e.getMessage());
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
-        
-        return activities;
+        return queryActivities(SELECTION_USER_DATE_RANGE,
+                new String[]{String.valueOf(userId), startDate, endDate},
+                ORDER_BY_DATE, null,
+                "Error al obtener actividades físicas por rango de fechas");
     }
     
     /**
@@ -313,33 +337,10 @@ public class PhysicalActivityDAO {
      * @return Lista de actividades físicas con datos de ubicación
      */
     public List<PhysicalActivity> getActivitiesWithLocation(long userId) {
-        String SELECT_QUERY = "SELECT * FROM " + TABLE_ACTIVITIES +
-                " WHERE " + COLUMN_USER_ID + " = ?" +
-                " AND " + COLUMN_LATITUDE + " IS NOT NULL" +
-                " AND " + COLUMN_LONGITUDE + " IS NOT NULL" +
-                " ORDER BY " + COLUMN_DATE + " DESC";
-        
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        List<PhysicalActivity> activities = new ArrayList<>();
-        Cursor cursor = null;
-        
-        try {
-            cursor = db.rawQuery(SELECT_QUERY, new String[]{String.valueOf(userId)});
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    PhysicalActivity activity = cursorToActivity(cursor);
-                    activities.add(activity);
-                } while (cursor.moveToNext());
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error al obtener actividades con ubicación: " + e.getMessage());
-        } finally {
-            if (cursor != null) {
-                cursor.close();
-            }
-        }
-        
-        return activities;
+        return queryActivities(SELECTION_USER_WITH_LOCATION,
+                new String[]{String.valueOf(userId)},
+                ORDER_BY_DATE, null,
+                "Error al obtener actividades con ubicación");
     }
     
     /**
@@ -377,48 +378,28 @@ public class PhysicalActivityDAO {
     }
     
     /**
-     * Método auxiliar para obtener una actividad física a partir de un cursor
+     * Método auxiliar que ejecuta una consulta con la proyección de actividades y
+     * convierte todas las filas con un único {@link ActivityRowMapper}
      */
-    private PhysicalActivity cursorToActivity(Cursor cursor) {
-        PhysicalActivity activity = new PhysicalActivity();
-        
-        activity.setId(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_ID)));
-        activity.setUserId(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_USER_ID)));
-        activity.setActivityType(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ACTIVITY_TYPE)));
-        activity.setDuration(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_DURATION)));
-        activity.setCaloriesBurned(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_CALORIES_BURNED)));
-        activity.setDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_DATE)));
-        
-        // Campos opcionales
-        int distanceIndex = cursor.getColumnIndexOrThrow(COLUMN_DISTANCE);
-        int notesIndex = cursor.getColumnIndexOrThrow(COLUMN_NOTES);
-        
-        if (!cursor.isNull(distanceIndex)) {
-            activity.setDistance(cursor.getDouble(distanceIndex));
-        }
-        
-        if (!cursor.isNull(notesIndex)) {
-            activity.setNotes(cursor.getString(notesIndex));
-        }
+    private List<PhysicalActivity> queryActivities(String selection, String[] selectionArgs,
+                                                   String orderBy, String limit, String errorMessage) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        List<PhysicalActivity> activities = new ArrayList<>();
+        Cursor cursor = null;
         
-        // Campos de ubicación
         try {
-            int latIndex = cursor.getColumnIndexOrThrow(COLUMN_LATITUDE);
-            int lngIndex = cursor.getColumnIndexOrThrow(COLUMN_LONGITUDE);
-            
-            if (!cursor.isNull(latIndex)) {
-                activity.setLatitude(cursor.getDouble(latIndex));
-            }
-            
-            if (!cursor.isNull(lngIndex)) {
-                activity.setLongitude(cursor.getDouble(lngIndex));
+            cursor = db.query(TABLE_ACTIVITIES, ActivityRowMapper.PROJECTION,
+                    selection, selectionArgs, null, null, orderBy, limit);
+            activities = new ActivityRowMapper(cursor).mapAll(cursor);
+        } catch (Exception e) {
+            Log.e(TAG, errorMessage + ": " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
             }
-        } catch (IllegalArgumentException e) {
-            // Las columnas de ubicación podrían no existir en versiones anteriores de la base de datos
-            Log.w(TAG, "Las columnas de ubicación no están disponibles en esta versión de la base de datos");
         }
         
-        return activity;
+        return activities;
     }
     
     public long addActivity(PhysicalActivity activity) {
@@ -432,27 +413,53 @@ public class PhysicalActivityDAO {
      * @return Lista de actividades físicas ordenadas por fecha, más recientes primero
      */
     public List<PhysicalActivity> getRecentActivities(long userId, int limit) {
-        List<PhysicalActivity> activityList = new ArrayList<>();
-        
-        String query = "SELECT * FROM " + TABLE_ACTIVITIES + 
-                      " WHERE " + COLUMN_USER_ID + " = ?" +
-                      " ORDER BY " + COLUMN_DATE + " DESC" +
-                      " LIMIT " + limit;
-                      
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(userId)});
-        
-        if (cursor.moveToFirst()) {
-            do {
-                PhysicalActivity activity = cursorToActivity(cursor);
-                activityList.add(activity);
-            } while (cursor.moveToNext());
+        return queryActivities(SELECTION_USER,
+                new String[]{String.valueOf(userId)},
+                ORDER_BY_DATE, String.valueOf(limit),
+                "Error al obtener actividades recientes");
+    }
+    
+    /**
+     * Obtiene una página del historial de actividades de un usuario usando paginación
+     * por clave (fecha, id). La consulta busca en el índice (user_id, date) la fecha de
+     * la última fila de la página anterior y solo filtra por ID las filas de esa fecha,
+     * en lugar de saltar un OFFSET que crece con cada página cargada.
+     *
+     * Las actividades sin fecha se ordenan detrás de todas las demás. Si la página con
+     * fecha queda incompleta se completa con ellas, y una última fila sin fecha hace que
+     * la página siguiente continúe solo entre las filas sin fecha.
+     *
+     * @param userId ID del usuario
+     * @param afterDate Fecha de la última actividad de la página anterior (null si no tenía fecha)
+     * @param afterId ID de la última actividad de la página anterior, o 0 para la primera página
+     * @param pageSize Número máximo de actividades a devolver
+     * @return Actividades ordenadas por fecha e ID, más recientes primero
+     */
+    public List<PhysicalActivity> getActivitiesPage(long userId, String afterDate, long afterId, int pageSize) {
+        if (afterId <= 0) {
+            return queryActivities(SELECTION_USER, new String[]{String.valueOf(userId)},
+                    ORDER_BY_DATE_ID, String.valueOf(pageSize),
+                    "Error al obtener página de actividades");
         }
-        
-        cursor.close();
-        db.close();
-        
-        return activityList;
+        if (afterDate == null) {
+            return getUndatedActivitiesPage(userId, afterId, pageSize);
+        }
+
+        List<PhysicalActivity> page = queryActivities(SELECTION_PAGE_AFTER,
+                new String[]{String.valueOf(userId), afterDate, afterDate, String.valueOf(afterId)},
+                ORDER_BY_DATE_ID, String.valueOf(pageSize),
+                "Error al obtener página de actividades");
+        if (page.size() < pageSize) {
+            page.addAll(getUndatedActivitiesPage(userId, Long.MAX_VALUE, pageSize - page.size()));
+        }
+        return page;
+    }
+
+    private List<PhysicalActivity> getUndatedActivitiesPage(long userId, long afterId, int pageSize) {
+        return queryActivities(SELECTION_PAGE_UNDATED,
+                new String[]{String.valueOf(userId), String.valueOf(afterId)},
+                ORDER_BY_DATE_ID, String.valueOf(pageSize),
+                "Error al obtener página de actividades");
     }
     
     /**
@@ -462,26 +469,9 @@ public class PhysicalActivityDAO {
      * @return Lista de actividades realizadas en esa fecha
      */
     public List<PhysicalActivity> getActivitiesByDate(long userId, String date) {
-        List<PhysicalActivity> activityList = new ArrayList<>();
-        
-        String query = "SELECT * FROM " + TABLE_ACTIVITIES + 
-                      " WHERE " + COLUMN_USER_ID + " = ?" +
-                      " AND " + COLUMN_DATE + " = ?" +
-                      " ORDER BY " + COLUMN_ID + " DESC";
-                      
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(userId), date});
-        
-        if (cursor.moveToFirst()) {
-            do {
-                PhysicalActivity activity = cursorToActivity(cursor);
-                activityList.add(activity);
-            } while (cursor.moveToNext());
-        }
-        
-        cursor.close();
-        db.close();
-        
-        return activityList;
+        return queryActivities(SELECTION_USER_DATE,
+                new String[]{String.valueOf(userId), date},
+                ORDER_BY_ID, null,
+                "Error al obtener actividades por fecha");
     }
-} 
\ No newline at end of file
+}
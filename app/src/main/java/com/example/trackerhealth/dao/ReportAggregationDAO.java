@@ -0,0 +1,229 @@
+package com.example.trackerhealth.dao;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.DailyTotal;
+import com.example.trackerhealth.model.ReportTotals;
+import com.example.trackerhealth.model.RouteAnalytics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consultas de agregación para los informes. Calcula sumas, conteos y promedios
+ * directamente en SQLite sin materializar entidades.
+ */
+public class ReportAggregationDAO {
+
+    private static final String TAG = ReportAggregationDAO.class.getSimpleName();
+    private final DatabaseHelper dbHelper;
+
+    // Las fechas de actividad se guardan como "yyyy-MM-dd HH:mm:ss", así que el
+    // rango se cierra con el día siguiente al final para incluir todo ese día
+    private static final String ACTIVITY_RANGE =
+            " WHERE " + DatabaseHelper.KEY_ACTIVITY_USER_ID_FK + " = ?" +
+            " AND " + DatabaseHelper.KEY_ACTIVITY_DATE + " >= ?" +
+            " AND " + DatabaseHelper.KEY_ACTIVITY_DATE + " < date(?, '+1 day')";
+
+    private static final String MEAL_RANGE =
+            " WHERE " + DatabaseHelper.KEY_MEAL_USER_ID_FK + " = ?" +
+            " AND " + DatabaseHelper.KEY_MEAL_DATE + " BETWEEN ? AND ?";
+
+    // Consultas de los informes; QueryPlanTest comprueba sus planes sobre el esquema real.
+    // Todas reciben (userId, startDate, endDate).
+    static final String ACTIVITY_TOTALS_QUERY = "SELECT COUNT(*)," +
+            " TOTAL(" + DatabaseHelper.KEY_ACTIVITY_DISTANCE + ")," +
+            " TOTAL(" + DatabaseHelper.KEY_ACTIVITY_DURATION + ")," +
+            " TOTAL(" + DatabaseHelper.KEY_ACTIVITY_CALORIES + ")" +
+            " FROM " + DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES +
+            ACTIVITY_RANGE;
+
+    static final String MEAL_TOTALS_QUERY = "SELECT COUNT(*)," +
+            " TOTAL(" + DatabaseHelper.KEY_MEAL_CALORIES + ")," +
+            " TOTAL(" + DatabaseHelper.KEY_MEAL_PROTEINS + ")," +
+            " TOTAL(" + DatabaseHelper.KEY_MEAL_CARBS + ")," +
+            " TOTAL(" + DatabaseHelper.KEY_MEAL_FATS + ")" +
+            " FROM " + DatabaseHelper.TABLE_MEALS +
+            MEAL_RANGE;
+
+    static final String DAILY_ACTIVITY_MINUTES_QUERY =
+            "SELECT date(" + DatabaseHelper.KEY_ACTIVITY_DATE + ") AS day," +
+            " TOTAL(" + DatabaseHelper.KEY_ACTIVITY_DURATION + "), COUNT(*)" +
+            " FROM " + DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES +
+            ACTIVITY_RANGE +
+            " GROUP BY day ORDER BY day";
+
+    static final String DAILY_CALORIES_QUERY =
+            "SELECT " + DatabaseHelper.KEY_MEAL_DATE + " AS day," +
+            " TOTAL(" + DatabaseHelper.KEY_MEAL_CALORIES + "), COUNT(*)" +
+            " FROM " + DatabaseHelper.TABLE_MEALS +
+            MEAL_RANGE +
+            " GROUP BY day ORDER BY day";
+
+    // Una fila por actividad del periodo con ruta indexada. Las columnas de route_analytics
+    // quedan a NULL si falta el análisis o si se calculó sobre otra versión del archivo o
+    // con otra versión del análisis, con el mismo criterio que RouteAnalytics.matches
+    static final String ROUTE_ANALYTICS_QUERY = "SELECT r." + DatabaseHelper.KEY_ROUTE_ACTIVITY_ID + ", " +
+            qualify("an", RouteAnalyticsDAO.PROJECTION) +
+            " FROM " + DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES + " a" +
+            " JOIN " + DatabaseHelper.TABLE_ROUTE_INDEX + " r" +
+            " ON r." + DatabaseHelper.KEY_ROUTE_ACTIVITY_ID + " = a." + DatabaseHelper.KEY_ACTIVITY_ID +
+            " LEFT JOIN " + DatabaseHelper.TABLE_ROUTE_ANALYTICS + " an" +
+            " ON an." + DatabaseHelper.KEY_ANALYTICS_ACTIVITY_ID + " = r." + DatabaseHelper.KEY_ROUTE_ACTIVITY_ID +
+            " AND an." + DatabaseHelper.KEY_ANALYTICS_ROUTE_BYTE_SIZE + " = r." + DatabaseHelper.KEY_ROUTE_BYTE_SIZE +
+            " AND an." + DatabaseHelper.KEY_ANALYTICS_ROUTE_MODIFIED_AT + " = r." + DatabaseHelper.KEY_ROUTE_MODIFIED_AT +
+            " AND an." + DatabaseHelper.KEY_ANALYTICS_ANALYZER_VERSION + " = " + RouteAnalytics.ANALYZER_VERSION +
+            " WHERE a." + DatabaseHelper.KEY_ACTIVITY_USER_ID_FK + " = ?" +
+            " AND a." + DatabaseHelper.KEY_ACTIVITY_DATE + " >= ?" +
+            " AND a." + DatabaseHelper.KEY_ACTIVITY_DATE + " < date(?, '+1 day')" +
+            " ORDER BY a." + DatabaseHelper.KEY_ACTIVITY_DATE;
+
+    public ReportAggregationDAO(Context context) {
+        this.dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Obtiene los totales de actividad y alimentación de un periodo
+     *
+     * @param userId El ID del usuario
+     * @param startDate Fecha de inicio (formato YYYY-MM-DD)
+     * @param endDate Fecha de fin, inclusiva (formato YYYY-MM-DD)
+     * @return Totales del periodo
+     */
+    public ReportTotals getPeriodTotals(long userId, String startDate, String endDate) {
+        ReportTotals totals = new ReportTotals();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String[] args = {String.valueOf(userId), startDate, endDate};
+
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(ACTIVITY_TOTALS_QUERY, args);
+            if (cursor.moveToFirst()) {
+                totals.setActivityCount(cursor.getInt(0));
+                totals.setTotalDistance(cursor.getDouble(1));
+                totals.setTotalDuration((int) cursor.getLong(2));
+                totals.setTotalCaloriesBurned((int) cursor.getLong(3));
+            }
+            cursor.close();
+
+            cursor = db.rawQuery(MEAL_TOTALS_QUERY, args);
+            if (cursor.moveToFirst()) {
+                totals.setMealCount(cursor.getInt(0));
+                totals.setTotalCaloriesConsumed((int) cursor.getLong(1));
+                totals.setTotalProteins(cursor.getDouble(2));
+                totals.setTotalCarbs(cursor.getDouble(3));
+                totals.setTotalFats(cursor.getDouble(4));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error al obtener totales del periodo: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return totals;
+    }
+
+    /**
+     * Obtiene los minutos de actividad agrupados por día
+     *
+     * @param userId El ID del usuario
+     * @param startDate Fecha de inicio (formato YYYY-MM-DD)
+     * @param endDate Fecha de fin, inclusiva (formato YYYY-MM-DD)
+     * @return Una fila por día con actividad, ordenadas por fecha
+     */
+    public List<DailyTotal> getDailyActivityMinutes(long userId, String startDate, String endDate) {
+        return queryDailyTotals(DAILY_ACTIVITY_MINUTES_QUERY, userId, startDate, endDate);
+    }
+
+    /**
+     * Obtiene las calorías consumidas agrupadas por día
+     *
+     * @param userId El ID del usuario
+     * @param startDate Fecha de inicio (formato YYYY-MM-DD)
+     * @param endDate Fecha de fin, inclusiva (formato YYYY-MM-DD)
+     * @return Una fila por día con comidas, ordenadas por fecha
+     */
+    public List<DailyTotal> getDailyCaloriesConsumed(long userId, String startDate, String endDate) {
+        return queryDailyTotals(DAILY_CALORIES_QUERY, userId, startDate, endDate);
+    }
+
+    /**
+     * Obtiene en una sola consulta el análisis guardado de las rutas del periodo. Las
+     * actividades con ruta cuyo análisis falta o está desactualizado no se devuelven, sino
+     * que se añaden a missingActivityIds para calcularlo aparte.
+     *
+     * @param userId El ID del usuario
+     * @param startDate Fecha de inicio (formato YYYY-MM-DD)
+     * @param endDate Fecha de fin, inclusiva (formato YYYY-MM-DD)
+     * @param missingActivityIds Recibe los IDs sin análisis vigente, ordenados por fecha
+     * @return Los análisis vigentes, ordenados por fecha
+     */
+    public List<RouteAnalytics> getRouteAnalytics(long userId, String startDate, String endDate,
+                                                  List<Long> missingActivityIds) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        List<RouteAnalytics> analytics = new ArrayList<>();
+        Cursor cursor = null;
+        try {
+            cursor = db.rawQuery(ROUTE_ANALYTICS_QUERY, new String[]{String.valueOf(userId), startDate, endDate});
+            while (cursor.moveToNext()) {
+                // La columna 1 es el activity_id de route_analytics, NULL si no hubo coincidencia
+                if (cursor.isNull(1)) {
+                    missingActivityIds.add(cursor.getLong(0));
+                } else {
+                    analytics.add(RouteAnalyticsDAO.fromCursor(cursor, 1));
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error al obtener análisis de rutas: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return analytics;
+    }
+
+    /**
+     * Método auxiliar que ejecuta una consulta (day, total, count) y la convierte en filas
+     */
+    private List<DailyTotal> queryDailyTotals(String query, long userId, String startDate, String endDate) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        List<DailyTotal> rows = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            cursor = db.rawQuery(query, new String[]{String.valueOf(userId), startDate, endDate});
+            while (cursor.moveToNext()) {
+                rows.add(new DailyTotal(cursor.getString(0), cursor.getDouble(1), cursor.getInt(2)));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error al obtener totales diarios: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Antepone el alias de la tabla a cada columna y las separa por comas
+     */
+    private static String qualify(String alias, String[] columns) {
+        StringBuilder select = new StringBuilder();
+        for (String column : columns) {
+            if (select.length() > 0) {
+                select.append(", ");
+            }
+            select.append(alias).append('.').append(column);
+        }
+        return select.toString();
+    }
+}
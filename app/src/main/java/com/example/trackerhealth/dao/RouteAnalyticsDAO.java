@@ -0,0 +1,155 @@
+package com.example.trackerhealth.dao;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.RouteAnalytics;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Acceso a la tabla route_analytics, la caché del análisis de cada ruta
+ */
+public class RouteAnalyticsDAO {
+
+    private static final String TAG = RouteAnalyticsDAO.class.getSimpleName();
+    private final DatabaseHelper dbHelper;
+
+    // ReportAggregationDAO lee las mismas columnas, en este orden, con fromCursor
+    static final String[] PROJECTION = {
+            DatabaseHelper.KEY_ANALYTICS_ACTIVITY_ID,
+            DatabaseHelper.KEY_ANALYTICS_DISTANCE,
+            DatabaseHelper.KEY_ANALYTICS_DURATION,
+            DatabaseHelper.KEY_ANALYTICS_MOVING_TIME,
+            DatabaseHelper.KEY_ANALYTICS_SPLITS,
+            DatabaseHelper.KEY_ANALYTICS_PACE_ZONES,
+            DatabaseHelper.KEY_ANALYTICS_BEST_EFFORTS,
+            DatabaseHelper.KEY_ANALYTICS_ROUTE_BYTE_SIZE,
+            DatabaseHelper.KEY_ANALYTICS_ROUTE_MODIFIED_AT,
+            DatabaseHelper.KEY_ANALYTICS_ANALYZER_VERSION
+    };
+
+    public RouteAnalyticsDAO(Context context) {
+        this.dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Inserta o reemplaza el análisis de una actividad
+     *
+     * @return true si se guardó correctamente
+     */
+    public boolean upsert(RouteAnalytics analytics) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            return db.insertWithOnConflict(DatabaseHelper.TABLE_ROUTE_ANALYTICS, null,
+                    toContentValues(analytics), SQLiteDatabase.CONFLICT_REPLACE) != -1;
+        } catch (Exception e) {
+            Log.e(TAG, "Error al guardar análisis de ruta: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Obtiene el análisis guardado de una actividad
+     *
+     * @return El análisis o null si no se ha calculado
+     */
+    public RouteAnalytics getAnalytics(long activityId) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.query(DatabaseHelper.TABLE_ROUTE_ANALYTICS, PROJECTION,
+                    DatabaseHelper.KEY_ANALYTICS_ACTIVITY_ID + " = ?",
+                    new String[]{String.valueOf(activityId)}, null, null, null);
+            return cursor.moveToFirst() ? fromCursor(cursor, 0) : null;
+        } catch (Exception e) {
+            Log.e(TAG, "Error al obtener análisis de ruta: " + e.getMessage());
+            return null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Elimina el análisis de una actividad
+     *
+     * @return true si había un análisis y se eliminó
+     */
+    public boolean delete(long activityId) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            return db.delete(DatabaseHelper.TABLE_ROUTE_ANALYTICS,
+                    DatabaseHelper.KEY_ANALYTICS_ACTIVITY_ID + " = ?",
+                    new String[]{String.valueOf(activityId)}) > 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error al eliminar análisis de ruta: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static ContentValues toContentValues(RouteAnalytics analytics) {
+        long[] splits = new long[analytics.getSplitCount()];
+        for (int i = 0; i < splits.length; i++) {
+            splits[i] = analytics.getSplitTime(i);
+        }
+        long[] zones = new long[analytics.getPaceZoneCount()];
+        for (int i = 0; i < zones.length; i++) {
+            zones[i] = analytics.getPaceZoneTime(i);
+        }
+        long[] efforts = new long[RouteAnalytics.BEST_EFFORT_DISTANCES.length];
+        for (int i = 0; i < efforts.length; i++) {
+            efforts[i] = analytics.getBestEffortTime(i);
+        }
+
+        ContentValues values = new ContentValues();
+        values.put(DatabaseHelper.KEY_ANALYTICS_ACTIVITY_ID, analytics.getActivityId());
+        values.put(DatabaseHelper.KEY_ANALYTICS_DISTANCE, analytics.getDistanceMeters());
+        values.put(DatabaseHelper.KEY_ANALYTICS_DURATION, analytics.getDurationMs());
+        values.put(DatabaseHelper.KEY_ANALYTICS_MOVING_TIME, analytics.getMovingTimeMs());
+        values.put(DatabaseHelper.KEY_ANALYTICS_SPLITS, toBlob(splits));
+        values.put(DatabaseHelper.KEY_ANALYTICS_PACE_ZONES, toBlob(zones));
+        values.put(DatabaseHelper.KEY_ANALYTICS_BEST_EFFORTS, toBlob(efforts));
+        values.put(DatabaseHelper.KEY_ANALYTICS_ROUTE_BYTE_SIZE, analytics.getRouteByteSize());
+        values.put(DatabaseHelper.KEY_ANALYTICS_ROUTE_MODIFIED_AT, analytics.getRouteModifiedAt());
+        values.put(DatabaseHelper.KEY_ANALYTICS_ANALYZER_VERSION, analytics.getAnalyzerVersion());
+        return values;
+    }
+
+    /**
+     * Convierte la fila actual; las columnas de PROJECTION empiezan en firstColumn
+     */
+    static RouteAnalytics fromCursor(Cursor cursor, int firstColumn) {
+        return new RouteAnalytics(
+                cursor.getLong(firstColumn),
+                cursor.getDouble(firstColumn + 1),
+                cursor.getLong(firstColumn + 2),
+                cursor.getLong(firstColumn + 3),
+                fromBlob(cursor.getBlob(firstColumn + 4)),
+                fromBlob(cursor.getBlob(firstColumn + 5)),
+                fromBlob(cursor.getBlob(firstColumn + 6)),
+                cursor.getLong(firstColumn + 7),
+                cursor.getLong(firstColumn + 8),
+                cursor.getInt(firstColumn + 9));
+    }
+
+    private static byte[] toBlob(long[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Long.BYTES);
+        buffer.asLongBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static long[] fromBlob(byte[] blob) {
+        if (blob == null) {
+            return new long[0];
+        }
+        long[] values = new long[blob.length / Long.BYTES];
+        ByteBuffer.wrap(blob).asLongBuffer().get(values);
+        return values;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.trackerhealth.dao;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.RouteIndexEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acceso a la tabla route_index, que relaciona cada actividad con su archivo de ruta
+ */
+public class RouteIndexDAO {
+
+    private static final String TAG = RouteIndexDAO.class.getSimpleName();
+    private final DatabaseHelper dbHelper;
+
+    private static final String[] PROJECTION = {
+            DatabaseHelper.KEY_ROUTE_ACTIVITY_ID,
+            DatabaseHelper.KEY_ROUTE_FILE_NAME,
+            DatabaseHelper.KEY_ROUTE_POINT_COUNT,
+            DatabaseHelper.KEY_ROUTE_MIN_LAT,
+            DatabaseHelper.KEY_ROUTE_MIN_LON,
+            DatabaseHelper.KEY_ROUTE_MAX_LAT,
+            DatabaseHelper.KEY_ROUTE_MAX_LON,
+            DatabaseHelper.KEY_ROUTE_BYTE_SIZE,
+            DatabaseHelper.KEY_ROUTE_MODIFIED_AT
+    };
+
+    public RouteIndexDAO(Context context) {
+        this.dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Inserta o reemplaza la entrada de una actividad
+     *
+     * @param entry La entrada a guardar
+     * @return true si se guardó correctamente
+     */
+    public boolean upsert(RouteIndexEntry entry) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            return db.insertWithOnConflict(DatabaseHelper.TABLE_ROUTE_INDEX, null,
+                    toContentValues(entry), SQLiteDatabase.CONFLICT_REPLACE) != -1;
+        } catch (Exception e) {
+            Log.e(TAG, "Error al guardar entrada del índice de rutas: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Obtiene la entrada de una actividad
+     *
+     * @param activityId El ID de la actividad
+     * @return La entrada o null si la actividad no tiene ruta indexada
+     */
+    public RouteIndexEntry getEntry(long activityId) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.query(DatabaseHelper.TABLE_ROUTE_INDEX, PROJECTION,
+                    DatabaseHelper.KEY_ROUTE_ACTIVITY_ID + " = ?",
+                    new String[]{String.valueOf(activityId)}, null, null, null);
+            return cursor.moveToFirst() ? fromCursor(cursor) : null;
+        } catch (Exception e) {
+            Log.e(TAG, "Error al obtener entrada del índice de rutas: " + e.getMessage());
+            return null;
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Obtiene todas las entradas del índice
+     */
+    public List<RouteIndexEntry> getAllEntries() {
+        List<RouteIndexEntry> entries = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.query(DatabaseHelper.TABLE_ROUTE_INDEX, PROJECTION,
+                    null, null, null, null, DatabaseHelper.KEY_ROUTE_ACTIVITY_ID);
+            while (cursor.moveToNext()) {
+                entries.add(fromCursor(cursor));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error al obtener el índice de rutas: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Obtiene los IDs de las actividades con ruta, ordenados
+     */
+    public List<Long> getActivityIds() {
+        List<Long> activityIds = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = null;
+        try {
+            cursor = db.query(DatabaseHelper.TABLE_ROUTE_INDEX,
+                    new String[]{DatabaseHelper.KEY_ROUTE_ACTIVITY_ID},
+                    null, null, null, null, DatabaseHelper.KEY_ROUTE_ACTIVITY_ID);
+            while (cursor.moveToNext()) {
+                activityIds.add(cursor.getLong(0));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error al obtener actividades con ruta: " + e.getMessage());
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return activityIds;
+    }
+
+    /**
+     * Elimina la entrada de una actividad
+     *
+     * @return true si había una entrada y se eliminó
+     */
+    public boolean delete(long activityId) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        try {
+            return db.delete(DatabaseHelper.TABLE_ROUTE_INDEX,
+                    DatabaseHelper.KEY_ROUTE_ACTIVITY_ID + " = ?",
+                    new String[]{String.valueOf(activityId)}) > 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error al eliminar entrada del índice de rutas: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Aplica en una sola transacción las correcciones de una reconstrucción del índice
+     *
+     * @param upserts Entradas nuevas o actualizadas
+     * @param deletedIds Actividades cuyo archivo ya no existe
+     */
+    public void applyChanges(List<RouteIndexEntry> upserts, List<Long> deletedIds) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (RouteIndexEntry entry : upserts) {
+                db.insertWithOnConflict(DatabaseHelper.TABLE_ROUTE_INDEX, null,
+                        toContentValues(entry), SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (long activityId : deletedIds) {
+                db.delete(DatabaseHelper.TABLE_ROUTE_INDEX,
+                        DatabaseHelper.KEY_ROUTE_ACTIVITY_ID + " = ?",
+                        new String[]{String.valueOf(activityId)});
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Error al actualizar el índice de rutas: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static ContentValues toContentValues(RouteIndexEntry entry) {
+        ContentValues values = new ContentValues();
+        values.put(DatabaseHelper.KEY_ROUTE_ACTIVITY_ID, entry.getActivityId());
+        values.put(DatabaseHelper.KEY_ROUTE_FILE_NAME, entry.getFileName());
+        values.put(DatabaseHelper.KEY_ROUTE_POINT_COUNT, entry.getPointCount());
+        values.put(DatabaseHelper.KEY_ROUTE_MIN_LAT, entry.getMinLatitude());
+        values.put(DatabaseHelper.KEY_ROUTE_MIN_LON, entry.getMinLongitude());
+        values.put(DatabaseHelper.KEY_ROUTE_MAX_LAT, entry.getMaxLatitude());
+        values.put(DatabaseHelper.KEY_ROUTE_MAX_LON, entry.getMaxLongitude());
+        values.put(DatabaseHelper.KEY_ROUTE_BYTE_SIZE, entry.getByteSize());
+        values.put(DatabaseHelper.KEY_ROUTE_MODIFIED_AT, entry.getModifiedAt());
+        return values;
+    }
+
+    // Las columnas siguen el orden de PROJECTION
+    private static RouteIndexEntry fromCursor(Cursor cursor) {
+        return new RouteIndexEntry(
+                cursor.getLong(0),
+                cursor.getString(1),
+                cursor.getInt(2),
+                cursor.getDouble(3),
+                cursor.getDouble(4),
+                cursor.getDouble(5),
+                cursor.getDouble(6),
+                cursor.getLong(7),
+                cursor.getLong(8));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.trackerhealth.dao;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Convierte la fila actual de un cursor en un objeto del modelo. Las implementaciones
+ * resuelven los índices de columna una sola vez, al crearse para un cursor concreto.
+ *
+ * @param <T> Tipo del objeto del modelo
+ */
+interface RowMapper<T> {
+
+    /**
+     * Convierte la fila en la que está posicionado el cursor
+     */
+    T map(Cursor cursor);
+
+    /**
+     * Recorre todas las filas restantes del cursor y las añade a una lista
+     */
+    default List<T> mapAll(Cursor cursor) {
+        List<T> rows = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            rows.add(map(cursor));
+        }
+        return rows;
+    }
+}
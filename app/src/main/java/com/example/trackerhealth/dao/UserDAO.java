@@ -130,17 +130,16 @@ public class UserDAO {
      * @return El usuario si se encuentra, null en caso contrario
      */
     public User getUserById(long userId) {
-        String SELECT_QUERY = "SELECT * FROM " + DatabaseHelper.TABLE_USERS +
-                " WHERE " + DatabaseHelper.KEY_USER_ID + " = ?";
-        
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         User user = null;
         Cursor cursor = null;
         
         try {
-            cursor = db.rawQuery(SELECT_QUERY, new String[]{String.valueOf(userId)});
-            if (cursor != null && cursor.moveToFirst()) {
-                user = getUserFromCursor(cursor);
+            cursor = db.query(DatabaseHelper.TABLE_USERS, UserRowMapper.PROJECTION,
+                    DatabaseHelper.KEY_USER_ID + " = ?", new String[]{String.valueOf(userId)},
+                    null, null, null);
+            if (cursor.moveToFirst()) {
+                user = new UserRowMapper(cursor).map(cursor);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error al obtener usuario por ID: " + e.getMessage());
@@ -160,17 +159,16 @@ public class UserDAO {
      * @return El usuario si se encuentra, null en caso contrario
      */
     public User getUserByEmail(String email) {
-        String SELECT_QUERY = "SELECT * FROM " + DatabaseHelper.TABLE_USERS +
-                " WHERE " + DatabaseHelper.KEY_USER_EMAIL + " = ?";
-        
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         User user = null;
         Cursor cursor = null;
         
         try {
-            cursor = db.rawQuery(SELECT_QUERY, new String[]{email});
-            if (cursor != null && cursor.moveToFirst()) {
-                user = getUserFromCursor(cursor);
+            cursor = db.query(DatabaseHelper.TABLE_USERS, UserRowMapper.PROJECTION,
+                    DatabaseHelper.KEY_USER_EMAIL + " = ?", new String[]{email},
+                    null, null, null);
+            if (cursor.moveToFirst()) {
+                user = new UserRowMapper(cursor).map(cursor);
             }
         } catch (Exception e) {
             Log.e(TAG, "Error al obtener usuario por email: " + e.getMessage());
@@ -206,20 +204,14 @@ public class UserDAO {
      * @return Lista de todos los usuarios
      */
     public List<User> getAllUsers() {
-        String SELECT_QUERY = "SELECT * FROM " + DatabaseHelper.TABLE_USERS;
-        
         SQLiteDatabase db = dbHelper.getReadableDatabase();
         List<User> users = new ArrayList<>();
         Cursor cursor = null;
         
         try {
-            cursor = db.rawQuery(SELECT_QUERY, null);
-            if (cursor != null && cursor.moveToFirst()) {
-                do {
-                    User user = getUserFromCursor(cursor);
-                    users.add(user);
-                } while (cursor.moveToNext());
-            }
+            cursor = db.query(DatabaseHelper.TABLE_USERS, UserRowMapper.PROJECTION,
+                    null, null, null, null, null);
+            users = new UserRowMapper(cursor).mapAll(cursor);
         } catch (Exception e) {
             Log.e(TAG, "Error al obtener todos los usuarios: " + e.getMessage());
         } finally {
@@ -230,45 +222,4 @@ public class UserDAO {
         
         return users;
     }
-
-    /**
-     * Método auxiliar para obtener un usuario a partir de un cursor
-     */
-    private User getUserFromCursor(Cursor cursor) {
-        User user = new User();
-        
-        user.setId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_ID)));
-        user.setName(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_NAME)));
-        user.setEmail(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_EMAIL)));
-        user.setPassword(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_PASSWORD)));
-        
-        // Campos opcionales
-        int heightIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_HEIGHT);
-        int weightIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_WEIGHT);
-        int ageIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_AGE);
-        int genderIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_GENDER);
-        int createdAtIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_CREATED_AT);
-        
-        if (!cursor.isNull(heightIndex)) {
-            user.setHeight(cursor.getDouble(heightIndex));
-        }
-        
-        if (!cursor.isNull(weightIndex)) {
-            user.setWeight(cursor.getDouble(weightIndex));
-        }
-        
-        if (!cursor.isNull(ageIndex)) {
-            user.setAge(cursor.getInt(ageIndex));
-        }
-        
-        if (!cursor.isNull(genderIndex)) {
-            user.setGender(cursor.getString(genderIndex));
-        }
-        
-        if (!cursor.isNull(createdAtIndex)) {
-            user.setCreatedAt(cursor.getString(createdAtIndex));
-        }
-        
-        return user;
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.example.trackerhealth.dao;
+
+import android.database.Cursor;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.User;
+
+/**
+ * Convierte filas de users en objetos User
+ */
+final class UserRowMapper implements RowMapper<User> {
+
+    static final String[] PROJECTION = {
+        DatabaseHelper.KEY_USER_ID,
+        DatabaseHelper.KEY_USER_NAME,
+        DatabaseHelper.KEY_USER_EMAIL,
+        DatabaseHelper.KEY_USER_PASSWORD,
+        DatabaseHelper.KEY_USER_HEIGHT,
+        DatabaseHelper.KEY_USER_WEIGHT,
+        DatabaseHelper.KEY_USER_AGE,
+        DatabaseHelper.KEY_USER_GENDER,
+        DatabaseHelper.KEY_USER_CREATED_AT
+    };
+
+    private final int idIndex;
+    private final int nameIndex;
+    private final int emailIndex;
+    private final int passwordIndex;
+    private final int heightIndex;
+    private final int weightIndex;
+    private final int ageIndex;
+    private final int genderIndex;
+    private final int createdAtIndex;
+
+    UserRowMapper(Cursor cursor) {
+        idIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_ID);
+        nameIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_NAME);
+        emailIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_EMAIL);
+        passwordIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_PASSWORD);
+        heightIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_HEIGHT);
+        weightIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_WEIGHT);
+        ageIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_AGE);
+        genderIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_GENDER);
+        createdAtIndex = cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_CREATED_AT);
+    }
+
+    @Override
+    public User map(Cursor cursor) {
+        User user = new User();
+        user.setId(cursor.getLong(idIndex));
+        user.setName(cursor.getString(nameIndex));
+        user.setEmail(cursor.getString(emailIndex));
+        user.setPassword(cursor.getString(passwordIndex));
+        // Campos opcionales: NULL se lee como 0 o null
+        user.setHeight(cursor.getDouble(heightIndex));
+        user.setWeight(cursor.getDouble(weightIndex));
+        user.setAge(cursor.getInt(ageIndex));
+        user.setGender(cursor.getString(genderIndex));
+        user.setCreatedAt(cursor.getString(createdAtIndex));
+        return user;
+    }
+}
@@ -3,12 +3,15 @@ package com.example.trackerhealth.database;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Build;
+
+import androidx.annotation.VisibleForTesting;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     // Database Info
     private static final String DATABASE_NAME = "TrackerHealth.db";
-    private static final int DATABASE_VERSION = 4;
+    private static final int DATABASE_VERSION = 8;
 
     // Table Names
     public static final String TABLE_USERS = "users";
@@ -17,6 +20,8 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String TABLE_WATER_INTAKE = "water_intake";
     public static final String TABLE_SLEEP_RECORDS = "sleep_records";
     public static final String TABLE_MEALS = "meals";
+    public static final String TABLE_ROUTE_INDEX = "route_index";
+    public static final String TABLE_ROUTE_ANALYTICS = "route_analytics";
 
     // User Table Columns
     public static final String KEY_USER_ID = "id";
@@ -83,6 +88,42 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String KEY_MEAL_NOTES = "notes";
     public static final String KEY_MEAL_PHOTO_PATH = "photo_path";
 
+    // Route Index Table Columns
+    public static final String KEY_ROUTE_ACTIVITY_ID = "activity_id";
+    public static final String KEY_ROUTE_FILE_NAME = "file_name";
+    public static final String KEY_ROUTE_POINT_COUNT = "point_count";
+    public static final String KEY_ROUTE_MIN_LAT = "min_lat";
+    public static final String KEY_ROUTE_MIN_LON = "min_lon";
+    public static final String KEY_ROUTE_MAX_LAT = "max_lat";
+    public static final String KEY_ROUTE_MAX_LON = "max_lon";
+    public static final String KEY_ROUTE_BYTE_SIZE = "byte_size";
+    public static final String KEY_ROUTE_MODIFIED_AT = "modified_at";
+
+    // Route Analytics Table Columns
+    public static final String KEY_ANALYTICS_ACTIVITY_ID = "activity_id";
+    public static final String KEY_ANALYTICS_DISTANCE = "distance";
+    public static final String KEY_ANALYTICS_DURATION = "duration";
+    public static final String KEY_ANALYTICS_MOVING_TIME = "moving_time";
+    public static final String KEY_ANALYTICS_SPLITS = "splits";
+    public static final String KEY_ANALYTICS_PACE_ZONES = "pace_zones";
+    public static final String KEY_ANALYTICS_BEST_EFFORTS = "best_efforts";
+    public static final String KEY_ANALYTICS_ROUTE_BYTE_SIZE = "route_byte_size";
+    public static final String KEY_ANALYTICS_ROUTE_MODIFIED_AT = "route_modified_at";
+    public static final String KEY_ANALYTICS_ANALYZER_VERSION = "analyzer_version";
+
+    // Index Names
+    public static final String INDEX_ACTIVITIES_USER_DATE = "idx_physical_activities_user_date";
+    public static final String INDEX_MEALS_USER_DATE = "idx_meals_user_date";
+    public static final String INDEX_MEALS_USER_TYPE_DATE = "idx_meals_user_type_date";
+    public static final String INDEX_FOOD_USER_DATE = "idx_food_entries_user_date";
+    public static final String INDEX_WATER_USER_DATE = "idx_water_intake_user_date";
+    public static final String INDEX_SLEEP_USER_DATE = "idx_sleep_records_user_date";
+
+    // Con WAL, NORMAL sigue siendo seguro ante cierres inesperados y evita un fsync por commit
+    private static final String SYNCHRONOUS_MODE = "NORMAL";
+    // Tamaño de la caché de páginas de la conexión configurada en onConfigure, en KiB
+    private static final int CACHE_SIZE_KB = 8192;
+
     private static DatabaseHelper instance;
 
     public static synchronized DatabaseHelper getInstance(Context context) {
@@ -92,8 +133,30 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return instance;
     }
 
+    /**
+     * Cierra la instancia compartida para que la siguiente llamada a getInstance abra la base
+     * de datos con el contexto que reciba. Robolectric crea una aplicación nueva en cada test,
+     * pero los campos estáticos sobreviven de un test a otro.
+     */
+    @VisibleForTesting
+    public static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
     private DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // Forma parte de la configuración: Android lo aplica a cada conexión que abre
+            setOpenParams(new SQLiteDatabase.OpenParams.Builder()
+                    .setSynchronousMode(SYNCHRONOUS_MODE)
+                    .build());
+        }
+        // WAL: las lecturas no se bloquean mientras se escribe una actividad. Después de
+        // setOpenParams, que descarta el flag de WAL
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
@@ -186,6 +249,67 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(CREATE_MEALS_TABLE);
         db.execSQL(CREATE_WATER_INTAKE_TABLE);
         db.execSQL(CREATE_SLEEP_RECORDS_TABLE);
+        createRouteIndexTable(db);
+        createRouteAnalyticsTable(db);
+
+        createIndexes(db);
+    }
+
+    /**
+     * Crea la tabla que indexa los archivos de ruta GPS por actividad
+     */
+    private static void createRouteIndexTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_ROUTE_INDEX +
+                "(" +
+                KEY_ROUTE_ACTIVITY_ID + " INTEGER PRIMARY KEY," +
+                KEY_ROUTE_FILE_NAME + " TEXT NOT NULL," +
+                KEY_ROUTE_POINT_COUNT + " INTEGER NOT NULL," +
+                KEY_ROUTE_MIN_LAT + " REAL," +
+                KEY_ROUTE_MIN_LON + " REAL," +
+                KEY_ROUTE_MAX_LAT + " REAL," +
+                KEY_ROUTE_MAX_LON + " REAL," +
+                KEY_ROUTE_BYTE_SIZE + " INTEGER NOT NULL," +
+                KEY_ROUTE_MODIFIED_AT + " INTEGER NOT NULL" +
+                ")");
+    }
+
+    /**
+     * Crea la tabla que guarda el análisis de cada ruta (parciales, zonas, mejores marcas).
+     * Los arrays se guardan como BLOB de enteros de 64 bits.
+     */
+    private static void createRouteAnalyticsTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_ROUTE_ANALYTICS +
+                "(" +
+                KEY_ANALYTICS_ACTIVITY_ID + " INTEGER PRIMARY KEY," +
+                KEY_ANALYTICS_DISTANCE + " REAL NOT NULL," +
+                KEY_ANALYTICS_DURATION + " INTEGER NOT NULL," +
+                KEY_ANALYTICS_MOVING_TIME + " INTEGER NOT NULL," +
+                KEY_ANALYTICS_SPLITS + " BLOB," +
+                KEY_ANALYTICS_PACE_ZONES + " BLOB," +
+                KEY_ANALYTICS_BEST_EFFORTS + " BLOB," +
+                KEY_ANALYTICS_ROUTE_BYTE_SIZE + " INTEGER NOT NULL," +
+                KEY_ANALYTICS_ROUTE_MODIFIED_AT + " INTEGER NOT NULL," +
+                KEY_ANALYTICS_ANALYZER_VERSION + " INTEGER NOT NULL DEFAULT 0" +
+                ")");
+    }
+
+    /**
+     * Crea los índices compuestos (usuario, fecha) usados por las consultas de los DAO.
+     * Es idempotente, se puede llamar también después de recrear una tabla.
+     */
+    public static void createIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_ACTIVITIES_USER_DATE + " ON " +
+                TABLE_PHYSICAL_ACTIVITIES + "(" + KEY_ACTIVITY_USER_ID_FK + ", " + KEY_ACTIVITY_DATE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_MEALS_USER_DATE + " ON " +
+                TABLE_MEALS + "(" + KEY_MEAL_USER_ID_FK + ", " + KEY_MEAL_DATE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_MEALS_USER_TYPE_DATE + " ON " +
+                TABLE_MEALS + "(" + KEY_MEAL_USER_ID_FK + ", " + KEY_MEAL_TYPE + ", " + KEY_MEAL_DATE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_FOOD_USER_DATE + " ON " +
+                TABLE_FOOD_ENTRIES + "(" + KEY_FOOD_USER_ID_FK + ", " + KEY_FOOD_DATE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_WATER_USER_DATE + " ON " +
+                TABLE_WATER_INTAKE + "(" + KEY_WATER_USER_ID_FK + ", " + KEY_WATER_DATE_TIME + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_SLEEP_USER_DATE + " ON " +
+                TABLE_SLEEP_RECORDS + "(" + KEY_SLEEP_USER_ID_FK + ", " + KEY_SLEEP_DATE_RECORDED + ")");
     }
 
     @Override
@@ -246,12 +370,47 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                     ")";
             db.execSQL(CREATE_SLEEP_RECORDS_TABLE_V4);
         }
+
+        if (oldVersion < 5) {
+            // Add composite (user, date) indexes for the DAO lookups
+            createIndexes(db);
+        }
+
+        if (oldVersion < 6) {
+            // Index of GPS route files; RouteStore fills it from the files on disk
+            createRouteIndexTable(db);
+        }
+
+        if (oldVersion < 7) {
+            // Cached route analytics; RouteStore fills it on first request per activity
+            createRouteAnalyticsTable(db);
+        }
+
+        if (oldVersion == 7) {
+            // Version of the analysis that produced each row; existing rows get 0 and are
+            // recomputed on the next request. Older databases got the column in step 7
+            db.execSQL("ALTER TABLE " + TABLE_ROUTE_ANALYTICS +
+                       " ADD COLUMN " + KEY_ANALYTICS_ANALYZER_VERSION + " INTEGER NOT NULL DEFAULT 0;");
+        }
     }
 
+    /**
+     * Android llama a este método una sola vez, al abrir la base de datos; las conexiones
+     * de lectura que el pool de WAL abre después no pasan por aquí. Solo lo que se guarda
+     * en la configuración (claves foráneas, y synchronous desde Android 10) llega a todas.
+     * Un PRAGMA ejecutado con execSQL solo cambia la conexión que lo ejecuta, así que
+     * cache_size amplía la caché de esa conexión y las demás conservan la de SQLite por
+     * defecto (2 MiB); lo mismo vale para synchronous en versiones anteriores.
+     */
     @Override
     public void onConfigure(SQLiteDatabase db) {
         super.onConfigure(db);
         db.setForeignKeyConstraintsEnabled(true);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            db.execSQL("PRAGMA synchronous=" + SYNCHRONOUS_MODE);
+        }
+        // Tamaño de caché en KiB (valor negativo), unas 2000 páginas de 4 KiB
+        db.execSQL("PRAGMA cache_size=-" + CACHE_SIZE_KB);
     }
 
     /**
@@ -284,6 +443,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 ");";
             
             db.execSQL(CREATE_PHYSICAL_ACTIVITIES_TABLE);
+            createIndexes(db);
         }
     }
 
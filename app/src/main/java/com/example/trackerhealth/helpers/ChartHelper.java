@@ -1,242 +1,256 @@
 package com.example.trackerhealth.helpers;
 
-import android.content.Context;
 import android.graphics.Color;
-import android.view.View;
 
-import com.example.trackerhealth.model.Meal;
-import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.model.ReportTotals;
 import com.github.mikephil.charting.charts.BarChart;
+import com.github.mikephil.charting.charts.BarLineChartBase;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.charts.PieChart;
+import com.github.mikephil.charting.components.AxisBase;
 import com.github.mikephil.charting.components.XAxis;
 import com.github.mikephil.charting.components.YAxis;
 import com.github.mikephil.charting.data.BarData;
 import com.github.mikephil.charting.data.BarDataSet;
 import com.github.mikephil.charting.data.BarEntry;
+import com.github.mikephil.charting.data.DataSet;
 import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.data.PieData;
 import com.github.mikephil.charting.data.PieDataSet;
 import com.github.mikephil.charting.data.PieEntry;
-import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
+import com.github.mikephil.charting.formatter.ValueFormatter;
 import com.github.mikephil.charting.utils.ColorTemplate;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
- * Helper class for generating charts for the reports screen
+ * Keeps the charts of the reports screen. The charts are styled once and each one owns a
+ * single DataSet whose entries are updated in place on every refresh: existing entries
+ * get new values, entries are only allocated when a period is longer than any shown
+ * before, and the DataSet is recalculated with notifyDataSetChanged instead of being
+ * rebuilt.
+ *
+ * Rendering cost is bounded whatever the period: bar series come bucketed by day, week
+ * or month (see {@link ChartSeries.Granularity}) and line series are downsampled to
+ * MAX_LINE_POINTS with LTTB. Series with more than VISIBLE_POINTS points are shown as
+ * a scrollable window ending at the most recent slot, so only that window is drawn.
  */
 public class ChartHelper {
 
+    // Points drawn at once on the bar and line charts; longer series scroll
+    public static final int VISIBLE_POINTS = 60;
+    // Line series longer than this are downsampled
+    public static final int MAX_LINE_POINTS = VISIBLE_POINTS;
+    private static final int ANIMATION_MS = 1000;
+
+    private static final int CALORIES_COLOR = Color.rgb(255, 165, 0);
+    private static final int[] MACRO_COLORS = {
+        Color.rgb(46, 204, 113),  // Green for proteins
+        Color.rgb(52, 152, 219),  // Blue for carbs
+        Color.rgb(231, 76, 60)    // Red for fats
+    };
+    private static final String[] MACRO_LABELS = {"Proteins", "Carbs", "Fats"};
+    private static final int NO_DATA_COLOR = Color.LTGRAY;
+
+    private final BarChart activityChart;
+    private final PieChart nutritionChart;
+    private final LineChart caloriesChart;
+
+    private final BarDataSet activityDataSet;
+    private final LineDataSet caloriesDataSet;
+    private final PieDataSet nutritionDataSet;
+    private final SeriesLabelFormatter activityLabels = new SeriesLabelFormatter();
+    private final SeriesLabelFormatter caloriesLabels = new SeriesLabelFormatter();
+
+    // Pie slices are reused; only the ones with a value are handed to the DataSet
+    private final PieEntry[] macroEntries = new PieEntry[MACRO_LABELS.length];
+    private final PieEntry noDataEntry = new PieEntry(1f, "No Data");
+    private final List<Integer> nutritionColors = new ArrayList<>(MACRO_LABELS.length);
+
+    private boolean activityShown;
+    private boolean nutritionShown;
+    private boolean caloriesShown;
+
+    public ChartHelper(BarChart activityChart, PieChart nutritionChart, LineChart caloriesChart) {
+        this.activityChart = activityChart;
+        this.nutritionChart = nutritionChart;
+        this.caloriesChart = caloriesChart;
+
+        activityDataSet = new BarDataSet(new ArrayList<>(), "Activity Minutes");
+        activityDataSet.setColors(ColorTemplate.MATERIAL_COLORS);
+        BarData barData = new BarData(activityDataSet);
+        barData.setBarWidth(0.9f);
+        activityChart.setData(barData);
+        activityChart.getLegend().setEnabled(false);
+        configureAxes(activityChart, activityLabels);
+
+        caloriesDataSet = new LineDataSet(new ArrayList<>(), "Daily Calories");
+        caloriesDataSet.setColor(CALORIES_COLOR);
+        caloriesDataSet.setLineWidth(2f);
+        caloriesDataSet.setCircleColor(CALORIES_COLOR);
+        caloriesDataSet.setCircleRadius(4f);
+        caloriesDataSet.setDrawCircleHole(false);
+        caloriesDataSet.setValueTextSize(9f);
+        caloriesDataSet.setDrawFilled(true);
+        caloriesDataSet.setFillColor(CALORIES_COLOR);
+        caloriesDataSet.setFillAlpha(65);
+        caloriesChart.setData(new LineData(caloriesDataSet));
+        configureAxes(caloriesChart, caloriesLabels);
+
+        for (int i = 0; i < MACRO_LABELS.length; i++) {
+            macroEntries[i] = new PieEntry(0f, MACRO_LABELS[i]);
+        }
+        nutritionDataSet = new PieDataSet(new ArrayList<>(), "Macronutrients");
+        nutritionDataSet.setColors(nutritionColors);
+        PieData pieData = new PieData(nutritionDataSet);
+        pieData.setValueTextSize(14f);
+        pieData.setValueTextColor(Color.WHITE);
+        nutritionChart.setData(pieData);
+        nutritionChart.getDescription().setEnabled(false);
+        nutritionChart.setHoleRadius(40f);
+        nutritionChart.setTransparentCircleRadius(45f);
+    }
+
     /**
-     * Set up and populate an activity chart
-     * @param chart The chart view
-     * @param activities List of activities to display
+     * Show activity minutes per slot
+     * @param dailyMinutes Minutes per day, week or month of the selected period
      */
-    public static void setupActivityChart(View chartView, List<PhysicalActivity> activities) {
-        if (chartView instanceof BarChart) {
-            BarChart chart = (BarChart) chartView;
-            
-            // Group activities by date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat displayFormat = new SimpleDateFormat("MM/dd", Locale.getDefault());
-            
-            Map<String, Double> activityByDate = new TreeMap<>();
-            List<String> dateLabels = new ArrayList<>();
-            
-            // Initialize with last 7 days
-            Calendar calendar = Calendar.getInstance();
-            for (int i = 6; i >= 0; i--) {
-                calendar.add(Calendar.DAY_OF_YEAR, -1);
-                String dateKey = dateFormat.format(calendar.getTime());
-                String displayDate = displayFormat.format(calendar.getTime());
-                activityByDate.put(dateKey, 0.0);
-                dateLabels.add(displayDate);
-            }
-            
-            // Add activity data
-            for (PhysicalActivity activity : activities) {
-                String dateKey = activity.getDate();
-                if (activityByDate.containsKey(dateKey)) {
-                    double currentValue = activityByDate.get(dateKey);
-                    activityByDate.put(dateKey, currentValue + activity.getDuration());
-                }
-            }
-            
-            // Prepare chart data
-            List<BarEntry> entries = new ArrayList<>();
-            int index = 0;
-            for (Double value : activityByDate.values()) {
-                entries.add(new BarEntry(index++, value.floatValue()));
-            }
-            
-            BarDataSet dataSet = new BarDataSet(entries, "Activity Minutes");
-            dataSet.setColors(ColorTemplate.MATERIAL_COLORS);
-            
-            BarData barData = new BarData(dataSet);
-            barData.setBarWidth(0.9f);
-            
-            chart.setData(barData);
-            chart.getDescription().setEnabled(false);
-            chart.getLegend().setEnabled(false);
-            
-            // X-axis formatting
-            XAxis xAxis = chart.getXAxis();
-            xAxis.setValueFormatter(new IndexAxisValueFormatter(dateLabels));
-            xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-            xAxis.setGranularity(1f);
-            xAxis.setDrawGridLines(false);
-            
-            // Y-axis formatting
-            YAxis leftAxis = chart.getAxisLeft();
-            leftAxis.setDrawGridLines(true);
-            leftAxis.setAxisMinimum(0f);
-            
-            YAxis rightAxis = chart.getAxisRight();
-            rightAxis.setEnabled(false);
-            
-            chart.animateY(1000);
-            chart.invalidate();
+    public void updateActivityChart(ChartSeries dailyMinutes) {
+        updateEntries(activityDataSet, dailyMinutes, BarEntry::new);
+        activityLabels.series = dailyMinutes;
+        refresh(activityChart, dailyMinutes);
+        if (!activityShown) {
+            activityShown = true;
+            activityChart.animateY(ANIMATION_MS);
         }
     }
-    
+
     /**
-     * Set up and populate a nutrition chart
-     * @param chart The chart view
-     * @param meals List of meals to display
+     * Show the macronutrient split of a period
+     * @param totals Period totals, as returned by ReportAggregationDAO
      */
-    public static void setupNutritionChart(View chartView, List<Meal> meals) {
-        if (chartView instanceof PieChart) {
-            PieChart chart = (PieChart) chartView;
-            
-            // Calculate total macronutrients
-            double totalProteins = 0;
-            double totalCarbs = 0;
-            double totalFats = 0;
-            
-            for (Meal meal : meals) {
-                totalProteins += meal.getProteins();
-                totalCarbs += meal.getCarbs();
-                totalFats += meal.getFats();
-            }
-            
-            // Prepare chart data
-            List<PieEntry> entries = new ArrayList<>();
-            
-            if (totalProteins > 0) entries.add(new PieEntry((float) totalProteins, "Proteins"));
-            if (totalCarbs > 0) entries.add(new PieEntry((float) totalCarbs, "Carbs"));
-            if (totalFats > 0) entries.add(new PieEntry((float) totalFats, "Fats"));
-            
-            // If no data, add placeholder
-            if (entries.isEmpty()) {
-                entries.add(new PieEntry(1f, "No Data"));
+    public void updateNutritionChart(ReportTotals totals) {
+        double[] grams = {totals.getTotalProteins(), totals.getTotalCarbs(), totals.getTotalFats()};
+
+        List<PieEntry> entries = nutritionDataSet.getValues();
+        entries.clear();
+        nutritionColors.clear();
+        for (int i = 0; i < grams.length; i++) {
+            if (grams[i] > 0) {
+                macroEntries[i].setY((float) grams[i]);
+                entries.add(macroEntries[i]);
+                nutritionColors.add(MACRO_COLORS[i]);
             }
-            
-            PieDataSet dataSet = new PieDataSet(entries, "Macronutrients");
-            dataSet.setColors(new int[] {
-                Color.rgb(46, 204, 113),  // Green for proteins
-                Color.rgb(52, 152, 219),  // Blue for carbs
-                Color.rgb(231, 76, 60)    // Red for fats
-            });
-            
-            PieData pieData = new PieData(dataSet);
-            pieData.setValueTextSize(14f);
-            pieData.setValueTextColor(Color.WHITE);
-            
-            chart.setData(pieData);
-            chart.getDescription().setEnabled(false);
-            chart.setHoleRadius(40f);
-            chart.setTransparentCircleRadius(45f);
-            chart.animateY(1000);
-            chart.invalidate();
+        }
+
+        // If no data, add placeholder
+        if (entries.isEmpty()) {
+            entries.add(noDataEntry);
+            nutritionColors.add(NO_DATA_COLOR);
+        }
+
+        nutritionDataSet.notifyDataSetChanged();
+        nutritionChart.getData().notifyDataChanged();
+        nutritionChart.notifyDataSetChanged();
+        if (!nutritionShown) {
+            nutritionShown = true;
+            nutritionChart.animateY(ANIMATION_MS);
+        } else {
+            nutritionChart.invalidate();
         }
     }
-    
+
     /**
-     * Set up and populate a calories chart
-     * @param chart The chart view
-     * @param meals List of meals to display
+     * Show calories consumed per day
+     * @param dailyCalories Calories per day of the selected period; downsampled in place
+     *                      when it has more than MAX_LINE_POINTS days
      */
-    public static void setupCaloriesChart(View chartView, List<Meal> meals) {
-        if (chartView instanceof LineChart) {
-            LineChart chart = (LineChart) chartView;
-            
-            // Group calories by date
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat displayFormat = new SimpleDateFormat("MM/dd", Locale.getDefault());
-            
-            Map<String, Integer> caloriesByDate = new TreeMap<>();
-            List<String> dateLabels = new ArrayList<>();
-            
-            // Initialize with last 7 days
-            Calendar calendar = Calendar.getInstance();
-            for (int i = 6; i >= 0; i--) {
-                calendar.add(Calendar.DAY_OF_YEAR, -1);
-                String dateKey = dateFormat.format(calendar.getTime());
-                String displayDate = displayFormat.format(calendar.getTime());
-                caloriesByDate.put(dateKey, 0);
-                dateLabels.add(displayDate);
-            }
-            
-            // Add meal data
-            for (Meal meal : meals) {
-                String dateKey = meal.getDate();
-                if (caloriesByDate.containsKey(dateKey)) {
-                    int currentValue = caloriesByDate.get(dateKey);
-                    caloriesByDate.put(dateKey, currentValue + meal.getCalories());
-                }
-            }
-            
-            // Prepare chart data
-            List<Entry> entries = new ArrayList<>();
-            int index = 0;
-            for (Integer value : caloriesByDate.values()) {
-                entries.add(new Entry(index++, value));
+    public void updateCaloriesChart(ChartSeries dailyCalories) {
+        dailyCalories.downsample(MAX_LINE_POINTS);
+        updateEntries(caloriesDataSet, dailyCalories, Entry::new);
+        caloriesLabels.series = dailyCalories;
+        refresh(caloriesChart, dailyCalories);
+        if (!caloriesShown) {
+            caloriesShown = true;
+            caloriesChart.animateX(ANIMATION_MS);
+        }
+    }
+
+    /**
+     * Copy a series into a DataSet, reusing its entries and only allocating the missing ones
+     */
+    private static <T extends Entry> void updateEntries(DataSet<T> dataSet, ChartSeries series,
+                                                        EntryFactory<T> factory) {
+        List<T> entries = dataSet.getValues();
+        int size = series.size();
+        for (int i = 0; i < size; i++) {
+            if (i < entries.size()) {
+                T entry = entries.get(i);
+                entry.setX(series.slotAt(i));
+                entry.setY(series.get(i));
+            } else {
+                entries.add(factory.create(series.slotAt(i), series.get(i)));
             }
-            
-            LineDataSet dataSet = new LineDataSet(entries, "Daily Calories");
-            dataSet.setColor(Color.rgb(255, 165, 0));
-            dataSet.setLineWidth(2f);
-            dataSet.setCircleColor(Color.rgb(255, 165, 0));
-            dataSet.setCircleRadius(4f);
-            dataSet.setDrawCircleHole(false);
-            dataSet.setValueTextSize(9f);
-            dataSet.setDrawFilled(true);
-            dataSet.setFillColor(Color.rgb(255, 165, 0));
-            dataSet.setFillAlpha(65);
-            
-            LineData lineData = new LineData(dataSet);
-            
-            chart.setData(lineData);
-            chart.getDescription().setEnabled(false);
-            
-            // X-axis formatting
-            XAxis xAxis = chart.getXAxis();
-            xAxis.setValueFormatter(new IndexAxisValueFormatter(dateLabels));
-            xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-            xAxis.setGranularity(1f);
-            xAxis.setDrawGridLines(false);
-            
-            // Y-axis formatting
-            YAxis leftAxis = chart.getAxisLeft();
-            leftAxis.setDrawGridLines(true);
-            leftAxis.setAxisMinimum(0f);
-            
-            YAxis rightAxis = chart.getAxisRight();
-            rightAxis.setEnabled(false);
-            
-            chart.animateX(1000);
-            chart.invalidate();
+        }
+        if (entries.size() > size) {
+            entries.subList(size, entries.size()).clear();
+        }
+        dataSet.notifyDataSetChanged();
+    }
+
+    /**
+     * Recalculate a chart after its DataSet changed and show the latest window of points
+     */
+    private static void refresh(BarLineChartBase<?> chart, ChartSeries series) {
+        chart.getData().notifyDataChanged();
+        chart.notifyDataSetChanged();
+        chart.fitScreen();
+        int pointCount = series.size();
+        if (pointCount > VISIBLE_POINTS) {
+            // Points may be spread over more slots after downsampling
+            chart.setVisibleXRangeMaximum((float) series.slotCount() * VISIBLE_POINTS / pointCount);
+            chart.moveViewToX(series.slotCount() - 1);
+        }
+        chart.invalidate();
+    }
+
+    private static void configureAxes(BarLineChartBase<?> chart, ValueFormatter labels) {
+        chart.getDescription().setEnabled(false);
+        chart.setScaleYEnabled(false);
+
+        // X-axis formatting
+        XAxis xAxis = chart.getXAxis();
+        xAxis.setValueFormatter(labels);
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setGranularity(1f);
+        xAxis.setDrawGridLines(false);
+
+        // Y-axis formatting
+        YAxis leftAxis = chart.getAxisLeft();
+        leftAxis.setDrawGridLines(true);
+        leftAxis.setAxisMinimum(0f);
+
+        YAxis rightAxis = chart.getAxisRight();
+        rightAxis.setEnabled(false);
+    }
+
+    private interface EntryFactory<T extends Entry> {
+        T create(float x, float y);
+    }
+
+    /**
+     * Formats x-axis positions with the label of the series slot, computed only for the
+     * labels that are drawn
+     */
+    private static class SeriesLabelFormatter extends ValueFormatter {
+        ChartSeries series;
+
+        @Override
+        public String getAxisLabel(float value, AxisBase axis) {
+            return series != null ? series.labelAt(Math.round(value)) : "";
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,299 @@
+package com.example.trackerhealth.helpers;
+
+import com.example.trackerhealth.model.DailyTotal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reusable time series for the report charts. The selected period is split into slots of
+ * one day, week or month, and the per-day rows from SQLite are summed into them in a
+ * single pass. Values live in primitive buffers that only grow, so refreshing a chart
+ * does not allocate maps, date formatters or boxed values. Days are handled as epoch
+ * days (days since 1970-01-01) and labels are computed on demand for the visible axis
+ * only.
+ *
+ * A series can be downsampled with {@link #downsample}, which keeps a subset of the
+ * slots: {@link #size} and {@link #get} then walk the kept points and {@link #slotAt}
+ * gives the slot (x position) of each one.
+ */
+public class ChartSeries {
+
+    /**
+     * Slot length. {@link #forPeriod} picks the finest one that keeps a period within
+     * MAX_SLOTS slots.
+     */
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        public static final int MAX_SLOTS = 31;
+
+        /**
+         * Finest granularity with at most MAX_SLOTS slots between two dates
+         * @param startDate First day (format yyyy-MM-dd)
+         * @param endDate Last day, inclusive (format yyyy-MM-dd)
+         */
+        public static Granularity forPeriod(String startDate, String endDate) {
+            long firstDay = toEpochDay(startDate);
+            long lastDay = toEpochDay(endDate);
+            if (lastDay - firstDay + 1 <= MAX_SLOTS) {
+                return DAY;
+            }
+            // Weeks touched, counting the partial ones at both ends
+            if ((weekStart(lastDay) - weekStart(firstDay)) / 7 + 1 <= MAX_SLOTS) {
+                return WEEK;
+            }
+            return MONTH;
+        }
+    }
+
+    private Granularity granularity = Granularity.DAY;
+    private long firstDay;
+    private long firstWeekStart;
+    private int firstMonth; // year * 12 + month - 1
+    private float[] values = new float[0];
+    private long[] slotStarts = new long[0]; // First day of each slot within the period
+    private int slotCount;
+    private int[] points = new int[0];       // Slots kept after downsampling
+    private int pointCount;
+
+    /**
+     * Lay out every day between two dates and copy the matching daily totals into them
+     * @param rows Daily totals sorted by day, as returned by ReportAggregationDAO
+     * @param startDate First day (format yyyy-MM-dd)
+     * @param endDate Last day, inclusive (format yyyy-MM-dd)
+     */
+    public void fill(List<DailyTotal> rows, String startDate, String endDate) {
+        fill(rows, startDate, endDate, Granularity.DAY);
+    }
+
+    /**
+     * Sum daily totals into the day, week or month slots of a period
+     * @param rows Daily totals sorted by day, as returned by ReportAggregationDAO
+     * @param startDate First day (format yyyy-MM-dd)
+     * @param endDate Last day, inclusive (format yyyy-MM-dd)
+     * @param granularity Slot length
+     */
+    public void fill(List<DailyTotal> rows, String startDate, String endDate, Granularity granularity) {
+        this.granularity = granularity;
+        firstDay = toEpochDay(startDate);
+        firstWeekStart = weekStart(firstDay);
+        firstMonth = monthIndex(startDate);
+        long lastDay = toEpochDay(endDate);
+        slotCount = lastDay < firstDay ? 0 : slotOf(lastDay, monthIndex(endDate)) + 1;
+
+        if (values.length < slotCount) {
+            values = new float[slotCount];
+            slotStarts = new long[slotCount];
+            points = new int[slotCount];
+        } else {
+            Arrays.fill(values, 0, slotCount, 0f);
+        }
+
+        // Slots start on the first day of their week or month, except the first one,
+        // which starts with the period
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotStarts[slot] = slot == 0 ? firstDay : slotStart(slot);
+        }
+
+        for (DailyTotal row : rows) {
+            String date = row.getDay();
+            long day = toEpochDay(date);
+            if (day >= firstDay && day <= lastDay) {
+                values[slotOf(day, monthIndex(date))] += (float) row.getTotal();
+            }
+        }
+
+        for (int i = 0; i < slotCount; i++) {
+            points[i] = i;
+        }
+        pointCount = slotCount;
+    }
+
+    /**
+     * Keep at most maxPoints points with Largest-Triangle-Three-Buckets: the first and
+     * last slots are kept, the rest are split into maxPoints - 2 buckets and from each
+     * one the point forming the largest triangle with the previously kept point and the
+     * average of the next bucket is kept. Peaks and dips survive, unlike with averaging.
+     * @param maxPoints Maximum points to keep, at least 3
+     */
+    public void downsample(int maxPoints) {
+        if (maxPoints < 3 || slotCount <= maxPoints) {
+            return;
+        }
+
+        double bucketSize = (double) (slotCount - 2) / (maxPoints - 2);
+        int kept = 0;
+        int previous = 0;
+        points[kept++] = previous;
+
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            // Average of the next bucket (or the last slot, for the last bucket)
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, slotCount);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += i;
+                averageY += values[i];
+            }
+            int nextLength = nextEnd - nextStart;
+            averageX /= nextLength;
+            averageY /= nextLength;
+
+            // Point of this bucket with the largest triangle
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double previousY = values[previous];
+            double maxArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previous - averageX) * (values[i] - previousY)
+                        - (previous - i) * (averageY - previousY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+            points[kept++] = selected;
+            previous = selected;
+        }
+
+        points[kept++] = slotCount - 1;
+        pointCount = kept;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    /**
+     * Number of points to draw
+     */
+    public int size() {
+        return pointCount;
+    }
+
+    /**
+     * Value of a point
+     */
+    public float get(int index) {
+        return values[points[index]];
+    }
+
+    /**
+     * Slot of a point, its position on the x-axis
+     */
+    public int slotAt(int index) {
+        return points[index];
+    }
+
+    /**
+     * Number of slots in the period; the x-axis spans 0 to slotCount() - 1
+     */
+    public int slotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Epoch day on which a slot starts
+     */
+    public long dayAt(int slot) {
+        return slotStarts[slot];
+    }
+
+    /**
+     * Label of a slot: MM/dd of its first day, or MM/yy for months. Empty outside the
+     * series.
+     */
+    public String labelAt(int slot) {
+        if (slot < 0 || slot >= slotCount) {
+            return "";
+        }
+        int[] date = fromEpochDay(dayAt(slot));
+        return granularity == Granularity.MONTH
+                ? String.format(Locale.getDefault(), "%02d/%02d", date[1], date[0] % 100)
+                : String.format(Locale.getDefault(), "%02d/%02d", date[1], date[2]);
+    }
+
+    /**
+     * Slot of a day of the period
+     * @param month Month index of the day (year * 12 + month - 1)
+     */
+    private int slotOf(long day, int month) {
+        switch (granularity) {
+            case WEEK:
+                return (int) ((weekStart(day) - firstWeekStart) / 7);
+            case MONTH:
+                return month - firstMonth;
+            default:
+                return (int) (day - firstDay);
+        }
+    }
+
+    /**
+     * First day of the week or month of a slot after the first one
+     */
+    private long slotStart(int slot) {
+        switch (granularity) {
+            case WEEK:
+                return firstWeekStart + 7L * slot;
+            case MONTH:
+                int month = firstMonth + slot;
+                return toEpochDay(month / 12, month % 12 + 1, 1);
+            default:
+                return firstDay + slot;
+        }
+    }
+
+    /**
+     * Monday on or before a day (1970-01-01 was a Thursday)
+     */
+    private static long weekStart(long epochDay) {
+        return epochDay - Math.floorMod(epochDay + 3, 7);
+    }
+
+    /**
+     * year * 12 + month - 1 of a yyyy-MM-dd date
+     */
+    private static int monthIndex(String date) {
+        return Integer.parseInt(date.substring(0, 4)) * 12 + Integer.parseInt(date.substring(5, 7)) - 1;
+    }
+
+    /**
+     * Days since 1970-01-01 of a yyyy-MM-dd date (any time suffix is ignored)
+     */
+    static long toEpochDay(String date) {
+        return toEpochDay(Integer.parseInt(date.substring(0, 4)),
+                Integer.parseInt(date.substring(5, 7)),
+                Integer.parseInt(date.substring(8, 10)));
+    }
+
+    static long toEpochDay(int year, int month, int day) {
+        // Civil calendar to days, with years starting in March so leap days come last
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    /**
+     * Inverse of {@link #toEpochDay}
+     * @return {year, month, day}
+     */
+    static int[] fromEpochDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+        return new int[]{year, month, day};
+    }
+}
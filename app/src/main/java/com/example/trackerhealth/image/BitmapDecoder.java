@@ -0,0 +1,89 @@
+package com.example.trackerhealth.image;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodificación de fotos reducidas al tamaño en que se van a mostrar. Primero se leen
+ * solo las dimensiones y después se decodifica con inSampleSize, así que una foto de
+ * 12 MP nunca llega a ocupar memoria a resolución completa.
+ *
+ * Las fotos se identifican por su photo_path: una URI content: o una ruta de archivo.
+ */
+public final class BitmapDecoder {
+
+    private static final String CONTENT_SCHEME = "content:";
+    private static final String FILE_SCHEME = "file:";
+
+    private BitmapDecoder() {
+    }
+
+    /**
+     * Lee las dimensiones de una foto sin decodificarla
+     *
+     * @return Opciones con outWidth y outHeight, -1 si no es una imagen
+     */
+    public static BitmapFactory.Options readBounds(Context context, String photoPath) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream input = open(context, photoPath)) {
+            BitmapFactory.decodeStream(input, null, options);
+        }
+        return options;
+    }
+
+    /**
+     * Mayor potencia de dos que mantiene las dos dimensiones por encima de las pedidas
+     */
+    public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) {
+            return inSampleSize;
+        }
+        while (width / (inSampleSize * 2) >= reqWidth && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Decodifica una foto reducida para cubrir un tamaño
+     *
+     * @param reqWidth Ancho en píxeles en que se mostrará
+     * @param reqHeight Alto en píxeles en que se mostrará
+     * @return El bitmap, de hasta el doble del tamaño pedido, o null si no es una imagen
+     */
+    public static Bitmap decodeSampled(Context context, String photoPath, int reqWidth, int reqHeight)
+            throws IOException {
+        BitmapFactory.Options options = readBounds(context, photoPath);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        try (InputStream input = open(context, photoPath)) {
+            return BitmapFactory.decodeStream(input, null, options);
+        }
+    }
+
+    /**
+     * Abre el contenido de una foto, sea una URI content: o una ruta de archivo
+     */
+    public static InputStream open(Context context, String photoPath) throws IOException {
+        if (photoPath.startsWith(CONTENT_SCHEME) || photoPath.startsWith(FILE_SCHEME)) {
+            InputStream input = context.getContentResolver().openInputStream(Uri.parse(photoPath));
+            if (input == null) {
+                throw new IOException("No se pudo abrir " + photoPath);
+            }
+            return input;
+        }
+        return new FileInputStream(photoPath);
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.trackerhealth.image;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+
+import com.example.trackerhealth.repository.AppExecutors;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Carga las fotos de comidas y actividades en ImageViews, decodificadas al tamaño de la
+ * vista en segundo plano. Tiene dos niveles de caché:
+ * <ul>
+ *     <li>Memoria: LruCache acotada por bytes, con clave photo_path y tamaño.</li>
+ *     <li>Disco: miniaturas JPEG en el directorio de caché, con la misma clave (y la fecha
+ *     del archivo, si la foto es un archivo) para no volver a decodificar el original.
+ *     Se recortan por antigüedad de uso al superar MAX_THUMBNAILS_BYTES.</li>
+ * </ul>
+ * Si una vista pide otra foto antes de recibir la anterior (al reciclar filas de una
+ * lista), la petición anterior se cancela y su resultado se descarta.
+ *
+ * Los métodos públicos deben llamarse desde el hilo principal.
+ */
+public final class ImageLoader implements ComponentCallbacks2 {
+
+    private static final String TAG = ImageLoader.class.getSimpleName();
+    private static final String THUMBNAILS_DIR = "thumbnails";
+    private static final int THUMBNAIL_QUALITY = 85;
+    // Fracción de la memoria de la app para la caché de bitmaps
+    private static final int MEMORY_CACHE_DIVISOR = 8;
+    private static final long MAX_THUMBNAILS_BYTES = 32L * 1024 * 1024;
+    // Cada cuántas miniaturas escritas se comprueba el tamaño del directorio
+    private static final int TRIM_INTERVAL = 16;
+
+    private static volatile ImageLoader instance;
+
+    private final Context appContext;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final File thumbnailsDir;
+    private final ExecutorService imageExecutor;
+    private final Executor mainThread;
+    // Petición en curso de cada vista; las vistas no se retienen
+    private final Map<ImageView, Request> requests = new WeakHashMap<>();
+    private int thumbnailsWritten; // Solo en los hilos de imágenes, de forma aproximada
+
+    private ImageLoader(Context context) {
+        this.appContext = context.getApplicationContext();
+        int cacheSizeKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / MEMORY_CACHE_DIVISOR);
+        this.memoryCache = new LruCache<String, Bitmap>(cacheSizeKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+        this.thumbnailsDir = new File(appContext.getCacheDir(), THUMBNAILS_DIR);
+        this.imageExecutor = AppExecutors.getInstance().imageIO();
+        this.mainThread = AppExecutors.getInstance().mainThread();
+        appContext.registerComponentCallbacks(this);
+    }
+
+    public static ImageLoader getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ImageLoader.class) {
+                if (instance == null) {
+                    instance = new ImageLoader(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Carga una foto al tamaño de la vista (según sus LayoutParams o, si aún no los
+     * tiene, su tamaño medido)
+     *
+     * @param photoPath photo_path de la comida o actividad; null o vacío muestra el placeholder
+     * @param placeholder Imagen mientras se carga y si la foto no se puede leer
+     */
+    public void load(String photoPath, ImageView imageView, @DrawableRes int placeholder) {
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+        int width = params != null && params.width > 0 ? params.width : imageView.getWidth();
+        int height = params != null && params.height > 0 ? params.height : imageView.getHeight();
+        if (width <= 0 || height <= 0) {
+            // Sin tamaño conocido, se limita al ancho de la pantalla
+            width = height = appContext.getResources().getDisplayMetrics().widthPixels;
+        }
+        load(photoPath, imageView, width, height, placeholder);
+    }
+
+    /**
+     * Carga una foto reducida para cubrir un tamaño en píxeles
+     */
+    public void load(String photoPath, ImageView imageView, int width, int height, @DrawableRes int placeholder) {
+        checkMainThread();
+        cancel(imageView);
+
+        if (photoPath == null || photoPath.isEmpty()) {
+            imageView.setImageResource(placeholder);
+            return;
+        }
+
+        String key = photoPath + "@" + width + "x" + height;
+        Bitmap cached = memoryCache.get(key);
+        if (cached != null) {
+            imageView.setImageBitmap(cached);
+            return;
+        }
+
+        imageView.setImageResource(placeholder);
+        Request request = new Request();
+        requests.put(imageView, request);
+        request.future = imageExecutor.submit(() -> {
+            Bitmap bitmap = request.cancelled ? null : loadBitmap(photoPath, key, width, height, request);
+            mainThread.execute(() -> {
+                if (requests.get(imageView) != request) {
+                    return;
+                }
+                requests.remove(imageView);
+                if (bitmap != null) {
+                    memoryCache.put(key, bitmap);
+                    imageView.setImageBitmap(bitmap);
+                }
+            });
+        });
+    }
+
+    /**
+     * Cancela la petición pendiente de una vista, si la hay
+     */
+    public void cancel(ImageView imageView) {
+        checkMainThread();
+        Request request = requests.remove(imageView);
+        if (request != null) {
+            request.cancelled = true;
+            request.future.cancel(false);
+        }
+    }
+
+    /**
+     * Descarta las versiones en caché de una foto (por ejemplo, al sustituirla o borrarla)
+     */
+    public void invalidate(String photoPath) {
+        String prefix = photoPath + "@";
+        for (String key : memoryCache.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                memoryCache.remove(key);
+            }
+        }
+        imageExecutor.execute(() -> {
+            String hashPrefix = hash(photoPath) + "_";
+            String[] names = thumbnailsDir.list();
+            if (names != null) {
+                for (String name : names) {
+                    if (name.startsWith(hashPrefix)) {
+                        new File(thumbnailsDir, name).delete();
+                    }
+                }
+            }
+        });
+    }
+
+    // En el hilo de imágenes
+    private Bitmap loadBitmap(String photoPath, String key, int width, int height, Request request) {
+        File thumbnail = thumbnailFile(photoPath, key);
+        if (thumbnail != null && thumbnail.exists()) {
+            Bitmap bitmap = BitmapFactory.decodeFile(thumbnail.getAbsolutePath());
+            if (bitmap != null) {
+                // La fecha marca el último uso para el recorte del directorio
+                thumbnail.setLastModified(System.currentTimeMillis());
+                return bitmap;
+            }
+        }
+
+        try {
+            Bitmap bitmap = BitmapDecoder.decodeSampled(appContext, photoPath, width, height);
+            if (bitmap != null && thumbnail != null && !request.cancelled) {
+                writeThumbnail(bitmap, thumbnail);
+            }
+            return bitmap;
+        } catch (IOException | SecurityException e) {
+            Log.e(TAG, "Error al cargar imagen " + photoPath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Archivo de la miniatura: hash de photo_path + hash del tamaño (y de la fecha del
+     * archivo original, para que una foto modificada genere otra miniatura)
+     *
+     * @return El archivo o null si un archivo original ya no existe
+     */
+    private File thumbnailFile(String photoPath, String key) {
+        String version = key;
+        if (!photoPath.startsWith("content:") && !photoPath.startsWith("file:")) {
+            File source = new File(photoPath);
+            if (!source.exists()) {
+                return null;
+            }
+            version += "#" + source.lastModified();
+        }
+        return new File(thumbnailsDir, hash(photoPath) + "_" + hash(version) + ".jpg");
+    }
+
+    private void writeThumbnail(Bitmap bitmap, File thumbnail) {
+        if (!thumbnailsDir.exists() && !thumbnailsDir.mkdirs()) {
+            return;
+        }
+        // Se escribe a un temporal para no dejar miniaturas a medias
+        File temp = new File(thumbnailsDir, thumbnail.getName() + ".tmp");
+        try (OutputStream output = new FileOutputStream(temp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_QUALITY, output);
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar miniatura: " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(thumbnail)) {
+            temp.delete();
+        }
+        if (++thumbnailsWritten % TRIM_INTERVAL == 0) {
+            trimThumbnails();
+        }
+    }
+
+    /**
+     * Borra las miniaturas usadas hace más tiempo hasta dejar el directorio por debajo
+     * del tamaño máximo
+     */
+    private void trimThumbnails() {
+        File[] files = thumbnailsDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= MAX_THUMBNAILS_BYTES) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            if (total <= MAX_THUMBNAILS_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(16);
+            // Con 8 bytes basta para distinguir las fotos de la app
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+
+    private static void checkMainThread() {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            throw new IllegalStateException("ImageLoader debe usarse desde el hilo principal");
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            memoryCache.evictAll();
+        } else if (level >= TRIM_MEMORY_BACKGROUND) {
+            memoryCache.trimToSize(memoryCache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+    }
+
+    @Override
+    public void onLowMemory() {
+        memoryCache.evictAll();
+    }
+
+    private static final class Request {
+        volatile boolean cancelled;
+        Future<?> future;
+    }
+}
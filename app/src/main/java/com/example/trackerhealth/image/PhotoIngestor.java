@@ -0,0 +1,86 @@
+package com.example.trackerhealth.image;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reduce las fotos de comidas y actividades a un tamaño máximo. La foto se decodifica
+ * una sola vez directamente al tamaño final (inSampleSize para la reducción gruesa y
+ * escalado por densidad para el resto, sin bitmaps intermedios) y se codifica una sola
+ * vez en JPEG sobre el flujo de salida. PhotoStore la guarda a partir de ahí.
+ */
+public final class PhotoIngestor {
+
+    public static final int MAX_DIMENSION = 1024; // píxeles, lado mayor
+    public static final int JPEG_QUALITY = 85;
+
+    private PhotoIngestor() {
+    }
+
+    /**
+     * Decodifica una foto reducida y la escribe en JPEG. Debe ejecutarse fuera del hilo
+     * principal.
+     *
+     * @param source photo_path de origen: URI content:/file: o ruta de archivo
+     * @param output Destino del JPEG; no se cierra
+     * @throws IOException Si el origen no se puede leer o no es una imagen
+     */
+    public static void encode(Context context, String source, OutputStream output) throws IOException {
+        BitmapFactory.Options options = BitmapDecoder.readBounds(context, source);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("No es una imagen: " + source);
+        }
+
+        configureScaling(options, options.outWidth, options.outHeight, MAX_DIMENSION);
+        Bitmap bitmap;
+        try (InputStream input = BitmapDecoder.open(context, source)) {
+            bitmap = BitmapFactory.decodeStream(input, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("No se pudo decodificar " + source);
+        }
+
+        try {
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, output)) {
+                throw new IOException("No se pudo codificar " + source);
+            }
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Prepara las opciones para que el bitmap decodificado tenga el lado mayor igual a
+     * maxDimension (o el tamaño original, si es menor): inSampleSize reduce por potencias
+     * de dos durante la decodificación y la densidad escala el resto en el mismo paso.
+     */
+    static void configureScaling(BitmapFactory.Options options, int width, int height, int maxDimension) {
+        options.inJustDecodeBounds = false;
+        int longSide = Math.max(width, height);
+        if (longSide <= maxDimension) {
+            options.inSampleSize = 1;
+            options.inScaled = false;
+            return;
+        }
+
+        int sampleSize = 1;
+        while (longSide / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        options.inSampleSize = sampleSize;
+
+        int sampledLongSide = longSide / sampleSize;
+        if (sampledLongSide > maxDimension) {
+            options.inScaled = true;
+            options.inDensity = sampledLongSide;
+            options.inTargetDensity = maxDimension;
+        } else {
+            options.inScaled = false;
+        }
+    }
+}
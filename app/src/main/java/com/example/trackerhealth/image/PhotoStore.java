@@ -0,0 +1,206 @@
+package com.example.trackerhealth.image;
+
+import android.content.Context;
+import android.os.Environment;
+import android.util.Log;
+
+import com.example.trackerhealth.repository.AppExecutors;
+import com.example.trackerhealth.repository.DataCallback;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Almacén de fotos de comidas y actividades direccionado por contenido. Cada foto se
+ * guarda reducida (PhotoIngestor) en un archivo cuyo nombre es el SHA-256 de la foto de
+ * origen y de los parámetros de reducción. El hash se calcula leyendo el origen sin
+ * decodificarlo, así que la misma imagen elegida varias veces se reduce y se guarda una
+ * sola vez y todas las comidas y actividades apuntan al mismo archivo. Dos orígenes
+ * distintos con la misma imagen (por ejemplo, con otros metadatos) se guardan aparte.
+ *
+ * Los archivos que ya no referencia ninguna fila se borran con sweep(). Los recién
+ * guardados se respetan durante ORPHAN_GRACE_MS, porque el formulario que los va a
+ * usar puede no haberse guardado todavía.
+ */
+public final class PhotoStore {
+
+    private static final String TAG = PhotoStore.class.getSimpleName();
+    private static final String STORE_DIR = "photos";
+    private static final String EXTENSION = ".jpg";
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final long ORPHAN_GRACE_MS = 24L * 60 * 60 * 1000;
+
+    private static volatile PhotoStore instance;
+
+    private final Context appContext;
+    private final File directory;
+    // Protege el paso de temporal a archivo definitivo frente al barrido
+    private final Object lock = new Object();
+
+    private PhotoStore(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.directory = new File(appContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES), STORE_DIR);
+    }
+
+    public static PhotoStore getInstance(Context context) {
+        if (instance == null) {
+            synchronized (PhotoStore.class) {
+                if (instance == null) {
+                    instance = new PhotoStore(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Guarda una foto en el hilo de imágenes
+     *
+     * @param source photo_path de origen: URI content:/file: o ruta de archivo
+     * @param callback Recibe la ruta absoluta de la foto guardada en el hilo principal
+     * @return El Future de la tarea
+     */
+    public Future<?> putAsync(String source, DataCallback<String> callback) {
+        AppExecutors executors = AppExecutors.getInstance();
+        return executors.imageIO().submit(() -> {
+            try {
+                String path = put(source).getAbsolutePath();
+                executors.mainThread().execute(() -> callback.onResult(path));
+            } catch (Exception e) {
+                Log.e(TAG, "Error al guardar foto: " + e.getMessage());
+                executors.mainThread().execute(() -> callback.onError(e));
+            }
+        });
+    }
+
+    /**
+     * Reduce una foto y la guarda, o devuelve la ya guardada si el origen tiene el mismo
+     * contenido, sin decodificarlo. Debe ejecutarse fuera del hilo principal.
+     *
+     * @return El archivo de la foto en el almacén
+     * @throws IOException Si el origen no se puede leer o no se pudo escribir
+     */
+    public File put(String source) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("No se pudo crear " + directory);
+        }
+
+        File target = new File(directory, toHex(hashSource(source)) + EXTENSION);
+        synchronized (lock) {
+            if (target.exists()) {
+                // Ya estaba guardada; la fecha renueva el periodo de gracia del barrido
+                target.setLastModified(System.currentTimeMillis());
+                return target;
+            }
+        }
+
+        File temp = File.createTempFile("ingest_", ".tmp", directory);
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(temp), BUFFER_SIZE)) {
+            PhotoIngestor.encode(appContext, source, output);
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+
+        synchronized (lock) {
+            if (target.exists()) {
+                // Otra llamada con el mismo origen terminó antes
+                temp.delete();
+                target.setLastModified(System.currentTimeMillis());
+            } else if (!temp.renameTo(target)) {
+                temp.delete();
+                throw new IOException("No se pudo crear " + target.getName());
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Ruta absoluta del directorio del almacén, prefijo de todas sus fotos
+     */
+    public String getDirectoryPath() {
+        return directory.getAbsolutePath();
+    }
+
+    /**
+     * Borra las fotos sin referencias y los temporales abandonados, salvo los modificados
+     * dentro del periodo de gracia
+     *
+     * @param referenceCounts Número de filas que usan cada photo_path del almacén
+     * @return Número de archivos borrados
+     */
+    public int sweep(Map<String, Integer> referenceCounts) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+
+        long cutoff = System.currentTimeMillis() - ORPHAN_GRACE_MS;
+        ImageLoader imageLoader = ImageLoader.getInstance(appContext);
+        int removed = 0;
+        for (File file : files) {
+            String path = file.getAbsolutePath();
+            Integer references = referenceCounts.get(path);
+            if (references != null && references > 0) {
+                continue;
+            }
+            synchronized (lock) {
+                // put() puede haber reutilizado el archivo después del listado
+                if (file.lastModified() >= cutoff || !file.delete()) {
+                    continue;
+                }
+            }
+            imageLoader.invalidate(path);
+            removed++;
+        }
+        if (removed > 0) {
+            Log.d(TAG, "Fotos sin referencias eliminadas: " + removed);
+        }
+        return removed;
+    }
+
+    /**
+     * SHA-256 de los parámetros de PhotoIngestor y del archivo de origen, leído en
+     * bloques sin decodificarlo
+     */
+    private byte[] hashSource(String source) throws IOException {
+        MessageDigest digest = newDigest();
+        // Con otros parámetros la misma foto da otro archivo
+        digest.update((PhotoIngestor.MAX_DIMENSION + "/" + PhotoIngestor.JPEG_QUALITY + "/")
+                .getBytes(StandardCharsets.US_ASCII));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = new DigestInputStream(BitmapDecoder.open(appContext, source), digest)) {
+            while (input.read(buffer) != -1) {
+                // DigestInputStream actualiza el hash con cada bloque leído
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
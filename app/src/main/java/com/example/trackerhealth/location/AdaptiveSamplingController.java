@@ -0,0 +1,210 @@
+package com.example.trackerhealth.location;
+
+import com.google.android.gms.location.Priority;
+
+/**
+ * Ajusta la frecuencia de las ubicaciones al movimiento: intervalos largos (y menor
+ * prioridad si se está parado) a poca velocidad, más cortos en tramos rápidos. Con la pantalla
+ * apagada las ubicaciones se entregan por lotes, y con la batería baja se duplican los
+ * intervalos.
+ *
+ * Para no oscilar, se acelera en cuanto un punto lo pide pero solo se ralentiza tras
+ * varios puntos seguidos en un modo más lento. No depende de Android: se alimenta con
+ * el resultado de {@link LocationPipeline} y aplica los cambios al {@link LocationSource}.
+ */
+public final class AdaptiveSamplingController {
+
+    // Modos, del más lento al más rápido
+    public static final int MODE_STATIONARY = 0;
+    public static final int MODE_SLOW = 1;
+    public static final int MODE_NORMAL = 2;
+    public static final int MODE_FAST = 3;
+
+    private static final float SLOW_SPEED = 2.0f; // m/s, andando
+    private static final float FAST_SPEED = 6.0f; // m/s, corriendo rápido o en bici
+    private static final int SLOWDOWN_FIXES = 3;
+    private static final int INITIAL_MODE = MODE_NORMAL;
+
+    // Intervalo e intervalo mínimo de cada modo en ms
+    private static final long[] INTERVALS = {20000, 5000, 3000, 2000};
+    private static final long[] FASTEST_INTERVALS = {10000, 2000, 1000, 1000};
+    private static final int SCREEN_OFF_BATCH = 5; // Ubicaciones por entrega con la pantalla apagada
+
+    // Tiempos de las últimas ubicaciones recibidas, para las ubicaciones por minuto
+    private static final int FIX_WINDOW = 64;
+    private static final long MINUTE_MS = 60000;
+
+    private final LocationSource source;
+    private int mode = INITIAL_MODE;
+    private int pendingMode = INITIAL_MODE;
+    private int pendingCount;
+    private boolean screenOn = true;
+    private boolean batteryLow;
+    private SamplingPolicy policy;
+    private boolean started;
+
+    private final long[] fixTimes = new long[FIX_WINDOW];
+    private int fixHead;
+    private int fixCount;
+
+    public AdaptiveSamplingController(LocationSource source) {
+        this.source = source;
+        this.policy = buildPolicy();
+    }
+
+    /**
+     * Empieza a recibir ubicaciones con la política del modo inicial. El modo y las
+     * estadísticas de una sesión anterior se descartan; la pantalla y la batería se conservan.
+     */
+    public void start(LocationSource.Receiver receiver) {
+        mode = INITIAL_MODE;
+        pendingMode = INITIAL_MODE;
+        pendingCount = 0;
+        fixHead = 0;
+        fixCount = 0;
+        policy = buildPolicy();
+        started = true;
+        source.start(policy, receiver);
+    }
+
+    public void stop() {
+        started = false;
+        source.stop();
+    }
+
+    /**
+     * Registra una ubicación recibida del proveedor (aceptada o no), para las estadísticas
+     *
+     * @param elapsedMs Tiempo monotónico de llegada en milisegundos
+     */
+    public void onLocationReceived(long elapsedMs) {
+        fixTimes[fixHead] = elapsedMs;
+        fixHead = (fixHead + 1) % FIX_WINDOW;
+        if (fixCount < FIX_WINDOW) {
+            fixCount++;
+        }
+    }
+
+    /**
+     * Ajusta el modo con una ubicación aceptada por el pipeline
+     *
+     * @param moving Si el pipeline la considera en movimiento
+     * @param speed Velocidad suavizada en m/s
+     */
+    public void onFix(boolean moving, float speed) {
+        int target;
+        if (!moving) {
+            target = MODE_STATIONARY;
+        } else if (speed < SLOW_SPEED) {
+            target = MODE_SLOW;
+        } else if (speed < FAST_SPEED) {
+            target = MODE_NORMAL;
+        } else {
+            target = MODE_FAST;
+        }
+
+        if (target > mode) {
+            pendingCount = 0;
+            setMode(target);
+        } else if (target < mode) {
+            pendingCount = target == pendingMode ? pendingCount + 1 : 1;
+            pendingMode = target;
+            if (pendingCount >= SLOWDOWN_FIXES) {
+                pendingCount = 0;
+                setMode(target);
+            }
+        } else {
+            pendingCount = 0;
+        }
+    }
+
+    /**
+     * Ajusta el modo con una ubicación descartada por el pipeline. Parado se pide con
+     * menor prioridad; si esas ubicaciones no llegan a la precisión necesaria no se
+     * detectaría el movimiento, así que se vuelve a la alta precisión.
+     *
+     * @param result Resultado de {@link LocationPipeline#process}
+     */
+    public void onRejected(int result) {
+        if (result == LocationPipeline.RESULT_REJECTED_ACCURACY && !policy.isHighAccuracy()) {
+            pendingCount = 0;
+            setMode(MODE_SLOW);
+        }
+    }
+
+    public void setScreenOn(boolean screenOn) {
+        if (this.screenOn != screenOn) {
+            this.screenOn = screenOn;
+            applyPolicy();
+        }
+    }
+
+    public void setBatteryLow(boolean batteryLow) {
+        if (this.batteryLow != batteryLow) {
+            this.batteryLow = batteryLow;
+            applyPolicy();
+        }
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    public SamplingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Ubicaciones recibidas en el último minuto
+     *
+     * @param nowElapsedMs Tiempo monotónico actual en milisegundos
+     */
+    public int getFixesPerMinute(long nowElapsedMs) {
+        int count = 0;
+        for (int i = 1; i <= fixCount; i++) {
+            long time = fixTimes[(fixHead - i + FIX_WINDOW) % FIX_WINDOW];
+            if (nowElapsedMs - time > MINUTE_MS) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Despertares por hora estimados con la política actual
+     */
+    public double getEstimatedWakeupsPerHour() {
+        return policy.getEstimatedWakeupsPerHour();
+    }
+
+    private void setMode(int newMode) {
+        mode = newMode;
+        pendingMode = newMode;
+        applyPolicy();
+    }
+
+    private void applyPolicy() {
+        SamplingPolicy newPolicy = buildPolicy();
+        if (!newPolicy.equals(policy)) {
+            policy = newPolicy;
+            if (started) {
+                source.update(policy);
+            }
+        }
+    }
+
+    private SamplingPolicy buildPolicy() {
+        long interval = INTERVALS[mode];
+        long fastest = FASTEST_INTERVALS[mode];
+        if (batteryLow) {
+            interval *= 2;
+            fastest *= 2;
+        }
+        long maxWait = screenOn ? 0 : interval * SCREEN_OFF_BATCH;
+        int priority = mode == MODE_STATIONARY
+                ? Priority.PRIORITY_BALANCED_POWER_ACCURACY
+                : Priority.PRIORITY_HIGH_ACCURACY;
+        return new SamplingPolicy(interval, fastest, maxWait, priority);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.trackerhealth.location;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+
+/**
+ * Origen de ubicaciones basado en el proveedor fusionado de Google Play Services
+ */
+public class FusedLocationSource implements LocationSource {
+
+    private static final String TAG = FusedLocationSource.class.getSimpleName();
+
+    private final FusedLocationProviderClient client;
+    private final Looper looper;
+    private Receiver receiver;
+
+    private final LocationCallback callback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult locationResult) {
+            // Con entrega por lotes llegan varias ubicaciones juntas, en orden
+            for (Location location : locationResult.getLocations()) {
+                if (receiver != null) {
+                    receiver.onLocation(location);
+                }
+            }
+        }
+    };
+
+    /**
+     * @param looper Hilo en el que se entregan las ubicaciones
+     */
+    public FusedLocationSource(Context context, Looper looper) {
+        this.client = LocationServices.getFusedLocationProviderClient(context);
+        this.looper = looper;
+    }
+
+    @Override
+    public void start(SamplingPolicy policy, Receiver receiver) {
+        this.receiver = receiver;
+        request(policy);
+    }
+
+    @Override
+    public void update(SamplingPolicy policy) {
+        // Volver a pedir con el mismo callback sustituye la petición anterior
+        request(policy);
+    }
+
+    @Override
+    public void stop() {
+        client.removeLocationUpdates(callback);
+        receiver = null;
+    }
+
+    private void request(SamplingPolicy policy) {
+        LocationRequest request = new LocationRequest.Builder(policy.getIntervalMs())
+                .setPriority(policy.getPriority())
+                .setMinUpdateIntervalMillis(policy.getFastestIntervalMs())
+                .setMaxUpdateDelayMillis(policy.getMaxWaitMs())
+                .build();
+        try {
+            client.requestLocationUpdates(request, callback, looper);
+        } catch (SecurityException e) {
+            Log.e(TAG, "Error al pedir ubicaciones: " + e.getMessage());
+        }
+    }
+}
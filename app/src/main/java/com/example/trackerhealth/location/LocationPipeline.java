@@ -0,0 +1,283 @@
+package com.example.trackerhealth.location;
+
+import android.location.Location;
+
+import com.example.trackerhealth.util.Geodesy;
+
+/**
+ * Procesamiento de las ubicaciones recibidas durante el tracking, compartido por todas las
+ * pantallas que usan el GPS. Cada punto pasa por cuatro etapas:
+ * <ol>
+ *     <li>Filtro de valores atípicos: precisión, antigüedad, velocidad informada y la
+ *     velocidad implícita desde el último punto aceptado.</li>
+ *     <li>Filtro de Kalman de velocidad constante, un eje por coordenada, en metros sobre
+ *     una proyección local con origen en el primer punto.</li>
+ *     <li>Detección de parada con histéresis: se pasa a movimiento cuando la posición
+ *     suavizada se aleja de la última contada más que su incertidumbre, y a parada
+ *     cuando la velocidad suavizada baja del umbral.</li>
+ *     <li>Acumulación de distancia entre posiciones suavizadas, solo en movimiento y por
+ *     pasos mayores que esa incertidumbre; con pasos más cortos se sumaría el zigzag
+ *     del ruido.</li>
+ * </ol>
+ *
+ * No reserva memoria por punto: el resultado se lee con los getters después de
+ * {@link #process}. La versión con primitivos no depende de Android y permite
+ * reproducir rutas grabadas.
+ */
+public final class LocationPipeline {
+
+    // Resultado de process()
+    public static final int RESULT_MOVING = 0;
+    public static final int RESULT_STATIONARY = 1;
+    public static final int RESULT_REJECTED_ACCURACY = 2;
+    public static final int RESULT_REJECTED_SPEED = 3;
+    public static final int RESULT_REJECTED_AGE = 4;
+
+    public static final float DEFAULT_MAX_ACCURACY = 20.0f; // metros
+    public static final float DEFAULT_MAX_SPEED = 30.0f;    // m/s (108 km/h)
+
+    private static final long MAX_AGE_MS = 60000;
+    private static final float STATIONARY_SPEED = 0.5f;     // m/s
+    private static final double DEFAULT_ACCURACY = 10.0;    // metros, si el punto no la trae
+    // Varianza de la aceleración del modelo (m/s²)², ajustada para andar y correr
+    private static final double ACCELERATION_VARIANCE = 1.0;
+    private static final double INITIAL_VELOCITY_VARIANCE = 25.0;
+    // Desplazamiento mínimo para sumar distancia, en desviaciones típicas de la posición suavizada
+    private static final double MIN_STEP_SIGMAS = 3.0;
+
+    private final float maxAccuracy;
+    private final float maxSpeed;
+
+    private final Axis east = new Axis();
+    private final Axis north = new Axis();
+
+    // Origen de la proyección local
+    private double originLatitude;
+    private double originLongitude;
+    private double metersPerDegreeLongitude;
+
+    private boolean initialized;
+    private long lastTime;
+    private double lastRawX;
+    private double lastRawY;
+    // Última posición contada en la distancia; no avanza mientras se está parado
+    private double countedX;
+    private double countedY;
+
+    private boolean stationary = true;
+    private double distanceMeters;
+    private int acceptedCount;
+    private int rejectedCount;
+
+    public LocationPipeline() {
+        this(DEFAULT_MAX_ACCURACY, DEFAULT_MAX_SPEED);
+    }
+
+    /**
+     * @param maxAccuracy Precisión máxima aceptada en metros
+     * @param maxSpeed Velocidad máxima aceptada en m/s
+     */
+    public LocationPipeline(float maxAccuracy, float maxSpeed) {
+        this.maxAccuracy = maxAccuracy;
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * Procesa una ubicación recibida del proveedor
+     *
+     * @return Uno de los RESULT_*
+     */
+    public int process(Location location) {
+        return process(location.getLatitude(), location.getLongitude(),
+                location.hasAccuracy() ? location.getAccuracy() : -1,
+                location.hasSpeed() ? location.getSpeed() : -1,
+                location.getTime(), System.currentTimeMillis());
+    }
+
+    /**
+     * Procesa un punto
+     *
+     * @param accuracy Precisión en metros, o -1 si no se conoce
+     * @param speed Velocidad informada en m/s, o -1 si no se conoce
+     * @param time Tiempo del punto en milisegundos
+     * @param now Tiempo actual, para descartar puntos antiguos (al reproducir una ruta
+     *            grabada, el propio tiempo del punto)
+     * @return Uno de los RESULT_*
+     */
+    public int process(double latitude, double longitude, float accuracy, float speed, long time, long now) {
+        if (accuracy > maxAccuracy) {
+            return reject(RESULT_REJECTED_ACCURACY);
+        }
+        if (speed > maxSpeed) {
+            return reject(RESULT_REJECTED_SPEED);
+        }
+        if (now - time > MAX_AGE_MS || (initialized && time <= lastTime)) {
+            return reject(RESULT_REJECTED_AGE);
+        }
+
+        double variance = accuracy >= 0 ? accuracy * accuracy : DEFAULT_ACCURACY * DEFAULT_ACCURACY;
+
+        if (!initialized) {
+            originLatitude = latitude;
+            originLongitude = longitude;
+            metersPerDegreeLongitude = Geodesy.METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+            east.reset(0, variance);
+            north.reset(0, variance);
+            lastRawX = lastRawY = countedX = countedY = 0;
+            lastTime = time;
+            initialized = true;
+            stationary = true;
+            acceptedCount++;
+            return RESULT_STATIONARY;
+        }
+
+        double x = (longitude - originLongitude) * metersPerDegreeLongitude;
+        double y = (latitude - originLatitude) * Geodesy.METERS_PER_DEGREE;
+        double dt = (time - lastTime) / 1000.0;
+
+        // Un salto imposible respecto al último punto aceptado es un valor atípico
+        double dx = x - lastRawX;
+        double dy = y - lastRawY;
+        if (dx * dx + dy * dy > (maxSpeed * dt) * (maxSpeed * dt)) {
+            return reject(RESULT_REJECTED_SPEED);
+        }
+
+        east.predict(dt);
+        north.predict(dt);
+        east.update(x, variance);
+        north.update(y, variance);
+
+        lastRawX = x;
+        lastRawY = y;
+        lastTime = time;
+        acceptedCount++;
+
+        double step = Math.hypot(east.position - countedX, north.position - countedY);
+        boolean significant = step >= MIN_STEP_SIGMAS * Math.sqrt((east.p00 + north.p00) / 2);
+        if (getSpeed() < STATIONARY_SPEED) {
+            stationary = true;
+            if (!significant) {
+                // Parado, la referencia sigue a la posición suavizada: si el filtro se pasó
+                // al frenar, volver al punto real no se cuenta como distancia
+                countedX = east.position;
+                countedY = north.position;
+            }
+        } else if (significant) {
+            // El ruido no saca la posición de su margen de error; un desplazamiento real sí
+            stationary = false;
+            distanceMeters += step;
+            countedX = east.position;
+            countedY = north.position;
+        }
+        return stationary ? RESULT_STATIONARY : RESULT_MOVING;
+    }
+
+    /**
+     * Reinicia el estado para una sesión nueva
+     */
+    public void reset() {
+        initialized = false;
+        stationary = true;
+        distanceMeters = 0;
+        acceptedCount = 0;
+        rejectedCount = 0;
+    }
+
+    public static boolean isAccepted(int result) {
+        return result == RESULT_MOVING || result == RESULT_STATIONARY;
+    }
+
+    /**
+     * Latitud suavizada del último punto aceptado
+     */
+    public double getLatitude() {
+        return originLatitude + north.position / Geodesy.METERS_PER_DEGREE;
+    }
+
+    /**
+     * Longitud suavizada del último punto aceptado
+     */
+    public double getLongitude() {
+        return originLongitude + east.position / metersPerDegreeLongitude;
+    }
+
+    /**
+     * Velocidad suavizada en m/s
+     */
+    public float getSpeed() {
+        return (float) Math.hypot(east.velocity, north.velocity);
+    }
+
+    public boolean isStationary() {
+        return stationary;
+    }
+
+    /**
+     * Distancia acumulada en metros
+     */
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public boolean hasFix() {
+        return initialized;
+    }
+
+    public int getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    private int reject(int result) {
+        rejectedCount++;
+        return result;
+    }
+
+    /**
+     * Filtro de Kalman de un eje con estado [posición, velocidad] y covarianza 2x2 simétrica
+     */
+    private static final class Axis {
+        double position;
+        double velocity;
+        double p00;
+        double p01;
+        double p11;
+
+        void reset(double z, double variance) {
+            position = z;
+            velocity = 0;
+            p00 = variance;
+            p01 = 0;
+            p11 = INITIAL_VELOCITY_VARIANCE;
+        }
+
+        void predict(double dt) {
+            position += velocity * dt;
+            double dt2 = dt * dt;
+            // P = F P F' + Q, con F = [1 dt; 0 1] y ruido de aceleración blanco
+            double n00 = p00 + dt * (2 * p01 + dt * p11) + ACCELERATION_VARIANCE * dt2 * dt2 / 4;
+            double n01 = p01 + dt * p11 + ACCELERATION_VARIANCE * dt2 * dt / 2;
+            double n11 = p11 + ACCELERATION_VARIANCE * dt2;
+            p00 = n00;
+            p01 = n01;
+            p11 = n11;
+        }
+
+        void update(double z, double variance) {
+            double s = p00 + variance;
+            double k0 = p00 / s;
+            double k1 = p01 / s;
+            double innovation = z - position;
+            position += k0 * innovation;
+            velocity += k1 * innovation;
+            // P = (I - K H) P, con H = [1 0]
+            double n11 = p11 - k1 * p01;
+            p00 -= k0 * p00;
+            p01 -= k0 * p01;
+            p11 = n11;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.trackerhealth.location;
+
+import android.location.Location;
+
+/**
+ * Origen de las ubicaciones del tracking. Separa a quien las consume del proveedor real,
+ * de modo que se puede sustituir por uno falso que reproduzca una ruta grabada.
+ */
+public interface LocationSource {
+
+    /**
+     * Recibe las ubicaciones en el hilo indicado al crear el origen
+     */
+    interface Receiver {
+        void onLocation(Location location);
+    }
+
+    /**
+     * Empieza a entregar ubicaciones con la política indicada
+     */
+    void start(SamplingPolicy policy, Receiver receiver);
+
+    /**
+     * Cambia la política de una entrega ya iniciada
+     */
+    void update(SamplingPolicy policy);
+
+    /**
+     * Deja de entregar ubicaciones
+     */
+    void stop();
+}
@@ -0,0 +1,83 @@
+package com.example.trackerhealth.location;
+
+import com.google.android.gms.location.Priority;
+
+/**
+ * Parámetros con los que se piden las ubicaciones: intervalo, intervalo mínimo, espera
+ * máxima para entregar por lotes y prioridad del proveedor
+ */
+public final class SamplingPolicy {
+
+    private final long intervalMs;
+    private final long fastestIntervalMs;
+    private final long maxWaitMs; // 0 = entregar cada ubicación en cuanto llega
+    private final int priority;   // Una de Priority.PRIORITY_*
+
+    public SamplingPolicy(long intervalMs, long fastestIntervalMs, long maxWaitMs, int priority) {
+        this.intervalMs = intervalMs;
+        this.fastestIntervalMs = fastestIntervalMs;
+        this.maxWaitMs = maxWaitMs;
+        this.priority = priority;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public long getFastestIntervalMs() {
+        return fastestIntervalMs;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public boolean isHighAccuracy() {
+        return priority == Priority.PRIORITY_HIGH_ACCURACY;
+    }
+
+    /**
+     * Despertares por hora que produce la política: con lotes, uno por cada entrega;
+     * sin ellos, uno por ubicación
+     */
+    public double getEstimatedWakeupsPerHour() {
+        return 3600000.0 / Math.max(intervalMs, maxWaitMs);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SamplingPolicy)) {
+            return false;
+        }
+        SamplingPolicy other = (SamplingPolicy) o;
+        return intervalMs == other.intervalMs
+                && fastestIntervalMs == other.fastestIntervalMs
+                && maxWaitMs == other.maxWaitMs
+                && priority == other.priority;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (intervalMs ^ (intervalMs >>> 32));
+        result = 31 * result + (int) (fastestIntervalMs ^ (fastestIntervalMs >>> 32));
+        result = 31 * result + (int) (maxWaitMs ^ (maxWaitMs >>> 32));
+        return 31 * result + priority;
+    }
+
+    @Override
+    public String toString() {
+        return "SamplingPolicy{" +
+                "intervalMs=" + intervalMs +
+                ", fastestIntervalMs=" + fastestIntervalMs +
+                ", maxWaitMs=" + maxWaitMs +
+                ", priority=" + priority +
+                '}';
+    }
+}
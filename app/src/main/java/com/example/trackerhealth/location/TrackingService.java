@@ -0,0 +1,537 @@
+package com.example.trackerhealth.location;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.ServiceConnection;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.location.Location;
+import android.os.BatteryManager;
+import android.os.Binder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.trackerhealth.repository.DataCallback;
+import com.example.trackerhealth.route.RouteJournal;
+import com.example.trackerhealth.route.RouteSimplifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Servicio en primer plano que graba la sesión de tracking, independiente del ciclo de
+ * vida de las pantallas. Recibe las ubicaciones en su propio hilo, las pasa por
+ * {@link LocationPipeline} y las guarda en un {@link RouteJournal}. Las pantallas se
+ * enlazan con {@link #bind} para recibir las estadísticas en vivo y la ruta simplificada;
+ * al desenlazarse la grabación sigue.
+ *
+ * La frecuencia de las ubicaciones la decide {@link AdaptiveSamplingController} según la
+ * velocidad, la pantalla y la batería.
+ *
+ * Hilos: el pipeline, el diario, el muestreo y el estado de la señal solo se tocan en el
+ * hilo de tracking; los listeners, la ruta y las últimas estadísticas, en el hilo principal.
+ */
+public class TrackingService extends Service {
+
+    private static final String TAG = TrackingService.class.getSimpleName();
+
+    private static final String ACTION_START = "com.example.trackerhealth.action.START_TRACKING";
+    private static final String EXTRA_OWNER = "owner";
+    private static final String CHANNEL_ID = "tracking";
+    private static final int NOTIFICATION_ID = 2001;
+
+    private static final long SIGNAL_CHECK_INTERVAL = 5000;
+    private static final long GPS_TIMEOUT = 30000;
+    private static final int MAX_INVALID_LOCATIONS = 3;
+    private static final int BATTERY_LOW_PERCENT = 15;
+
+    private static volatile boolean running;
+
+    /**
+     * Recibe las novedades de la sesión en el hilo principal
+     */
+    public interface Listener {
+        void onTrackingUpdate(Stats stats);
+
+        default void onSignalChanged(boolean hasSignal) {
+        }
+    }
+
+    /**
+     * Estado de la sesión tras el último punto aceptado
+     */
+    public static final class Stats {
+        private final double latitude;
+        private final double longitude;
+        private final float speed;
+        private final double distanceMeters;
+        private final boolean moving;
+        private final long time;
+        private final int pointCount;
+        private final int samplingMode;
+        private final int fixesPerMinute;
+        private final double wakeupsPerHour;
+
+        Stats(double latitude, double longitude, float speed, double distanceMeters,
+              boolean moving, long time, int pointCount, int samplingMode,
+              int fixesPerMinute, double wakeupsPerHour) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.speed = speed;
+            this.distanceMeters = distanceMeters;
+            this.moving = moving;
+            this.time = time;
+            this.pointCount = pointCount;
+            this.samplingMode = samplingMode;
+            this.fixesPerMinute = fixesPerMinute;
+            this.wakeupsPerHour = wakeupsPerHour;
+        }
+
+        /** Latitud suavizada */
+        public double getLatitude() {
+            return latitude;
+        }
+
+        /** Longitud suavizada */
+        public double getLongitude() {
+            return longitude;
+        }
+
+        /** Velocidad suavizada en m/s, 0 si está parado */
+        public float getSpeed() {
+            return moving ? speed : 0;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+
+        public boolean isMoving() {
+            return moving;
+        }
+
+        /** Tiempo del punto en milisegundos */
+        public long getTime() {
+            return time;
+        }
+
+        /** Puntos aceptados en la sesión */
+        public int getPointCount() {
+            return pointCount;
+        }
+
+        /** Modo de muestreo, uno de los AdaptiveSamplingController.MODE_* */
+        public int getSamplingMode() {
+            return samplingMode;
+        }
+
+        /** Ubicaciones recibidas en el último minuto, aceptadas o no */
+        public int getFixesPerMinute() {
+            return fixesPerMinute;
+        }
+
+        /** Despertares por hora estimados con la política de muestreo actual */
+        public double getWakeupsPerHour() {
+            return wakeupsPerHour;
+        }
+    }
+
+    public class LocalBinder extends Binder {
+        public TrackingService getService() {
+            return TrackingService.this;
+        }
+    }
+
+    private final IBinder binder = new LocalBinder();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private HandlerThread trackingThread;
+    private Handler trackingHandler;
+
+    // Hilo de tracking
+    private final LocationPipeline pipeline = new LocationPipeline();
+    private AdaptiveSamplingController sampling;
+    private RouteJournal journal;
+    private long lastFixElapsed;
+    private int consecutiveInvalidLocations;
+    private boolean hasSignal;
+
+    // Hilo principal
+    private final List<Listener> listeners = new ArrayList<>();
+    private final RouteSimplifier route = new RouteSimplifier();
+    private Stats latestStats;
+    private long startTime;
+    private boolean tracking;
+
+    /**
+     * Inicia la grabación si no está en marcha
+     *
+     * @param context Contexto desde el que se inicia
+     * @param owner Pantalla que se abre al tocar la notificación
+     * @return false si falta el permiso de ubicación y no se ha iniciado el servicio
+     */
+    public static boolean start(Context context, Class<?> owner) {
+        if (!hasLocationPermission(context)) {
+            Log.e(TAG, "Sin permiso de ubicación, no se inicia la grabación");
+            return false;
+        }
+        Intent intent = new Intent(context, TrackingService.class)
+                .setAction(ACTION_START)
+                .putExtra(EXTRA_OWNER, owner.getName());
+        ContextCompat.startForegroundService(context, intent);
+        return true;
+    }
+
+    /**
+     * Enlaza una pantalla con el servicio
+     */
+    public static boolean bind(Context context, ServiceConnection connection) {
+        return context.bindService(new Intent(context, TrackingService.class), connection, 0);
+    }
+
+    /**
+     * Indica si hay una sesión grabándose
+     */
+    public static boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        trackingThread = new HandlerThread("trackerhealth-tracking");
+        trackingThread.start();
+        trackingHandler = new Handler(trackingThread.getLooper());
+        sampling = new AdaptiveSamplingController(
+                new FusedLocationSource(this, trackingThread.getLooper()));
+
+        // Las entregas de estos broadcasts se hacen en el hilo de tracking, como el muestreo
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        filter.addAction(Intent.ACTION_BATTERY_LOW);
+        filter.addAction(Intent.ACTION_BATTERY_OKAY);
+        registerReceiver(deviceStateReceiver, filter, null, trackingHandler);
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_START.equals(intent.getAction()) && !tracking) {
+            Notification notification = buildNotification(intent.getStringExtra(EXTRA_OWNER));
+            if (!hasLocationPermission(this)) {
+                // Tras startForegroundService hay que llamar a startForeground aunque el
+                // servicio se detenga enseguida; si no, el sistema cierra la app (API 26+)
+                Log.e(TAG, "Sin permiso de ubicación, no se inicia la grabación");
+                try {
+                    enterForeground(notification);
+                } catch (SecurityException e) {
+                    // API 34 rechaza el tipo location sin el permiso; start() ya lo comprueba
+                    Log.e(TAG, "Error al pasar a primer plano: " + e.getMessage());
+                }
+                stopForeground(true);
+                stopSelf();
+                return START_NOT_STICKY;
+            }
+
+            enterForeground(notification);
+            startTracking();
+        }
+        // Si el sistema mata el proceso, la sesión se recupera del diario al volver a la app
+        return START_NOT_STICKY;
+    }
+
+    private void enterForeground(Notification notification) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+    }
+
+    private static boolean hasLocationPermission(Context context) {
+        return ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    @Override
+    public void onDestroy() {
+        running = false;
+        tracking = false;
+        mainHandler.removeCallbacksAndMessages(null);
+        unregisterReceiver(deviceStateReceiver);
+        trackingHandler.post(() -> {
+            sampling.stop();
+            // Si el servicio se destruye sin detenerse, el diario queda para recuperarlo
+            if (journal != null) {
+                journal.flush();
+            }
+        });
+        trackingThread.quitSafely();
+        super.onDestroy();
+    }
+
+    public void addListener(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    /**
+     * Inicio de la sesión en milisegundos
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Últimas estadísticas, o null si aún no hay ningún punto
+     */
+    @Nullable
+    public Stats getLatestStats() {
+        return latestStats;
+    }
+
+    /**
+     * Ruta de la sesión simplificada para dibujarla; solo se lee en el hilo principal
+     */
+    public RouteSimplifier getRoute() {
+        return route;
+    }
+
+    /**
+     * Detiene la grabación y entrega el diario de la sesión, con todos los puntos ya
+     * escritos, para guardarlo como ruta de una actividad o descartarlo
+     *
+     * @param callback Recibe el diario en el hilo principal
+     */
+    public void stopTracking(DataCallback<RouteJournal> callback) {
+        if (!tracking) {
+            return;
+        }
+        tracking = false;
+
+        trackingHandler.post(() -> {
+            sampling.stop();
+            trackingHandler.removeCallbacks(signalCheck);
+            RouteJournal sessionJournal = journal;
+            journal = null;
+            sessionJournal.flush();
+
+            mainHandler.post(() -> {
+                running = false;
+                stopForeground(true);
+                stopSelf();
+                callback.onResult(sessionJournal);
+            });
+        });
+    }
+
+    private void startTracking() {
+        tracking = true;
+        running = true;
+        startTime = System.currentTimeMillis();
+        latestStats = null;
+        route.clear();
+
+        boolean screenOn = isScreenOn();
+        boolean batteryLow = isBatteryLow();
+
+        trackingHandler.post(() -> {
+            pipeline.reset();
+            journal = RouteJournal.start(this);
+            lastFixElapsed = SystemClock.elapsedRealtime();
+            consecutiveInvalidLocations = 0;
+            hasSignal = false;
+
+            sampling.setScreenOn(screenOn);
+            sampling.setBatteryLow(batteryLow);
+            sampling.start(this::onLocation);
+            trackingHandler.postDelayed(signalCheck, SIGNAL_CHECK_INTERVAL);
+        });
+    }
+
+    /**
+     * Procesa una ubicación en el hilo de tracking
+     */
+    private void onLocation(Location location) {
+        if (journal == null) {
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        sampling.onLocationReceived(now);
+        int mode = sampling.getMode();
+
+        int result = pipeline.process(location);
+        if (!LocationPipeline.isAccepted(result)) {
+            sampling.onRejected(result);
+            logModeChange(mode);
+            consecutiveInvalidLocations++;
+            if (consecutiveInvalidLocations >= MAX_INVALID_LOCATIONS) {
+                setSignal(false);
+            }
+            return;
+        }
+
+        sampling.onFix(result == LocationPipeline.RESULT_MOVING, pipeline.getSpeed());
+        logModeChange(mode);
+
+        consecutiveInvalidLocations = 0;
+        lastFixElapsed = now;
+        setSignal(true);
+
+        // El diario guarda la ubicación original; el pipeline solo afecta a lo que se muestra
+        journal.append(location);
+
+        Stats stats = new Stats(pipeline.getLatitude(), pipeline.getLongitude(), pipeline.getSpeed(),
+                pipeline.getDistanceMeters(), result == LocationPipeline.RESULT_MOVING,
+                location.getTime(), pipeline.getAcceptedCount(), sampling.getMode(),
+                sampling.getFixesPerMinute(now), sampling.getEstimatedWakeupsPerHour());
+        mainHandler.post(() -> deliver(stats));
+    }
+
+    private void logModeChange(int previousMode) {
+        if (sampling.getMode() != previousMode) {
+            Log.d(TAG, "Modo de muestreo " + previousMode + " -> " + sampling.getMode()
+                    + ": " + sampling.getPolicy());
+        }
+    }
+
+    private void deliver(Stats stats) {
+        if (!tracking) {
+            return;
+        }
+        latestStats = stats;
+        // La ruta solo avanza en movimiento (o con el primer punto)
+        if (stats.isMoving() || route.getInputCount() == 0) {
+            route.add(stats.getLatitude(), stats.getLongitude());
+        }
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onTrackingUpdate(stats);
+        }
+    }
+
+    private void setSignal(boolean signal) {
+        if (hasSignal == signal) {
+            return;
+        }
+        hasSignal = signal;
+        if (!signal) {
+            consecutiveInvalidLocations = 0;
+        }
+        mainHandler.post(() -> {
+            for (Listener listener : new ArrayList<>(listeners)) {
+                listener.onSignalChanged(signal);
+            }
+        });
+    }
+
+    // Comprueba en el hilo de tracking si se dejó de recibir ubicaciones válidas
+    private final Runnable signalCheck = new Runnable() {
+        @Override
+        public void run() {
+            if (hasSignal && SystemClock.elapsedRealtime() - lastFixElapsed > signalTimeout()) {
+                setSignal(false);
+            }
+            trackingHandler.postDelayed(this, SIGNAL_CHECK_INTERVAL);
+        }
+    };
+
+    /**
+     * Tiempo sin ubicaciones válidas tras el que se considera perdida la señal. Con
+     * intervalos largos o entregas por lotes, las ubicaciones tardan más en llegar.
+     */
+    private long signalTimeout() {
+        SamplingPolicy policy = sampling.getPolicy();
+        return Math.max(GPS_TIMEOUT, policy.getIntervalMs() * 2 + policy.getMaxWaitMs());
+    }
+
+    private final BroadcastReceiver deviceStateReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                sampling.setScreenOn(true);
+            } else if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                sampling.setScreenOn(false);
+            } else if (Intent.ACTION_BATTERY_LOW.equals(action)) {
+                sampling.setBatteryLow(true);
+            } else if (Intent.ACTION_BATTERY_OKAY.equals(action)) {
+                sampling.setBatteryLow(false);
+            }
+        }
+    };
+
+    private boolean isScreenOn() {
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        return powerManager == null || powerManager.isInteractive();
+    }
+
+    private boolean isBatteryLow() {
+        BatteryManager batteryManager = (BatteryManager) getSystemService(Context.BATTERY_SERVICE);
+        if (batteryManager == null) {
+            return false;
+        }
+        int level = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY);
+        return level > 0 && level <= BATTERY_LOW_PERCENT && !batteryManager.isCharging();
+    }
+
+    private Notification buildNotification(@Nullable String ownerClassName) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                    "Activity tracking", NotificationManager.IMPORTANCE_LOW);
+            NotificationManager manager = getSystemService(NotificationManager.class);
+            if (manager != null) {
+                manager.createNotificationChannel(channel);
+            }
+        }
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(android.R.drawable.ic_menu_mylocation)
+                .setContentTitle("Tracking activity")
+                .setContentText("Recording your route")
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW);
+
+        if (ownerClassName != null) {
+            Intent intent = new Intent().setClassName(this, ownerClassName)
+                    .setFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP);
+            builder.setContentIntent(PendingIntent.getActivity(this, 0, intent,
+                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.trackerhealth.model;
+
+/**
+ * Fila agregada por día (fecha yyyy-MM-dd, suma y número de registros)
+ */
+public class DailyTotal {
+    private final String day;
+    private final double total;
+    private final int count;
+
+    public DailyTotal(String day, double total, int count) {
+        this.day = day;
+        this.total = total;
+        this.count = count;
+    }
+
+    // Getters
+    public String getDay() {
+        return day;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getAverage() {
+        return count > 0 ? total / count : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DailyTotal{" +
+                "day='" + day + '\'' +
+                ", total=" + total +
+                ", count=" + count +
+                '}';
+    }
+}
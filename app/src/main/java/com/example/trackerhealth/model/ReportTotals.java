@@ -0,0 +1,101 @@
+package com.example.trackerhealth.model;
+
+/**
+ * Totales de un periodo para las tarjetas de resumen de los informes
+ */
+public class ReportTotals {
+    // Actividad física
+    private int activityCount;
+    private double totalDistance; // en kilómetros
+    private int totalDuration; // en minutos
+    private int totalCaloriesBurned;
+
+    // Alimentación
+    private int mealCount;
+    private int totalCaloriesConsumed;
+    private double totalProteins; // in grams
+    private double totalCarbs; // in grams
+    private double totalFats; // in grams
+
+    // Constructor vacío
+    public ReportTotals() {
+    }
+
+    // Getters y setters
+    public int getActivityCount() {
+        return activityCount;
+    }
+
+    public void setActivityCount(int activityCount) {
+        this.activityCount = activityCount;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public void setTotalDistance(double totalDistance) {
+        this.totalDistance = totalDistance;
+    }
+
+    public int getTotalDuration() {
+        return totalDuration;
+    }
+
+    public void setTotalDuration(int totalDuration) {
+        this.totalDuration = totalDuration;
+    }
+
+    public int getTotalCaloriesBurned() {
+        return totalCaloriesBurned;
+    }
+
+    public void setTotalCaloriesBurned(int totalCaloriesBurned) {
+        this.totalCaloriesBurned = totalCaloriesBurned;
+    }
+
+    public int getMealCount() {
+        return mealCount;
+    }
+
+    public void setMealCount(int mealCount) {
+        this.mealCount = mealCount;
+    }
+
+    public int getTotalCaloriesConsumed() {
+        return totalCaloriesConsumed;
+    }
+
+    public void setTotalCaloriesConsumed(int totalCaloriesConsumed) {
+        this.totalCaloriesConsumed = totalCaloriesConsumed;
+    }
+
+    public double getTotalProteins() {
+        return totalProteins;
+    }
+
+    public void setTotalProteins(double totalProteins) {
+        this.totalProteins = totalProteins;
+    }
+
+    public double getTotalCarbs() {
+        return totalCarbs;
+    }
+
+    public void setTotalCarbs(double totalCarbs) {
+        this.totalCarbs = totalCarbs;
+    }
+
+    public double getTotalFats() {
+        return totalFats;
+    }
+
+    public void setTotalFats(double totalFats) {
+        this.totalFats = totalFats;
+    }
+
+    // Métodos útiles
+    public int getAverageMealCalories() {
+        return mealCount > 0 ? totalCaloriesConsumed / mealCount : 0;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.trackerhealth.model;
+
+/**
+ * Análisis de la ruta GPS de una actividad: parciales por kilómetro, tiempo en
+ * movimiento, tiempo en cada zona de ritmo y mejores marcas. Se guarda en la tabla
+ * route_analytics junto con el tamaño y la fecha del archivo de ruta analizado y la
+ * versión del análisis, para saber cuándo hay que recalcularlo.
+ */
+public class RouteAnalytics {
+
+    // Distancias de las mejores marcas en metros
+    public static final double[] BEST_EFFORT_DISTANCES = {1000, 5000, 10000};
+    public static final int BEST_1K = 0;
+    public static final int BEST_5K = 1;
+    public static final int BEST_10K = 2;
+
+    // Límite superior de cada zona de ritmo en segundos por km; la última zona no tiene límite
+    public static final int[] PACE_ZONE_LIMITS = {240, 300, 360, 420, 480};
+
+    // Versión del cálculo; hay que subirla al cambiar PACE_ZONE_LIMITS,
+    // BEST_EFFORT_DISTANCES o RouteAnalyzer para que se recalculen los análisis guardados
+    public static final int ANALYZER_VERSION = 1;
+
+    private final long activityId;
+    private final double distanceMeters;
+    private final long durationMs;
+    private final long movingTimeMs;
+    private final long[] splitTimesMs;     // Un parcial por kilómetro completo
+    private final long[] paceZoneTimesMs;  // PACE_ZONE_LIMITS.length + 1 zonas
+    private final long[] bestEffortTimesMs; // -1 si la ruta no llega a la distancia
+    private final long routeByteSize;
+    private final long routeModifiedAt;
+    private final int analyzerVersion;
+
+    public RouteAnalytics(long activityId, double distanceMeters, long durationMs, long movingTimeMs,
+                          long[] splitTimesMs, long[] paceZoneTimesMs, long[] bestEffortTimesMs,
+                          long routeByteSize, long routeModifiedAt, int analyzerVersion) {
+        this.activityId = activityId;
+        this.distanceMeters = distanceMeters;
+        this.durationMs = durationMs;
+        this.movingTimeMs = movingTimeMs;
+        this.splitTimesMs = splitTimesMs;
+        this.paceZoneTimesMs = paceZoneTimesMs;
+        this.bestEffortTimesMs = bestEffortTimesMs;
+        this.routeByteSize = routeByteSize;
+        this.routeModifiedAt = routeModifiedAt;
+        this.analyzerVersion = analyzerVersion;
+    }
+
+    // Getters
+    public long getActivityId() {
+        return activityId;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    /**
+     * Tiempo entre el primer y el último punto, en milisegundos
+     */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    /**
+     * Tiempo en movimiento, sin las paradas, en milisegundos
+     */
+    public long getMovingTimeMs() {
+        return movingTimeMs;
+    }
+
+    /**
+     * Ritmo medio en movimiento, en segundos por km
+     */
+    public double getMovingPace() {
+        return distanceMeters > 0 ? movingTimeMs / distanceMeters : 0;
+    }
+
+    public int getSplitCount() {
+        return splitTimesMs.length;
+    }
+
+    /**
+     * Tiempo del kilómetro index + 1, en milisegundos
+     */
+    public long getSplitTime(int index) {
+        return splitTimesMs[index];
+    }
+
+    public int getPaceZoneCount() {
+        return paceZoneTimesMs.length;
+    }
+
+    /**
+     * Tiempo en movimiento dentro de una zona de ritmo, en milisegundos
+     */
+    public long getPaceZoneTime(int zone) {
+        return paceZoneTimesMs[zone];
+    }
+
+    /**
+     * Mejor tiempo en una de las distancias de BEST_EFFORT_DISTANCES
+     *
+     * @param effort BEST_1K, BEST_5K o BEST_10K
+     * @return Tiempo en milisegundos, o -1 si la ruta es más corta
+     */
+    public long getBestEffortTime(int effort) {
+        return effort < bestEffortTimesMs.length ? bestEffortTimesMs[effort] : -1;
+    }
+
+    public long getRouteByteSize() {
+        return routeByteSize;
+    }
+
+    public long getRouteModifiedAt() {
+        return routeModifiedAt;
+    }
+
+    public int getAnalyzerVersion() {
+        return analyzerVersion;
+    }
+
+    /**
+     * Indica si el análisis corresponde al archivo de ruta indexado y a la versión actual
+     * del análisis
+     */
+    public boolean matches(RouteIndexEntry entry) {
+        return entry != null && entry.getByteSize() == routeByteSize
+                && entry.getModifiedAt() == routeModifiedAt
+                && analyzerVersion == ANALYZER_VERSION;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.trackerhealth.model;
+
+/**
+ * Fila del índice de rutas: archivo de la ruta de una actividad y su resumen
+ */
+public class RouteIndexEntry {
+    private final long activityId;
+    private final String fileName;
+    private final int pointCount;
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double maxLatitude;
+    private final double maxLongitude;
+    private final long byteSize;
+    private final long modifiedAt; // lastModified() del archivo al indexarlo
+
+    public RouteIndexEntry(long activityId, String fileName, int pointCount,
+                           double minLatitude, double minLongitude,
+                           double maxLatitude, double maxLongitude,
+                           long byteSize, long modifiedAt) {
+        this.activityId = activityId;
+        this.fileName = fileName;
+        this.pointCount = pointCount;
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+        this.byteSize = byteSize;
+        this.modifiedAt = modifiedAt;
+    }
+
+    // Getters
+    public long getActivityId() {
+        return activityId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    public long getByteSize() {
+        return byteSize;
+    }
+
+    public long getModifiedAt() {
+        return modifiedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "RouteIndexEntry{" +
+                "activityId=" + activityId +
+                ", fileName='" + fileName + '\'' +
+                ", pointCount=" + pointCount +
+                ", byteSize=" + byteSize +
+                '}';
+    }
+}
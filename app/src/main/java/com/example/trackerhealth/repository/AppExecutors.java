@@ -0,0 +1,134 @@
+package com.example.trackerhealth.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutores compartidos de la aplicación: un pool acotado para el acceso a la base
+ * de datos, un hilo único para escrituras secuenciales en archivos, un pool pequeño para
+ * decodificar imágenes y un ejecutor que publica en el hilo principal.
+ */
+public final class AppExecutors {
+
+    // Con WAL hay un escritor y varios lectores concurrentes; por defecto un hilo
+    // para el escritor y tres para lecturas
+    public static final int DEFAULT_DATABASE_THREADS = 4;
+    // Decodificar imágenes consume memoria; pocos hilos limitan los bitmaps simultáneos
+    private static final int IMAGE_THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static volatile AppExecutors instance;
+    private static int databaseThreads = DEFAULT_DATABASE_THREADS;
+
+    private final ExecutorService databaseExecutor;
+    private final ExecutorService diskExecutor;
+    private final ExecutorService imageExecutor;
+    private final Executor mainThreadExecutor;
+
+    private AppExecutors() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                databaseThreads, databaseThreads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamedThreadFactory("trackerhealth-db"));
+        executor.allowCoreThreadTimeOut(true);
+        this.databaseExecutor = executor;
+
+        // Un solo hilo: las escrituras a un mismo archivo se aplican en orden
+        ThreadPoolExecutor diskIO = new ThreadPoolExecutor(
+                1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamedThreadFactory("trackerhealth-disk"));
+        diskIO.allowCoreThreadTimeOut(true);
+        this.diskExecutor = diskIO;
+
+        ThreadPoolExecutor imageIO = new ThreadPoolExecutor(
+                IMAGE_THREADS, IMAGE_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamedThreadFactory("trackerhealth-image"));
+        imageIO.allowCoreThreadTimeOut(true);
+        this.imageExecutor = imageIO;
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        this.mainThreadExecutor = mainHandler::post;
+    }
+
+    /**
+     * Configura el número de hilos del pool de base de datos. La aplicación usa
+     * DEFAULT_DATABASE_THREADS y no lo llama; está pensado para quien tenga que ajustarlo
+     * al arrancar (un Application.onCreate o una prueba de rendimiento), porque debe
+     * llamarse antes del primer uso del repositorio. Más hilos que conexiones de lectura
+     * tenga el pool de SQLite de Android solo esperan a que quede una libre.
+     *
+     * @param threads Número de hilos, al menos 1
+     * @throws IllegalStateException Si los ejecutores ya se han creado
+     */
+    public static synchronized void setDatabaseThreadCount(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be >= 1");
+        }
+        if (instance != null) {
+            throw new IllegalStateException("AppExecutors already initialized");
+        }
+        databaseThreads = threads;
+    }
+
+    public static AppExecutors getInstance() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public ExecutorService databaseExecutor() {
+        return databaseExecutor;
+    }
+
+    public ExecutorService diskIO() {
+        return diskExecutor;
+    }
+
+    public ExecutorService imageIO() {
+        return imageExecutor;
+    }
+
+    public Executor mainThread() {
+        return mainThreadExecutor;
+    }
+
+    /**
+     * Crea hilos de fondo con nombre y prioridad de segundo plano
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, prefix + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
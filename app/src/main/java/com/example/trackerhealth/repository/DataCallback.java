@@ -0,0 +1,25 @@
+package com.example.trackerhealth.repository;
+
+/**
+ * Recibe en el hilo principal el resultado de una operación del repositorio
+ *
+ * @param <T> Tipo del resultado
+ */
+public interface DataCallback<T> {
+
+    /**
+     * Se llama en el hilo principal cuando la operación termina correctamente
+     *
+     * @param result El resultado de la operación
+     */
+    void onResult(T result);
+
+    /**
+     * Se llama en el hilo principal si la operación lanza una excepción.
+     * Por defecto no hace nada, el error ya queda registrado en el log.
+     *
+     * @param e La excepción lanzada
+     */
+    default void onError(Exception e) {
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.trackerhealth.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.trackerhealth.dao.MealDAO;
+import com.example.trackerhealth.dao.PhotoReferenceDAO;
+import com.example.trackerhealth.dao.PhysicalActivityDAO;
+import com.example.trackerhealth.dao.ReportAggregationDAO;
+import com.example.trackerhealth.dao.UserDAO;
+import com.example.trackerhealth.image.PhotoStore;
+import com.example.trackerhealth.model.DailyTotal;
+import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.model.ReportTotals;
+import com.example.trackerhealth.model.RouteAnalytics;
+import com.example.trackerhealth.model.User;
+import com.example.trackerhealth.route.RouteStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Repositorio asíncrono sobre los DAO. Cada operación se ejecuta en el pool de base de
+ * datos y el resultado se entrega en el hilo principal mediante un {@link DataCallback}.
+ * Los métodos devuelven el {@link Future} de la tarea para poder cancelarla.
+ */
+public class HealthRepository {
+
+    private static final String TAG = HealthRepository.class.getSimpleName();
+    private static volatile HealthRepository instance;
+
+    private final Context appContext;
+    private final PhysicalActivityDAO activityDAO;
+    private final MealDAO mealDAO;
+    private final UserDAO userDAO;
+    private final ReportAggregationDAO aggregationDAO;
+    private final PhotoReferenceDAO photoReferenceDAO;
+    private final ExecutorService databaseExecutor;
+    private final Executor mainThread;
+
+    private HealthRepository(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.activityDAO = new PhysicalActivityDAO(appContext);
+        this.mealDAO = new MealDAO(appContext);
+        this.userDAO = new UserDAO(appContext);
+        this.aggregationDAO = new ReportAggregationDAO(appContext);
+        this.photoReferenceDAO = new PhotoReferenceDAO(appContext);
+        this.databaseExecutor = AppExecutors.getInstance().databaseExecutor();
+        this.mainThread = AppExecutors.getInstance().mainThread();
+        // Recoge las fotos que quedaron sin usar en sesiones anteriores
+        sweepPhotos();
+    }
+
+    public static HealthRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (HealthRepository.class) {
+                if (instance == null) {
+                    instance = new HealthRepository(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Ejecuta una tarea en el pool de base de datos y entrega el resultado en el hilo principal
+     *
+     * @param task La tarea a ejecutar
+     * @param callback Receptor del resultado, puede ser null
+     * @return El Future de la tarea
+     */
+    public <T> Future<?> execute(Callable<T> task, DataCallback<T> callback) {
+        return databaseExecutor.submit(() -> {
+            try {
+                T result = task.call();
+                if (callback != null) {
+                    mainThread.execute(() -> callback.onResult(result));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error en operación de base de datos: " + e.getMessage(), e);
+                if (callback != null) {
+                    mainThread.execute(() -> callback.onError(e));
+                }
+            }
+        });
+    }
+
+    // Actividades físicas
+
+    public Future<?> getRecentActivities(long userId, int limit, DataCallback<List<PhysicalActivity>> callback) {
+        return execute(() -> activityDAO.getRecentActivities(userId, limit), callback);
+    }
+
+    public Future<?> getActivitiesByDate(long userId, String date, DataCallback<List<PhysicalActivity>> callback) {
+        return execute(() -> activityDAO.getActivitiesByDate(userId, date), callback);
+    }
+
+    /**
+     * Crea un paginador sobre el historial de actividades de un usuario
+     */
+    public KeysetPager<PhysicalActivity> activityHistoryPager(long userId, int pageSize) {
+        return new KeysetPager<>(this,
+                (afterDate, afterId, limit) -> activityDAO.getActivitiesPage(userId, afterDate, afterId, limit),
+                new KeysetPager.KeyReader<PhysicalActivity>() {
+                    @Override
+                    public String dateOf(PhysicalActivity item) {
+                        return item.getDate();
+                    }
+
+                    @Override
+                    public long idOf(PhysicalActivity item) {
+                        return item.getId();
+                    }
+                },
+                pageSize);
+    }
+
+    public Future<?> getActivityById(long activityId, DataCallback<PhysicalActivity> callback) {
+        return execute(() -> activityDAO.getActivityById(activityId), callback);
+    }
+
+    /**
+     * Obtiene el análisis de la ruta de una actividad (null si no tiene ruta). Solo se lee
+     * el archivo de ruta la primera vez o si cambió.
+     */
+    public Future<?> getRouteAnalytics(long activityId, DataCallback<RouteAnalytics> callback) {
+        return execute(() -> RouteStore.getAnalytics(appContext, activityId), callback);
+    }
+
+    public Future<?> insertActivity(PhysicalActivity activity, DataCallback<Long> callback) {
+        return execute(() -> activityDAO.insertActivity(activity), callback);
+    }
+
+    /**
+     * Inserta varias actividades en una sola transacción
+     *
+     * @return Los IDs generados, -1 para las filas que no se guardaron
+     */
+    public Future<?> insertActivities(List<PhysicalActivity> activities, DataCallback<long[]> callback) {
+        return execute(() -> activityDAO.insertActivities(activities), callback);
+    }
+
+    public Future<?> updateActivity(PhysicalActivity activity, DataCallback<Boolean> callback) {
+        return execute(() -> {
+            boolean updated = activityDAO.updateActivity(activity);
+            if (updated) {
+                sweepPhotos();
+            }
+            return updated;
+        }, callback);
+    }
+
+    /**
+     * Elimina una actividad junto con su ruta GPS, si la tiene
+     */
+    public Future<?> deleteActivity(long activityId, DataCallback<Boolean> callback) {
+        return execute(() -> {
+            boolean deleted = activityDAO.deleteActivity(activityId);
+            if (deleted) {
+                RouteStore.delete(appContext, activityId);
+                sweepPhotos();
+            }
+            return deleted;
+        }, callback);
+    }
+
+    // Comidas
+
+    public Future<?> getAllMealsByUser(long userId, DataCallback<List<Meal>> callback) {
+        return execute(() -> mealDAO.getAllMealsByUser(userId), callback);
+    }
+
+    /**
+     * Crea un paginador sobre el historial de comidas de un usuario
+     */
+    public KeysetPager<Meal> mealHistoryPager(long userId, int pageSize) {
+        return new KeysetPager<>(this,
+                (afterDate, afterId, limit) -> mealDAO.getMealsPage(userId, afterDate, afterId, limit),
+                new KeysetPager.KeyReader<Meal>() {
+                    @Override
+                    public String dateOf(Meal item) {
+                        return item.getDate();
+                    }
+
+                    @Override
+                    public long idOf(Meal item) {
+                        return item.getId();
+                    }
+                },
+                pageSize);
+    }
+
+    public Future<?> getMealsForDate(long userId, String date, DataCallback<List<Meal>> callback) {
+        return execute(() -> mealDAO.getMealsForDate(userId, date), callback);
+    }
+
+    public Future<?> getMealById(long mealId, DataCallback<Meal> callback) {
+        return execute(() -> mealDAO.getMealById(mealId), callback);
+    }
+
+    public Future<?> insertMeal(Meal meal, DataCallback<Long> callback) {
+        return execute(() -> mealDAO.insert(meal), callback);
+    }
+
+    /**
+     * Inserta varias comidas en una sola transacción y devuelve las que se guardaron,
+     * ya con su ID asignado
+     */
+    public Future<?> insertMeals(List<Meal> meals, DataCallback<List<Meal>> callback) {
+        return execute(() -> {
+            long[] ids = mealDAO.insertMeals(meals);
+            List<Meal> inserted = new ArrayList<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] > 0) {
+                    Meal meal = meals.get(i);
+                    meal.setId(ids[i]);
+                    inserted.add(meal);
+                }
+            }
+            return inserted;
+        }, callback);
+    }
+
+    public Future<?> updateMeal(Meal meal, DataCallback<Integer> callback) {
+        return execute(() -> {
+            int updated = mealDAO.update(meal);
+            if (updated > 0) {
+                sweepPhotos();
+            }
+            return updated;
+        }, callback);
+    }
+
+    public Future<?> deleteMeal(long mealId, DataCallback<Integer> callback) {
+        return execute(() -> {
+            int deleted = mealDAO.delete(mealId);
+            if (deleted > 0) {
+                sweepPhotos();
+            }
+            return deleted;
+        }, callback);
+    }
+
+    // Fotos
+
+    /**
+     * Programa el borrado de las fotos del almacén que ya no usa ninguna comida ni
+     * actividad. Se llama al cambiar o eliminar filas con foto.
+     */
+    public Future<?> sweepPhotos() {
+        PhotoStore photoStore = PhotoStore.getInstance(appContext);
+        return execute(() -> photoStore.sweep(
+                photoReferenceDAO.getReferenceCounts(photoStore.getDirectoryPath())), null);
+    }
+
+    // Usuarios
+
+    public Future<?> getUserById(long userId, DataCallback<User> callback) {
+        return execute(() -> userDAO.getUserById(userId), callback);
+    }
+
+    public Future<?> getUserByEmail(String email, DataCallback<User> callback) {
+        return execute(() -> userDAO.getUserByEmail(email), callback);
+    }
+
+    public Future<?> authenticateUser(String email, String password, DataCallback<User> callback) {
+        return execute(() -> userDAO.authenticateUser(email, password), callback);
+    }
+
+    public Future<?> insertUser(User user, DataCallback<Long> callback) {
+        return execute(() -> userDAO.insertUser(user), callback);
+    }
+
+    // Informes
+
+    /**
+     * Obtiene los totales de actividad y alimentación de un periodo
+     */
+    public Future<?> getPeriodTotals(long userId, String startDate, String endDate, DataCallback<ReportTotals> callback) {
+        return execute(() -> aggregationDAO.getPeriodTotals(userId, startDate, endDate), callback);
+    }
+
+    /**
+     * Obtiene en una sola tarea los totales, las series diarias y el análisis de las
+     * rutas de un periodo
+     */
+    public Future<?> getReport(long userId, String startDate, String endDate, DataCallback<ReportData> callback) {
+        return execute(() -> new ReportData(
+                aggregationDAO.getPeriodTotals(userId, startDate, endDate),
+                aggregationDAO.getDailyActivityMinutes(userId, startDate, endDate),
+                aggregationDAO.getDailyCaloriesConsumed(userId, startDate, endDate),
+                getRouteAnalytics(userId, startDate, endDate)), callback);
+    }
+
+    /**
+     * Lee de una vez los análisis guardados del periodo y solo pasa por RouteStore, que
+     * consulta el índice y puede releer el archivo, las rutas sin análisis vigente. Estas
+     * quedan al final de la lista.
+     */
+    private List<RouteAnalytics> getRouteAnalytics(long userId, String startDate, String endDate) {
+        List<Long> missingActivityIds = new ArrayList<>();
+        List<RouteAnalytics> analytics = aggregationDAO.getRouteAnalytics(userId, startDate, endDate,
+                missingActivityIds);
+        for (long activityId : missingActivityIds) {
+            RouteAnalytics routeAnalytics = RouteStore.getAnalytics(appContext, activityId);
+            if (routeAnalytics != null) {
+                analytics.add(routeAnalytics);
+            }
+        }
+        return analytics;
+    }
+
+    /**
+     * Resultado de {@link #getReport}: totales del periodo, series por día y análisis de
+     * las rutas
+     */
+    public static class ReportData {
+        public final ReportTotals totals;
+        public final List<DailyTotal> dailyMinutes;
+        public final List<DailyTotal> dailyCalories;
+        public final List<RouteAnalytics> routeAnalytics;
+
+        ReportData(ReportTotals totals, List<DailyTotal> dailyMinutes, List<DailyTotal> dailyCalories,
+                   List<RouteAnalytics> routeAnalytics) {
+            this.totals = totals;
+            this.dailyMinutes = dailyMinutes;
+            this.dailyCalories = dailyCalories;
+            this.routeAnalytics = routeAnalytics;
+        }
+    }
+}
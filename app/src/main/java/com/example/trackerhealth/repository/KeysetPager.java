@@ -0,0 +1,116 @@
+package com.example.trackerhealth.repository;
+
+import java.util.List;
+
+/**
+ * Carga un historial página a página con paginación por clave (fecha, id). Guarda la
+ * clave de la última fila recibida y pide la siguiente página a partir de ella, en el
+ * hilo de base de datos. Todos los métodos deben llamarse desde el hilo principal.
+ *
+ * @param <T> Tipo de los elementos del historial
+ */
+public class KeysetPager<T> {
+
+    /**
+     * Consulta de una página a partir de la clave de la última fila de la página anterior.
+     * afterId es 0 en la primera página; afterDate es null también cuando la última fila
+     * no tenía fecha, y entonces la consulta sigue entre las filas sin fecha.
+     */
+    interface PageQuery<T> {
+        List<T> loadPage(String afterDate, long afterId, int pageSize);
+    }
+
+    /**
+     * Lee la clave (fecha, id) de un elemento
+     */
+    interface KeyReader<T> {
+        String dateOf(T item);
+        long idOf(T item);
+    }
+
+    private final HealthRepository repository;
+    private final PageQuery<T> query;
+    private final KeyReader<T> keyReader;
+    private final int pageSize;
+
+    private String lastDate;
+    private long lastId;
+    private boolean loading;
+    private boolean endReached;
+    // Permite descartar páginas pedidas antes de un reset()
+    private int generation;
+
+    KeysetPager(HealthRepository repository, PageQuery<T> query, KeyReader<T> keyReader, int pageSize) {
+        this.repository = repository;
+        this.query = query;
+        this.keyReader = keyReader;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Pide la siguiente página. No hace nada si ya hay una carga en curso o si no quedan filas.
+     *
+     * @param callback Recibe la página en el hilo principal
+     * @return true si se inició una carga
+     */
+    public boolean loadNextPage(DataCallback<List<T>> callback) {
+        if (loading || endReached) {
+            return false;
+        }
+        loading = true;
+
+        final int requestGeneration = generation;
+        final String afterDate = lastDate;
+        final long afterId = lastId;
+
+        repository.execute(() -> query.loadPage(afterDate, afterId, pageSize), new DataCallback<List<T>>() {
+            @Override
+            public void onResult(List<T> page) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                if (!page.isEmpty()) {
+                    T last = page.get(page.size() - 1);
+                    lastDate = keyReader.dateOf(last);
+                    lastId = keyReader.idOf(last);
+                }
+                endReached = page.size() < pageSize;
+                callback.onResult(page);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading = false;
+                callback.onError(e);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Vuelve a la primera página y descarta las cargas en curso
+     */
+    public void reset() {
+        generation++;
+        lastDate = null;
+        lastId = 0;
+        loading = false;
+        endReached = false;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean hasMore() {
+        return !endReached;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.trackerhealth.route;
+
+import com.example.trackerhealth.model.RouteAnalytics;
+import com.example.trackerhealth.util.Geodesy;
+
+import java.util.Arrays;
+
+/**
+ * Calcula el {@link RouteAnalytics} de una ruta en una sola pasada: los puntos se añaden
+ * en orden con {@link #add} y cada métrica se actualiza con el segmento nuevo. Los
+ * parciales y las mejores marcas interpolan el instante en que se alcanza cada distancia.
+ *
+ * Para las mejores marcas se guarda la distancia y el tiempo acumulados de cada punto
+ * (16 bytes por punto); cada marca avanza su propio inicio de ventana, así que el coste
+ * total es lineal.
+ */
+public final class RouteAnalyzer {
+
+    private static final double SPLIT_DISTANCE = 1000;  // metros
+    private static final double MOVING_SPEED = 0.5;     // m/s, como LocationPipeline
+
+    private double[] distances = new double[256]; // Distancia acumulada en cada punto
+    private long[] times = new long[256];
+    private int size;
+    private double lastLatitude;
+    private double lastLongitude;
+
+    private long movingTimeMs;
+    private long[] splitTimes = new long[16];
+    private int splitCount;
+    private long lastSplitTime;
+    private final long[] paceZoneTimes = new long[RouteAnalytics.PACE_ZONE_LIMITS.length + 1];
+
+    private final int[] effortStarts = new int[RouteAnalytics.BEST_EFFORT_DISTANCES.length];
+    private final long[] bestEfforts = new long[RouteAnalytics.BEST_EFFORT_DISTANCES.length];
+
+    public RouteAnalyzer() {
+        Arrays.fill(bestEfforts, -1);
+    }
+
+    /**
+     * Analiza una ruta guardada. Las distancias de los segmentos se miden de una vez sobre
+     * las columnas de la ruta con {@link RouteTrack#measureSegments}.
+     *
+     * @param routeByteSize Tamaño del archivo analizado, para validar la caché
+     * @param routeModifiedAt Fecha del archivo analizado, para validar la caché
+     */
+    public static RouteAnalytics analyze(RouteTrack track, long routeByteSize, long routeModifiedAt) {
+        int count = track.size();
+        float[] segments = new float[Math.max(count - 1, 0)];
+        track.measureSegments(segments, null, null, null);
+
+        RouteAnalyzer analyzer = new RouteAnalyzer();
+        int last = -1; // Último punto aceptado
+        for (int i = 0; i < count; i++) {
+            long time = track.getTime(i);
+            if (last < 0) {
+                analyzer.addFirst(time);
+            } else if (time < track.getTime(last)) {
+                continue;
+            } else {
+                // Tras un punto ignorado el segmento va desde el último aceptado
+                double segment = last == i - 1 ? segments[last] : Geodesy.distance(
+                        track.getLatitude(last), track.getLongitude(last), track.getLatitude(i), track.getLongitude(i));
+                analyzer.addSegment(segment, time);
+            }
+            last = i;
+        }
+        return analyzer.build(track.getActivityId(), routeByteSize, routeModifiedAt);
+    }
+
+    /**
+     * Añade el siguiente punto de la ruta. Los puntos con un tiempo anterior al último
+     * se ignoran.
+     *
+     * @param time Tiempo del punto en milisegundos
+     */
+    public void add(double latitude, double longitude, long time) {
+        if (size == 0) {
+            addFirst(time);
+        } else {
+            if (time < times[size - 1]) {
+                return;
+            }
+            addSegment(Geodesy.distance(lastLatitude, lastLongitude, latitude, longitude), time);
+        }
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+    }
+
+    /**
+     * Construye el resultado con los puntos añadidos hasta ahora
+     */
+    public RouteAnalytics build(long activityId, long routeByteSize, long routeModifiedAt) {
+        double distance = size > 0 ? distances[size - 1] : 0;
+        long duration = size > 0 ? times[size - 1] - times[0] : 0;
+        return new RouteAnalytics(activityId, distance, duration, movingTimeMs,
+                Arrays.copyOf(splitTimes, splitCount), paceZoneTimes.clone(), bestEfforts.clone(),
+                routeByteSize, routeModifiedAt, RouteAnalytics.ANALYZER_VERSION);
+    }
+
+    private void addFirst(long time) {
+        append(0, time);
+        lastSplitTime = time;
+    }
+
+    /**
+     * Añade el punto que cierra un segmento desde el último punto aceptado
+     *
+     * @param segment Longitud del segmento en metros
+     */
+    private void addSegment(double segment, long time) {
+        long previousTime = times[size - 1];
+        double previousDistance = distances[size - 1];
+        double distance = previousDistance + segment;
+        long elapsed = time - previousTime;
+        append(distance, time);
+
+        if (elapsed > 0 && segment * 1000 >= MOVING_SPEED * elapsed) {
+            movingTimeMs += elapsed;
+            paceZoneTimes[paceZone(Geodesy.pace(segment, elapsed))] += elapsed;
+        }
+        addSplits(previousDistance, previousTime, distance, time);
+        updateBestEfforts();
+    }
+
+    private void append(double distance, long time) {
+        if (size == distances.length) {
+            distances = Arrays.copyOf(distances, size * 2);
+            times = Arrays.copyOf(times, size * 2);
+        }
+        distances[size] = distance;
+        times[size] = time;
+        size++;
+    }
+
+    /**
+     * Cierra los kilómetros que se completan en el segmento (puede ser más de uno si
+     * hubo un salto)
+     */
+    private void addSplits(double fromDistance, long fromTime, double toDistance, long toTime) {
+        double nextSplit = (splitCount + 1) * SPLIT_DISTANCE;
+        while (toDistance >= nextSplit) {
+            long splitTime = interpolateTime(fromDistance, fromTime, toDistance, toTime, nextSplit);
+            if (splitCount == splitTimes.length) {
+                splitTimes = Arrays.copyOf(splitTimes, splitCount * 2);
+            }
+            splitTimes[splitCount++] = splitTime - lastSplitTime;
+            lastSplitTime = splitTime;
+            nextSplit += SPLIT_DISTANCE;
+        }
+    }
+
+    /**
+     * Para cada distancia, busca el inicio más tardío desde el que el último punto la
+     * cubre y compara el tiempo con la mejor marca
+     */
+    private void updateBestEfforts() {
+        int last = size - 1;
+        for (int e = 0; e < effortStarts.length; e++) {
+            double target = RouteAnalytics.BEST_EFFORT_DISTANCES[e];
+            double startDistance = distances[last] - target;
+            if (startDistance < 0) {
+                continue;
+            }
+            int start = effortStarts[e];
+            while (start + 1 < last && distances[start + 1] <= startDistance) {
+                start++;
+            }
+            effortStarts[e] = start;
+
+            long startTime = interpolateTime(distances[start], times[start],
+                    distances[start + 1], times[start + 1], startDistance);
+            long effort = times[last] - startTime;
+            if (bestEfforts[e] < 0 || effort < bestEfforts[e]) {
+                bestEfforts[e] = effort;
+            }
+        }
+    }
+
+    private static long interpolateTime(double fromDistance, long fromTime,
+                                        double toDistance, long toTime, double distance) {
+        double span = toDistance - fromDistance;
+        if (span <= 0) {
+            return fromTime;
+        }
+        return fromTime + Math.round((toTime - fromTime) * (distance - fromDistance) / span);
+    }
+
+    private static int paceZone(double pace) {
+        int[] limits = RouteAnalytics.PACE_ZONE_LIMITS;
+        for (int i = 0; i < limits.length; i++) {
+            if (pace < limits[i]) {
+                return i;
+            }
+        }
+        return limits.length;
+    }
+}
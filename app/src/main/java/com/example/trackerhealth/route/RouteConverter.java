@@ -0,0 +1,202 @@
+package com.example.trackerhealth.route;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Convierte las rutas guardadas con los formatos antiguos al formato binario:
+ * JSON (route_ID_UUID.json, de LocationTrackingUtil) y CSV (route_ID_FECHA.txt, de LocationUtils)
+ */
+public final class RouteConverter {
+
+    private static final String TAG = RouteConverter.class.getSimpleName();
+    private static final String JSON_EXTENSION = ".json";
+    private static final String CSV_EXTENSION = ".txt";
+
+    private RouteConverter() {
+    }
+
+    /**
+     * Convierte todas las rutas antiguas del directorio de rutas
+     *
+     * @param context Contexto de la aplicación
+     * @return Número de actividades migradas
+     */
+    public static int migrateAll(Context context) {
+        // Agrupar los archivos antiguos por actividad recorriendo el directorio una vez
+        Map<Long, List<File>> legacyFiles = new HashMap<>();
+        File routesDir = RouteStore.getRoutesDir(context);
+        String[] names = routesDir.list();
+        if (names != null) {
+            for (String name : names) {
+                long activityId = RouteStore.parseActivityId(name);
+                if (activityId > 0 && isLegacyFile(name)) {
+                    List<File> files = legacyFiles.get(activityId);
+                    if (files == null) {
+                        files = new ArrayList<>();
+                        legacyFiles.put(activityId, files);
+                    }
+                    files.add(new File(routesDir, name));
+                }
+            }
+        }
+
+        int migrated = 0;
+        for (Map.Entry<Long, List<File>> entry : legacyFiles.entrySet()) {
+            if (migrate(context, entry.getKey(), entry.getValue()) != null) {
+                migrated++;
+            }
+        }
+
+        if (migrated > 0) {
+            Log.i(TAG, "Rutas migradas al formato binario: " + migrated);
+        }
+        return migrated;
+    }
+
+    /**
+     * Convierte la ruta antigua de una actividad y borra los archivos antiguos. Si la
+     * actividad ya tiene ruta binaria, solo se borran los antiguos.
+     *
+     * @return La ruta convertida o null si no se convirtió
+     */
+    static RouteTrack migrate(Context context, long activityId, List<File> legacyFiles) {
+        if (RouteStore.getRouteFile(context, activityId).exists()) {
+            for (File file : legacyFiles) {
+                file.delete();
+            }
+            return null;
+        }
+
+        // Si hay varias, la más reciente es la que corresponde al último guardado
+        File newest = legacyFiles.get(0);
+        for (File file : legacyFiles) {
+            if (file.lastModified() > newest.lastModified()) {
+                newest = file;
+            }
+        }
+
+        try {
+            RouteTrack track = convert(newest, activityId);
+            if (RouteStore.save(context, track) == null) {
+                return null;
+            }
+
+            for (File file : legacyFiles) {
+                file.delete();
+            }
+            return track;
+        } catch (IOException | JSONException | NumberFormatException e) {
+            Log.e(TAG, "Error al convertir ruta " + newest.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lee un archivo de ruta antiguo
+     *
+     * @param legacyFile Archivo JSON o CSV
+     * @param activityId ID de la actividad
+     * @return La ruta en formato columnar
+     */
+    public static RouteTrack convert(File legacyFile, long activityId) throws IOException, JSONException {
+        if (legacyFile.getName().endsWith(JSON_EXTENSION)) {
+            return convertJson(legacyFile, activityId);
+        }
+        return convertCsv(legacyFile, activityId);
+    }
+
+    static boolean isLegacyFile(String fileName) {
+        return fileName.endsWith(JSON_EXTENSION) || fileName.endsWith(CSV_EXTENSION);
+    }
+
+    private static RouteTrack convertJson(File file, long activityId) throws IOException, JSONException {
+        JSONArray points = new JSONObject(readText(file)).getJSONArray("points");
+        int size = points.length();
+
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        long[] times = new long[size];
+        float[] accuracies = new float[size];
+        float[] speeds = new float[size];
+        double[] altitudes = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            JSONObject point = points.getJSONObject(i);
+            latitudes[i] = point.getDouble("lat");
+            longitudes[i] = point.getDouble("lng");
+            times[i] = point.getLong("time");
+            accuracies[i] = -1; // El formato JSON no guardaba la precisión
+            speeds[i] = point.has("speed") ? (float) point.getDouble("speed") : -1;
+            altitudes[i] = point.optDouble("altitude", 0);
+        }
+
+        return new RouteTrack(activityId, size, latitudes, longitudes, times, accuracies, speeds, altitudes);
+    }
+
+    private static RouteTrack convertCsv(File file, long activityId) throws IOException {
+        // timestamp,latitude,longitude,accuracy,speed,altitude (-1 = sin dato)
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line = reader.readLine(); // cabecera
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+
+        int size = lines.size();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        long[] times = new long[size];
+        float[] accuracies = new float[size];
+        float[] speeds = new float[size];
+        double[] altitudes = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            String[] fields = lines.get(i).split(",");
+            if (fields.length < 6) {
+                throw new IOException("Línea CSV incompleta: " + (i + 2));
+            }
+            times[i] = Long.parseLong(fields[0]);
+            latitudes[i] = Double.parseDouble(fields[1]);
+            longitudes[i] = Double.parseDouble(fields[2]);
+            accuracies[i] = Math.max(-1, Float.parseFloat(fields[3]));
+            speeds[i] = Math.max(-1, Float.parseFloat(fields[4]));
+            double altitude = Double.parseDouble(fields[5]);
+            altitudes[i] = altitude == -1 ? 0 : altitude;
+        }
+
+        return new RouteTrack(activityId, size, latitudes, longitudes, times, accuracies, speeds, altitudes);
+    }
+
+    private static String readText(File file) throws IOException {
+        StringBuilder sb = new StringBuilder((int) file.length());
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            char[] chunk = new char[8192];
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                sb.append(chunk, 0, read);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.trackerhealth.route;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Constantes y codificación del formato binario de rutas.
+ *
+ * Un archivo de ruta tiene una cabecera fija (big-endian) seguida de una columna por
+ * magnitud. Cada columna guarda el primer valor y luego la diferencia con el anterior,
+ * en zigzag + varint, así que los puntos consecutivos ocupan 1-3 bytes por magnitud.
+ *
+ * <pre>
+ * int   magic ("THRT")
+ * byte  versión
+ * byte  flags (columnas opcionales presentes)
+ * short reservado
+ * long  ID de la actividad
+ * int   número de puntos
+ * int[] desplazamiento de cada columna (0 si no está)
+ * </pre>
+ */
+final class RouteFormat {
+
+    static final int MAGIC = 0x54485254; // "THRT"
+    static final byte VERSION_1 = 1;
+    static final byte CURRENT_VERSION = VERSION_1;
+
+    static final String FILE_EXTENSION = ".trk";
+
+    // Columnas, en el orden en que se escriben
+    static final int COLUMN_LATITUDE = 0;
+    static final int COLUMN_LONGITUDE = 1;
+    static final int COLUMN_TIME = 2;
+    static final int COLUMN_ACCURACY = 3;
+    static final int COLUMN_SPEED = 4;
+    static final int COLUMN_ALTITUDE = 5;
+    static final int COLUMN_COUNT = 6;
+
+    // Flags de columnas opcionales
+    static final int FLAG_ACCURACY = 1;
+    static final int FLAG_SPEED = 1 << 1;
+    static final int FLAG_ALTITUDE = 1 << 2;
+
+    static final int HEADER_SIZE = 4 + 1 + 1 + 2 + 8 + 4 + 4 * COLUMN_COUNT;
+    // Cada punto ocupa al menos un byte en cada columna obligatoria (latitud, longitud, tiempo)
+    static final int MIN_BYTES_PER_POINT = 3;
+
+    // Escalas de cuantización
+    static final double COORDINATE_SCALE = 1e7;  // ~1 cm en el ecuador
+    static final double ACCURACY_SCALE = 10;     // decímetros
+    static final double SPEED_SCALE = 100;       // cm/s
+    static final double ALTITUDE_SCALE = 10;     // decímetros
+
+    // Valor guardado cuando un punto no tiene precisión o velocidad
+    static final long MISSING = -1;
+
+    private RouteFormat() {
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer buffer) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Varint mal formado");
+    }
+
+    static void writeDelta(ByteArrayOutputStream out, long delta) {
+        writeVarLong(out, (delta << 1) ^ (delta >> 63));
+    }
+
+    static long readDelta(ByteBuffer buffer) throws IOException {
+        long encoded = readVarLong(buffer);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+}
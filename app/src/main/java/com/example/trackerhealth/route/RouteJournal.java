@@ -0,0 +1,286 @@
+package com.example.trackerhealth.route;
+
+import android.content.Context;
+import android.location.Location;
+import android.util.Log;
+
+import com.example.trackerhealth.repository.AppExecutors;
+import com.example.trackerhealth.repository.DataCallback;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Diario de solo-añadir de la sesión de tracking en curso. Los puntos se acumulan en
+ * memoria y se escriben al disco por lotes, así que una sesión larga no retiene los
+ * puntos en memoria y, si el proceso muere, la sesión se puede recuperar al volver.
+ * Al guardar la actividad el diario se convierte en la ruta definitiva de {@link RouteStore}.
+ *
+ * Los métodos públicos se llaman desde un solo hilo a la vez (el de tracking mientras se
+ * graba, el principal cuando se entrega para guardarla); la E/S se hace en el hilo de
+ * disco de {@link AppExecutors}, que aplica las escrituras en orden. Los callbacks se
+ * reciben en el hilo principal.
+ *
+ * Formato: cabecera de 16 bytes (magic, versión, tamaño de registro, inicio de la sesión)
+ * y registros fijos de 40 bytes. Un registro a medias al final, por un cierre inesperado,
+ * se descarta al recuperar.
+ */
+public final class RouteJournal {
+
+    private static final String TAG = RouteJournal.class.getSimpleName();
+    private static final String JOURNAL_FILE = "session.journal";
+
+    private static final int MAGIC = 0x5448524A; // "THRJ"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    // lat, lon (double), tiempo (long), precisión, velocidad (float), altitud (double)
+    private static final int RECORD_SIZE = 8 + 8 + 8 + 4 + 4 + 8;
+
+    // Se escribe cuando se juntan tantos puntos o pasa este tiempo, lo que ocurra antes
+    private static final int FLUSH_BATCH_SIZE = 10;
+    private static final long FLUSH_INTERVAL_MS = 15000;
+
+    private final Context appContext;
+    private final File file;
+    private final long startTime;
+    private final ExecutorService diskIO;
+    private final Executor mainThread;
+
+    private ByteBuffer pending = ByteBuffer.allocate(FLUSH_BATCH_SIZE * RECORD_SIZE);
+    private int pointCount;
+    private long lastFlushTime;
+    private boolean closed;
+
+    private RouteJournal(Context context, File file, long startTime, int pointCount) {
+        this.appContext = context.getApplicationContext();
+        this.file = file;
+        this.startTime = startTime;
+        this.pointCount = pointCount;
+        this.lastFlushTime = System.currentTimeMillis();
+        this.diskIO = AppExecutors.getInstance().diskIO();
+        this.mainThread = AppExecutors.getInstance().mainThread();
+    }
+
+    /**
+     * Empieza una sesión nueva, descartando cualquier diario anterior
+     *
+     * @param context Contexto de la aplicación
+     * @return El diario de la sesión
+     */
+    public static RouteJournal start(Context context) {
+        File file = getJournalFile(context);
+        long startTime = System.currentTimeMillis();
+        RouteJournal journal = new RouteJournal(context, file, startTime, 0);
+
+        journal.diskIO.execute(() -> {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putLong(startTime);
+                header.flip();
+                raf.getChannel().write(header);
+                raf.getChannel().force(false);
+            } catch (IOException e) {
+                Log.e(TAG, "Error al crear el diario de ruta: " + e.getMessage());
+            }
+        });
+        return journal;
+    }
+
+    /**
+     * Busca una sesión que quedó sin guardar. Si existe, descarta el registro incompleto
+     * del final y la devuelve lista para seguir añadiendo puntos o guardarla.
+     *
+     * @param context Contexto de la aplicación
+     * @param callback Recibe el diario en el hilo principal, o null si no hay sesión pendiente
+     */
+    public static void recover(Context context, DataCallback<RouteJournal> callback) {
+        File file = getJournalFile(context);
+        AppExecutors executors = AppExecutors.getInstance();
+
+        executors.diskIO().execute(() -> {
+            RouteJournal journal = null;
+            if (file.exists()) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    FileChannel channel = raf.getChannel();
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    if (channel.read(header, 0) == HEADER_SIZE) {
+                        header.flip();
+                        if (header.getInt() == MAGIC && header.getShort() == VERSION
+                                && header.getShort() == RECORD_SIZE) {
+                            long startTime = header.getLong();
+                            int count = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+                            channel.truncate(HEADER_SIZE + (long) count * RECORD_SIZE);
+                            if (count > 0) {
+                                journal = new RouteJournal(context, file, startTime, count);
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    Log.e(TAG, "Error al recuperar el diario de ruta: " + e.getMessage());
+                }
+
+                if (journal == null) {
+                    file.delete();
+                }
+            }
+
+            RouteJournal result = journal;
+            executors.mainThread().execute(() -> callback.onResult(result));
+        });
+    }
+
+    /**
+     * Añade un punto a la sesión
+     */
+    public void append(Location location) {
+        if (closed) {
+            return;
+        }
+
+        pending.putDouble(location.getLatitude());
+        pending.putDouble(location.getLongitude());
+        pending.putLong(location.getTime());
+        pending.putFloat(location.hasAccuracy() ? location.getAccuracy() : -1);
+        pending.putFloat(location.hasSpeed() ? location.getSpeed() : -1);
+        pending.putDouble(location.hasAltitude() ? location.getAltitude() : 0);
+        pointCount++;
+
+        if (!pending.hasRemaining()
+                || System.currentTimeMillis() - lastFlushTime >= FLUSH_INTERVAL_MS) {
+            flush();
+        }
+    }
+
+    /**
+     * Escribe al disco los puntos pendientes
+     */
+    public void flush() {
+        lastFlushTime = System.currentTimeMillis();
+        if (pending.position() == 0) {
+            return;
+        }
+
+        ByteBuffer batch = pending;
+        batch.flip();
+        pending = ByteBuffer.allocate(FLUSH_BATCH_SIZE * RECORD_SIZE);
+
+        diskIO.execute(() -> {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                FileChannel channel = raf.getChannel();
+                channel.position(channel.size());
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                Log.e(TAG, "Error al escribir el diario de ruta: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Lee todos los puntos de la sesión
+     *
+     * @param callback Recibe la ruta en el hilo principal
+     */
+    public void loadTrack(DataCallback<RouteTrack> callback) {
+        flush();
+        runOnDisk(() -> readTrack(0), callback);
+    }
+
+    /**
+     * Convierte la sesión en la ruta definitiva de una actividad y borra el diario
+     *
+     * @param activityId ID de la actividad guardada
+     * @param callback Recibe la ruta del archivo guardado, o null si no se pudo guardar
+     */
+    public void finish(long activityId, DataCallback<String> callback) {
+        flush();
+        closed = true;
+        runOnDisk(() -> {
+            RouteTrack track = readTrack(activityId);
+            if (track.size() == 0) {
+                file.delete();
+                return null;
+            }
+
+            String path = RouteStore.save(appContext, track);
+            if (path != null) {
+                file.delete();
+            }
+            return path;
+        }, callback);
+    }
+
+    /**
+     * Descarta la sesión y borra el diario
+     */
+    public void discard() {
+        closed = true;
+        pending.clear();
+        diskIO.execute(file::delete);
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    private static File getJournalFile(Context context) {
+        return new File(RouteStore.getRoutesDir(context), JOURNAL_FILE);
+    }
+
+    /**
+     * Lee el diario a columnas. Se ejecuta en el hilo de disco, después de las escrituras.
+     */
+    private RouteTrack readTrack(long activityId) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            int size = (int) ((channel.size() - HEADER_SIZE) / RECORD_SIZE);
+            double[] latitudes = new double[size];
+            double[] longitudes = new double[size];
+            long[] times = new long[size];
+            float[] accuracies = new float[size];
+            float[] speeds = new float[size];
+            double[] altitudes = new double[size];
+
+            if (size > 0) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE, (long) size * RECORD_SIZE);
+                for (int i = 0; i < size; i++) {
+                    latitudes[i] = buffer.getDouble();
+                    longitudes[i] = buffer.getDouble();
+                    times[i] = buffer.getLong();
+                    accuracies[i] = buffer.getFloat();
+                    speeds[i] = buffer.getFloat();
+                    altitudes[i] = buffer.getDouble();
+                }
+            }
+
+            return new RouteTrack(activityId, size, latitudes, longitudes, times, accuracies, speeds, altitudes);
+        }
+    }
+
+    private <T> void runOnDisk(Callable<T> task, DataCallback<T> callback) {
+        diskIO.execute(() -> {
+            try {
+                T result = task.call();
+                mainThread.execute(() -> callback.onResult(result));
+            } catch (Exception e) {
+                Log.e(TAG, "Error en el diario de ruta: " + e.getMessage(), e);
+                mainThread.execute(() -> callback.onError(e));
+            }
+        });
+    }
+}
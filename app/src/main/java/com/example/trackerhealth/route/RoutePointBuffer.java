@@ -0,0 +1,91 @@
+package com.example.trackerhealth.route;
+
+import com.example.trackerhealth.util.Geodesy;
+
+/**
+ * Búfer circular de capacidad fija con los últimos puntos de la ruta (latitud, longitud,
+ * tiempo) en arrays primitivos. Al llenarse, cada punto nuevo sobrescribe el más antiguo
+ * sin reservar memoria.
+ */
+public final class RoutePointBuffer {
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] times;
+    private int head; // Posición donde se escribirá el próximo punto
+    private int size;
+
+    public RoutePointBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("La capacidad debe ser al menos 2");
+        }
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        times = new long[capacity];
+    }
+
+    /**
+     * Añade un punto, descartando el más antiguo si el búfer está lleno
+     *
+     * @param time Tiempo del punto en milisegundos
+     */
+    public void add(double latitude, double longitude, long time) {
+        latitudes[head] = latitude;
+        longitudes[head] = longitude;
+        times[head] = time;
+        head = (head + 1) % latitudes.length;
+        if (size < latitudes.length) {
+            size++;
+        }
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return latitudes.length;
+    }
+
+    /**
+     * @param index 0 es el punto más antiguo y size() - 1 el más reciente
+     */
+    public double getLatitude(int index) {
+        return latitudes[slot(index)];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[slot(index)];
+    }
+
+    public long getTime(int index) {
+        return times[slot(index)];
+    }
+
+    /**
+     * Rumbo en grados (0-360) del penúltimo al último punto
+     *
+     * @return El rumbo o 0 si hay menos de dos puntos
+     */
+    public float getLatestBearing() {
+        if (size < 2) {
+            return 0;
+        }
+        int from = slot(size - 2);
+        int to = slot(size - 1);
+        return Geodesy.bearing(latitudes[from], longitudes[from], latitudes[to], longitudes[to]);
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Índice " + index + ", tamaño " + size);
+        }
+        int slot = head - size + index;
+        return slot < 0 ? slot + latitudes.length : slot;
+    }
+}
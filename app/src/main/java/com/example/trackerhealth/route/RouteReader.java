@@ -0,0 +1,122 @@
+package com.example.trackerhealth.route;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Lee rutas en el formato binario descrito en {@link RouteFormat}. El archivo se mapea
+ * en memoria y las columnas se decodifican directamente a arrays primitivos.
+ */
+public final class RouteReader {
+
+    private RouteReader() {
+    }
+
+    /**
+     * Lee una ruta completa
+     *
+     * @param file Archivo de ruta
+     * @return La ruta decodificada
+     * @throws IOException Si el archivo no existe, no es una ruta o tiene una versión desconocida
+     */
+    public static RouteTrack read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer);
+        }
+    }
+
+    /**
+     * Decodifica una ruta a partir de su contenido
+     */
+    static RouteTrack decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.remaining() < RouteFormat.HEADER_SIZE || buffer.getInt() != RouteFormat.MAGIC) {
+                throw new IOException("No es un archivo de ruta");
+            }
+
+            byte version = buffer.get();
+            if (version != RouteFormat.VERSION_1) {
+                throw new IOException("Versión de ruta no soportada: " + version);
+            }
+
+            int flags = buffer.get();
+            buffer.getShort(); // reservado
+            long activityId = buffer.getLong();
+            int size = buffer.getInt();
+
+            int[] offsets = new int[RouteFormat.COLUMN_COUNT];
+            for (int column = 0; column < RouteFormat.COLUMN_COUNT; column++) {
+                offsets[column] = buffer.getInt();
+            }
+
+            // Un número de puntos dañado no debe reservar más de lo que el archivo puede contener
+            if (size < 0 || size > buffer.remaining() / RouteFormat.MIN_BYTES_PER_POINT) {
+                throw new IOException("Número de puntos no válido: " + size);
+            }
+
+            double[] latitudes = new double[size];
+            double[] longitudes = new double[size];
+            long[] times = new long[size];
+            float[] accuracies = new float[size];
+            float[] speeds = new float[size];
+            double[] altitudes = new double[size];
+
+            readScaled(buffer, offsets[RouteFormat.COLUMN_LATITUDE], latitudes, RouteFormat.COORDINATE_SCALE);
+            readScaled(buffer, offsets[RouteFormat.COLUMN_LONGITUDE], longitudes, RouteFormat.COORDINATE_SCALE);
+            readLongs(buffer, offsets[RouteFormat.COLUMN_TIME], times);
+
+            if ((flags & RouteFormat.FLAG_ACCURACY) != 0) {
+                readOptional(buffer, offsets[RouteFormat.COLUMN_ACCURACY], accuracies, RouteFormat.ACCURACY_SCALE);
+            } else {
+                Arrays.fill(accuracies, -1);
+            }
+            if ((flags & RouteFormat.FLAG_SPEED) != 0) {
+                readOptional(buffer, offsets[RouteFormat.COLUMN_SPEED], speeds, RouteFormat.SPEED_SCALE);
+            } else {
+                Arrays.fill(speeds, -1);
+            }
+            if ((flags & RouteFormat.FLAG_ALTITUDE) != 0) {
+                readScaled(buffer, offsets[RouteFormat.COLUMN_ALTITUDE], altitudes, RouteFormat.ALTITUDE_SCALE);
+            }
+
+            return new RouteTrack(activityId, size, latitudes, longitudes, times, accuracies, speeds, altitudes);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Archivo de ruta truncado o dañado", e);
+        }
+    }
+
+    private static void readScaled(ByteBuffer buffer, int offset, double[] out, double scale) throws IOException {
+        buffer.position(offset);
+        long value = 0;
+        for (int i = 0; i < out.length; i++) {
+            value += RouteFormat.readDelta(buffer);
+            out[i] = value / scale;
+        }
+    }
+
+    private static void readLongs(ByteBuffer buffer, int offset, long[] out) throws IOException {
+        buffer.position(offset);
+        long value = 0;
+        for (int i = 0; i < out.length; i++) {
+            value += RouteFormat.readDelta(buffer);
+            out[i] = value;
+        }
+    }
+
+    private static void readOptional(ByteBuffer buffer, int offset, float[] out, double scale) throws IOException {
+        buffer.position(offset);
+        long value = 0;
+        for (int i = 0; i < out.length; i++) {
+            value += RouteFormat.readDelta(buffer);
+            out[i] = value == RouteFormat.MISSING ? -1 : (float) (value / scale);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.trackerhealth.route;
+
+import com.example.trackerhealth.util.Geodesy;
+
+import java.util.Arrays;
+
+/**
+ * Simplificación incremental de una ruta en varios niveles de detalle. Cada nivel
+ * mantiene solo los puntos necesarios para que la línea no se desvíe de la ruta original
+ * más que su tolerancia, y se actualiza al añadir cada punto (ventana deslizante: el
+ * último punto de cada nivel es provisional hasta que el siguiente ya no cabe en el tramo).
+ *
+ * Sirve para dibujar: el mapa usa el nivel que corresponde al zoom con
+ * {@link #levelForZoom(float, double)}. Las rutas guardadas conservan todos los puntos.
+ */
+public final class RouteSimplifier {
+
+    // Tolerancia de cada nivel en metros, del más detallado al más simplificado
+    private static final double[] LEVEL_TOLERANCES = {1, 4, 16, 64};
+    // Puntos intermedios que se comprueban como máximo antes de cerrar un tramo
+    private static final int MAX_WINDOW = 32;
+    // Metros por píxel en el ecuador con zoom 0 (proyección de Mercator de 256 px)
+    private static final double EQUATOR_METERS_PER_PIXEL = 156543.03392;
+
+    private final Level[] levels;
+    private int inputCount;
+
+    public RouteSimplifier() {
+        levels = new Level[LEVEL_TOLERANCES.length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new Level(LEVEL_TOLERANCES[i]);
+        }
+    }
+
+    /**
+     * Simplifica una ruta guardada
+     */
+    public static RouteSimplifier fromTrack(RouteTrack track) {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        for (int i = 0; i < track.size(); i++) {
+            simplifier.add(track.getLatitude(i), track.getLongitude(i));
+        }
+        return simplifier;
+    }
+
+    /**
+     * Añade un punto a todos los niveles
+     */
+    public void add(double latitude, double longitude) {
+        for (Level level : levels) {
+            level.add(latitude, longitude);
+        }
+        inputCount++;
+    }
+
+    /**
+     * Vacía todos los niveles, conservando la memoria reservada
+     */
+    public void clear() {
+        for (Level level : levels) {
+            level.clear();
+        }
+        inputCount = 0;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Número de puntos añadidos, antes de simplificar
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * Número de puntos de un nivel. El último puede cambiar al añadir el siguiente punto.
+     */
+    public int size(int level) {
+        return levels[level].size;
+    }
+
+    public double getLatitude(int level, int index) {
+        return levels[level].latitudes[index];
+    }
+
+    public double getLongitude(int level, int index) {
+        return levels[level].longitudes[index];
+    }
+
+    /**
+     * Elige el nivel más simplificado cuya tolerancia no supera un píxel con ese zoom
+     *
+     * @param zoom Zoom del mapa
+     * @param latitude Latitud del centro del mapa
+     * @return Índice del nivel
+     */
+    public static int levelForZoom(float zoom, double latitude) {
+        double metersPerPixel = EQUATOR_METERS_PER_PIXEL * Math.cos(Math.toRadians(latitude))
+                / Math.pow(2, zoom);
+        int level = 0;
+        for (int i = 1; i < LEVEL_TOLERANCES.length; i++) {
+            if (LEVEL_TOLERANCES[i] <= metersPerPixel) {
+                level = i;
+            }
+        }
+        return level;
+    }
+
+    private static final class Level {
+        private final double tolerance;
+        private double[] latitudes = new double[64];
+        private double[] longitudes = new double[64];
+        private int size;
+
+        // Puntos descartados entre el ancla (size - 2) y el punto provisional (size - 1)
+        private final double[] windowLatitudes = new double[MAX_WINDOW];
+        private final double[] windowLongitudes = new double[MAX_WINDOW];
+        private int windowSize;
+
+        Level(double tolerance) {
+            this.tolerance = tolerance;
+        }
+
+        void add(double latitude, double longitude) {
+            if (size >= 2 && windowSize < MAX_WINDOW && fits(latitude, longitude)) {
+                // El tramo ancla -> punto nuevo cubre también el provisional: se sustituye
+                windowLatitudes[windowSize] = latitudes[size - 1];
+                windowLongitudes[windowSize] = longitudes[size - 1];
+                windowSize++;
+                latitudes[size - 1] = latitude;
+                longitudes[size - 1] = longitude;
+                return;
+            }
+
+            // El provisional queda fijo y el punto nuevo pasa a ser el provisional
+            windowSize = 0;
+            if (size == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+            }
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+            windowSize = 0;
+        }
+
+        /**
+         * Comprueba si el provisional y los puntos de la ventana están a menos de la
+         * tolerancia del tramo entre el ancla y el punto nuevo
+         */
+        private boolean fits(double latitude, double longitude) {
+            double anchorLat = latitudes[size - 2];
+            double anchorLon = longitudes[size - 2];
+            // Proyección equirectangular local con origen en el ancla
+            double metersPerDegLon = Geodesy.METERS_PER_DEGREE * Math.cos(Math.toRadians(anchorLat));
+            double bx = (longitude - anchorLon) * metersPerDegLon;
+            double by = (latitude - anchorLat) * Geodesy.METERS_PER_DEGREE;
+
+            if (!withinTolerance(bx, by, (longitudes[size - 1] - anchorLon) * metersPerDegLon,
+                    (latitudes[size - 1] - anchorLat) * Geodesy.METERS_PER_DEGREE)) {
+                return false;
+            }
+            for (int i = 0; i < windowSize; i++) {
+                if (!withinTolerance(bx, by, (windowLongitudes[i] - anchorLon) * metersPerDegLon,
+                        (windowLatitudes[i] - anchorLat) * Geodesy.METERS_PER_DEGREE)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Distancia del punto (px, py) al segmento (0, 0) -> (bx, by), comparada con la tolerancia
+         */
+        private boolean withinTolerance(double bx, double by, double px, double py) {
+            double lengthSquared = bx * bx + by * by;
+            double t = lengthSquared == 0 ? 0 : (bx * px + by * py) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+            double dx = px - t * bx;
+            double dy = py - t * by;
+            return dx * dx + dy * dy <= tolerance * tolerance;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.trackerhealth.route;
+
+import android.content.Context;
+import android.location.Location;
+import android.util.Log;
+
+import com.example.trackerhealth.dao.RouteAnalyticsDAO;
+import com.example.trackerhealth.dao.RouteIndexDAO;
+import com.example.trackerhealth.model.RouteAnalytics;
+import com.example.trackerhealth.model.RouteIndexEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Almacén de rutas GPS. Cada actividad tiene un archivo binario route_&lt;id&gt;.trk en
+ * el directorio de rutas de la app, registrado en la tabla route_index con su número de
+ * puntos, límites y tamaño. Las búsquedas usan el índice en lugar de listar el directorio.
+ */
+public final class RouteStore {
+
+    private static final String TAG = RouteStore.class.getSimpleName();
+    static final String ROUTES_DIR = "routes";
+    static final String FILE_PREFIX = "route_";
+
+    private RouteStore() {
+    }
+
+    /**
+     * Obtiene el directorio de rutas, creándolo si no existe
+     */
+    public static File getRoutesDir(Context context) {
+        File routesDir = new File(context.getFilesDir(), ROUTES_DIR);
+        if (!routesDir.exists()) {
+            routesDir.mkdirs();
+        }
+        return routesDir;
+    }
+
+    /**
+     * Obtiene el archivo binario de la ruta de una actividad (exista o no)
+     */
+    public static File getRouteFile(Context context, long activityId) {
+        return new File(getRoutesDir(context), FILE_PREFIX + activityId + RouteFormat.FILE_EXTENSION);
+    }
+
+    /**
+     * Guarda la ruta de una actividad
+     *
+     * @param context Contexto de la aplicación
+     * @param activityId ID de la actividad
+     * @param locations Ubicaciones en orden de captura
+     * @return Ruta del archivo guardado o null si hubo un error
+     */
+    public static String save(Context context, long activityId, List<Location> locations) {
+        if (context == null || locations == null || locations.isEmpty()) {
+            return null;
+        }
+        return save(context, RouteTrack.fromLocations(activityId, locations));
+    }
+
+    /**
+     * Guarda una ruta ya en formato columnar y la registra en el índice
+     *
+     * @return Ruta del archivo guardado o null si hubo un error
+     */
+    public static String save(Context context, RouteTrack track) {
+        File routeFile = getRouteFile(context, track.getActivityId());
+        try {
+            RouteWriter.write(routeFile, track);
+        } catch (IOException e) {
+            Log.e(TAG, "Error al guardar ruta: " + e.getMessage());
+            return null;
+        }
+
+        new RouteIndexDAO(context).upsert(createEntry(track, routeFile));
+        return routeFile.getAbsolutePath();
+    }
+
+    /**
+     * Carga la ruta de una actividad. El archivo se localiza por el índice; si la entrada
+     * falta o ya no coincide con el archivo, se corrige al leerlo.
+     *
+     * @param context Contexto de la aplicación
+     * @param activityId ID de la actividad
+     * @return La ruta o null si la actividad no tiene ruta
+     */
+    public static RouteTrack load(Context context, long activityId) {
+        RouteIndexDAO indexDAO = new RouteIndexDAO(context);
+        RouteIndexEntry entry = indexDAO.getEntry(activityId);
+        File routeFile = entry != null
+                ? new File(getRoutesDir(context), entry.getFileName())
+                : getRouteFile(context, activityId);
+
+        if (!routeFile.exists()) {
+            if (entry != null) {
+                indexDAO.delete(activityId);
+            }
+            return null;
+        }
+
+        try {
+            RouteTrack track = RouteReader.read(routeFile);
+            if (entry == null || isStale(entry, routeFile)) {
+                indexDAO.upsert(createEntry(track, routeFile));
+            }
+            return track;
+        } catch (IOException e) {
+            Log.e(TAG, "Error al leer ruta " + routeFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Obtiene el resumen indexado de la ruta de una actividad (puntos, límites, tamaño)
+     * sin leer el archivo
+     *
+     * @return La entrada o null si la actividad no tiene ruta
+     */
+    public static RouteIndexEntry getIndexEntry(Context context, long activityId) {
+        return new RouteIndexDAO(context).getEntry(activityId);
+    }
+
+    /**
+     * Obtiene el análisis de la ruta de una actividad. Se guarda en la tabla
+     * route_analytics y solo se recalcula (leyendo el archivo) si la ruta cambió desde el
+     * último análisis. Debe ejecutarse fuera del hilo principal.
+     *
+     * @return El análisis o null si la actividad no tiene ruta
+     */
+    public static RouteAnalytics getAnalytics(Context context, long activityId) {
+        RouteIndexDAO indexDAO = new RouteIndexDAO(context);
+        RouteAnalyticsDAO analyticsDAO = new RouteAnalyticsDAO(context);
+        RouteIndexEntry entry = indexDAO.getEntry(activityId);
+        if (entry != null) {
+            RouteAnalytics cached = analyticsDAO.getAnalytics(activityId);
+            if (cached != null && cached.matches(entry)) {
+                return cached;
+            }
+        }
+
+        // load() corrige la entrada del índice si faltaba o estaba desactualizada
+        RouteTrack track = load(context, activityId);
+        if (track == null) {
+            return null;
+        }
+        entry = indexDAO.getEntry(activityId);
+        if (entry == null) {
+            return RouteAnalyzer.analyze(track, -1, -1);
+        }
+        RouteAnalytics analytics = RouteAnalyzer.analyze(track, entry.getByteSize(), entry.getModifiedAt());
+        analyticsDAO.upsert(analytics);
+        return analytics;
+    }
+
+    /**
+     * Elimina la ruta de una actividad, su entrada del índice y su análisis
+     *
+     * @return true si la actividad tenía ruta
+     */
+    public static boolean delete(Context context, long activityId) {
+        RouteIndexDAO indexDAO = new RouteIndexDAO(context);
+        RouteIndexEntry entry = indexDAO.getEntry(activityId);
+        File routeFile = entry != null
+                ? new File(getRoutesDir(context), entry.getFileName())
+                : getRouteFile(context, activityId);
+
+        boolean fileDeleted = routeFile.exists() && routeFile.delete();
+        boolean entryDeleted = entry != null && indexDAO.delete(activityId);
+        new RouteAnalyticsDAO(context).delete(activityId);
+        return fileDeleted || entryDeleted;
+    }
+
+    /**
+     * Obtiene los IDs de las actividades con ruta guardada, según el índice
+     */
+    public static List<Long> getActivityIds(Context context) {
+        return new RouteIndexDAO(context).getActivityIds();
+    }
+
+    /**
+     * Reconstruye el índice a partir de los archivos del directorio de rutas: convierte
+     * las rutas antiguas, indexa los archivos sin entrada o modificados y elimina las
+     * entradas cuyo archivo ya no existe. Recorre el directorio una sola vez; debe
+     * ejecutarse fuera del hilo principal.
+     *
+     * @param context Contexto de la aplicación
+     * @return Número de entradas corregidas
+     */
+    public static int rebuildIndex(Context context) {
+        RouteConverter.migrateAll(context);
+
+        File routesDir = getRoutesDir(context);
+        Map<Long, File> routeFiles = new HashMap<>();
+        String[] names = routesDir.list();
+        if (names != null) {
+            for (String name : names) {
+                long activityId = parseActivityId(name);
+                if (activityId > 0 && name.endsWith(RouteFormat.FILE_EXTENSION)) {
+                    routeFiles.put(activityId, new File(routesDir, name));
+                }
+            }
+        }
+
+        RouteIndexDAO indexDAO = new RouteIndexDAO(context);
+        Map<Long, RouteIndexEntry> entries = new HashMap<>();
+        List<Long> deletedIds = new ArrayList<>();
+        for (RouteIndexEntry entry : indexDAO.getAllEntries()) {
+            File routeFile = routeFiles.get(entry.getActivityId());
+            if (routeFile == null || !routeFile.getName().equals(entry.getFileName())) {
+                deletedIds.add(entry.getActivityId());
+            } else {
+                entries.put(entry.getActivityId(), entry);
+            }
+        }
+
+        List<RouteIndexEntry> upserts = new ArrayList<>();
+        for (Map.Entry<Long, File> routeFile : routeFiles.entrySet()) {
+            RouteIndexEntry entry = entries.get(routeFile.getKey());
+            if (entry != null && !isStale(entry, routeFile.getValue())) {
+                continue;
+            }
+            try {
+                upserts.add(createEntry(RouteReader.read(routeFile.getValue()), routeFile.getValue()));
+            } catch (IOException e) {
+                Log.e(TAG, "Error al indexar " + routeFile.getValue().getName() + ": " + e.getMessage());
+            }
+        }
+
+        if (!upserts.isEmpty() || !deletedIds.isEmpty()) {
+            indexDAO.applyChanges(upserts, deletedIds);
+            Log.i(TAG, "Índice de rutas corregido: " + upserts.size() + " actualizadas, " +
+                    deletedIds.size() + " eliminadas");
+        }
+        return upserts.size() + deletedIds.size();
+    }
+
+    private static boolean isStale(RouteIndexEntry entry, File routeFile) {
+        return entry.getByteSize() != routeFile.length() || entry.getModifiedAt() != routeFile.lastModified();
+    }
+
+    private static RouteIndexEntry createEntry(RouteTrack track, File routeFile) {
+        double minLat = 0, minLon = 0, maxLat = 0, maxLon = 0;
+        if (track.size() > 0) {
+            minLat = maxLat = track.getLatitude(0);
+            minLon = maxLon = track.getLongitude(0);
+            for (int i = 1; i < track.size(); i++) {
+                minLat = Math.min(minLat, track.getLatitude(i));
+                maxLat = Math.max(maxLat, track.getLatitude(i));
+                minLon = Math.min(minLon, track.getLongitude(i));
+                maxLon = Math.max(maxLon, track.getLongitude(i));
+            }
+        }
+
+        return new RouteIndexEntry(track.getActivityId(), routeFile.getName(), track.size(),
+                minLat, minLon, maxLat, maxLon, routeFile.length(), routeFile.lastModified());
+    }
+
+    /**
+     * Extrae el ID de actividad de un nombre de archivo de ruta
+     * (route_ID.trk, o route_ID_xxx.json / route_ID_xxx.txt en los formatos antiguos)
+     *
+     * @return El ID o -1 si el nombre no es de una ruta
+     */
+    static long parseActivityId(String fileName) {
+        if (!fileName.startsWith(FILE_PREFIX)) {
+            return -1;
+        }
+
+        int start = FILE_PREFIX.length();
+        int end = start;
+        while (end < fileName.length() && Character.isDigit(fileName.charAt(end))) {
+            end++;
+        }
+        if (end == start || end == fileName.length()) {
+            return -1;
+        }
+
+        boolean binary = fileName.substring(end).equals(RouteFormat.FILE_EXTENSION);
+        boolean legacy = fileName.charAt(end) == '_' && RouteConverter.isLegacyFile(fileName);
+        if (!binary && !legacy) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(fileName.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.trackerhealth.route;
+
+import android.location.Location;
+
+import com.example.trackerhealth.util.Geodesy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Puntos de una ruta guardados en arrays primitivos, una columna por magnitud.
+ * Se lee por índice para no crear un objeto por punto.
+ */
+public final class RouteTrack {
+
+    private final long activityId;
+    private final int size;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] times;
+    private final float[] accuracies; // -1 si el punto no tiene precisión
+    private final float[] speeds;     // -1 si el punto no tiene velocidad
+    private final double[] altitudes;
+
+    RouteTrack(long activityId, int size, double[] latitudes, double[] longitudes, long[] times,
+               float[] accuracies, float[] speeds, double[] altitudes) {
+        this.activityId = activityId;
+        this.size = size;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.times = times;
+        this.accuracies = accuracies;
+        this.speeds = speeds;
+        this.altitudes = altitudes;
+    }
+
+    /**
+     * Copia una lista de ubicaciones a columnas
+     *
+     * @param activityId ID de la actividad
+     * @param locations Ubicaciones en orden de captura
+     * @return La ruta en formato columnar
+     */
+    public static RouteTrack fromLocations(long activityId, List<Location> locations) {
+        int size = locations.size();
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        long[] times = new long[size];
+        float[] accuracies = new float[size];
+        float[] speeds = new float[size];
+        double[] altitudes = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            Location location = locations.get(i);
+            latitudes[i] = location.getLatitude();
+            longitudes[i] = location.getLongitude();
+            times[i] = location.getTime();
+            accuracies[i] = location.hasAccuracy() ? location.getAccuracy() : -1;
+            speeds[i] = location.hasSpeed() ? location.getSpeed() : -1;
+            altitudes[i] = location.hasAltitude() ? location.getAltitude() : 0;
+        }
+
+        return new RouteTrack(activityId, size, latitudes, longitudes, times, accuracies, speeds, altitudes);
+    }
+
+    /**
+     * Convierte la ruta en objetos Location, para el código que todavía los necesita
+     */
+    public List<Location> toLocations() {
+        List<Location> locations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Location location = new Location("file");
+            location.setLatitude(latitudes[i]);
+            location.setLongitude(longitudes[i]);
+            location.setTime(times[i]);
+            if (accuracies[i] >= 0) {
+                location.setAccuracy(accuracies[i]);
+            }
+            if (speeds[i] >= 0) {
+                location.setSpeed(speeds[i]);
+            }
+            location.setAltitude(altitudes[i]);
+            locations.add(location);
+        }
+        return locations;
+    }
+
+    /**
+     * Distancia recorrida por toda la ruta, sobre las columnas sin crear objetos Location
+     *
+     * @return Distancia en metros
+     */
+    public double getTotalDistance() {
+        return Geodesy.totalDistance(latitudes, longitudes, 0, size);
+    }
+
+    /**
+     * Mide todos los segmentos de la ruta en una pasada; ver
+     * {@link Geodesy#measureSegments}. Los arrays de salida, si no son null, necesitan
+     * size() - 1 posiciones.
+     *
+     * @return Distancia total en metros
+     */
+    public double measureSegments(float[] segmentDistances, float[] segmentSpeeds,
+                                  float[] segmentPaces, float[] segmentBearings) {
+        return Geodesy.measureSegments(latitudes, longitudes, times, size,
+                segmentDistances, segmentSpeeds, segmentPaces, segmentBearings);
+    }
+
+    // Getters
+    public long getActivityId() {
+        return activityId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public boolean hasAccuracy(int index) {
+        return accuracies[index] >= 0;
+    }
+
+    public float getAccuracy(int index) {
+        return accuracies[index];
+    }
+
+    public boolean hasSpeed(int index) {
+        return speeds[index] >= 0;
+    }
+
+    public float getSpeed(int index) {
+        return speeds[index];
+    }
+
+    public double getAltitude(int index) {
+        return altitudes[index];
+    }
+}
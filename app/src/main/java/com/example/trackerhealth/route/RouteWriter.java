@@ -0,0 +1,119 @@
+package com.example.trackerhealth.route;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Escribe rutas en el formato binario descrito en {@link RouteFormat}
+ */
+public final class RouteWriter {
+
+    private RouteWriter() {
+    }
+
+    /**
+     * Escribe la ruta en un archivo. Se escribe primero a un temporal y luego se
+     * renombra, así que un archivo existente nunca queda a medias.
+     *
+     * @param file Archivo de destino
+     * @param track Ruta a guardar
+     * @throws IOException Si no se puede escribir el archivo
+     */
+    public static void write(File file, RouteTrack track) throws IOException {
+        byte[] data = encode(track);
+
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tempFile)) {
+            fos.write(data);
+            fos.getFD().sync();
+        }
+
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("No se pudo renombrar " + tempFile.getName());
+        }
+    }
+
+    /**
+     * Codifica la ruta completa (cabecera y columnas) en memoria
+     */
+    static byte[] encode(RouteTrack track) {
+        int size = track.size();
+        int flags = 0;
+        for (int i = 0; i < size; i++) {
+            if (track.hasAccuracy(i)) flags |= RouteFormat.FLAG_ACCURACY;
+            if (track.hasSpeed(i)) flags |= RouteFormat.FLAG_SPEED;
+            if (track.getAltitude(i) != 0) flags |= RouteFormat.FLAG_ALTITUDE;
+        }
+
+        ByteArrayOutputStream[] columns = new ByteArrayOutputStream[RouteFormat.COLUMN_COUNT];
+        columns[RouteFormat.COLUMN_LATITUDE] = new ByteArrayOutputStream(size * 2);
+        columns[RouteFormat.COLUMN_LONGITUDE] = new ByteArrayOutputStream(size * 2);
+        columns[RouteFormat.COLUMN_TIME] = new ByteArrayOutputStream(size * 2);
+        if ((flags & RouteFormat.FLAG_ACCURACY) != 0) {
+            columns[RouteFormat.COLUMN_ACCURACY] = new ByteArrayOutputStream(size);
+        }
+        if ((flags & RouteFormat.FLAG_SPEED) != 0) {
+            columns[RouteFormat.COLUMN_SPEED] = new ByteArrayOutputStream(size);
+        }
+        if ((flags & RouteFormat.FLAG_ALTITUDE) != 0) {
+            columns[RouteFormat.COLUMN_ALTITUDE] = new ByteArrayOutputStream(size);
+        }
+
+        long[] previous = new long[RouteFormat.COLUMN_COUNT];
+        long[] current = new long[RouteFormat.COLUMN_COUNT];
+        for (int i = 0; i < size; i++) {
+            current[RouteFormat.COLUMN_LATITUDE] = Math.round(track.getLatitude(i) * RouteFormat.COORDINATE_SCALE);
+            current[RouteFormat.COLUMN_LONGITUDE] = Math.round(track.getLongitude(i) * RouteFormat.COORDINATE_SCALE);
+            current[RouteFormat.COLUMN_TIME] = track.getTime(i);
+            current[RouteFormat.COLUMN_ACCURACY] = track.hasAccuracy(i)
+                    ? Math.round(track.getAccuracy(i) * RouteFormat.ACCURACY_SCALE) : RouteFormat.MISSING;
+            current[RouteFormat.COLUMN_SPEED] = track.hasSpeed(i)
+                    ? Math.round(track.getSpeed(i) * RouteFormat.SPEED_SCALE) : RouteFormat.MISSING;
+            current[RouteFormat.COLUMN_ALTITUDE] = Math.round(track.getAltitude(i) * RouteFormat.ALTITUDE_SCALE);
+
+            for (int column = 0; column < RouteFormat.COLUMN_COUNT; column++) {
+                if (columns[column] != null) {
+                    RouteFormat.writeDelta(columns[column], current[column] - previous[column]);
+                    previous[column] = current[column];
+                }
+            }
+        }
+
+        int totalSize = RouteFormat.HEADER_SIZE;
+        for (ByteArrayOutputStream column : columns) {
+            if (column != null) {
+                totalSize += column.size();
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(totalSize);
+        buffer.putInt(RouteFormat.MAGIC);
+        buffer.put(RouteFormat.CURRENT_VERSION);
+        buffer.put((byte) flags);
+        buffer.putShort((short) 0);
+        buffer.putLong(track.getActivityId());
+        buffer.putInt(size);
+
+        int offset = RouteFormat.HEADER_SIZE;
+        for (ByteArrayOutputStream column : columns) {
+            if (column != null) {
+                buffer.putInt(offset);
+                offset += column.size();
+            } else {
+                buffer.putInt(0);
+            }
+        }
+
+        for (ByteArrayOutputStream column : columns) {
+            if (column != null) {
+                buffer.put(column.toByteArray());
+            }
+        }
+
+        return buffer.array();
+    }
+}
@@ -256,6 +256,7 @@ public class DatabaseUtils {
                     ");";
             
             db.execSQL(CREATE_PHYSICAL_ACTIVITIES_TABLE);
+            DatabaseHelper.createIndexes(db);
             Log.d(TAG, "Physical activities table recreated successfully");
             
             return true;
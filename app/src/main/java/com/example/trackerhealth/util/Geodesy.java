@@ -0,0 +1,131 @@
+package com.example.trackerhealth.util;
+
+/**
+ * Cálculos geodésicos sobre coordenadas en grados, sin objetos Location ni reservas por
+ * punto. Las rutas se recorren como arrays primitivos de latitudes y longitudes.
+ *
+ * Los tramos cortos (los habituales entre dos puntos del GPS) usan una proyección
+ * equirectangular, con un error muy por debajo de la precisión del GPS; los largos usan
+ * la fórmula de Haversine.
+ */
+public final class Geodesy {
+
+    // Radio medio de la Tierra en metros
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+    // Metros por grado de latitud
+    public static final double METERS_PER_DEGREE = Math.toRadians(EARTH_RADIUS_METERS);
+
+    // Diferencia máxima en grados (unos 1,1 km) para usar la proyección equirectangular
+    private static final double SHORT_SEGMENT_DEGREES = 0.01;
+    private static final double DEGREES_TO_RADIANS = Math.PI / 180;
+
+    private Geodesy() {
+    }
+
+    /**
+     * Distancia entre dos puntos
+     *
+     * @return Distancia en metros
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = lat2 - lat1;
+        double dLon = lon2 - lon1;
+        if (Math.abs(dLat) < SHORT_SEGMENT_DEGREES && Math.abs(dLon) < SHORT_SEGMENT_DEGREES) {
+            double x = dLon * Math.cos((lat1 + lat2) * (DEGREES_TO_RADIANS / 2));
+            return METERS_PER_DEGREE * Math.sqrt(x * x + dLat * dLat);
+        }
+        return haversine(lat1, lon1, lat2, lon2);
+    }
+
+    /**
+     * Distancia entre dos puntos con la fórmula de Haversine, válida a cualquier distancia
+     *
+     * @return Distancia en metros
+     */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double sinLat = Math.sin((lat2 - lat1) * (DEGREES_TO_RADIANS / 2));
+        double sinLon = Math.sin((lon2 - lon1) * (DEGREES_TO_RADIANS / 2));
+        double a = sinLat * sinLat +
+                Math.cos(lat1 * DEGREES_TO_RADIANS) * Math.cos(lat2 * DEGREES_TO_RADIANS) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Rumbo inicial del primer punto al segundo
+     *
+     * @return Rumbo en grados (0-360)
+     */
+    public static float bearing(double lat1, double lon1, double lat2, double lon2) {
+        double startLat = lat1 * DEGREES_TO_RADIANS;
+        double endLat = lat2 * DEGREES_TO_RADIANS;
+        double dLon = (lon2 - lon1) * DEGREES_TO_RADIANS;
+
+        double cosEndLat = Math.cos(endLat);
+        double y = Math.sin(dLon) * cosEndLat;
+        double x = Math.cos(startLat) * Math.sin(endLat) - Math.sin(startLat) * cosEndLat * Math.cos(dLon);
+
+        double bearing = Math.toDegrees(Math.atan2(y, x));
+        return (float) ((bearing + 360) % 360);
+    }
+
+    /**
+     * Distancia total de un tramo de la ruta
+     *
+     * @param from Índice del primer punto
+     * @param to Índice siguiente al último punto
+     * @return Distancia en metros
+     */
+    public static double totalDistance(double[] latitudes, double[] longitudes, int from, int to) {
+        double total = 0;
+        for (int i = from + 1; i < to; i++) {
+            total += distance(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Recorre la ruta una sola vez calculando la distancia, velocidad, ritmo y rumbo de cada
+     * segmento. El segmento i va del punto i al i + 1; los arrays de salida son opcionales.
+     *
+     * @param count Número de puntos
+     * @param segmentDistances Distancia de cada segmento en metros, o null
+     * @param segmentSpeeds Velocidad de cada segmento en m/s (0 si no avanza el tiempo), o null
+     * @param segmentPaces Ritmo de cada segmento en segundos por kilómetro (0 si no avanza), o null
+     * @param segmentBearings Rumbo de cada segmento en grados, o null
+     * @return Distancia total en metros
+     */
+    public static double measureSegments(double[] latitudes, double[] longitudes, long[] times, int count,
+                                         float[] segmentDistances, float[] segmentSpeeds,
+                                         float[] segmentPaces, float[] segmentBearings) {
+        double total = 0;
+        for (int i = 0; i + 1 < count; i++) {
+            double distance = distance(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]);
+            total += distance;
+            if (segmentDistances != null) {
+                segmentDistances[i] = (float) distance;
+            }
+            long elapsed = times[i + 1] - times[i];
+            if (segmentSpeeds != null) {
+                segmentSpeeds[i] = elapsed > 0 ? (float) (distance * 1000 / elapsed) : 0;
+            }
+            if (segmentPaces != null) {
+                segmentPaces[i] = elapsed > 0 ? (float) pace(distance, elapsed) : 0;
+            }
+            if (segmentBearings != null) {
+                segmentBearings[i] = bearing(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Ritmo en segundos por kilómetro, sin tener en cuenta el desnivel
+     *
+     * @param distanceMeters Distancia recorrida en metros
+     * @param durationMs Tiempo empleado en milisegundos
+     * @return Segundos por kilómetro, o 0 si no hay distancia
+     */
+    public static double pace(double distanceMeters, long durationMs) {
+        return distanceMeters > 0 ? durationMs / distanceMeters : 0;
+    }
+}
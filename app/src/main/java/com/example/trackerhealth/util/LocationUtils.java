@@ -2,26 +2,18 @@ package com.example.trackerhealth.util;
 
 import android.content.Context;
 import android.location.Location;
-import android.util.Log;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import com.example.trackerhealth.route.RouteStore;
+
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Clase de utilidades para operaciones relacionadas con la ubicación y el GPS
  */
 public class LocationUtils {
     
-    private static final double EARTH_RADIUS = 6371000; // Radio de la Tierra en metros
-    
     /**
-     * Calcula la distancia entre dos puntos usando la fórmula Haversine
-     * Más preciso que Location.distanceTo() para largas distancias
+     * Calcula la distancia entre dos puntos con {@link Geodesy#distance}
      * 
      * @param lat1 Latitud del punto 1
      * @param lon1 Longitud del punto 1
@@ -30,32 +22,7 @@ public class LocationUtils {
      * @return Distancia en metros entre los dos puntos
      */
     public static float calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        // Convertir coordenadas a radianes
-        double latRad1 = Math.toRadians(lat1);
-        double lonRad1 = Math.toRadians(lon1);
-        double latRad2 = Math.toRadians(lat2);
-        double lonRad2 = Math.toRadians(lon2);
-        
-        // Diferencias
-        double dLat = latRad2 - latRad1;
-        double dLon = lonRad2 - lonRad1;
-        
-        // Fórmula Haversine
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                   Math.cos(latRad1) * Math.cos(latRad2) *
-                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        // Distancia en metros
-        float distance = (float) (EARTH_RADIUS * c);
-        
-        // Log para depuración
-        Log.d("LocationUtils", String.format(
-                "Distance calculated: %.2f meters between [%.6f,%.6f] and [%.6f,%.6f]",
-                distance, lat1, lon1, lat2, lon2));
-        
-        return distance;
+        return (float) Geodesy.distance(lat1, lon1, lat2, lon2);
     }
     
     /**
@@ -131,7 +98,7 @@ public class LocationUtils {
     }
 
     /**
-     * Guarda los datos de la ruta GPS en un archivo
+     * Guarda los datos de la ruta GPS en un archivo (formato binario de {@link RouteStore})
      * 
      * @param context Contexto de la aplicación
      * @param activityId ID de la actividad
@@ -139,43 +106,6 @@ public class LocationUtils {
      * @return Ruta del archivo guardado o null si hubo un error
      */
     public static String saveRouteData(Context context, long activityId, List<Location> locationHistory) {
-        if (context == null || locationHistory == null || locationHistory.isEmpty()) {
-            return null;
-        }
-
-        try {
-            // Crear directorio si no existe
-            File routesDir = new File(context.getFilesDir(), "routes");
-            if (!routesDir.exists()) {
-                routesDir.mkdirs();
-            }
-
-            // Crear nombre de archivo único
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date());
-            String fileName = String.format("route_%d_%s.txt", activityId, timestamp);
-            File routeFile = new File(routesDir, fileName);
-
-            // Escribir datos de ubicación al archivo
-            try (FileWriter writer = new FileWriter(routeFile)) {
-                writer.write("timestamp,latitude,longitude,accuracy,speed,altitude\n");
-                
-                for (Location location : locationHistory) {
-                    writer.write(String.format(Locale.US,
-                            "%d,%.6f,%.6f,%.1f,%.1f,%.1f\n",
-                            location.getTime(),
-                            location.getLatitude(),
-                            location.getLongitude(),
-                            location.hasAccuracy() ? location.getAccuracy() : -1,
-                            location.hasSpeed() ? location.getSpeed() : -1,
-                            location.hasAltitude() ? location.getAltitude() : -1));
-                }
-            }
-
-            return routeFile.getAbsolutePath();
-
-        } catch (IOException e) {
-            Log.e("LocationUtils", "Error saving route data: " + e.getMessage());
-            return null;
-        }
+        return RouteStore.save(context, activityId, locationHistory);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,418 @@
+package com.example.trackerhealth.adapters;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.trackerhealth.R;
+import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.model.PhysicalActivity;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Shows a 1k-item list in a RecyclerView, applies single-row changes through submitList and
+ * counts the notifications and the rows rebound. The diffs run on a queued executor that
+ * the test drains before idling the main looper, so no test waits on a clock.
+ *
+ * With -Pbenchmarks it also prints the time spent in measure and layout after an insert,
+ * next to the same frame after notifyDataSetChanged, which is what every reload did before
+ * the adapters diffed their lists. Robolectric does not render, so layout time stands in
+ * for frame time.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AdapterUpdateBenchmark {
+
+    private static final int ITEMS = 1000;
+
+    private Activity activity;
+    private TimedRecyclerView recyclerView;
+    private final QueuedExecutor diffExecutor = new QueuedExecutor();
+    private final UpdateCounter updates = new UpdateCounter();
+    private int binds;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).setup().get();
+        // The rows are inflated with the activity as context
+        activity.setTheme(R.style.AppTheme);
+        recyclerView = new TimedRecyclerView(activity);
+        recyclerView.setLayoutManager(new LinearLayoutManager(activity));
+        activity.setContentView(recyclerView, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    }
+
+    @Test
+    public void activityInsertRebindsOneRow() {
+        ActivityAdapter adapter = countingActivityAdapter();
+        List<PhysicalActivity> list = activities(ITEMS);
+        show(adapter, () -> adapter.submitList(list), adapter::getCurrentList, list);
+
+        Frame diff = insertActivity(adapter, list);
+
+        assertEquals(0, diff.fullChanges);
+        assertEquals(1, diff.inserted);
+        assertEquals(1, diff.binds);
+    }
+
+    @Test
+    public void activityEditAndDeleteRebindOnlyWhatChanged() {
+        ActivityAdapter adapter = countingActivityAdapter();
+        List<PhysicalActivity> list = activities(ITEMS);
+        show(adapter, () -> adapter.submitList(list), adapter::getCurrentList, list);
+
+        // A copy with different calories, as a reload from the database returns
+        List<PhysicalActivity> edited = new ArrayList<>(list);
+        PhysicalActivity copy = activity(1);
+        copy.setCaloriesBurned(copy.getCaloriesBurned() + 100);
+        edited.set(1, copy);
+        Frame edit = update(() -> adapter.submitList(edited), adapter::getCurrentList, edited);
+        assertEquals(0, edit.fullChanges);
+        assertEquals(1, edit.changed);
+        assertEquals(1, edit.binds);
+
+        List<PhysicalActivity> deleted = new ArrayList<>(edited);
+        deleted.remove(2);
+        Frame delete = update(() -> adapter.submitList(deleted), adapter::getCurrentList, deleted);
+        assertEquals(0, delete.fullChanges);
+        assertEquals(1, delete.removed);
+        // Only the row that scrolls in at the bottom is bound
+        assertEquals(1, delete.binds);
+    }
+
+    @Test
+    public void mealInsertRebindsOneRow() {
+        MealAdapter adapter = countingMealAdapter();
+        List<Meal> list = meals(ITEMS);
+        show(adapter, () -> adapter.submitList(list), adapter::getCurrentList, list);
+
+        Frame diff = insertMeal(adapter, list);
+
+        assertEquals(0, diff.fullChanges);
+        assertEquals(1, diff.inserted);
+        assertEquals(1, diff.binds);
+    }
+
+    @Test
+    public void appendedPageLeavesVisibleRowsAlone() {
+        ActivityAdapter adapter = countingActivityAdapter();
+        List<PhysicalActivity> list = activities(ITEMS);
+        show(adapter, () -> adapter.submitList(list), adapter::getCurrentList, list);
+
+        List<PhysicalActivity> page = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            page.add(activity(ITEMS + i));
+        }
+        List<PhysicalActivity> expected = new ArrayList<>(list);
+        expected.addAll(page);
+        Frame append = update(() -> adapter.appendActivities(page), adapter::getCurrentList, expected);
+
+        assertEquals(0, append.fullChanges);
+        assertEquals(20, append.inserted);
+        // The new rows are below the fold
+        assertEquals(0, append.binds);
+    }
+
+    @Test
+    public void insertFrameVersusFullReload() {
+        Assume.assumeTrue("run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+
+        ActivityAdapter activityAdapter = countingActivityAdapter();
+        List<PhysicalActivity> activities = activities(ITEMS);
+        show(activityAdapter, () -> activityAdapter.submitList(activities), activityAdapter::getCurrentList,
+                activities);
+        report("ActivityAdapter insert", insertActivity(activityAdapter, activities), reloadAll(activityAdapter));
+
+        MealAdapter mealAdapter = countingMealAdapter();
+        List<Meal> meals = meals(ITEMS);
+        show(mealAdapter, () -> mealAdapter.submitList(meals), mealAdapter::getCurrentList, meals);
+        report("MealAdapter insert", insertMeal(mealAdapter, meals), reloadAll(mealAdapter));
+    }
+
+    private ActivityAdapter countingActivityAdapter() {
+        return new ActivityAdapter(activity, null, diffExecutor) {
+            @Override
+            public void onBindViewHolder(@NonNull ActivityViewHolder holder, int position) {
+                binds++;
+                super.onBindViewHolder(holder, position);
+            }
+        };
+    }
+
+    private MealAdapter countingMealAdapter() {
+        return new MealAdapter(activity, null, diffExecutor) {
+            @Override
+            public void onBindViewHolder(@NonNull MealViewHolder holder, int position) {
+                binds++;
+                super.onBindViewHolder(holder, position);
+            }
+        };
+    }
+
+    /**
+     * Insert a new activity below the first row, which LinearLayoutManager keeps in place as
+     * its anchor
+     */
+    private Frame insertActivity(ActivityAdapter adapter, List<PhysicalActivity> list) {
+        List<PhysicalActivity> inserted = new ArrayList<>(list);
+        inserted.add(2, activity(ITEMS));
+        return update(() -> adapter.submitList(inserted), adapter::getCurrentList, inserted);
+    }
+
+    private Frame insertMeal(MealAdapter adapter, List<Meal> list) {
+        List<Meal> inserted = new ArrayList<>(list);
+        inserted.add(2, meal(ITEMS));
+        return update(() -> adapter.submitList(inserted), adapter::getCurrentList, inserted);
+    }
+
+    /**
+     * Attach the adapter, submit the first list and lay it out
+     */
+    private <T> void show(RecyclerView.Adapter<?> adapter, Runnable submit, CurrentList<T> current, List<T> list) {
+        recyclerView.setAdapter(adapter);
+        adapter.registerAdapterDataObserver(updates);
+        submit.run();
+        awaitList(current, list);
+        layoutFrame();
+        assertTrue("no rows on screen", recyclerView.getChildCount() > 0);
+    }
+
+    /**
+     * Run an update, wait for the background diff to be dispatched and lay out the result
+     * @return Notifications, binds and layout time caused by the update
+     */
+    private <T> Frame update(Runnable change, CurrentList<T> current, List<T> expected) {
+        updates.reset();
+        binds = 0;
+        recyclerView.layoutNanos = 0;
+        long start = System.nanoTime();
+        change.run();
+        awaitList(current, expected);
+        layoutFrame();
+        return new Frame(updates, binds, recyclerView.layoutNanos, System.nanoTime() - start);
+    }
+
+    /**
+     * The same frame after notifyDataSetChanged, as the screens reloaded before
+     */
+    private Frame reloadAll(RecyclerView.Adapter<?> adapter) {
+        int visible = recyclerView.getChildCount();
+        Frame frame = update(adapter::notifyDataSetChanged, () -> null, null);
+        assertEquals(1, frame.fullChanges);
+        assertTrue("rebound " + frame.binds + " of " + visible + " rows", frame.binds >= visible);
+        return frame;
+    }
+
+    /**
+     * Run the queued diffs, then idle the main looper so the differ dispatches their results,
+     * and check that the differ's current list holds exactly the expected items
+     */
+    private <T> void awaitList(CurrentList<T> current, List<T> expected) {
+        diffExecutor.drain();
+        shadowOf(Looper.getMainLooper()).idle();
+        if (expected != null) {
+            assertTrue("diff not dispatched", sameItems(current.get(), expected));
+        }
+    }
+
+    private void layoutFrame() {
+        shadowOf(Looper.getMainLooper()).idle();
+        // Run any layout the looper did not, then end running item animations
+        recyclerView.measure(
+                View.MeasureSpec.makeMeasureSpec(recyclerView.getWidth(), View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(recyclerView.getHeight(), View.MeasureSpec.EXACTLY));
+        recyclerView.layout(recyclerView.getLeft(), recyclerView.getTop(),
+                recyclerView.getRight(), recyclerView.getBottom());
+        if (recyclerView.getItemAnimator() != null) {
+            recyclerView.getItemAnimator().endAnimations();
+        }
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static <T> boolean sameItems(List<T> actual, List<T> expected) {
+        if (actual.size() != expected.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            if (actual.get(i) != expected.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void report(String update, Frame diff, Frame reload) {
+        System.out.println(String.format(Locale.US,
+                "%s over %d items: diff %d binds, layout %.2f ms, %.2f ms to settle | "
+                        + "notifyDataSetChanged %d binds, layout %.2f ms",
+                update, ITEMS, diff.binds, diff.layoutNanos / 1e6, diff.totalNanos / 1e6,
+                reload.binds, reload.layoutNanos / 1e6));
+    }
+
+    private static List<PhysicalActivity> activities(int count) {
+        List<PhysicalActivity> activities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            activities.add(activity(i));
+        }
+        return activities;
+    }
+
+    /**
+     * Activity with ID index + 1; a new object on every call, as a reload returns
+     */
+    private static PhysicalActivity activity(int index) {
+        PhysicalActivity activity = new PhysicalActivity(1, "Running", 30 + index % 60, 250 + index % 400,
+                5.0 + index % 10, null);
+        activity.setId(index + 1);
+        activity.setDate(String.format(Locale.US, "2024-01-%02d 07:00:00", index % 28 + 1));
+        return activity;
+    }
+
+    private static List<Meal> meals(int count) {
+        List<Meal> meals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            meals.add(meal(i));
+        }
+        return meals;
+    }
+
+    private static Meal meal(int index) {
+        return new Meal(index + 1, 1, "Meal " + index, "Lunch", 500 + index % 500, 30, 60, 20,
+                "2024-01-01", "13:30:00", null, null);
+    }
+
+    private interface CurrentList<T> {
+        List<T> get();
+    }
+
+    /**
+     * Result of one update
+     */
+    private static final class Frame {
+        final int fullChanges;
+        final int inserted;
+        final int removed;
+        final int changed;
+        final int binds;
+        final long layoutNanos;
+        final long totalNanos;
+
+        Frame(UpdateCounter updates, int binds, long layoutNanos, long totalNanos) {
+            this.fullChanges = updates.fullChanges;
+            this.inserted = updates.inserted;
+            this.removed = updates.removed;
+            this.changed = updates.changed;
+            this.binds = binds;
+            this.layoutNanos = layoutNanos;
+            this.totalNanos = totalNanos;
+        }
+    }
+
+    /**
+     * Holds the background diffs until the test drains them on its own thread
+     */
+    private static final class QueuedExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void drain() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Counts the rows each kind of notification covers
+     */
+    private static final class UpdateCounter extends RecyclerView.AdapterDataObserver {
+        int fullChanges;
+        int inserted;
+        int removed;
+        int changed;
+
+        void reset() {
+            fullChanges = 0;
+            inserted = 0;
+            removed = 0;
+            changed = 0;
+        }
+
+        @Override
+        public void onChanged() {
+            fullChanges++;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            changed += itemCount;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            changed += itemCount;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            inserted += itemCount;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            removed += itemCount;
+        }
+    }
+
+    /**
+     * Adds up the time spent in measure and layout
+     */
+    private static final class TimedRecyclerView extends RecyclerView {
+        long layoutNanos;
+
+        TimedRecyclerView(Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onMeasure(int widthSpec, int heightSpec) {
+            long start = System.nanoTime();
+            super.onMeasure(widthSpec, heightSpec);
+            layoutNanos += System.nanoTime() - start;
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            long start = System.nanoTime();
+            super.onLayout(changed, l, t, r, b);
+            layoutNanos += System.nanoTime() - start;
+        }
+    }
+}
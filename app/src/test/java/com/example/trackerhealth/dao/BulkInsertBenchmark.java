@@ -0,0 +1,191 @@
+package com.example.trackerhealth.dao;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.model.User;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Imports 10k activities and 10k meals through the per-row insert methods and through
+ * insertActivities/insertMeals, and prints the time and rows per second of each path.
+ * Both paths start from an empty table. The timed imports only run with -Pbenchmarks; the
+ * check of the IDs the bulk path returns against the rows actually stored always runs.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int WARM_UP_ROWS = 1_000;
+    private static final int CHECKED_ROWS = 100;
+
+    private SQLiteDatabase db;
+    private PhysicalActivityDAO activityDAO;
+    private MealDAO mealDAO;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        DatabaseHelper.resetInstance();
+        Context context = ApplicationProvider.getApplicationContext();
+        db = DatabaseHelper.getInstance(context).getWritableDatabase();
+        activityDAO = new PhysicalActivityDAO(context);
+        mealDAO = new MealDAO(context);
+        userId = new UserDAO(context).insertUser(new User("Benchmark", "benchmark@example.com", "x"));
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void bulkIdsMatchTheStoredRows() {
+        List<PhysicalActivity> activities = activities(CHECKED_ROWS);
+        long[] activityIds = activityDAO.insertActivities(activities);
+        assertAllSaved(activityIds, CHECKED_ROWS);
+        assertEquals(CHECKED_ROWS, count(DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES));
+        for (int i = 0; i < activityIds.length; i++) {
+            PhysicalActivity stored = activityDAO.getActivityById(activityIds[i]);
+            assertNotNull(stored);
+            assertEquals(activities.get(i).getNotes(), stored.getNotes());
+        }
+
+        List<Meal> meals = meals(CHECKED_ROWS);
+        long[] mealIds = mealDAO.insertMeals(meals);
+        assertAllSaved(mealIds, CHECKED_ROWS);
+        assertEquals(CHECKED_ROWS, count(DatabaseHelper.TABLE_MEALS));
+        for (int i = 0; i < mealIds.length; i++) {
+            Meal stored = mealDAO.getMealById(mealIds[i]);
+            assertNotNull(stored);
+            assertEquals(meals.get(i).getName(), stored.getName());
+        }
+    }
+
+    @Test
+    public void activityImport() {
+        assumeBenchmarks();
+        // Warm up both paths outside the measurement
+        insertActivitiesPerRow(activities(WARM_UP_ROWS));
+        activityDAO.insertActivities(activities(WARM_UP_ROWS));
+        clear(DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES);
+
+        long start = System.nanoTime();
+        insertActivitiesPerRow(activities(ROWS));
+        long perRow = System.nanoTime() - start;
+        assertEquals(ROWS, count(DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES));
+        clear(DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES);
+
+        start = System.nanoTime();
+        long[] ids = activityDAO.insertActivities(activities(ROWS));
+        long bulk = System.nanoTime() - start;
+        assertEquals(ROWS, count(DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES));
+        assertAllSaved(ids, ROWS);
+
+        report("activities", perRow, bulk);
+    }
+
+    @Test
+    public void mealImport() {
+        assumeBenchmarks();
+        insertMealsPerRow(meals(WARM_UP_ROWS));
+        mealDAO.insertMeals(meals(WARM_UP_ROWS));
+        clear(DatabaseHelper.TABLE_MEALS);
+
+        long start = System.nanoTime();
+        insertMealsPerRow(meals(ROWS));
+        long perRow = System.nanoTime() - start;
+        assertEquals(ROWS, count(DatabaseHelper.TABLE_MEALS));
+        clear(DatabaseHelper.TABLE_MEALS);
+
+        start = System.nanoTime();
+        long[] ids = mealDAO.insertMeals(meals(ROWS));
+        long bulk = System.nanoTime() - start;
+        assertEquals(ROWS, count(DatabaseHelper.TABLE_MEALS));
+        assertAllSaved(ids, ROWS);
+
+        report("meals", perRow, bulk);
+    }
+
+    private static void assumeBenchmarks() {
+        Assume.assumeTrue("run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+    }
+
+    private void insertActivitiesPerRow(List<PhysicalActivity> activities) {
+        for (PhysicalActivity activity : activities) {
+            assertTrue(activityDAO.insertActivity(activity) > 0);
+        }
+    }
+
+    private void insertMealsPerRow(List<Meal> meals) {
+        for (Meal meal : meals) {
+            assertTrue(mealDAO.insert(meal) > 0);
+        }
+    }
+
+    /**
+     * IDs are positive, distinct and in insertion order
+     */
+    private static void assertAllSaved(long[] ids, int rows) {
+        assertEquals(rows, ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            assertTrue("row " + i + " got id " + ids[i], ids[i] > 0 && (i == 0 || ids[i] > ids[i - 1]));
+        }
+    }
+
+    private static void report(String table, long perRowNanos, long bulkNanos) {
+        System.out.println(String.format(Locale.US,
+                "Import of %d %s: per row %.0f ms (%.0f rows/s), bulk %.0f ms (%.0f rows/s), %.1fx",
+                ROWS, table, perRowNanos / 1e6, ROWS * 1e9 / perRowNanos,
+                bulkNanos / 1e6, ROWS * 1e9 / bulkNanos, (double) perRowNanos / bulkNanos));
+    }
+
+    private List<PhysicalActivity> activities(int count) {
+        List<PhysicalActivity> activities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PhysicalActivity activity = new PhysicalActivity(userId, "Running", 30 + i % 60,
+                    250 + i % 400, 3 + i % 10, "Imported " + i);
+            activity.setDate(String.format(Locale.US, "2023-%02d-%02d 07:%02d:00",
+                    i % 12 + 1, i % 28 + 1, i % 60));
+            activities.add(activity);
+        }
+        return activities;
+    }
+
+    private List<Meal> meals(int count) {
+        List<Meal> meals = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            meals.add(new Meal(userId, "Imported " + i, "Lunch", 500 + i % 500, 30, 60, 20,
+                    String.format(Locale.US, "2023-%02d-%02d", i % 12 + 1, i % 28 + 1), "13:30:00", null));
+        }
+        return meals;
+    }
+
+    private void clear(String table) {
+        db.delete(table, null, null);
+    }
+
+    private long count(String table) {
+        return DatabaseUtils.queryNumEntries(db, table);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.trackerhealth.dao;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.model.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Walks the activity and meal history page by page, the way KeysetPager does, over rows
+ * that share dates and rows without a date. Every page size must return each row exactly
+ * once, in the order of a single ORDER BY date DESC, id DESC query.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class KeysetPageTest {
+
+    // Dates in insertion order; null rows sort after all dated ones
+    private static final String[] DATES = {"2024-01-02", null, "2024-01-03", "2024-01-02", null,
+            "2024-01-01", null, "2024-01-03", null};
+    private static final int[] PAGE_SIZES = {1, 2, 3, 4, 20};
+
+    private PhysicalActivityDAO activityDAO;
+    private MealDAO mealDAO;
+    private long userId;
+
+    @Before
+    public void setUp() {
+        DatabaseHelper.resetInstance();
+        Context context = ApplicationProvider.getApplicationContext();
+        activityDAO = new PhysicalActivityDAO(context);
+        mealDAO = new MealDAO(context);
+        userId = new UserDAO(context).insertUser(new User("Pager", "pager@example.com", "x"));
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void activityPagesReturnEveryRowOnce() {
+        List<PhysicalActivity> activities = new ArrayList<>();
+        for (int i = 0; i < DATES.length; i++) {
+            PhysicalActivity activity = new PhysicalActivity(userId, "Running", 30, 250, 5, "Activity " + i);
+            activity.setDate(DATES[i]);
+            activities.add(activity);
+        }
+        long[] ids = activityDAO.insertActivities(activities);
+
+        for (int pageSize : PAGE_SIZES) {
+            List<Long> walked = new ArrayList<>();
+            String afterDate = null;
+            long afterId = 0;
+            List<PhysicalActivity> page;
+            do {
+                page = activityDAO.getActivitiesPage(userId, afterDate, afterId, pageSize);
+                for (PhysicalActivity activity : page) {
+                    walked.add(activity.getId());
+                }
+                if (!page.isEmpty()) {
+                    afterDate = page.get(page.size() - 1).getDate();
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == pageSize);
+
+            assertEquals("page size " + pageSize, expectedOrder(ids), walked);
+        }
+    }
+
+    @Test
+    public void mealPagesReturnEveryRowOnce() {
+        List<Meal> meals = new ArrayList<>();
+        for (int i = 0; i < DATES.length; i++) {
+            meals.add(new Meal(userId, "Meal " + i, "Lunch", 500, 30, 60, 20, DATES[i], "13:30:00", null));
+        }
+        long[] ids = mealDAO.insertMeals(meals);
+
+        for (int pageSize : PAGE_SIZES) {
+            List<Long> walked = new ArrayList<>();
+            String afterDate = null;
+            long afterId = 0;
+            List<Meal> page;
+            do {
+                page = mealDAO.getMealsPage(userId, afterDate, afterId, pageSize);
+                for (Meal meal : page) {
+                    walked.add(meal.getId());
+                }
+                if (!page.isEmpty()) {
+                    afterDate = page.get(page.size() - 1).getDate();
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == pageSize);
+
+            assertEquals("page size " + pageSize, expectedOrder(ids), walked);
+        }
+    }
+
+    /**
+     * Dated rows by date and ID, newest first, then the undated rows by ID
+     */
+    private static List<Long> expectedOrder(long[] ids) {
+        // Row indexes of DATES sorted by hand: 2024-01-03 (7, 2), 2024-01-02 (3, 0),
+        // 2024-01-01 (5), then no date (8, 6, 4, 1)
+        int[] order = {7, 2, 3, 0, 5, 8, 6, 4, 1};
+        List<Long> expected = new ArrayList<>();
+        for (int index : order) {
+            expected.add(ids[index]);
+        }
+        return expected;
+    }
+}
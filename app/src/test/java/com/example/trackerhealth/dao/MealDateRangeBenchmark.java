@@ -0,0 +1,174 @@
+package com.example.trackerhealth.dao;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.model.User;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loads the meals of each Reports period the way ReportsActivity used to, one
+ * getMealsForDate query per day, and with the single getMealsByDateRange query, then
+ * prints the query count and latency of both. Each DAO call runs exactly one query, so the
+ * query count is the number of calls. The timed run only happens with -Pbenchmarks; the
+ * comparison of the meals returned always runs.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MealDateRangeBenchmark {
+
+    private static final String END_DATE = "2024-06-30";
+    private static final int MEALS_PER_DAY = 3;
+    private static final int DAYS = 400;
+    private static final int RUNS = 5;
+    // Same periods and same Calendar offsets as ReportsActivity.updateReports
+    private static final String[] PERIOD_NAMES = {"7 days", "30 days", "3 months", "1 year"};
+    private static final int[][] PERIOD_OFFSETS = {
+            {Calendar.DAY_OF_YEAR, -7}, {Calendar.DAY_OF_YEAR, -30}, {Calendar.MONTH, -3}, {Calendar.YEAR, -1}};
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+    private MealDAO mealDAO;
+    private long userId;
+
+    @Before
+    public void setUp() throws Exception {
+        DatabaseHelper.resetInstance();
+        mealDAO = new MealDAO(ApplicationProvider.getApplicationContext());
+        userId = new UserDAO(ApplicationProvider.getApplicationContext())
+                .insertUser(new User("Benchmark", "benchmark@example.com", "x"));
+
+        Calendar calendar = calendarAt(END_DATE);
+        List<Meal> meals = new ArrayList<>(DAYS * MEALS_PER_DAY);
+        for (int day = 0; day < DAYS; day++) {
+            String date = dateFormat.format(calendar.getTime());
+            meals.add(new Meal(userId, "Breakfast " + day, "Breakfast", 400, 20, 50, 10, date, "08:00:00", null));
+            meals.add(new Meal(userId, "Lunch " + day, "Lunch", 800, 40, 90, 25, date, "14:00:00", null));
+            meals.add(new Meal(userId, "Dinner " + day, "Dinner", 600, 30, 60, 20, date, "21:00:00", null));
+            calendar.add(Calendar.DAY_OF_YEAR, -1);
+        }
+        long[] ids = mealDAO.insertMeals(meals);
+        assertTrue(Arrays.stream(ids).allMatch(id -> id > 0));
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void rangeQueryReturnsTheSameMealsAsPerDayQueries() throws Exception {
+        for (int[] offset : PERIOD_OFFSETS) {
+            String startDate = startDate(offset);
+
+            Set<Long> perDay = new HashSet<>();
+            for (String date : daysBetween(startDate, END_DATE)) {
+                for (Meal meal : mealDAO.getMealsForDate(userId, date)) {
+                    perDay.add(meal.getId());
+                }
+            }
+            List<Meal> range = mealDAO.getMealsByDateRange(userId, startDate, END_DATE);
+            Set<Long> rangeIds = new HashSet<>();
+            for (Meal meal : range) {
+                rangeIds.add(meal.getId());
+            }
+
+            assertEquals(perDay.size(), range.size());
+            assertEquals(perDay, rangeIds);
+            assertEquals(daysBetween(startDate, END_DATE).size() * MEALS_PER_DAY, range.size());
+        }
+    }
+
+    @Test
+    public void queryCountAndLatencyPerPeriod() throws Exception {
+        Assume.assumeTrue("run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        // The first round warms up the JIT and SQLite's page cache and is not printed
+        for (int round = 0; round < 2; round++) {
+            StringBuilder report = new StringBuilder("Report meals per period:");
+            for (int period = 0; period < PERIOD_OFFSETS.length; period++) {
+                String startDate = startDate(PERIOD_OFFSETS[period]);
+                List<String> days = daysBetween(startDate, END_DATE);
+
+                long[] perDay = new long[RUNS];
+                long[] range = new long[RUNS];
+                int perDayQueries = 0;
+                int rangeQueries = 0;
+                for (int run = 0; run < RUNS; run++) {
+                    perDayQueries = 0;
+                    int perDayMeals = 0;
+                    long start = System.nanoTime();
+                    for (String date : days) {
+                        perDayMeals += mealDAO.getMealsForDate(userId, date).size();
+                        perDayQueries++;
+                    }
+                    perDay[run] = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    int rangeMeals = mealDAO.getMealsByDateRange(userId, startDate, END_DATE).size();
+                    rangeQueries = 1;
+                    range[run] = System.nanoTime() - start;
+
+                    assertEquals(perDayMeals, rangeMeals);
+                }
+
+                assertEquals(days.size(), perDayQueries);
+                report.append(String.format(Locale.US,
+                        "%n  %-8s per day: %3d queries %8.2f ms | range: %d query %6.2f ms",
+                        PERIOD_NAMES[period], perDayQueries, median(perDay) / 1e6,
+                        rangeQueries, median(range) / 1e6));
+            }
+            if (round > 0) {
+                System.out.println(report);
+            }
+        }
+    }
+
+    private String startDate(int[] offset) throws Exception {
+        Calendar calendar = calendarAt(END_DATE);
+        calendar.add(offset[0], offset[1]);
+        return dateFormat.format(calendar.getTime());
+    }
+
+    /**
+     * Every date from start to end, both included, as ReportsActivity used to walk them
+     */
+    private List<String> daysBetween(String startDate, String endDate) throws Exception {
+        List<String> days = new ArrayList<>();
+        Calendar calendar = calendarAt(startDate);
+        Calendar end = calendarAt(endDate);
+        while (!calendar.after(end)) {
+            days.add(dateFormat.format(calendar.getTime()));
+            calendar.add(Calendar.DAY_OF_YEAR, 1);
+        }
+        return days;
+    }
+
+    private Calendar calendarAt(String date) throws Exception {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(dateFormat.parse(date));
+        return calendar;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.trackerhealth.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs EXPLAIN QUERY PLAN on the SQL the DAOs actually execute, against the schema and
+ * indexes created by DatabaseHelper.onCreate, and fails if any of them scans a whole
+ * table. Queries issued with SQLiteDatabase.query are rebuilt with the same
+ * SQLiteQueryBuilder call it makes internally, from the DAOs' own clauses and projections.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class QueryPlanTest {
+
+    private static final String USER = "1";
+    private static final String DAY = "2024-01-15";
+    private static final String START = "2024-01-01";
+    private static final String END = "2024-01-31";
+    private static final String LAST_ID = "42";
+    private static final String LIMIT = "20";
+
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        // In-memory database with the production schema; the helper's own file is not opened
+        db = SQLiteDatabase.create(null);
+        DatabaseHelper.getInstance(ApplicationProvider.getApplicationContext()).onCreate(db);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void mealQueriesUseIndexes() {
+        assertIndexed(meals(MealDAO.SELECTION_USER, MealDAO.ORDER_BY_DATE_TIME, null), USER);
+        assertIndexed(meals(MealDAO.SELECTION_USER_DATE, MealDAO.ORDER_BY_TIME, null), USER, DAY);
+        assertIndexed(meals(MealDAO.SELECTION_USER_DATE_RANGE, MealDAO.ORDER_BY_DATE_TIME, null),
+                USER, START, END);
+    }
+
+    @Test
+    public void mealPagesSeekPastTheCursor() {
+        List<String> first = assertIndexed(meals(MealDAO.SELECTION_USER, MealDAO.ORDER_BY_DATE_ID, LIMIT), USER);
+        assertNoSort(first);
+
+        List<String> next = assertIndexed(meals(MealDAO.SELECTION_PAGE_AFTER, MealDAO.ORDER_BY_DATE_ID, LIMIT),
+                USER, DAY, DAY, LAST_ID);
+        assertBoundedByDate(next);
+        assertNoSort(next);
+
+        assertNoSort(assertIndexed(meals(MealDAO.SELECTION_PAGE_UNDATED, MealDAO.ORDER_BY_DATE_ID, LIMIT),
+                USER, LAST_ID));
+    }
+
+    @Test
+    public void activityQueriesUseIndexes() {
+        assertIndexed(activities(PhysicalActivityDAO.SELECTION_USER, PhysicalActivityDAO.ORDER_BY_DATE, null),
+                USER);
+        assertIndexed(activities(PhysicalActivityDAO.SELECTION_USER, PhysicalActivityDAO.ORDER_BY_DATE, LIMIT),
+                USER);
+        assertIndexed(activities(PhysicalActivityDAO.SELECTION_USER_DATE, PhysicalActivityDAO.ORDER_BY_ID, null),
+                USER, DAY);
+        assertIndexed(activities(PhysicalActivityDAO.SELECTION_USER_DATE_RANGE,
+                PhysicalActivityDAO.ORDER_BY_DATE, null), USER, START, END);
+        assertIndexed(activities(PhysicalActivityDAO.SELECTION_USER_WITH_LOCATION,
+                PhysicalActivityDAO.ORDER_BY_DATE, null), USER);
+    }
+
+    @Test
+    public void activityPagesSeekPastTheCursor() {
+        List<String> first = assertIndexed(activities(PhysicalActivityDAO.SELECTION_USER,
+                PhysicalActivityDAO.ORDER_BY_DATE_ID, LIMIT), USER);
+        assertNoSort(first);
+
+        List<String> next = assertIndexed(activities(PhysicalActivityDAO.SELECTION_PAGE_AFTER,
+                PhysicalActivityDAO.ORDER_BY_DATE_ID, LIMIT), USER, DAY, DAY, LAST_ID);
+        assertBoundedByDate(next);
+        assertNoSort(next);
+
+        assertNoSort(assertIndexed(activities(PhysicalActivityDAO.SELECTION_PAGE_UNDATED,
+                PhysicalActivityDAO.ORDER_BY_DATE_ID, LIMIT), USER, LAST_ID));
+    }
+
+    @Test
+    public void reportQueriesUseIndexes() {
+        assertIndexed(ReportAggregationDAO.ACTIVITY_TOTALS_QUERY, USER, START, END);
+        assertIndexed(ReportAggregationDAO.MEAL_TOTALS_QUERY, USER, START, END);
+        assertIndexed(ReportAggregationDAO.DAILY_ACTIVITY_MINUTES_QUERY, USER, START, END);
+        assertIndexed(ReportAggregationDAO.DAILY_CALORIES_QUERY, USER, START, END);
+        assertIndexed(ReportAggregationDAO.ROUTE_ANALYTICS_QUERY, USER, START, END);
+    }
+
+    private static String meals(String selection, String orderBy, String limit) {
+        return SQLiteQueryBuilder.buildQueryString(false, DatabaseHelper.TABLE_MEALS,
+                MealRowMapper.PROJECTION, selection, null, null, orderBy, limit);
+    }
+
+    private static String activities(String selection, String orderBy, String limit) {
+        return SQLiteQueryBuilder.buildQueryString(false, DatabaseHelper.TABLE_PHYSICAL_ACTIVITIES,
+                ActivityRowMapper.PROJECTION, selection, null, null, orderBy, limit);
+    }
+
+    /**
+     * Explain a query and fail if any step scans a table. Errors preparing the query are not
+     * caught, so a query that no longer compiles fails the test too.
+     * @return The detail column of each plan step
+     */
+    private List<String> assertIndexed(String sql, String... args) {
+        List<String> plan = explain(sql, args);
+        assertFalse("Empty plan for " + sql, plan.isEmpty());
+        for (String step : plan) {
+            // "SCAN t", "SCAN TABLE t" on older SQLite, or a full walk of an index
+            assertFalse("Full scan (" + step + ") in " + sql, step.startsWith("SCAN"));
+        }
+        return plan;
+    }
+
+    /**
+     * The keyset cursor must be part of the index range, not a filter applied after it
+     */
+    private static void assertBoundedByDate(List<String> plan) {
+        for (String step : plan) {
+            if (step.startsWith("SEARCH") && step.contains("date<")) {
+                return;
+            }
+        }
+        throw new AssertionError("Page query does not seek by date: " + plan);
+    }
+
+    /**
+     * Pages must come in index order so LIMIT stops after pageSize rows
+     */
+    private static void assertNoSort(List<String> plan) {
+        for (String step : plan) {
+            assertFalse("Page query sorts its rows: " + plan, step.contains("TEMP B-TREE"));
+        }
+    }
+
+    private List<String> explain(String sql, String[] args) {
+        List<String> plan = new ArrayList<>();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan;
+    }
+}
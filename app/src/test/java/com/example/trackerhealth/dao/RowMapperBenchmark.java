@@ -0,0 +1,244 @@
+package com.example.trackerhealth.dao;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import com.example.trackerhealth.database.DatabaseHelper;
+import com.example.trackerhealth.model.Meal;
+import com.example.trackerhealth.model.PhysicalActivity;
+import com.example.trackerhealth.model.User;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Maps 100k-row cursors with the row mappers and with a column lookup per field and row,
+ * as the DAOs did before the mappers, and prints the rows per second of both. The rows
+ * live in a MatrixCursor, so the figures measure mapping alone, not SQLite. The timed runs
+ * only happen with -Pbenchmarks; the check that both paths read the same rows always runs
+ * on a small cursor.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RowMapperBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int PARITY_ROWS = 100;
+    private static final int ROUNDS = 3;
+
+    private static final RowComparison<PhysicalActivity> ACTIVITIES = (expected, actual) -> {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getActivityType(), actual.getActivityType());
+        assertEquals(expected.getDuration(), actual.getDuration());
+        assertEquals(expected.getCaloriesBurned(), actual.getCaloriesBurned());
+        assertEquals(expected.getDistance(), actual.getDistance(), 0);
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getNotes(), actual.getNotes());
+        assertEquals(expected.getPhotoPath(), actual.getPhotoPath());
+        assertEquals(expected.getLatitude(), actual.getLatitude(), 0);
+        assertEquals(expected.getLongitude(), actual.getLongitude(), 0);
+    };
+
+    private static final RowComparison<Meal> MEALS = (expected, actual) -> {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getMealType(), actual.getMealType());
+        assertEquals(expected.getCalories(), actual.getCalories());
+        assertEquals(expected.getProteins(), actual.getProteins(), 0);
+        assertEquals(expected.getCarbs(), actual.getCarbs(), 0);
+        assertEquals(expected.getFats(), actual.getFats(), 0);
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getNotes(), actual.getNotes());
+        assertEquals(expected.getPhotoPath(), actual.getPhotoPath());
+    };
+
+    private static final RowComparison<User> USERS = (expected, actual) -> {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getEmail(), actual.getEmail());
+        assertEquals(expected.getPassword(), actual.getPassword());
+        assertEquals(expected.getHeight(), actual.getHeight(), 0);
+        assertEquals(expected.getWeight(), actual.getWeight(), 0);
+        assertEquals(expected.getAge(), actual.getAge());
+        assertEquals(expected.getGender(), actual.getGender());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+    };
+
+    @Test
+    public void activityMapperMatchesLookUp() {
+        Cursor cursor = activityCursor(PARITY_ROWS);
+        assertParity(cursor, new ActivityRowMapper(cursor), RowMapperBenchmark::lookUpActivity, ACTIVITIES);
+    }
+
+    @Test
+    public void mealMapperMatchesLookUp() {
+        Cursor cursor = mealCursor(PARITY_ROWS);
+        assertParity(cursor, new MealRowMapper(cursor), RowMapperBenchmark::lookUpMeal, MEALS);
+    }
+
+    @Test
+    public void userMapperMatchesLookUp() {
+        Cursor cursor = userCursor(PARITY_ROWS);
+        assertParity(cursor, new UserRowMapper(cursor), RowMapperBenchmark::lookUpUser, USERS);
+    }
+
+    @Test
+    public void activityRowsPerSecond() {
+        assumeBenchmarks();
+        Cursor cursor = activityCursor(ROWS);
+        benchmark("PhysicalActivity", cursor, new ActivityRowMapper(cursor), RowMapperBenchmark::lookUpActivity);
+    }
+
+    @Test
+    public void mealRowsPerSecond() {
+        assumeBenchmarks();
+        Cursor cursor = mealCursor(ROWS);
+        benchmark("Meal", cursor, new MealRowMapper(cursor), RowMapperBenchmark::lookUpMeal);
+    }
+
+    @Test
+    public void userRowsPerSecond() {
+        assumeBenchmarks();
+        Cursor cursor = userCursor(ROWS);
+        benchmark("User", cursor, new UserRowMapper(cursor), RowMapperBenchmark::lookUpUser);
+    }
+
+    private static MatrixCursor activityCursor(int rows) {
+        MatrixCursor cursor = new MatrixCursor(ActivityRowMapper.PROJECTION, rows);
+        for (int i = 0; i < rows; i++) {
+            cursor.addRow(new Object[]{i + 1L, 1L, "Running", 30 + i % 60, 250 + i % 400, 5.0 + i % 10,
+                    "2024-01-01 07:00:00", i % 3 == 0 ? null : "Notes " + i, null, 40.4168, -3.7038});
+        }
+        return cursor;
+    }
+
+    private static MatrixCursor mealCursor(int rows) {
+        MatrixCursor cursor = new MatrixCursor(MealRowMapper.PROJECTION, rows);
+        for (int i = 0; i < rows; i++) {
+            cursor.addRow(new Object[]{i + 1L, 1L, "Meal " + i, "Lunch", 500 + i % 500, 30.0, 60.0, 20.0,
+                    "2024-01-01", "13:30:00", i % 3 == 0 ? null : "Notes " + i, null});
+        }
+        return cursor;
+    }
+
+    private static MatrixCursor userCursor(int rows) {
+        MatrixCursor cursor = new MatrixCursor(UserRowMapper.PROJECTION, rows);
+        for (int i = 0; i < rows; i++) {
+            cursor.addRow(new Object[]{i + 1L, "User " + i, "user" + i + "@example.com", "x",
+                    170.0, 70.0, 30, i % 2 == 0 ? "F" : "M", "2024-01-01 00:00:00"});
+        }
+        return cursor;
+    }
+
+    private static void assumeBenchmarks() {
+        Assume.assumeTrue("run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+    }
+
+    /**
+     * Maps the whole cursor with each path and compares every row field by field
+     */
+    private static <T> void assertParity(Cursor cursor, RowMapper<T> mapper, RowMapper<T> lookUp,
+                                         RowComparison<T> comparison) {
+        List<T> mapped = mapper.mapAll(cursor);
+        cursor.moveToPosition(-1);
+        List<T> lookedUp = lookUp.mapAll(cursor);
+
+        assertEquals(cursor.getCount(), mapped.size());
+        assertEquals(cursor.getCount(), lookedUp.size());
+        for (int row = 0; row < mapped.size(); row++) {
+            comparison.assertSame(lookedUp.get(row), mapped.get(row));
+        }
+    }
+
+    /**
+     * Walks the whole cursor with each path and prints the best round of each. The first
+     * round warms up the JIT.
+     */
+    private static <T> void benchmark(String model, Cursor cursor, RowMapper<T> mapper, RowMapper<T> lookUp) {
+        long bestMapper = Long.MAX_VALUE;
+        long bestLookUp = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            cursor.moveToPosition(-1);
+            long start = System.nanoTime();
+            int mapped = mapper.mapAll(cursor).size();
+            long elapsed = System.nanoTime() - start;
+            assertEquals(ROWS, mapped);
+            if (round > 0) {
+                bestMapper = Math.min(bestMapper, elapsed);
+            }
+
+            cursor.moveToPosition(-1);
+            start = System.nanoTime();
+            mapped = lookUp.mapAll(cursor).size();
+            elapsed = System.nanoTime() - start;
+            assertEquals(ROWS, mapped);
+            if (round > 0) {
+                bestLookUp = Math.min(bestLookUp, elapsed);
+            }
+        }
+
+        System.out.println(String.format(Locale.US,
+                "%s, %d rows: row mapper %.0f rows/s, lookup per field %.0f rows/s",
+                model, ROWS, ROWS * 1e9 / bestMapper, ROWS * 1e9 / bestLookUp));
+    }
+
+    private static PhysicalActivity lookUpActivity(Cursor cursor) {
+        PhysicalActivity activity = new PhysicalActivity();
+        activity.setId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_ID)));
+        activity.setUserId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_USER_ID_FK)));
+        activity.setActivityType(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_TYPE)));
+        activity.setDuration(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_DURATION)));
+        activity.setCaloriesBurned(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_CALORIES)));
+        activity.setDistance(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_DISTANCE)));
+        activity.setDate(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_DATE)));
+        activity.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_NOTES)));
+        activity.setPhotoPath(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_PHOTO_PATH)));
+        activity.setLatitude(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_LATITUDE)));
+        activity.setLongitude(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_ACTIVITY_LONGITUDE)));
+        return activity;
+    }
+
+    private static Meal lookUpMeal(Cursor cursor) {
+        Meal meal = new Meal();
+        meal.setId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_ID)));
+        meal.setUserId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_USER_ID_FK)));
+        meal.setName(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NAME)));
+        meal.setMealType(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TYPE)));
+        meal.setCalories(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CALORIES)));
+        meal.setProteins(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PROTEINS)));
+        meal.setCarbs(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_CARBS)));
+        meal.setFats(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_FATS)));
+        meal.setDate(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_DATE)));
+        meal.setTime(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_TIME)));
+        meal.setNotes(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_NOTES)));
+        meal.setPhotoPath(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_MEAL_PHOTO_PATH)));
+        return meal;
+    }
+
+    private static User lookUpUser(Cursor cursor) {
+        User user = new User();
+        user.setId(cursor.getLong(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_ID)));
+        user.setName(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_NAME)));
+        user.setEmail(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_EMAIL)));
+        user.setPassword(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_PASSWORD)));
+        user.setHeight(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_HEIGHT)));
+        user.setWeight(cursor.getDouble(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_WEIGHT)));
+        user.setAge(cursor.getInt(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_AGE)));
+        user.setGender(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_GENDER)));
+        user.setCreatedAt(cursor.getString(cursor.getColumnIndexOrThrow(DatabaseHelper.KEY_USER_CREATED_AT)));
+        return user;
+    }
+
+    private interface RowComparison<T> {
+        void assertSame(T expected, T actual);
+    }
+}
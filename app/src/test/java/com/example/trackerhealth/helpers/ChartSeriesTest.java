@@ -0,0 +1,205 @@
+package com.example.trackerhealth.helpers;
+
+import com.example.trackerhealth.model.DailyTotal;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the epoch-day conversions against java.time, the granularity picked for each
+ * period length, the bucketing of daily rows and LTTB downsampling
+ */
+public class ChartSeriesTest {
+
+    private final ChartSeries series = new ChartSeries();
+
+    @Test
+    public void epochDaysMatchJavaTime() {
+        // From year -200 to 4000, including every leap rule
+        for (long day = -792_000; day <= 740_000; day += 13) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            assertEquals(day, ChartSeries.toEpochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertArrayEquals(new int[]{date.getYear(), date.getMonthValue(), date.getDayOfMonth()},
+                    ChartSeries.fromEpochDay(day));
+        }
+    }
+
+    @Test
+    public void epochDaysOfDateStrings() {
+        assertEquals(0, ChartSeries.toEpochDay("1970-01-01"));
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), ChartSeries.toEpochDay("2024-02-29"));
+        // The time of a datetime column is ignored
+        assertEquals(LocalDate.of(2024, 3, 1).toEpochDay(), ChartSeries.toEpochDay("2024-03-01 23:59:59"));
+        assertArrayEquals(new int[]{2000, 2, 29}, ChartSeries.fromEpochDay(ChartSeries.toEpochDay("2000-02-29")));
+        assertArrayEquals(new int[]{1900, 3, 1}, ChartSeries.fromEpochDay(ChartSeries.toEpochDay("1900-02-28") + 1));
+    }
+
+    @Test
+    public void granularityAtTheDayLimit() {
+        assertEquals(ChartSeries.Granularity.DAY, ChartSeries.Granularity.forPeriod("2024-01-01", "2024-01-31"));
+        assertEquals(ChartSeries.Granularity.WEEK, ChartSeries.Granularity.forPeriod("2024-01-01", "2024-02-01"));
+        assertEquals(ChartSeries.Granularity.DAY, ChartSeries.Granularity.forPeriod("2024-02-01", "2024-03-02"));
+    }
+
+    @Test
+    public void granularityIsTheFinestThatFits() {
+        // Every period length up to 400 days, starting on each day of the week
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+        for (int weekday = 0; weekday < 7; weekday++) {
+            String start = monday.plusDays(weekday).toString();
+            for (int days = 1; days <= 400; days++) {
+                String end = monday.plusDays(weekday + days - 1).toString();
+                ChartSeries.Granularity granularity = ChartSeries.Granularity.forPeriod(start, end);
+
+                String period = start + " - " + end + " (" + granularity + ")";
+                if (granularity != ChartSeries.Granularity.MONTH) {
+                    assertTrue(period, slotCount(start, end, granularity) <= ChartSeries.Granularity.MAX_SLOTS);
+                }
+                if (granularity != ChartSeries.Granularity.DAY) {
+                    ChartSeries.Granularity finer = ChartSeries.Granularity.values()[granularity.ordinal() - 1];
+                    assertTrue(period, slotCount(start, end, finer) > ChartSeries.Granularity.MAX_SLOTS);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void dailySlotsCopyTheRows() {
+        List<DailyTotal> rows = Arrays.asList(
+                new DailyTotal("2023-12-31", 100, 1), // Before the period
+                new DailyTotal("2024-01-01", 30, 1),
+                new DailyTotal("2024-01-03", 45.5, 2),
+                new DailyTotal("2024-01-07", 60, 1),
+                new DailyTotal("2024-01-08", 100, 1)); // After the period
+
+        series.fill(rows, "2024-01-01", "2024-01-07");
+
+        assertEquals(7, series.slotCount());
+        assertEquals(7, series.size());
+        assertValues(new float[]{30, 0, 45.5f, 0, 0, 0, 60});
+        assertEquals(ChartSeries.toEpochDay("2024-01-03"), series.dayAt(2));
+        assertEquals("01/03", series.labelAt(2));
+        assertEquals("", series.labelAt(7));
+    }
+
+    @Test
+    public void weeklySlotsSumFromMondayToSunday() {
+        // 2024-01-03 is a Wednesday: the first slot only has five days
+        List<DailyTotal> rows = Arrays.asList(
+                new DailyTotal("2024-01-03", 1, 1),
+                new DailyTotal("2024-01-07", 2, 1),
+                new DailyTotal("2024-01-08", 4, 1),
+                new DailyTotal("2024-01-14", 8, 1),
+                new DailyTotal("2024-01-15", 16, 1),
+                new DailyTotal("2024-01-16", 32, 1));
+
+        series.fill(rows, "2024-01-03", "2024-01-16", ChartSeries.Granularity.WEEK);
+
+        assertEquals(3, series.slotCount());
+        assertValues(new float[]{3, 12, 48});
+        assertEquals(ChartSeries.toEpochDay("2024-01-03"), series.dayAt(0));
+        assertEquals(ChartSeries.toEpochDay("2024-01-08"), series.dayAt(1));
+        assertEquals(ChartSeries.toEpochDay("2024-01-15"), series.dayAt(2));
+    }
+
+    @Test
+    public void monthlySlotsSumCalendarMonths() {
+        List<DailyTotal> rows = Arrays.asList(
+                new DailyTotal("2023-11-20", 1, 1),
+                new DailyTotal("2023-11-30", 2, 1),
+                new DailyTotal("2023-12-01", 4, 1),
+                new DailyTotal("2023-12-31", 8, 1),
+                new DailyTotal("2024-01-01", 16, 1),
+                new DailyTotal("2024-02-29", 32, 1),
+                new DailyTotal("2024-03-01", 64, 1)); // After the period
+
+        series.fill(rows, "2023-11-20", "2024-02-29", ChartSeries.Granularity.MONTH);
+
+        assertEquals(4, series.slotCount());
+        assertValues(new float[]{3, 12, 16, 32});
+        assertEquals(ChartSeries.toEpochDay("2023-11-20"), series.dayAt(0));
+        assertEquals(ChartSeries.toEpochDay("2024-01-01"), series.dayAt(2));
+        assertEquals("01/24", series.labelAt(2));
+    }
+
+    @Test
+    public void refillClearsThePreviousPeriod() {
+        series.fill(Collections.singletonList(new DailyTotal("2024-01-10", 5, 1)), "2024-01-01", "2024-01-31");
+        series.downsample(5);
+        series.fill(Collections.singletonList(new DailyTotal("2024-02-02", 7, 1)), "2024-02-01", "2024-02-03");
+
+        assertEquals(3, series.slotCount());
+        assertEquals(3, series.size());
+        assertValues(new float[]{0, 7, 0});
+    }
+
+    @Test
+    public void emptyPeriod() {
+        series.fill(Collections.<DailyTotal>emptyList(), "2024-01-02", "2024-01-01");
+
+        assertEquals(0, series.slotCount());
+        assertEquals(0, series.size());
+    }
+
+    @Test
+    public void downsampleKeepsEndpointsAndPeaks() {
+        List<DailyTotal> rows = new ArrayList<>();
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        for (int i = 0; i < 365; i++) {
+            // Flat series with one peak and one dip
+            double value = i == 100 ? 5000 : i == 250 ? 0 : 2000 + (i % 2) * 10;
+            rows.add(new DailyTotal(start.plusDays(i).toString(), value, 1));
+        }
+        series.fill(rows, "2023-01-01", "2023-12-31");
+
+        series.downsample(60);
+
+        assertEquals(365, series.slotCount());
+        assertEquals(60, series.size());
+        assertEquals(0, series.slotAt(0));
+        assertEquals(364, series.slotAt(59));
+        boolean peak = false;
+        boolean dip = false;
+        for (int i = 0; i < series.size(); i++) {
+            if (i > 0) {
+                assertTrue(series.slotAt(i) > series.slotAt(i - 1));
+            }
+            assertEquals(rows.get(series.slotAt(i)).getTotal(), series.get(i), 0);
+            peak |= series.slotAt(i) == 100;
+            dip |= series.slotAt(i) == 250;
+        }
+        assertTrue("peak dropped", peak);
+        assertTrue("dip dropped", dip);
+    }
+
+    @Test
+    public void downsampleLeavesShortSeriesAlone() {
+        series.fill(Collections.singletonList(new DailyTotal("2024-01-05", 1, 1)), "2024-01-01", "2024-01-10");
+
+        series.downsample(10);
+        assertEquals(10, series.size());
+        series.downsample(2);
+        assertEquals(10, series.size());
+    }
+
+    private int slotCount(String start, String end, ChartSeries.Granularity granularity) {
+        series.fill(Collections.<DailyTotal>emptyList(), start, end, granularity);
+        return series.slotCount();
+    }
+
+    private void assertValues(float[] expected) {
+        assertEquals(expected.length, series.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("slot " + i, expected[i], series.get(i), 1e-4f);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.trackerhealth.location;
+
+import com.google.android.gms.location.Priority;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Cambios de modo y de política de {@link AdaptiveSamplingController}, observados a través
+ * de un {@link LocationSource} falso que registra lo que se le pide
+ */
+public class AdaptiveSamplingControllerTest {
+
+    private static final LocationSource.Receiver RECEIVER = location -> { };
+    private static final float WALKING = 1.5f;
+    private static final float RUNNING = 4f;
+    private static final float CYCLING = 8f;
+
+    private FakeLocationSource source;
+    private AdaptiveSamplingController controller;
+
+    @Before
+    public void setUp() {
+        source = new FakeLocationSource();
+        controller = new AdaptiveSamplingController(source);
+    }
+
+    @Test
+    public void startsInNormalModeWithHighAccuracy() {
+        controller.start(RECEIVER);
+
+        assertEquals(AdaptiveSamplingController.MODE_NORMAL, controller.getMode());
+        assertPolicy(source.started, 3000, 1000, 0, Priority.PRIORITY_HIGH_ACCURACY);
+        assertTrue(source.updates.isEmpty());
+    }
+
+    @Test
+    public void speedsUpOnTheFirstFasterFix() {
+        controller.start(RECEIVER);
+
+        controller.onFix(true, CYCLING);
+
+        assertEquals(AdaptiveSamplingController.MODE_FAST, controller.getMode());
+        assertEquals(1, source.updates.size());
+        assertPolicy(source.lastUpdate(), 2000, 1000, 0, Priority.PRIORITY_HIGH_ACCURACY);
+    }
+
+    @Test
+    public void slowsDownAfterThreeFixesInTheSlowerMode() {
+        controller.start(RECEIVER);
+
+        controller.onFix(false, 0);
+        controller.onFix(false, 0);
+        assertEquals(AdaptiveSamplingController.MODE_NORMAL, controller.getMode());
+        assertTrue(source.updates.isEmpty());
+
+        controller.onFix(false, 0);
+        assertEquals(AdaptiveSamplingController.MODE_STATIONARY, controller.getMode());
+        assertEquals(1, source.updates.size());
+        assertPolicy(source.lastUpdate(), 20000, 10000, 0, Priority.PRIORITY_BALANCED_POWER_ACCURACY);
+    }
+
+    @Test
+    public void slowdownCountRestartsWhenTheTargetChanges() {
+        controller.start(RECEIVER);
+
+        // Un punto en el modo actual reinicia la cuenta
+        controller.onFix(true, WALKING);
+        controller.onFix(true, WALKING);
+        controller.onFix(true, RUNNING);
+        controller.onFix(true, WALKING);
+        controller.onFix(true, WALKING);
+        assertEquals(AdaptiveSamplingController.MODE_NORMAL, controller.getMode());
+
+        // Tres puntos más lentos, pero no del mismo modo
+        controller.onFix(false, 0);
+        controller.onFix(true, WALKING);
+        controller.onFix(true, WALKING);
+        assertEquals(AdaptiveSamplingController.MODE_NORMAL, controller.getMode());
+        assertTrue(source.updates.isEmpty());
+
+        controller.onFix(true, WALKING);
+        assertEquals(AdaptiveSamplingController.MODE_SLOW, controller.getMode());
+        assertPolicy(source.lastUpdate(), 5000, 2000, 0, Priority.PRIORITY_HIGH_ACCURACY);
+    }
+
+    @Test
+    public void screenOffBatchesFixes() {
+        controller.start(RECEIVER);
+        assertEquals(1200, controller.getEstimatedWakeupsPerHour(), 1e-9);
+
+        controller.setScreenOn(false);
+        assertPolicy(source.lastUpdate(), 3000, 1000, 15000, Priority.PRIORITY_HIGH_ACCURACY);
+        // Un despertar por lote de cinco ubicaciones
+        assertEquals(240, controller.getEstimatedWakeupsPerHour(), 1e-9);
+
+        controller.setScreenOn(false);
+        assertEquals(1, source.updates.size());
+
+        controller.setScreenOn(true);
+        assertPolicy(source.lastUpdate(), 3000, 1000, 0, Priority.PRIORITY_HIGH_ACCURACY);
+        assertEquals(1200, controller.getEstimatedWakeupsPerHour(), 1e-9);
+    }
+
+    @Test
+    public void lowBatteryDoublesIntervals() {
+        controller.start(RECEIVER);
+
+        controller.setBatteryLow(true);
+        assertPolicy(source.lastUpdate(), 6000, 2000, 0, Priority.PRIORITY_HIGH_ACCURACY);
+        assertEquals(600, controller.getEstimatedWakeupsPerHour(), 1e-9);
+
+        // Los lotes se calculan sobre el intervalo ya duplicado
+        controller.setScreenOn(false);
+        assertPolicy(source.lastUpdate(), 6000, 2000, 30000, Priority.PRIORITY_HIGH_ACCURACY);
+        assertEquals(120, controller.getEstimatedWakeupsPerHour(), 1e-9);
+
+        controller.onFix(true, CYCLING);
+        assertPolicy(source.lastUpdate(), 4000, 2000, 20000, Priority.PRIORITY_HIGH_ACCURACY);
+    }
+
+    @Test
+    public void inaccurateFixWhileStationaryRestoresHighAccuracy() {
+        controller.start(RECEIVER);
+        for (int i = 0; i < 3; i++) {
+            controller.onFix(false, 0);
+        }
+        assertFalse(controller.getPolicy().isHighAccuracy());
+
+        controller.onRejected(LocationPipeline.RESULT_REJECTED_SPEED);
+        assertEquals(AdaptiveSamplingController.MODE_STATIONARY, controller.getMode());
+
+        controller.onRejected(LocationPipeline.RESULT_REJECTED_ACCURACY);
+        assertEquals(AdaptiveSamplingController.MODE_SLOW, controller.getMode());
+        assertPolicy(source.lastUpdate(), 5000, 2000, 0, Priority.PRIORITY_HIGH_ACCURACY);
+    }
+
+    @Test
+    public void settingsBeforeStartOnlyShapeTheFirstPolicy() {
+        controller.setScreenOn(false);
+        controller.setBatteryLow(true);
+        assertTrue(source.updates.isEmpty());
+
+        controller.start(RECEIVER);
+        assertPolicy(source.started, 6000, 2000, 30000, Priority.PRIORITY_HIGH_ACCURACY);
+    }
+
+    @Test
+    public void restartBeginsInTheInitialMode() {
+        controller.start(RECEIVER);
+        controller.onFix(true, CYCLING);
+        for (long time = 0; time < 30000; time += 1000) {
+            controller.onLocationReceived(time);
+        }
+        controller.stop();
+        assertTrue(source.stopped);
+
+        controller.start(RECEIVER);
+
+        assertEquals(AdaptiveSamplingController.MODE_NORMAL, controller.getMode());
+        assertPolicy(source.started, 3000, 1000, 0, Priority.PRIORITY_HIGH_ACCURACY);
+        assertEquals(0, controller.getFixesPerMinute(30000));
+        // Vuelve a necesitar tres puntos para bajar de modo
+        controller.onFix(true, WALKING);
+        controller.onFix(true, WALKING);
+        assertEquals(AdaptiveSamplingController.MODE_NORMAL, controller.getMode());
+    }
+
+    @Test
+    public void fixesPerMinuteCountsTheLastMinute() {
+        controller.start(RECEIVER);
+        assertEquals(0, controller.getFixesPerMinute(0));
+
+        // Una por segundo durante 90 s: entran las de 29 s a 89 s
+        for (long time = 0; time < 90000; time += 1000) {
+            controller.onLocationReceived(time);
+        }
+        assertEquals(61, controller.getFixesPerMinute(89000));
+        assertEquals(31, controller.getFixesPerMinute(119000));
+        assertEquals(0, controller.getFixesPerMinute(150000));
+    }
+
+    @Test
+    public void fixesPerMinuteIsLimitedByTheWindow() {
+        controller.start(RECEIVER);
+
+        // Diez por segundo: solo se recuerdan las 64 últimas
+        for (long time = 0; time < 60000; time += 100) {
+            controller.onLocationReceived(time);
+        }
+        assertEquals(64, controller.getFixesPerMinute(60000));
+    }
+
+    private static void assertPolicy(SamplingPolicy policy, long interval, long fastest, long maxWait, int priority) {
+        assertNotNull(policy);
+        assertEquals(interval, policy.getIntervalMs());
+        assertEquals(fastest, policy.getFastestIntervalMs());
+        assertEquals(maxWait, policy.getMaxWaitMs());
+        assertEquals(priority, policy.getPriority());
+    }
+
+    /**
+     * Registra la política inicial y cada cambio en lugar de pedir ubicaciones
+     */
+    private static final class FakeLocationSource implements LocationSource {
+        SamplingPolicy started;
+        final List<SamplingPolicy> updates = new ArrayList<>();
+        boolean stopped;
+
+        @Override
+        public void start(SamplingPolicy policy, Receiver receiver) {
+            started = policy;
+            updates.clear();
+            stopped = false;
+        }
+
+        @Override
+        public void update(SamplingPolicy policy) {
+            updates.add(policy);
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+
+        SamplingPolicy lastUpdate() {
+            return updates.isEmpty() ? null : updates.get(updates.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.trackerhealth.location;
+
+import com.example.trackerhealth.util.Geodesy;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reproduce trazas sintéticas con ruido gaussiano (semilla fija) a través de
+ * {@link LocationPipeline#process(double, double, float, float, long, long)}
+ */
+public class LocationPipelineTest {
+
+    private static final double ORIGIN_LATITUDE = 40.4168;
+    private static final double ORIGIN_LONGITUDE = -3.7038;
+    private static final long START_TIME = 1_700_000_000_000L;
+    private static final long INTERVAL_MS = 1000;
+    private static final float ACCURACY = 5f;
+
+    private final Random random = new Random(42);
+    private final LocationPipeline pipeline = new LocationPipeline();
+    private long time = START_TIME;
+    private double east;
+    private double north;
+
+    @Test
+    public void jitterWhileStandingStillAddsNoDistance() {
+        double rawDistance = 0;
+        double lastEast = 0;
+        double lastNorth = 0;
+        int stationary = 0;
+        for (int i = 0; i < 300; i++) {
+            double noisyEast = gaussian(3);
+            double noisyNorth = gaussian(3);
+            rawDistance += Math.hypot(noisyEast - lastEast, noisyNorth - lastNorth);
+            lastEast = noisyEast;
+            lastNorth = noisyNorth;
+            if (feed(noisyEast, noisyNorth, 8f, -1) == LocationPipeline.RESULT_STATIONARY) {
+                stationary++;
+            }
+            time += INTERVAL_MS;
+        }
+
+        // Sumar los puntos crudos daría cientos de metros
+        assertTrue("raw distance " + rawDistance, rawDistance > 500);
+        assertTrue("distance " + pipeline.getDistanceMeters(), pipeline.getDistanceMeters() < 10);
+        assertTrue("stationary fixes " + stationary, stationary > 280);
+        assertTrue(pipeline.isStationary());
+    }
+
+    @Test
+    public void straightWalkAccumulatesDistance() {
+        walk(1.5, 0, 500);
+        // Alguna caída puntual de la velocidad filtrada marca parado hasta el siguiente paso
+        double speedSum = 0;
+        int moving = 0;
+        for (int i = 0; i < 100; i++) {
+            walk(1.5, 0, 1);
+            speedSum += pipeline.getSpeed();
+            if (!pipeline.isStationary()) {
+                moving++;
+            }
+        }
+
+        assertEquals(900, pipeline.getDistanceMeters(), 900 * 0.03);
+        assertEquals(1.5, speedSum / 100, 0.15);
+        assertTrue("moving fixes " + moving, moving > 85);
+        assertEquals(600, pipeline.getAcceptedCount());
+        assertEquals(0, pipeline.getRejectedCount());
+    }
+
+    @Test
+    public void distanceUsesTheGeodesyScale() {
+        // 6 km hacia el norte sin ruido y un minuto parado para que el filtro se asiente
+        for (int i = 0; i < 3000; i++) {
+            feed(0, north, ACCURACY, -1);
+            north += 2.0 * INTERVAL_MS / 1000.0;
+            time += INTERVAL_MS;
+        }
+        north -= 2.0 * INTERVAL_MS / 1000.0;
+        for (int i = 0; i < 60; i++) {
+            feed(0, north, ACCURACY, -1);
+            time += INTERVAL_MS;
+        }
+
+        // El filtro se pasa algo más de un metro al frenar; con otra escala de grados a
+        // metros la diferencia sería de unos 7 m (0,1 %)
+        double expected = Geodesy.distance(latitude(0), longitude(0), latitude(north), longitude(0));
+        assertEquals(expected, pipeline.getDistanceMeters(), 3);
+        assertEquals(latitude(north), pipeline.getLatitude(), 1e-6);
+    }
+
+    @Test
+    public void stopIsNotCounted() {
+        walk(1.5, 0, 200);
+        // Los primeros segundos parado aún cuentan el final del tramo anterior
+        walk(0, 0, 30);
+        double stopped = pipeline.getDistanceMeters();
+        walk(0, 0, 150);
+        double duringStop = pipeline.getDistanceMeters() - stopped;
+        walk(0, 1.5, 200);
+
+        assertEquals(0, duringStop, 1);
+        // Cada arranque y cada parada pierden como mucho un umbral de paso
+        assertEquals(600, pipeline.getDistanceMeters(), 600 * 0.05);
+    }
+
+    @Test
+    public void outliersAreRejectedWithoutTouchingTheTrack() {
+        // Misma traza sin los valores atípicos
+        LocationPipeline clean = new LocationPipeline();
+        int rejected = 0;
+
+        for (int i = 0; i < 300; i++) {
+            east = 1.5 * i;
+            double noisyEast = east + gaussian(2);
+            double noisyNorth = gaussian(2);
+            clean.process(latitude(noisyNorth), longitude(noisyEast), ACCURACY, -1, time, time);
+
+            assertTrue(LocationPipeline.isAccepted(feed(noisyEast, noisyNorth, ACCURACY, -1)));
+
+            if (i == 50) {
+                // Salto de 300 m en un segundo
+                assertEquals(LocationPipeline.RESULT_REJECTED_SPEED,
+                        feed(noisyEast, noisyNorth + 300, ACCURACY, -1, time + 500, time + 500));
+                rejected++;
+            } else if (i == 100) {
+                assertEquals(LocationPipeline.RESULT_REJECTED_ACCURACY,
+                        feed(noisyEast + 40, noisyNorth, 60f, -1, time + 500, time + 500));
+                rejected++;
+            } else if (i == 150) {
+                // Velocidad informada imposible
+                assertEquals(LocationPipeline.RESULT_REJECTED_SPEED,
+                        feed(noisyEast, noisyNorth, ACCURACY, 45f, time + 500, time + 500));
+                rejected++;
+            } else if (i == 200) {
+                // Repetido con el mismo tiempo y entregado con retraso
+                assertEquals(LocationPipeline.RESULT_REJECTED_AGE,
+                        feed(noisyEast, noisyNorth, ACCURACY, -1, time, time + 500));
+                assertEquals(LocationPipeline.RESULT_REJECTED_AGE,
+                        feed(noisyEast, noisyNorth, ACCURACY, -1, time + 500, time + 61_000));
+                rejected += 2;
+            }
+            time += INTERVAL_MS;
+        }
+
+        assertEquals(rejected, pipeline.getRejectedCount());
+        assertEquals(300, pipeline.getAcceptedCount());
+        // Los puntos descartados no modifican el estado del filtro
+        assertEquals(clean.getDistanceMeters(), pipeline.getDistanceMeters(), 1e-9);
+        assertEquals(clean.getLatitude(), pipeline.getLatitude(), 1e-12);
+        assertEquals(clean.getLongitude(), pipeline.getLongitude(), 1e-12);
+    }
+
+    @Test
+    public void resetStartsANewSession() {
+        walk(1.5, 0, 100);
+        pipeline.reset();
+
+        assertFalse(pipeline.hasFix());
+        assertEquals(0, pipeline.getDistanceMeters(), 0);
+        assertEquals(0, pipeline.getAcceptedCount());
+
+        // El primer punto tras reiniciar es el nuevo origen, aunque esté lejos del anterior
+        east = 5000;
+        assertEquals(LocationPipeline.RESULT_STATIONARY, feed(east, north, ACCURACY, -1));
+        assertEquals(latitude(north), pipeline.getLatitude(), 1e-9);
+        assertEquals(longitude(east), pipeline.getLongitude(), 1e-9);
+    }
+
+    /**
+     * Avanza a velocidad constante con un punto por segundo y 2 m de ruido
+     */
+    private void walk(double eastSpeed, double northSpeed, int fixes) {
+        for (int i = 0; i < fixes; i++) {
+            feed(east + gaussian(2), north + gaussian(2), ACCURACY, -1);
+            east += eastSpeed * INTERVAL_MS / 1000.0;
+            north += northSpeed * INTERVAL_MS / 1000.0;
+            time += INTERVAL_MS;
+        }
+    }
+
+    private int feed(double eastMeters, double northMeters, float accuracy, float speed) {
+        return feed(eastMeters, northMeters, accuracy, speed, time, time);
+    }
+
+    private int feed(double eastMeters, double northMeters, float accuracy, float speed, long fixTime, long now) {
+        return pipeline.process(latitude(northMeters), longitude(eastMeters), accuracy, speed, fixTime, now);
+    }
+
+    private double gaussian(double sigma) {
+        return random.nextGaussian() * sigma;
+    }
+
+    private static double latitude(double northMeters) {
+        return ORIGIN_LATITUDE + northMeters / Geodesy.METERS_PER_DEGREE;
+    }
+
+    private static double longitude(double eastMeters) {
+        return ORIGIN_LONGITUDE + eastMeters / (Geodesy.METERS_PER_DEGREE * Math.cos(Math.toRadians(ORIGIN_LATITUDE)));
+    }
+}
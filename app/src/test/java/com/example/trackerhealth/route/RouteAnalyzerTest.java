@@ -0,0 +1,247 @@
+package com.example.trackerhealth.route;
+
+import com.example.trackerhealth.model.RouteAnalytics;
+import com.example.trackerhealth.model.RouteIndexEntry;
+import com.example.trackerhealth.util.Geodesy;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Parciales, mejores marcas, tiempo en movimiento y zonas de ritmo de
+ * {@link RouteAnalyzer} sobre rutas sintéticas hacia el norte, con ritmos conocidos de
+ * antemano. Los tiempos interpolados admiten 1 ms de redondeo.
+ */
+public class RouteAnalyzerTest {
+
+    private static final long ACTIVITY_ID = 7;
+    private static final double ORIGIN_LATITUDE = 40.4168;
+    private static final double ORIGIN_LONGITUDE = -3.7038;
+    private static final long START_TIME = 1_700_000_000_000L;
+
+    @Test
+    public void constantPace() {
+        // 10,5 km a 5:30 min/km con un punto cada 300 m, así que ningún kilómetro
+        // coincide con un punto y todos los parciales se interpolan
+        RouteAnalytics analytics = new Route().run(10_500, 300, 330).analyze();
+
+        assertEquals(10_500, analytics.getDistanceMeters(), 1e-3);
+        assertEquals(3_465_000, analytics.getDurationMs());
+        assertEquals(3_465_000, analytics.getMovingTimeMs());
+        assertEquals(330, analytics.getMovingPace(), 1e-6);
+        assertEquals(10, analytics.getSplitCount());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("km " + (i + 1), 330_000, analytics.getSplitTime(i), 1);
+        }
+        assertEquals(330_000, analytics.getBestEffortTime(RouteAnalytics.BEST_1K), 1);
+        assertEquals(1_650_000, analytics.getBestEffortTime(RouteAnalytics.BEST_5K), 1);
+        assertEquals(3_300_000, analytics.getBestEffortTime(RouteAnalytics.BEST_10K), 1);
+        // 330 s/km está entre los límites de 300 y 360
+        assertZones(analytics, 0, 0, 3_465_000, 0, 0, 0);
+    }
+
+    @Test
+    public void variablePaceWithAStop() {
+        // Tramos de 600 m a 290, 400 y 250 s/km, dos minutos parado en el metro 1800, 600 m
+        // a 450 y 660 m a 330 s/km, con un punto por tramo. Ningún kilómetro acaba en el
+        // último punto, donde el redondeo decidiría si se cierra
+        RouteAnalytics analytics = new Route()
+                .run(600, 600, 290)
+                .run(600, 600, 400)
+                .run(600, 600, 250)
+                .stop(120)
+                .run(600, 600, 450)
+                .run(660, 660, 330)
+                .analyze();
+
+        assertEquals(3060, analytics.getDistanceMeters(), 1e-3);
+        assertEquals(1_171_800, analytics.getDurationMs());
+        // La parada no cuenta como tiempo en movimiento
+        assertEquals(1_051_800, analytics.getMovingTimeMs());
+
+        assertEquals(3, analytics.getSplitCount());
+        // 600 m a 290 y 400 m a 400
+        assertEquals(334_000, analytics.getSplitTime(0), 1);
+        // 200 m a 400, 600 m a 250, la parada y 200 m a 450
+        assertEquals(440_000, analytics.getSplitTime(1), 1);
+        // 400 m a 450 y 600 m a 330
+        assertEquals(378_000, analytics.getSplitTime(2), 1);
+
+        // El mejor kilómetro empieza a mitad del tramo a 400 s/km: 400 m a 400 y 600 m a 250
+        assertEquals(310_000, analytics.getBestEffortTime(RouteAnalytics.BEST_1K), 1);
+        assertEquals(-1, analytics.getBestEffortTime(RouteAnalytics.BEST_5K));
+        assertEquals(-1, analytics.getBestEffortTime(RouteAnalytics.BEST_10K));
+
+        // Zonas: <240, 240-300, 300-360, 360-420, 420-480 y >=480 s/km
+        assertZones(analytics, 0, 174_000 + 150_000, 217_800, 240_000, 270_000, 0);
+    }
+
+    @Test
+    public void bestEffortsInterpolateBetweenPoints() {
+        // 2 km lentos en un solo segmento y 4,5 km a 320 s/km en segmentos de 1,5 km: los
+        // mejores 1k y 5k empiezan entre dos puntos
+        RouteAnalytics analytics = new Route()
+                .run(2000, 2000, 400)
+                .run(4500, 1500, 320)
+                .analyze();
+
+        assertEquals(320_000, analytics.getBestEffortTime(RouteAnalytics.BEST_1K), 1);
+        // 500 m a 400 y 4,5 km a 320
+        assertEquals(1_640_000, analytics.getBestEffortTime(RouteAnalytics.BEST_5K), 1);
+        assertEquals(-1, analytics.getBestEffortTime(RouteAnalytics.BEST_10K));
+        assertEquals(6, analytics.getSplitCount());
+        assertEquals(400_000, analytics.getSplitTime(1), 1);
+        assertEquals(320_000, analytics.getSplitTime(2), 1);
+    }
+
+    @Test
+    public void pointsBackInTimeAreSkipped() {
+        Route clean = new Route().run(3100, 250, 330);
+        // Mismos puntos y, tras el quinto, uno a 5 km con un tiempo anterior
+        Route withOutlier = new Route().run(3100, 250, 330);
+        withOutlier.insert(5, ORIGIN_LATITUDE + 5000 / Geodesy.METERS_PER_DEGREE, withOutlier.times[2]);
+
+        RouteAnalytics expected = clean.analyze();
+        assertSameAnalytics(expected, withOutlier.analyze());
+
+        // Añadir los puntos uno a uno descarta el mismo punto
+        RouteAnalyzer analyzer = new RouteAnalyzer();
+        for (int i = 0; i < withOutlier.size; i++) {
+            analyzer.add(withOutlier.latitudes[i], ORIGIN_LONGITUDE, withOutlier.times[i]);
+        }
+        assertSameAnalytics(expected, analyzer.build(ACTIVITY_ID, 0, 0));
+    }
+
+    @Test
+    public void emptyAndSinglePointRoutes() {
+        RouteAnalytics empty = RouteAnalyzer.analyze(new Route().track(), 0, 0);
+        assertEquals(0, empty.getDistanceMeters(), 0);
+        assertEquals(0, empty.getDurationMs());
+        assertEquals(0, empty.getSplitCount());
+        assertEquals(-1, empty.getBestEffortTime(RouteAnalytics.BEST_1K));
+
+        RouteAnalytics single = new Route().stop(0).analyze();
+        assertEquals(0, single.getMovingTimeMs());
+        assertZones(single, 0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void matchesTheFileAndTheAnalyzerVersion() {
+        RouteIndexEntry entry = new RouteIndexEntry(ACTIVITY_ID, "7.route", 10, 0, 0, 0, 0, 512, 1000);
+        long[] none = new long[0];
+        long[] zones = new long[RouteAnalytics.PACE_ZONE_LIMITS.length + 1];
+
+        assertTrue(RouteAnalyzer.analyze(new Route().run(600, 600, 300).track(), 512, 1000).matches(entry));
+        assertFalse(RouteAnalyzer.analyze(new Route().run(600, 600, 300).track(), 513, 1000).matches(entry));
+        assertFalse(RouteAnalyzer.analyze(new Route().run(600, 600, 300).track(), 512, 1001).matches(entry));
+        // Un análisis guardado por otra versión se recalcula aunque el archivo no cambie
+        assertFalse(new RouteAnalytics(ACTIVITY_ID, 600, 180_000, 180_000, none, zones, none, 512, 1000,
+                RouteAnalytics.ANALYZER_VERSION - 1).matches(entry));
+    }
+
+    private static void assertZones(RouteAnalytics analytics, long... expected) {
+        assertEquals(expected.length, analytics.getPaceZoneCount());
+        long[] zones = new long[analytics.getPaceZoneCount()];
+        for (int i = 0; i < zones.length; i++) {
+            zones[i] = analytics.getPaceZoneTime(i);
+        }
+        assertEquals(Arrays.toString(expected), Arrays.toString(zones));
+    }
+
+    private static void assertSameAnalytics(RouteAnalytics expected, RouteAnalytics actual) {
+        assertEquals(expected.getDistanceMeters(), actual.getDistanceMeters(), 1e-6);
+        assertEquals(expected.getDurationMs(), actual.getDurationMs());
+        assertEquals(expected.getMovingTimeMs(), actual.getMovingTimeMs());
+        assertEquals(expected.getSplitCount(), actual.getSplitCount());
+        for (int i = 0; i < expected.getSplitCount(); i++) {
+            assertEquals(expected.getSplitTime(i), actual.getSplitTime(i), 1);
+        }
+        for (int i = 0; i < expected.getPaceZoneCount(); i++) {
+            assertEquals(expected.getPaceZoneTime(i), actual.getPaceZoneTime(i));
+        }
+        for (int i = 0; i < RouteAnalytics.BEST_EFFORT_DISTANCES.length; i++) {
+            assertEquals(expected.getBestEffortTime(i), actual.getBestEffortTime(i), 1);
+        }
+    }
+
+    /**
+     * Ruta hacia el norte por un meridiano, construida por tramos de ritmo constante
+     */
+    private static final class Route {
+        double[] latitudes = new double[16];
+        long[] times = new long[16];
+        int size;
+        private double meters;
+        private long time = START_TIME;
+
+        /**
+         * Avanza a ritmo constante añadiendo un punto cada pointSpacing metros
+         *
+         * @param pace Segundos por kilómetro
+         */
+        Route run(double distance, double pointSpacing, double pace) {
+            if (size == 0) {
+                add();
+            }
+            double end = meters + distance;
+            while (meters < end - 1e-9) {
+                double step = Math.min(pointSpacing, end - meters);
+                meters += step;
+                time += Math.round(step * pace);
+                add();
+            }
+            return this;
+        }
+
+        /**
+         * Repite el último punto tras una parada (o el origen, si la ruta está vacía)
+         */
+        Route stop(int seconds) {
+            time += seconds * 1000L;
+            add();
+            return this;
+        }
+
+        /**
+         * Inserta un punto en la posición index
+         */
+        void insert(int index, double latitude, long pointTime) {
+            grow();
+            System.arraycopy(latitudes, index, latitudes, index + 1, size - index);
+            System.arraycopy(times, index, times, index + 1, size - index);
+            latitudes[index] = latitude;
+            times[index] = pointTime;
+            size++;
+        }
+
+        RouteTrack track() {
+            double[] longitudes = new double[size];
+            Arrays.fill(longitudes, ORIGIN_LONGITUDE);
+            return new RouteTrack(ACTIVITY_ID, size, Arrays.copyOf(latitudes, size), longitudes,
+                    Arrays.copyOf(times, size), new float[size], new float[size], new double[size]);
+        }
+
+        RouteAnalytics analyze() {
+            return RouteAnalyzer.analyze(track(), 0, 0);
+        }
+
+        private void add() {
+            grow();
+            latitudes[size] = ORIGIN_LATITUDE + meters / Geodesy.METERS_PER_DEGREE;
+            times[size] = time;
+            size++;
+        }
+
+        private void grow() {
+            if (size == latitudes.length) {
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                times = Arrays.copyOf(times, size * 2);
+            }
+        }
+    }
+}
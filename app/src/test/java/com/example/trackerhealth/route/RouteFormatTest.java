@@ -0,0 +1,185 @@
+package com.example.trackerhealth.route;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Ida y vuelta de RouteWriter.encode y RouteReader.decode, y rechazo de archivos dañados
+ */
+public class RouteFormatTest {
+
+    private static final long ACTIVITY_ID = 42;
+
+    private final Random random = new Random(11);
+
+    @Test
+    public void roundTripKeepsEveryColumn() throws IOException {
+        RouteTrack track = randomTrack(2000, true);
+
+        RouteTrack decoded = RouteReader.decode(ByteBuffer.wrap(RouteWriter.encode(track)));
+
+        assertSameTrack(track, decoded);
+    }
+
+    @Test
+    public void roundTripWithoutOptionalColumns() throws IOException {
+        RouteTrack track = randomTrack(500, false);
+        byte[] data = RouteWriter.encode(track);
+
+        RouteTrack decoded = RouteReader.decode(ByteBuffer.wrap(data));
+
+        assertEquals(0, data[5]); // Sin flags de columnas opcionales
+        assertSameTrack(track, decoded);
+    }
+
+    @Test
+    public void roundTripOfExtremeValues() throws IOException {
+        // Saltos de un extremo a otro del globo, tiempos negativos y el mayor intervalo posible
+        double[] latitudes = {90, -90, 0, -33.8688, 89.9999999};
+        double[] longitudes = {180, -180, 0, 151.2093, -0.0000001};
+        long[] times = {-1000, 0, Long.MAX_VALUE / 2, 1, 1_700_000_000_000L};
+        float[] accuracies = {0, -1, 9999.9f, 0.1f, -1};
+        float[] speeds = {-1, 0, 300, 0.01f, -1};
+        double[] altitudes = {-420, 8848.8, 0, 0.1, -0.1};
+        RouteTrack track = new RouteTrack(ACTIVITY_ID, 5, latitudes, longitudes, times,
+                accuracies, speeds, altitudes);
+
+        assertSameTrack(track, RouteReader.decode(ByteBuffer.wrap(RouteWriter.encode(track))));
+    }
+
+    @Test
+    public void emptyRoute() throws IOException {
+        RouteTrack track = new RouteTrack(ACTIVITY_ID, 0, new double[0], new double[0], new long[0],
+                new float[0], new float[0], new double[0]);
+        byte[] data = RouteWriter.encode(track);
+
+        assertEquals(RouteFormat.HEADER_SIZE, data.length);
+        assertEquals(0, RouteReader.decode(ByteBuffer.wrap(data)).size());
+    }
+
+    @Test
+    public void consecutiveFixesTakeAFewBytes() {
+        // Un punto por segundo: cada columna avanza poco y el delta cabe en 1-3 bytes
+        RouteTrack track = randomTrack(3600, true);
+        int columnBytes = RouteWriter.encode(track).length - RouteFormat.HEADER_SIZE;
+
+        assertTrue("bytes per point " + (double) columnBytes / 3600, columnBytes < 3600 * 12);
+    }
+
+    @Test
+    public void fileRoundTrip() throws IOException {
+        RouteTrack track = randomTrack(1000, true);
+        File file = File.createTempFile("route", RouteFormat.FILE_EXTENSION);
+        try {
+            RouteWriter.write(file, track);
+            assertSameTrack(track, RouteReader.read(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() {
+        byte[] data = RouteWriter.encode(randomTrack(10, true));
+        data[0] = '{';
+        assertRejected(data);
+    }
+
+    @Test
+    public void rejectsUnknownVersions() {
+        byte[] data = RouteWriter.encode(randomTrack(10, true));
+        data[4] = RouteFormat.CURRENT_VERSION + 1;
+        assertRejected(data);
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() {
+        byte[] data = RouteWriter.encode(randomTrack(100, true));
+        assertRejected(Arrays.copyOf(data, RouteFormat.HEADER_SIZE - 1));
+        assertRejected(Arrays.copyOf(data, data.length - 1));
+    }
+
+    @Test
+    public void rejectsPointCountsTheFileCannotHold() {
+        byte[] data = RouteWriter.encode(randomTrack(100, true));
+        // El número de puntos va tras magic, versión, flags, reservado e ID
+        ByteBuffer.wrap(data).putInt(16, Integer.MAX_VALUE);
+        assertRejected(data);
+
+        ByteBuffer.wrap(data).putInt(16, -1);
+        assertRejected(data);
+
+        ByteBuffer.wrap(data).putInt(16, (data.length - RouteFormat.HEADER_SIZE) / RouteFormat.MIN_BYTES_PER_POINT + 1);
+        assertRejected(data);
+    }
+
+    /**
+     * Ruta de un punto por segundo con ruido; algunos puntos sin precisión ni velocidad
+     */
+    private RouteTrack randomTrack(int size, boolean optionalColumns) {
+        double[] latitudes = new double[size];
+        double[] longitudes = new double[size];
+        long[] times = new long[size];
+        float[] accuracies = new float[size];
+        float[] speeds = new float[size];
+        double[] altitudes = new double[size];
+        double latitude = 40.4168;
+        double longitude = -3.7038;
+        long time = 1_700_000_000_000L;
+        double altitude = 650;
+        for (int i = 0; i < size; i++) {
+            latitude += random.nextGaussian() * 2e-5;
+            longitude += random.nextGaussian() * 2e-5;
+            time += 1000 + random.nextInt(50);
+            altitude += random.nextGaussian() * 0.5;
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+            times[i] = time;
+            accuracies[i] = optionalColumns && random.nextInt(10) > 0 ? 3 + random.nextFloat() * 20 : -1;
+            speeds[i] = optionalColumns && random.nextInt(10) > 0 ? random.nextFloat() * 5 : -1;
+            altitudes[i] = optionalColumns ? altitude : 0;
+        }
+        return new RouteTrack(ACTIVITY_ID, size, latitudes, longitudes, times, accuracies, speeds, altitudes);
+    }
+
+    /**
+     * Mismos puntos salvo la cuantización de cada columna
+     */
+    private static void assertSameTrack(RouteTrack expected, RouteTrack actual) {
+        assertEquals(expected.getActivityId(), actual.getActivityId());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            String point = "point " + i;
+            assertEquals(point, expected.getLatitude(i), actual.getLatitude(i), 0.5 / RouteFormat.COORDINATE_SCALE);
+            assertEquals(point, expected.getLongitude(i), actual.getLongitude(i), 0.5 / RouteFormat.COORDINATE_SCALE);
+            assertEquals(point, expected.getTime(i), actual.getTime(i));
+            assertEquals(point, expected.hasAccuracy(i), actual.hasAccuracy(i));
+            if (expected.hasAccuracy(i)) {
+                assertEquals(point, expected.getAccuracy(i), actual.getAccuracy(i), 0.5 / RouteFormat.ACCURACY_SCALE);
+            }
+            assertEquals(point, expected.hasSpeed(i), actual.hasSpeed(i));
+            if (expected.hasSpeed(i)) {
+                assertEquals(point, expected.getSpeed(i), actual.getSpeed(i), 0.5 / RouteFormat.SPEED_SCALE);
+            }
+            assertEquals(point, expected.getAltitude(i), actual.getAltitude(i), 0.5 / RouteFormat.ALTITUDE_SCALE);
+        }
+    }
+
+    private static void assertRejected(byte[] data) {
+        try {
+            RouteReader.decode(ByteBuffer.wrap(data));
+            fail("Decoded a damaged route");
+        } catch (IOException expected) {
+            // Todo fallo de formato llega como IOException
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.trackerhealth.route;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Orden de los puntos al dar la vuelta al búfer, límites de índice y memoria reservada
+ * por punto
+ */
+public class RoutePointBufferTest {
+
+    private static final int CAPACITY = 5;
+
+    private final RoutePointBuffer buffer = new RoutePointBuffer(CAPACITY);
+
+    @Test
+    public void keepsInsertionOrderBeforeFilling() {
+        addPoints(0, 3);
+
+        assertEquals(3, buffer.size());
+        assertPoints(0, 3);
+    }
+
+    @Test
+    public void overwritesTheOldestPointWhenFull() {
+        // Varias vueltas completas y una parcial
+        for (int added = 1; added <= 3 * CAPACITY + 2; added++) {
+            buffer.add(added - 1, -(added - 1), (added - 1) * 1000L);
+
+            int size = Math.min(added, CAPACITY);
+            assertEquals(size, buffer.size());
+            assertPoints(added - size, size);
+        }
+        assertEquals(CAPACITY, buffer.capacity());
+    }
+
+    @Test
+    public void clearStartsOver() {
+        addPoints(0, 7);
+        buffer.clear();
+        assertEquals(0, buffer.size());
+
+        addPoints(100, 2);
+        assertPoints(100, 2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndexesPastTheNewestPoint() {
+        addPoints(0, 7);
+        buffer.getLatitude(CAPACITY);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsNegativeIndexes() {
+        addPoints(0, 2);
+        buffer.getTime(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsRoomForABearing() {
+        new RoutePointBuffer(1);
+    }
+
+    @Test
+    public void bearingUsesTheTwoNewestPoints() {
+        assertEquals(0f, buffer.getLatestBearing(), 0f);
+        // Tras dar la vuelta, el penúltimo y el último están en los extremos del array
+        for (int i = 0; i < CAPACITY; i++) {
+            buffer.add(40, -3, i);
+        }
+        buffer.add(40.001, -3, CAPACITY);
+        assertEquals(0f, buffer.getLatestBearing(), 1e-3f);
+        buffer.add(40.001, -2.999, CAPACITY + 1);
+        assertEquals(90f, buffer.getLatestBearing(), 0.01f);
+    }
+
+    @Test
+    public void addDoesNotAllocate() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+
+        RoutePointBuffer live = new RoutePointBuffer(100);
+        long thread = Thread.currentThread().getId();
+        int updates = 100_000;
+        // Calentamiento, para no medir la compilación del método
+        for (int i = 0; i < updates; i++) {
+            live.add(i, i, i);
+            live.getLatestBearing();
+        }
+
+        long before = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < updates; i++) {
+            live.add(i, i, i);
+            live.getLatestBearing();
+        }
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+        // La propia medida puede reservar algún objeto; por punto debe quedar en cero
+        assertTrue("allocated " + allocated, allocated < updates / 100);
+    }
+
+    private void addPoints(int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            buffer.add(i, -i, i * 1000L);
+        }
+    }
+
+    /**
+     * El búfer contiene los puntos first .. first + count - 1 del más antiguo al más reciente
+     */
+    private void assertPoints(int first, int count) {
+        for (int index = 0; index < count; index++) {
+            int point = first + index;
+            assertEquals(point, buffer.getLatitude(index), 0);
+            assertEquals(-point, buffer.getLongitude(index), 0);
+            assertEquals(point * 1000L, buffer.getTime(index));
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.trackerhealth.route;
+
+import com.example.trackerhealth.util.Geodesy;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comprueba que cada nivel respeta su tolerancia sobre una ruta sintética con curvas y
+ * ruido, y mide el coste de añadir un punto según la longitud de la ruta (solo con
+ * -Pbenchmarks)
+ */
+public class RouteSimplifierTest {
+
+    private static final double ORIGIN_LATITUDE = 40.4168;
+    private static final double ORIGIN_LONGITUDE = -3.7038;
+    private static final double[] TOLERANCES = {1, 4, 16, 64};
+
+    private final Random random = new Random(3);
+
+    @Test
+    public void everyPointStaysWithinTheLevelTolerance() {
+        double[][] route = randomRoute(5000);
+        RouteSimplifier simplifier = new RouteSimplifier();
+        for (int i = 0; i < route[0].length; i++) {
+            simplifier.add(route[0][i], route[1][i]);
+        }
+
+        assertEquals(TOLERANCES.length, simplifier.getLevelCount());
+        assertEquals(5000, simplifier.getInputCount());
+        int previousSize = Integer.MAX_VALUE;
+        for (int level = 0; level < simplifier.getLevelCount(); level++) {
+            int size = simplifier.size(level);
+            assertTrue("level " + level + " has " + size + " points", size < previousSize);
+            previousSize = size;
+
+            // Empieza y acaba en los extremos de la ruta
+            assertEquals(route[0][0], simplifier.getLatitude(level, 0), 0);
+            assertEquals(route[1][0], simplifier.getLongitude(level, 0), 0);
+            assertEquals(route[0][4999], simplifier.getLatitude(level, size - 1), 0);
+            assertEquals(route[1][4999], simplifier.getLongitude(level, size - 1), 0);
+
+            double maxDeviation = 0;
+            for (int i = 0; i < route[0].length; i++) {
+                maxDeviation = Math.max(maxDeviation, distanceToLevel(simplifier, level, route[0][i], route[1][i]));
+            }
+            // Margen por la diferencia entre la proyección de cada ancla y la del test
+            assertTrue("level " + level + " deviates " + maxDeviation,
+                    maxDeviation <= TOLERANCES[level] * 1.001);
+        }
+    }
+
+    @Test
+    public void toleranceIsMeasuredInGeodesyMeters() {
+        // Un punto desplazado hacia el norte justo por debajo o justo por encima de la
+        // tolerancia de cada nivel: un 0,1 % de diferencia en la escala cambiaría el resultado
+        for (int level = 0; level < TOLERANCES.length; level++) {
+            assertEquals("level " + level, 2, bumpedLine(TOLERANCES[level] * 0.9995).size(level));
+            assertEquals("level " + level, 3, bumpedLine(TOLERANCES[level] * 1.0005).size(level));
+        }
+    }
+
+    @Test
+    public void straightLineKeepsOnlyTheWindowEnds() {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        for (int i = 0; i <= 31; i++) {
+            simplifier.add(latitude(i * 5), longitude(i * 5));
+        }
+
+        for (int level = 0; level < simplifier.getLevelCount(); level++) {
+            assertEquals(2, simplifier.size(level));
+        }
+    }
+
+    @Test
+    public void clearStartsANewRoute() {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        double[][] route = randomRoute(300);
+        for (int i = 0; i < route[0].length; i++) {
+            simplifier.add(route[0][i], route[1][i]);
+        }
+        simplifier.clear();
+        simplifier.add(latitude(0), longitude(0));
+
+        assertEquals(1, simplifier.getInputCount());
+        for (int level = 0; level < simplifier.getLevelCount(); level++) {
+            assertEquals(1, simplifier.size(level));
+        }
+    }
+
+    @Test
+    public void levelFollowsTheZoom() {
+        // Unos 0,15 m por píxel: todo el detalle
+        assertEquals(0, RouteSimplifier.levelForZoom(20, 0));
+        // Unos 4,8 m por píxel
+        assertEquals(1, RouteSimplifier.levelForZoom(15, 0));
+        // Unos 150 m por píxel: el nivel más simplificado
+        assertEquals(3, RouteSimplifier.levelForZoom(10, 0));
+        // A 60 grados un píxel cubre la mitad que en el ecuador
+        assertEquals(1, RouteSimplifier.levelForZoom(14, 60));
+    }
+
+    @Test
+    public void addCostDoesNotGrowWithTheRoute() {
+        Assume.assumeTrue("run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        // Coste medio de los últimos 1000 puntos de rutas de 1k, 10k y 50k puntos
+        double[][] route = randomRoute(50_000);
+        int[] lengths = {1_000, 10_000, 50_000};
+        RouteSimplifier simplifier = new RouteSimplifier();
+        for (int round = 0; round < 3; round++) {
+            simplifier.clear();
+            StringBuilder report = new StringBuilder("RouteSimplifier.add:");
+            int added = 0;
+            for (int length : lengths) {
+                for (; added < length - 1000; added++) {
+                    simplifier.add(route[0][added], route[1][added]);
+                }
+                long start = System.nanoTime();
+                for (; added < length; added++) {
+                    simplifier.add(route[0][added], route[1][added]);
+                }
+                report.append(' ').append(length).append(" puntos: ")
+                        .append((System.nanoTime() - start) / 1000).append(" ns/punto");
+            }
+            // La primera ronda calienta el JIT
+            if (round > 0) {
+                System.out.println(report);
+            }
+        }
+        assertEquals(50_000, simplifier.getInputCount());
+    }
+
+    /**
+     * Ruta a 3 m por punto que cambia de rumbo poco a poco, con giros bruscos ocasionales
+     * y 1 m de ruido
+     * @return {latitudes, longitudes}
+     */
+    private double[][] randomRoute(int count) {
+        double[][] route = new double[2][count];
+        double east = 0;
+        double north = 0;
+        double heading = 0;
+        for (int i = 0; i < count; i++) {
+            heading += random.nextInt(50) == 0 ? random.nextGaussian() * 1.5 : random.nextGaussian() * 0.05;
+            east += 3 * Math.cos(heading);
+            north += 3 * Math.sin(heading);
+            route[0][i] = latitude(north + random.nextGaussian());
+            route[1][i] = longitude(east + random.nextGaussian());
+        }
+        return route;
+    }
+
+    /**
+     * Línea de 200 m hacia el este cuyo punto central se desplaza hacia el norte
+     */
+    private static RouteSimplifier bumpedLine(double offsetMeters) {
+        RouteSimplifier simplifier = new RouteSimplifier();
+        simplifier.add(latitude(0), longitude(0));
+        simplifier.add(latitude(offsetMeters), longitude(100));
+        simplifier.add(latitude(0), longitude(200));
+        return simplifier;
+    }
+
+    /**
+     * Distancia en metros de un punto a la polilínea de un nivel
+     */
+    private static double distanceToLevel(RouteSimplifier simplifier, int level, double latitude, double longitude) {
+        double px = east(longitude);
+        double py = north(latitude);
+        double min = Double.MAX_VALUE;
+        for (int i = 1; i < simplifier.size(level); i++) {
+            double ax = east(simplifier.getLongitude(level, i - 1));
+            double ay = north(simplifier.getLatitude(level, i - 1));
+            double bx = east(simplifier.getLongitude(level, i)) - ax;
+            double by = north(simplifier.getLatitude(level, i)) - ay;
+            double lengthSquared = bx * bx + by * by;
+            double t = lengthSquared == 0 ? 0 : ((px - ax) * bx + (py - ay) * by) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+            min = Math.min(min, Math.hypot(px - ax - t * bx, py - ay - t * by));
+        }
+        return min;
+    }
+
+    private static double latitude(double northMeters) {
+        return ORIGIN_LATITUDE + northMeters / Geodesy.METERS_PER_DEGREE;
+    }
+
+    private static double longitude(double eastMeters) {
+        return ORIGIN_LONGITUDE + eastMeters / (Geodesy.METERS_PER_DEGREE * Math.cos(Math.toRadians(ORIGIN_LATITUDE)));
+    }
+
+    private static double east(double longitude) {
+        return (longitude - ORIGIN_LONGITUDE) * Geodesy.METERS_PER_DEGREE * Math.cos(Math.toRadians(ORIGIN_LATITUDE));
+    }
+
+    private static double north(double latitude) {
+        return (latitude - ORIGIN_LATITUDE) * Geodesy.METERS_PER_DEGREE;
+    }
+}
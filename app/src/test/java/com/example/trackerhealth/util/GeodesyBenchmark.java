@@ -0,0 +1,153 @@
+package com.example.trackerhealth.util;
+
+import android.location.Location;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compara {@link Geodesy} con {@link Location#distanceBetween}, que mide sobre el elipsoide
+ * WGS84, y mide el tiempo de recorrer una ruta de 100k puntos con cada uno (solo con
+ * -Pbenchmarks). La esfera de Geodesy se separa del elipsoide como mucho un 0,6 %, según
+ * la latitud y la dirección del segmento.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class GeodesyBenchmark {
+
+    private static final double ORIGIN_LATITUDE = 40.4168;
+    private static final double ORIGIN_LONGITUDE = -3.7038;
+    private static final double RELATIVE_TOLERANCE = 0.006;
+    // Diferencia máxima de rumbo entre la esfera y el elipsoide, en grados
+    private static final float BEARING_TOLERANCE = 0.5f;
+    private static final int POINTS = 100_000;
+    private static final int ROUNDS = 3;
+
+    private final Random random = new Random(11);
+
+    @Test
+    public void shortSegmentsMatchDistanceBetween() {
+        // Pasos del GPS de hasta unos 100 m en cualquier latitud habitada
+        float[] results = new float[1];
+        for (int i = 0; i < 10_000; i++) {
+            double latitude = random.nextDouble() * 140 - 70;
+            double longitude = random.nextDouble() * 360 - 180;
+            double dLat = (random.nextDouble() * 2 - 1) * 1e-3;
+            double dLon = (random.nextDouble() * 2 - 1) * 1e-3;
+
+            Location.distanceBetween(latitude, longitude, latitude + dLat, longitude + dLon, results);
+            assertRelative(results[0], Geodesy.distance(latitude, longitude, latitude + dLat, longitude + dLon));
+        }
+    }
+
+    @Test
+    public void longSegmentsMatchDistanceBetween() {
+        float[] results = new float[1];
+        for (int i = 0; i < 10_000; i++) {
+            double latitude = random.nextDouble() * 140 - 70;
+            double longitude = random.nextDouble() * 360 - 180;
+            double dLat = (random.nextDouble() * 2 - 1) * 5;
+            double dLon = (random.nextDouble() * 2 - 1) * 5;
+
+            Location.distanceBetween(latitude, longitude, latitude + dLat, longitude + dLon, results);
+            assertRelative(results[0], Geodesy.distance(latitude, longitude, latitude + dLat, longitude + dLon));
+        }
+    }
+
+    @Test
+    public void routeMeasuresMatchDistanceBetween() {
+        double[][] route = randomRoute(10_000);
+        long[] times = new long[route[0].length];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = i * 1000L;
+        }
+        float[] distances = new float[times.length - 1];
+        float[] bearings = new float[times.length - 1];
+
+        double total = Geodesy.measureSegments(route[0], route[1], times, times.length,
+                distances, null, null, bearings);
+
+        double expectedTotal = 0;
+        float[] results = new float[2];
+        for (int i = 0; i < distances.length; i++) {
+            Location.distanceBetween(route[0][i], route[1][i], route[0][i + 1], route[1][i + 1], results);
+            expectedTotal += results[0];
+            assertRelative(results[0], distances[i]);
+            // distanceBetween da el rumbo entre -180 y 180
+            float difference = Math.abs((results[1] + 360) % 360 - bearings[i]);
+            assertTrue("segment " + i + " bearing " + bearings[i] + " vs " + results[1],
+                    Math.min(difference, 360 - difference) < BEARING_TOLERANCE);
+        }
+        assertRelative(expectedTotal, total);
+        assertEquals(total, Geodesy.totalDistance(route[0], route[1], 0, route[0].length), 1e-6);
+    }
+
+    @Test
+    public void routeDistanceThroughputVersusDistanceTo() {
+        Assume.assumeTrue("run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        double[][] route = randomRoute(POINTS);
+        Location[] locations = new Location[POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            locations[i] = new Location("benchmark");
+            locations[i].setLatitude(route[0][i]);
+            locations[i].setLongitude(route[1][i]);
+        }
+
+        long bestGeodesy = Long.MAX_VALUE;
+        long bestLocation = Long.MAX_VALUE;
+        double geodesyTotal = 0;
+        double locationTotal = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            geodesyTotal = Geodesy.totalDistance(route[0], route[1], 0, POINTS);
+            long elapsed = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            locationTotal = 0;
+            for (int i = 1; i < POINTS; i++) {
+                locationTotal += locations[i - 1].distanceTo(locations[i]);
+            }
+            long locationElapsed = System.nanoTime() - start;
+
+            // La primera ronda calienta el JIT
+            if (round > 0) {
+                bestGeodesy = Math.min(bestGeodesy, elapsed);
+                bestLocation = Math.min(bestLocation, locationElapsed);
+            }
+        }
+
+        assertRelative(locationTotal, geodesyTotal);
+        System.out.println("Geodesy.totalDistance: " + bestGeodesy / POINTS + " ns/punto, "
+                + "Location.distanceTo: " + bestLocation / POINTS + " ns/punto");
+    }
+
+    private static void assertRelative(double expected, double actual) {
+        assertEquals(expected, actual, expected * RELATIVE_TOLERANCE);
+    }
+
+    /**
+     * Ruta a unos 3 m por punto que cambia de rumbo poco a poco
+     */
+    private double[][] randomRoute(int points) {
+        double[] latitudes = new double[points];
+        double[] longitudes = new double[points];
+        double north = 0;
+        double east = 0;
+        double heading = 0;
+        for (int i = 0; i < points; i++) {
+            heading += random.nextGaussian() * 0.3;
+            north += 3 * Math.cos(heading);
+            east += 3 * Math.sin(heading);
+            latitudes[i] = ORIGIN_LATITUDE + north / Geodesy.METERS_PER_DEGREE;
+            longitudes[i] = ORIGIN_LONGITUDE
+                    + east / (Geodesy.METERS_PER_DEGREE * Math.cos(Math.toRadians(ORIGIN_LATITUDE)));
+        }
+        return new double[][]{latitudes, longitudes};
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.trackerhealth.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compara la proyección equirectangular de {@link Geodesy#distance} con la fórmula de
+ * Haversine a distancias cortas y largas
+ */
+public class GeodesyTest {
+
+    // Límite de la proyección equirectangular en grados, como en Geodesy
+    private static final double SHORT_SEGMENT_DEGREES = 0.01;
+
+    private final Random random = new Random(7);
+
+    @Test
+    public void gpsStepsMatchHaversine() {
+        // Entre puntos del GPS, a unos pocos metros, el error es de redondeo
+        for (int i = 0; i < 10_000; i++) {
+            double latitude = random.nextDouble() * 160 - 80;
+            double longitude = random.nextDouble() * 360 - 180;
+            double dLat = (random.nextDouble() - 0.5) * 2e-4;
+            double dLon = (random.nextDouble() - 0.5) * 2e-4;
+
+            assertEquals(Geodesy.haversine(latitude, longitude, latitude + dLat, longitude + dLon),
+                    Geodesy.distance(latitude, longitude, latitude + dLat, longitude + dLon), 1e-9);
+        }
+    }
+
+    @Test
+    public void shortSegmentsStayWithinAMillimeter() {
+        // Segmentos de hasta 0,01 grados (unos 1,1 km) en cualquier latitud y dirección
+        double maxError = 0;
+        for (int i = 0; i < 100_000; i++) {
+            double latitude = random.nextDouble() * 170 - 85;
+            double longitude = random.nextDouble() * 360 - 180;
+            double dLat = (random.nextDouble() * 2 - 1) * SHORT_SEGMENT_DEGREES * 0.999;
+            double dLon = (random.nextDouble() * 2 - 1) * SHORT_SEGMENT_DEGREES * 0.999;
+
+            double error = Math.abs(Geodesy.distance(latitude, longitude, latitude + dLat, longitude + dLon)
+                    - Geodesy.haversine(latitude, longitude, latitude + dLat, longitude + dLon));
+            maxError = Math.max(maxError, error);
+        }
+        assertTrue("max error " + maxError, maxError < 1e-3);
+    }
+
+    @Test
+    public void projectionIsContinuousAtTheThreshold() {
+        double latitude = 60;
+        double below = Geodesy.distance(latitude, 0, latitude, SHORT_SEGMENT_DEGREES - 1e-9);
+        double above = Geodesy.distance(latitude, 0, latitude, SHORT_SEGMENT_DEGREES + 1e-9);
+
+        assertEquals(below, above, 1e-3);
+    }
+
+    @Test
+    public void longSegmentsUseHaversine() {
+        // Madrid - Barcelona
+        double distance = Geodesy.distance(40.4168, -3.7038, 41.3874, 2.1686);
+
+        assertEquals(Geodesy.haversine(40.4168, -3.7038, 41.3874, 2.1686), distance, 0);
+        assertEquals(505_000, distance, 1_000);
+        // La proyección equirectangular ya se desvía más de cien metros a esta distancia
+        assertTrue(Math.abs(equirectangular(40.4168, -3.7038, 41.3874, 2.1686) - distance) > 100);
+    }
+
+    @Test
+    public void haversineMatchesGreatCircleArcs() {
+        double quarter = Math.PI / 2 * Geodesy.EARTH_RADIUS_METERS;
+
+        assertEquals(quarter, Geodesy.haversine(0, 0, 90, 0), 1e-6);
+        assertEquals(quarter, Geodesy.haversine(0, 0, 0, 90), 1e-6);
+        assertEquals(2 * quarter, Geodesy.haversine(0, 0, 0, 180), 1e-6);
+        assertEquals(Geodesy.METERS_PER_DEGREE, Geodesy.distance(10, 20, 11, 20), 1e-6);
+    }
+
+    @Test
+    public void bearingPointsToTheDestination() {
+        assertEquals(0f, Geodesy.bearing(40, -3, 40.001, -3), 1e-3f);
+        assertEquals(90f, Geodesy.bearing(0, -3, 0, -2.999), 1e-3f);
+        assertEquals(180f, Geodesy.bearing(40, -3, 39.999, -3), 1e-3f);
+        assertEquals(270f, Geodesy.bearing(0, -3, 0, -3.001), 1e-3f);
+    }
+
+    @Test
+    public void totalDistanceSumsTheRange() {
+        double[] latitudes = {40, 40.001, 40.002, 40.002};
+        double[] longitudes = {-3, -3, -3, -2.999};
+        double first = Geodesy.distance(40, -3, 40.001, -3);
+        double last = Geodesy.distance(40.002, -3, 40.002, -2.999);
+
+        assertEquals(2 * first + last, Geodesy.totalDistance(latitudes, longitudes, 0, 4), 1e-9);
+        assertEquals(first + last, Geodesy.totalDistance(latitudes, longitudes, 1, 4), 1e-9);
+        assertEquals(0, Geodesy.totalDistance(latitudes, longitudes, 2, 3), 0);
+    }
+
+    @Test
+    public void measureSegmentsFillsEveryOutput() {
+        // 100 m al norte en 20 s, 100 m al este en 40 s y un punto repetido con el mismo tiempo
+        double step = 100 / Geodesy.METERS_PER_DEGREE;
+        double[] latitudes = {0, step, step, step};
+        double[] longitudes = {0, 0, step, step};
+        long[] times = {0, 20_000, 60_000, 60_000};
+        float[] distances = new float[3];
+        float[] speeds = new float[3];
+        float[] paces = new float[3];
+        float[] bearings = new float[3];
+
+        double total = Geodesy.measureSegments(latitudes, longitudes, times, 4, distances, speeds, paces, bearings);
+
+        assertEquals(200, total, 1e-3);
+        assertEquals(Geodesy.totalDistance(latitudes, longitudes, 0, 4), total, 1e-9);
+        assertEquals(100f, distances[0], 1e-3f);
+        assertEquals(100f, distances[1], 1e-3f);
+        assertEquals(0f, distances[2], 0);
+        assertEquals(5f, speeds[0], 1e-4f);
+        assertEquals(2.5f, speeds[1], 1e-4f);
+        assertEquals(200f, paces[0], 1e-2f);
+        assertEquals(400f, paces[1], 1e-2f);
+        assertEquals(0f, bearings[0], 1e-3f);
+        assertEquals(90f, bearings[1], 1e-3f);
+        // Sin tiempo transcurrido no hay velocidad ni ritmo
+        assertEquals(0f, speeds[2], 0);
+        assertEquals(0f, paces[2], 0);
+
+        // Las salidas son opcionales
+        assertEquals(total, Geodesy.measureSegments(latitudes, longitudes, times, 4, null, null, null, null), 0);
+    }
+
+    @Test
+    public void paceIsSecondsPerKilometer() {
+        assertEquals(300, Geodesy.pace(1000, 300_000), 1e-9);
+        assertEquals(0, Geodesy.pace(0, 300_000), 0);
+    }
+
+    private static double equirectangular(double lat1, double lon1, double lat2, double lon2) {
+        double x = (lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        return Geodesy.METERS_PER_DEGREE * Math.hypot(x, lat2 - lat1);
+    }
+}